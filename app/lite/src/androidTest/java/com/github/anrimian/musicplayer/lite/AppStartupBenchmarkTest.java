@@ -0,0 +1,77 @@
+package com.github.anrimian.musicplayer.lite;
+
+import android.app.Instrumentation;
+import android.content.Context;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.github.anrimian.musicplayer.utils.Permissions;
+
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Measures time of application creation on main thread and time until main thread becomes idle,
+ * including work which is deferred to idle handler (widget and storage observer).
+ * Classes are already loaded by application of test process, so result shows creation of
+ * dependency graphs, not process start. Grant storage permission to measure library startup work.
+ * Run with instrumentation argument: -e benchmark true
+ */
+public class AppStartupBenchmarkTest {
+
+    private static final String TAG = "StartupBenchmark";
+
+    private static final int ITERATIONS = 5;
+
+    private final Instrumentation instrumentation = InstrumentationRegistry.getInstrumentation();
+
+    @BeforeEach
+    public void setUp() {
+        Assumptions.assumeTrue(Boolean.parseBoolean(
+                InstrumentationRegistry.getArguments().getString("benchmark")
+        ));
+    }
+
+    @Test
+    public void measureAppCreateTime() throws Exception {
+        Context context = instrumentation.getTargetContext();
+        Log.d(TAG, "file permission: " + Permissions.hasFilePermission(context));
+
+        long[] createTimes = new long[ITERATIONS];
+        long[] idleTimes = new long[ITERATIONS];
+        for (int i = 0; i < ITERATIONS; i++) {
+            int iteration = i;
+            Exception[] error = new Exception[1];
+            instrumentation.runOnMainSync(() -> {
+                long startTime = System.nanoTime();
+                try {
+                    LiteApp app = (LiteApp) Instrumentation.newApplication(LiteApp.class, context);
+                    app.onCreate();
+                } catch (Exception e) {
+                    error[0] = e;
+                    return;
+                }
+                createTimes[iteration] = System.nanoTime() - startTime;
+                //added after handlers of application, so it is called when they are done
+                Looper.myQueue().addIdleHandler(() -> {
+                    idleTimes[iteration] = System.nanoTime() - startTime;
+                    return false;
+                });
+            });
+            if (error[0] != null) {
+                throw error[0];
+            }
+            instrumentation.waitForIdleSync();
+        }
+
+        for (int i = 0; i < ITERATIONS; i++) {
+            Log.d(TAG, "iteration " + i
+                    + ", app create: " + createTimes[i] / 1000L + " us"
+                    + ", main thread idle: " + idleTimes[i] / 1000L + " us");
+        }
+    }
+
+}
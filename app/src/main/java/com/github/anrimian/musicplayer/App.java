@@ -1,11 +1,14 @@
 package com.github.anrimian.musicplayer;
 
 import android.app.Application;
+import android.os.Looper;
 
 import androidx.appcompat.app.AppCompatDelegate;
 
+import com.github.anrimian.musicplayer.data.utils.dev.PerformanceMetrics;
 import com.github.anrimian.musicplayer.di.Components;
 import com.github.anrimian.musicplayer.di.app.AppComponent;
+import com.github.anrimian.musicplayer.domain.models.player.PlayerState;
 import com.github.anrimian.musicplayer.domain.utils.rx.RxJavaErrorConsumer;
 import com.github.anrimian.musicplayer.utils.Permissions;
 
@@ -19,6 +22,7 @@ public abstract class App extends Application {
 
     @Override
     public void onCreate() {
+        long createTime = System.nanoTime();
         super.onCreate();
         RxJavaPlugins.setErrorHandler(new RxJavaErrorConsumer());
         AppCompatDelegate.setCompatVectorFromResourcesEnabled(true);
@@ -29,15 +33,58 @@ public abstract class App extends Application {
 
         AppComponent appComponent = Components.getAppComponent();
         appComponent.appLogger().initFatalErrorRecorder();
+        appComponent.appLogger().initPerformanceMetrics();
 
         if (Permissions.hasFilePermission(this)
                 && !appComponent.loggerRepository().wasCriticalFatalError()
         ) {
-            appComponent.widgetUpdater().start();
-            appComponent.mediaScannerRepository().runStorageObserver();
+            trackStartupTime(appComponent, createTime);
+            runOnIdle(appComponent);
+        }
+        PerformanceMetrics.recordDuration(PerformanceMetrics.STARTUP_APP_CREATE,
+                System.nanoTime() - createTime);
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        if (level >= TRIM_MEMORY_UI_HIDDEN) {
+            Components.getAppComponent().uiStateRepository().flush();
         }
     }
 
     protected abstract void initComponents();
 
+    //widget and storage scan compete for disk and database with first screen and with restoring
+    //of playback, so they and their dependencies are created when main thread has done startup work.
+    //Queue item is restored by first screen or by service, widget only follows it
+    private void runOnIdle(AppComponent appComponent) {
+        Looper.myQueue().addIdleHandler(() -> {
+            appComponent.widgetUpdater().start();
+            appComponent.mediaScannerRepository().runStorageObserver();
+            return false;
+        });
+    }
+
+    private void trackStartupTime(AppComponent appComponent, long createTime) {
+        if (!PerformanceMetrics.isEnabled()) {
+            return;
+        }
+        appComponent.libraryPlayerInteractor()
+                .getCurrentQueueItemObservable()
+                .firstElement()
+                .subscribe(event -> PerformanceMetrics.recordDuration(
+                        PerformanceMetrics.STARTUP_QUEUE_ITEM_RESTORE,
+                        System.nanoTime() - createTime
+                ));
+        appComponent.libraryPlayerInteractor()
+                .getPlayerStateObservable()
+                .filter(state -> state == PlayerState.PLAY)
+                .firstElement()
+                .subscribe(state -> PerformanceMetrics.recordDuration(
+                        PerformanceMetrics.STARTUP_FIRST_PLAY,
+                        System.nanoTime() - createTime
+                ));
+    }
+
 }
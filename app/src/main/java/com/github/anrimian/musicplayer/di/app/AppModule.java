@@ -1,5 +1,6 @@
 package com.github.anrimian.musicplayer.di.app;
 
+import static com.github.anrimian.musicplayer.di.app.SchedulerModule.IO_SCHEDULER;
 import static com.github.anrimian.musicplayer.di.app.SchedulerModule.UI_SCHEDULER;
 
 import android.content.Context;
@@ -87,8 +88,8 @@ public class AppModule {
     @Provides
     @Nonnull
     @Singleton
-    FileLog fileLog(Context context) {
-        return new FileLog(context);
+    FileLog fileLog(Context context, @Named(IO_SCHEDULER) Scheduler scheduler) {
+        return new FileLog(context, scheduler);
     }
 
     @Provides
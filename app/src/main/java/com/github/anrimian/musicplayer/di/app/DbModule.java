@@ -100,8 +100,8 @@ public class DbModule {
     @Provides
     @Nonnull
     @Singleton
-    ArtistsDaoWrapper artistsDaoWrapper(ArtistsDao artistsDao) {
-        return new ArtistsDaoWrapper(artistsDao);
+    ArtistsDaoWrapper artistsDaoWrapper(AppDatabase appDatabase, ArtistsDao artistsDao) {
+        return new ArtistsDaoWrapper(appDatabase, artistsDao);
     }
 
     @Provides
@@ -119,11 +119,13 @@ public class DbModule {
     CompositionsDaoWrapper compositionsDaoWrapper(AppDatabase appDatabase,
                                                   ArtistsDao artistsDao,
                                                   CompositionsDao compositionsDao,
-                                                  AlbumsDao albumsDao) {
+                                                  AlbumsDao albumsDao,
+                                                  FoldersDao foldersDao) {
         return new CompositionsDaoWrapper(appDatabase,
                 artistsDao,
                 compositionsDao,
-                albumsDao
+                albumsDao,
+                foldersDao
         );
     }
 
@@ -28,6 +28,7 @@ import com.github.anrimian.musicplayer.data.repositories.play_queue.PlayQueueRep
 import com.github.anrimian.musicplayer.data.storage.files.StorageFilesDataSource;
 import com.github.anrimian.musicplayer.data.storage.providers.music.StorageMusicProvider;
 import com.github.anrimian.musicplayer.data.storage.source.CompositionSourceEditor;
+import com.github.anrimian.musicplayer.data.storage.source.ArtworkThumbnailCache;
 import com.github.anrimian.musicplayer.data.storage.source.CompositionSourceProvider;
 import com.github.anrimian.musicplayer.domain.controllers.MusicPlayerController;
 import com.github.anrimian.musicplayer.domain.controllers.SystemMusicController;
@@ -219,11 +220,13 @@ public class MusicModule {
     CompositionSourceProvider sourceRepository(CompositionsDaoWrapper compositionsDao,
                                                StorageMusicProvider storageMusicProvider,
                                                CompositionSourceEditor compositionSourceEditor,
+                                               ArtworkThumbnailCache artworkThumbnailCache,
                                                @Named(DB_SCHEDULER) Scheduler scheduler) {
         return new CompositionSourceProvider(
                 compositionsDao,
                 storageMusicProvider,
                 compositionSourceEditor,
+                artworkThumbnailCache,
                 scheduler
         );
     }
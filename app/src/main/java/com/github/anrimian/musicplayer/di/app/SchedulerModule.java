@@ -1,5 +1,7 @@
 package com.github.anrimian.musicplayer.di.app;
 
+import android.os.Process;
+
 import androidx.annotation.NonNull;
 
 import java.util.concurrent.Executors;
@@ -24,6 +26,15 @@ public class SchedulerModule {
     public static final String UI_SCHEDULER = "ui_scheduler";
     public static final String DB_SCHEDULER = "db_scheduler";
     public static final String SLOW_BG_SCHEDULER = "slow_bg_scheduler";
+    public static final String FILE_SCANNER_SCHEDULER = "file_scanner_scheduler";
+    public static final String FILE_EDITOR_SCHEDULER = "file_editor_scheduler";
+    public static final String LOUDNESS_ANALYZER_SCHEDULER = "loudness_analyzer_scheduler";
+
+    //leave one core for ui and playback
+    public static final int FILE_SCANNER_THREADS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+
+    //file edit is limited by storage write speed, more threads don't help
+    public static final int FILE_EDITOR_THREADS = 2;
 
     @Provides
     @NonNull
@@ -56,4 +67,32 @@ public class SchedulerModule {
     Scheduler provideSlowBgScheduler() {
         return Schedulers.from(Executors.newSingleThreadExecutor());
     }
+
+    @Provides
+    @NonNull
+    @Named(FILE_SCANNER_SCHEDULER)
+    @Singleton
+    Scheduler provideFileScannerScheduler() {
+        return Schedulers.from(Executors.newFixedThreadPool(FILE_SCANNER_THREADS));
+    }
+
+    @Provides
+    @NonNull
+    @Named(FILE_EDITOR_SCHEDULER)
+    @Singleton
+    Scheduler provideFileEditorScheduler() {
+        return Schedulers.from(Executors.newFixedThreadPool(FILE_EDITOR_THREADS));
+    }
+
+    //background work which must not compete with playback, interruptible to stop decoding on cancel
+    @Provides
+    @NonNull
+    @Named(LOUDNESS_ANALYZER_SCHEDULER)
+    @Singleton
+    Scheduler provideLoudnessAnalyzerScheduler() {
+        return Schedulers.from(Executors.newSingleThreadExecutor(runnable -> new Thread(() -> {
+            Process.setThreadPriority(Process.THREAD_PRIORITY_LOWEST);
+            runnable.run();
+        }, "loudness_analyzer")), true);
+    }
 }
@@ -1,5 +1,6 @@
 package com.github.anrimian.musicplayer.di.app;
 
+import static com.github.anrimian.musicplayer.di.app.SchedulerModule.SLOW_BG_SCHEDULER;
 import static com.github.anrimian.musicplayer.di.app.SchedulerModule.UI_SCHEDULER;
 
 import android.content.Context;
@@ -47,8 +48,9 @@ public class SettingsModule {
     @Provides
     @Nonnull
     @Singleton
-    UiStateRepository provideUiStateRepository(Context context) {
-        return new UiStateRepositoryImpl(context);
+    UiStateRepository provideUiStateRepository(Context context,
+                                               @Named(SLOW_BG_SCHEDULER) Scheduler scheduler) {
+        return new UiStateRepositoryImpl(context, scheduler);
     }
 
     @Provides
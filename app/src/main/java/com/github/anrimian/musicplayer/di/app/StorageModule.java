@@ -1,7 +1,14 @@
 package com.github.anrimian.musicplayer.di.app;
 
 import static com.github.anrimian.musicplayer.di.app.SchedulerModule.DB_SCHEDULER;
+import static com.github.anrimian.musicplayer.di.app.SchedulerModule.FILE_EDITOR_SCHEDULER;
+import static com.github.anrimian.musicplayer.di.app.SchedulerModule.FILE_EDITOR_THREADS;
+import static com.github.anrimian.musicplayer.di.app.SchedulerModule.FILE_SCANNER_SCHEDULER;
+import static com.github.anrimian.musicplayer.di.app.SchedulerModule.FILE_SCANNER_THREADS;
 import static com.github.anrimian.musicplayer.di.app.SchedulerModule.IO_SCHEDULER;
+import static com.github.anrimian.musicplayer.di.app.SchedulerModule.LOUDNESS_ANALYZER_SCHEDULER;
+import static com.github.anrimian.musicplayer.domain.Constants.STORAGE_EVENTS_MAX_COALESCE_WINDOW_MILLIS;
+import static com.github.anrimian.musicplayer.domain.Constants.STORAGE_EVENTS_MIN_COALESCE_WINDOW_MILLIS;
 
 import android.content.Context;
 import android.os.Build;
@@ -23,6 +30,8 @@ import com.github.anrimian.musicplayer.data.repositories.scanner.MediaScannerRep
 import com.github.anrimian.musicplayer.data.repositories.scanner.StorageCompositionAnalyzer;
 import com.github.anrimian.musicplayer.data.repositories.scanner.StoragePlaylistAnalyzer;
 import com.github.anrimian.musicplayer.data.repositories.scanner.files.FileScanner;
+import com.github.anrimian.musicplayer.data.repositories.scanner.loudness.CompositionLoudnessReader;
+import com.github.anrimian.musicplayer.data.repositories.scanner.loudness.LoudnessAnalyzer;
 import com.github.anrimian.musicplayer.data.storage.files.StorageFilesDataSource;
 import com.github.anrimian.musicplayer.data.storage.files.StorageFilesDataSourceApi30;
 import com.github.anrimian.musicplayer.data.storage.files.StorageFilesDataSourceImpl;
@@ -30,8 +39,12 @@ import com.github.anrimian.musicplayer.data.storage.providers.albums.StorageAlbu
 import com.github.anrimian.musicplayer.data.storage.providers.genres.StorageGenresProvider;
 import com.github.anrimian.musicplayer.data.storage.providers.music.StorageMusicProvider;
 import com.github.anrimian.musicplayer.data.storage.providers.playlists.StoragePlayListsProvider;
+import com.github.anrimian.musicplayer.data.storage.source.ArtworkThumbnailCache;
 import com.github.anrimian.musicplayer.data.storage.source.CompositionSourceEditor;
+import com.github.anrimian.musicplayer.data.storage.source.CompositionSourceProvider;
 import com.github.anrimian.musicplayer.data.storage.source.FileSourceProvider;
+import com.github.anrimian.musicplayer.data.utils.file.FileUtils;
+import com.github.anrimian.musicplayer.data.utils.rx.content_observer.ChangeCoalescer;
 import com.github.anrimian.musicplayer.domain.interactors.analytics.Analytics;
 import com.github.anrimian.musicplayer.domain.interactors.editor.EditorInteractor;
 import com.github.anrimian.musicplayer.domain.repositories.EditorRepository;
@@ -41,17 +54,28 @@ import com.github.anrimian.musicplayer.domain.repositories.MediaScannerRepositor
 import com.github.anrimian.musicplayer.domain.repositories.SettingsRepository;
 import com.github.anrimian.musicplayer.domain.repositories.StateRepository;
 
+import java.io.File;
+
 import javax.annotation.Nonnull;
 import javax.inject.Named;
 import javax.inject.Singleton;
 
+import dagger.Lazy;
 import dagger.Module;
 import dagger.Provides;
 import io.reactivex.rxjava3.core.Scheduler;
+import io.reactivex.rxjava3.schedulers.Schedulers;
 
 @Module
 public class StorageModule {
 
+    private static final int FILE_SCANNER_BATCH_SIZE = 50;
+    private static final int LOUDNESS_ANALYZER_BATCH_SIZE = 20;
+    //times of real time
+    private static final int LOUDNESS_ANALYZER_MAX_SPEED = 10;
+    private static final long ARTWORK_THUMBNAILS_MAX_BYTES = 100L * 1024 * 1024;
+    private static final String ARTWORK_THUMBNAILS_DIRECTORY = "artwork_thumbnails";
+
     @Provides
     @Nonnull
     @Singleton
@@ -80,12 +104,26 @@ public class StorageModule {
         return new FileSourceProvider(context);
     }
 
+    @Provides
+    @Nonnull
+    @Singleton
+    ArtworkThumbnailCache artworkThumbnailCache(Context context) {
+        return new ArtworkThumbnailCache(
+                new File(context.getCacheDir(), ARTWORK_THUMBNAILS_DIRECTORY),
+                ARTWORK_THUMBNAILS_MAX_BYTES,
+                FileUtils::createThumbnail);
+    }
+
     @Provides
     @Nonnull
     @Singleton
     CompositionSourceEditor compositionSourceEditor(StorageMusicProvider musicProvider,
-                                                    FileSourceProvider fileSourceProvider) {
-        return new CompositionSourceEditor(musicProvider, fileSourceProvider);
+                                                    FileSourceProvider fileSourceProvider,
+                                                    @Named(FILE_EDITOR_SCHEDULER) Scheduler editorScheduler) {
+        return new CompositionSourceEditor(musicProvider,
+                fileSourceProvider,
+                editorScheduler,
+                FILE_EDITOR_THREADS);
     }
 
     @Provides
@@ -140,10 +178,38 @@ public class StorageModule {
     @Singleton
     FileScanner fileScanner(CompositionsDaoWrapper compositionsDao,
                             CompositionSourceEditor compositionSourceEditor,
+                            ArtworkThumbnailCache artworkThumbnailCache,
                             StateRepository stateRepository,
                             Analytics analytics,
-                            @Named(IO_SCHEDULER) Scheduler scheduler) {
-        return new FileScanner(compositionsDao, compositionSourceEditor, stateRepository, analytics, scheduler);
+                            @Named(IO_SCHEDULER) Scheduler scheduler,
+                            @Named(FILE_SCANNER_SCHEDULER) Scheduler workerScheduler) {
+        return new FileScanner(compositionsDao,
+                compositionSourceEditor,
+                artworkThumbnailCache,
+                stateRepository,
+                analytics,
+                scheduler,
+                workerScheduler,
+                FILE_SCANNER_THREADS,
+                FILE_SCANNER_BATCH_SIZE);
+    }
+
+    @Provides
+    @Nonnull
+    @Singleton
+    LoudnessAnalyzer loudnessAnalyzer(Context context,
+                                      CompositionsDaoWrapper compositionsDao,
+                                      CompositionSourceProvider sourceProvider,
+                                      Analytics analytics,
+                                      @Named(LOUDNESS_ANALYZER_SCHEDULER) Scheduler scheduler) {
+        CompositionLoudnessReader loudnessReader = new CompositionLoudnessReader(context,
+                sourceProvider,
+                LOUDNESS_ANALYZER_MAX_SPEED);
+        return new LoudnessAnalyzer(compositionsDao,
+                loudnessReader,
+                analytics,
+                scheduler,
+                LOUDNESS_ANALYZER_BATCH_SIZE);
     }
 
     @Provides
@@ -155,23 +221,32 @@ public class StorageModule {
                                                   CompositionsDaoWrapper compositionsDao,
                                                   GenresDaoWrapper genresDao,
                                                   SettingsRepository settingsRepository,
+                                                  StateRepository stateRepository,
                                                   StorageCompositionAnalyzer compositionAnalyzer,
                                                   StoragePlaylistAnalyzer storagePlaylistAnalyzer,
                                                   FileScanner fileScanner,
+                                                  Lazy<LoudnessAnalyzer> loudnessAnalyzer,
                                                   LoggerRepository loggerRepository,
                                                   Analytics analytics,
                                                   @Named(IO_SCHEDULER) Scheduler scheduler) {
+        ChangeCoalescer changeCoalescer = new ChangeCoalescer(Schedulers.computation(),
+                scheduler,
+                STORAGE_EVENTS_MIN_COALESCE_WINDOW_MILLIS,
+                STORAGE_EVENTS_MAX_COALESCE_WINDOW_MILLIS);
         return new MediaScannerRepositoryImpl(musicProvider,
                 playListsProvider,
                 genresProvider,
                 compositionsDao,
                 genresDao,
                 settingsRepository,
+                stateRepository,
                 compositionAnalyzer,
                 storagePlaylistAnalyzer,
                 fileScanner,
+                loudnessAnalyzer::get,
                 loggerRepository,
                 analytics,
+                changeCoalescer,
                 scheduler);
     }
 
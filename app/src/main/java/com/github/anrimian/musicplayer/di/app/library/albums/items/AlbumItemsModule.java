@@ -14,6 +14,7 @@ import dagger.Module;
 import dagger.Provides;
 import io.reactivex.rxjava3.core.Scheduler;
 
+import static com.github.anrimian.musicplayer.di.app.SchedulerModule.IO_SCHEDULER;
 import static com.github.anrimian.musicplayer.di.app.SchedulerModule.UI_SCHEDULER;
 
 @Module
@@ -32,13 +33,15 @@ public class AlbumItemsModule {
                                             LibraryPlayerInteractor playerInteractor,
                                             DisplaySettingsInteractor displaySettingsInteractor,
                                             ErrorParser errorParser,
-                                            @Named(UI_SCHEDULER) Scheduler uiScheduler) {
+                                            @Named(UI_SCHEDULER) Scheduler uiScheduler,
+                                            @Named(IO_SCHEDULER) Scheduler ioScheduler) {
         return new AlbumItemsPresenter(id,
                 interactor,
                 playListsInteractor,
                 playerInteractor,
                 displaySettingsInteractor,
                 errorParser,
-                uiScheduler);
+                uiScheduler,
+                ioScheduler);
     }
 }
@@ -63,6 +63,8 @@ private const val PLAYLIST_ITEMS_NODE_ID = "playlist_items_node_id"
 
 const val DELIMITER = '-'
 
+private const val PAGE_CACHE_SIZE = 32
+
 //strange initial state(random? just in case of install while android auto is active?)
 
 //later improvements:
@@ -71,9 +73,12 @@ const val DELIMITER = '-'
 //remove skip to next when it is not enabled? https://stackoverflow.com/a/45698216/5541688
 class AppMediaBrowserService: MediaBrowserServiceCompat() {
 
+    //one change subscription per parent item with loaded pages, kept until parent update
     private val itemUpdateDisposableMap = HashMap<String, Disposable>()
     private var currentRequestDisposable: Disposable? = null
 
+    private val pageCache = ItemsPageCache<MediaBrowserCompat.MediaItem>(PAGE_CACHE_SIZE)
+
     override fun onCreate() {
         super.onCreate()
         val mediaSessionHandler = Components.getAppComponent().mediaSessionHandler()
@@ -99,17 +104,26 @@ class AppMediaBrowserService: MediaBrowserServiceCompat() {
         parentId: String,
         resultCallback: Result<List<MediaBrowserCompat.MediaItem>>
     ) {
+        onLoadChildren(parentId, resultCallback, Bundle.EMPTY)
+    }
+
+    override fun onLoadChildren(
+        parentId: String,
+        resultCallback: Result<List<MediaBrowserCompat.MediaItem>>,
+        options: Bundle
+    ) {
+        val page = ItemsPage.from(options)
         when {
             parentId == RECENT_MEDIA_ROOT_ID -> loadRecentItem(resultCallback)
-            parentId == ROOT_ID -> loadRootItems(resultCallback)
-            parentId == COMPOSITIONS_NODE_ID -> loadCompositionItems(resultCallback)
-            parentId.startsWith(FOLDERS_NODE_ID) -> loadFolderItems(resultCallback, parentId)
-            parentId == ARTISTS_NODE_ID -> loadArtists(resultCallback)
-            parentId.startsWith(ARTIST_ITEMS_NODE_ID) -> loadArtistItems(resultCallback, parentId)
-            parentId == ALBUMS_NODE_ID -> loadAlbums(resultCallback)
-            parentId.startsWith(ALBUM_ITEMS_NODE_ID) -> loadAlbumItems(resultCallback, parentId)
-            parentId == PLAYLISTS_NODE_ID -> loadPlaylists(resultCallback)
-            parentId.startsWith(PLAYLIST_ITEMS_NODE_ID) -> loadPlaylistItems(resultCallback, parentId)
+            parentId == ROOT_ID -> loadRootItems(resultCallback, page)
+            parentId == COMPOSITIONS_NODE_ID -> loadCompositionItems(resultCallback, page)
+            parentId.startsWith(FOLDERS_NODE_ID) -> loadFolderItems(resultCallback, page, parentId)
+            parentId == ARTISTS_NODE_ID -> loadArtists(resultCallback, page)
+            parentId.startsWith(ARTIST_ITEMS_NODE_ID) -> loadArtistItems(resultCallback, page, parentId)
+            parentId == ALBUMS_NODE_ID -> loadAlbums(resultCallback, page)
+            parentId.startsWith(ALBUM_ITEMS_NODE_ID) -> loadAlbumItems(resultCallback, page, parentId)
+            parentId == PLAYLISTS_NODE_ID -> loadPlaylists(resultCallback, page)
+            parentId.startsWith(PLAYLIST_ITEMS_NODE_ID) -> loadPlaylistItems(resultCallback, page, parentId)
             else -> resultCallback.sendResult(emptyList())
         }
     }
@@ -128,8 +142,7 @@ class AppMediaBrowserService: MediaBrowserServiceCompat() {
 
         currentRequestDisposable = Components.getAppComponent()
             .musicServiceInteractor()
-            .getCompositionsObservable(query)
-            .firstOrError()
+            .searchCompositions(query)
             .subscribe(
                 { value -> resultCallback.sendResult(value.mapIndexed { position, composition ->
                     toSearchActionItem(position, composition, query)
@@ -142,6 +155,8 @@ class AppMediaBrowserService: MediaBrowserServiceCompat() {
         super.onDestroy()
         currentRequestDisposable?.dispose()
         itemUpdateDisposableMap.forEach { entry -> entry.value.dispose() }
+        itemUpdateDisposableMap.clear()
+        pageCache.clear()
         Components.getAppComponent().mediaSessionHandler().dispatchServiceDestroyed()
     }
 
@@ -157,96 +172,146 @@ class AppMediaBrowserService: MediaBrowserServiceCompat() {
     }
 
     //use only alphabetical order?
-    private fun loadCompositionItems(resultCallback: Result<List<MediaBrowserCompat.MediaItem>>) {
+    private fun loadCompositionItems(
+        resultCallback: Result<List<MediaBrowserCompat.MediaItem>>,
+        page: ItemsPage
+    ) {
+        val musicServiceInteractor = Components.getAppComponent().musicServiceInteractor()
         loadItems(
             COMPOSITIONS_NODE_ID,
+            page,
             resultCallback,
-            Components.getAppComponent().musicServiceInteractor().getCompositionsObservable(null)
-        ) { compositions -> compositions.mapIndexed(this::toActionItem) }
+            musicServiceInteractor.getCompositionsPageObservable(page.offset, page.limit),
+            musicServiceInteractor.compositionsChangeObservable
+        ) { compositions -> compositions.mapIndexed { index, composition ->
+            toActionItem(page.offset + index, composition)
+        }
+        }
     }
 
     private fun loadFolderItems(
         resultCallback: Result<List<MediaBrowserCompat.MediaItem>>,
+        page: ItemsPage,
         folderNodeId: String
     ) {
         val parentFolderId = folderNodeId.split(DELIMITER).last().toLongOrNull()
+        val observable = Components.getAppComponent().musicServiceInteractor()
+            .getFoldersObservable(parentFolderId)
         loadItems(
             folderNodeId,
+            page,
             resultCallback,
-            Components.getAppComponent().musicServiceInteractor().getFoldersObservable(parentFolderId)
-        ) { sources -> sources.map { source -> toActionItem(source, parentFolderId) } }
+            observable,
+            observable.toChangeObservable()
+        ) { sources -> page.of(sources).map { source -> toActionItem(source, parentFolderId) } }
     }
 
-    private fun loadArtists(resultCallback: Result<List<MediaBrowserCompat.MediaItem>>) {
+    private fun loadArtists(
+        resultCallback: Result<List<MediaBrowserCompat.MediaItem>>,
+        page: ItemsPage
+    ) {
+        val musicServiceInteractor = Components.getAppComponent().musicServiceInteractor()
         loadItems(
             ARTISTS_NODE_ID,
+            page,
             resultCallback,
-            Components.getAppComponent().musicServiceInteractor().artistsObservable
+            musicServiceInteractor.getArtistsPageObservable(page.offset, page.limit),
+            musicServiceInteractor.artistsChangeObservable
         ) { sources -> sources.map(this::toBrowsableItem) }
     }
 
     private fun loadArtistItems(
         resultCallback: Result<List<MediaBrowserCompat.MediaItem>>,
+        page: ItemsPage,
         nodeId: String
     ) {
         val artistId = nodeId.split(DELIMITER).last().toLong()
+        val observable = Components.getAppComponent().musicServiceInteractor()
+            .getCompositionsByArtist(artistId)
         loadItems(
             nodeId,
+            page,
             resultCallback,
-            Components.getAppComponent().musicServiceInteractor().getCompositionsByArtist(artistId)
-        ) { sources -> sources.mapIndexed { position, composition ->
-            toActionArtistItem(position, composition, artistId)
+            observable,
+            observable.toChangeObservable()
+        ) { sources -> page.of(sources).mapIndexed { index, composition ->
+            toActionArtistItem(page.offset + index, composition, artistId)
         }
         }
     }
 
-    private fun loadAlbums(resultCallback: Result<List<MediaBrowserCompat.MediaItem>>) {
+    private fun loadAlbums(
+        resultCallback: Result<List<MediaBrowserCompat.MediaItem>>,
+        page: ItemsPage
+    ) {
+        val musicServiceInteractor = Components.getAppComponent().musicServiceInteractor()
         loadItems(
             ALBUMS_NODE_ID,
+            page,
             resultCallback,
-            Components.getAppComponent().musicServiceInteractor().albumsObservable
+            musicServiceInteractor.getAlbumsPageObservable(page.offset, page.limit),
+            musicServiceInteractor.albumsChangeObservable
         ) { sources -> sources.map(this::toBrowsableItem) }
     }
 
     private fun loadAlbumItems(
         resultCallback: Result<List<MediaBrowserCompat.MediaItem>>,
+        page: ItemsPage,
         nodeId: String
     ) {
         val albumId = nodeId.split(DELIMITER).last().toLong()
+        val observable = Components.getAppComponent().musicServiceInteractor()
+            .getAlbumItemsObservable(albumId)
         loadItems(
             nodeId,
+            page,
             resultCallback,
-            Components.getAppComponent().musicServiceInteractor().getAlbumItemsObservable(albumId)
-        ) { sources -> sources.mapIndexed { position, composition ->
-            toActionAlbumItem(position, composition, albumId)
+            observable,
+            observable.toChangeObservable()
+        ) { sources -> page.of(sources).mapIndexed { index, composition ->
+            toActionAlbumItem(page.offset + index, composition, albumId)
         }
         }
     }
 
-    private fun loadPlaylists(resultCallback: Result<List<MediaBrowserCompat.MediaItem>>) {
+    private fun loadPlaylists(
+        resultCallback: Result<List<MediaBrowserCompat.MediaItem>>,
+        page: ItemsPage
+    ) {
+        val observable = Components.getAppComponent().musicServiceInteractor().playListsObservable
         loadItems(
             PLAYLISTS_NODE_ID,
+            page,
             resultCallback,
-            Components.getAppComponent().musicServiceInteractor().playListsObservable
-        ) { sources -> sources.map(this::toBrowsableItem) }
+            observable,
+            observable.toChangeObservable()
+        ) { sources -> page.of(sources).map(this::toBrowsableItem) }
     }
 
     private fun loadPlaylistItems(
         resultCallback: Result<List<MediaBrowserCompat.MediaItem>>,
+        page: ItemsPage,
         nodeId: String
     ) {
         val playlistId = nodeId.split(DELIMITER).last().toLong()
+        val observable = Components.getAppComponent().musicServiceInteractor()
+            .getPlaylistItemsObservable(playlistId)
         loadItems(
             nodeId,
+            page,
             resultCallback,
-            Components.getAppComponent().musicServiceInteractor().getPlaylistItemsObservable(playlistId)
-        ) { sources -> sources.mapIndexed { position, composition ->
-            toActionPlaylistItem(position, composition, playlistId)
+            observable,
+            observable.toChangeObservable()
+        ) { sources -> page.of(sources).mapIndexed { index, composition ->
+            toActionPlaylistItem(page.offset + index, composition, playlistId)
         }
         }
     }
 
-    private fun loadRootItems(resultCallback: Result<List<MediaBrowserCompat.MediaItem>>) {
+    private fun loadRootItems(
+        resultCallback: Result<List<MediaBrowserCompat.MediaItem>>,
+        page: ItemsPage
+    ) {
         val libraryPlayerInteractor = Components.getAppComponent().libraryPlayerInteractor()
         val observable = Observable.combineLatest(
             libraryPlayerInteractor.playQueueSizeObservable,
@@ -256,10 +321,12 @@ class AppMediaBrowserService: MediaBrowserServiceCompat() {
 
         loadItems(
             ROOT_ID,
+            page,
             resultCallback,
-            observable
+            observable,
+            observable.toChangeObservable()
         ) { (playQueueSize, playerState) ->
-            return@loadItems arrayListOf<MediaBrowserCompat.MediaItem>().apply {
+            val items = arrayListOf<MediaBrowserCompat.MediaItem>().apply {
                 if (playQueueSize > 0) {
                     val item = if (playerState == PlayerState.PLAY) {
                         actionItem(PAUSE_ACTION_ID, R.string.pause)
@@ -275,12 +342,20 @@ class AppMediaBrowserService: MediaBrowserServiceCompat() {
                 add(browsableItem(ARTISTS_NODE_ID, R.string.artists))
                 add(browsableItem(ALBUMS_NODE_ID, R.string.albums))
             }
+            return@loadItems page.of(items)
         }
     }
 
-    private fun <T> loadItems(rootItemId: String,
+    /**
+     * @param valuesObservable only first value is taken, page doesn't keep database query
+     * @param changesObservable emits on change of parent item children, it is observed once
+     * for all pages of parent item
+     */
+    private fun <T> loadItems(parentId: String,
+                              page: ItemsPage,
                               resultCallback: Result<List<MediaBrowserCompat.MediaItem>>,
                               valuesObservable: Observable<T>,
+                              changesObservable: Observable<*>,
                               resultMapper: (T) -> List<MediaBrowserCompat.MediaItem>
     ) {
         if (!Permissions.hasFilePermission(this)) {
@@ -288,38 +363,56 @@ class AppMediaBrowserService: MediaBrowserServiceCompat() {
             return
         }
 
+        val cachedItems = pageCache[parentId, page]
+        if (cachedItems != null) {
+            resultCallback.sendResult(cachedItems)
+            return
+        }
+
         resultCallback.detach()
 
-        val observable = valuesObservable
-            .replay(1)
-            .refCount()
-            .observeOn(AndroidSchedulers.mainThread())
+        //subscribe before loading, so change during loading is not missed
+        val updateDisposable = registerBrowsableItemUpdate(parentId, changesObservable)
 
-        currentRequestDisposable = observable
+        currentRequestDisposable = valuesObservable
             .firstOrError()
+            .observeOn(AndroidSchedulers.mainThread())
             .subscribe(
                 { value ->
-                    resultCallback.sendResult(resultMapper(value))
-                    registerBrowsableItemUpdate(rootItemId, observable)
+                    val items = resultMapper(value)
+                    resultCallback.sendResult(items)
+                    //page loaded before parent update is already outdated
+                    if (itemUpdateDisposableMap[parentId] === updateDisposable) {
+                        pageCache.put(parentId, page, items)
+                    }
                 },
-                { throwable ->
-                    resultCallback.sendErrorResult(throwable)
-                    registerBrowsableItemUpdate(rootItemId, observable)
-                })
+                { throwable -> resultCallback.sendErrorResult(throwable) }
+            )
     }
 
-    private fun registerBrowsableItemUpdate(itemId: String, observable: Observable<*>) {
-        if (itemUpdateDisposableMap.containsKey(itemId)) {
-            return
-        }
-        val disposable = observable.distinctUntilChanged()
-            .skip(1)
+    private fun registerBrowsableItemUpdate(
+        itemId: String,
+        changesObservable: Observable<*>
+    ): Disposable {
+        itemUpdateDisposableMap[itemId]?.let { disposable -> return disposable }
+        val disposable = changesObservable
             .map { TRIGGER }
             .onErrorReturn(this::processBrowsableItemUpdateError)
-            .subscribe { notifyChildrenChanged(itemId) }
+            .firstElement()
+            .observeOn(AndroidSchedulers.mainThread())
+            .subscribe { onBrowsableItemChanged(itemId) }
         itemUpdateDisposableMap[itemId] = disposable
+        return disposable
+    }
+
+    private fun onBrowsableItemChanged(itemId: String) {
+        itemUpdateDisposableMap.remove(itemId)?.dispose()
+        pageCache.invalidate(itemId)
+        notifyChildrenChanged(itemId)
     }
 
+    private fun Observable<*>.toChangeObservable() = distinctUntilChanged().skip(1)
+
     private fun processBrowsableItemUpdateError(throwable: Throwable): Any {
         Components.getAppComponent().analytics().processNonFatalError(throwable)
         return TRIGGER
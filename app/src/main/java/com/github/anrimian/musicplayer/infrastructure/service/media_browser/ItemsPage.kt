@@ -0,0 +1,57 @@
+package com.github.anrimian.musicplayer.infrastructure.service.media_browser
+
+import android.os.Bundle
+import android.support.v4.media.MediaBrowserCompat
+
+private const val PAGE_KEY_DELIMITER = '|'
+
+/**
+ * Page of browsable item children requested by media browser client
+ * with [MediaBrowserCompat.EXTRA_PAGE] and [MediaBrowserCompat.EXTRA_PAGE_SIZE].
+ * Page without size means all children.
+ */
+class ItemsPage private constructor(private val page: Int, private val pageSize: Int) {
+
+    val offset: Int
+        get() = if (pageSize > 0) page * pageSize else 0
+
+    /**
+     * Max items count, negative value means all items
+     */
+    val limit: Int
+        get() = if (pageSize > 0) pageSize else -1
+
+    fun <T> of(items: List<T>): List<T> {
+        if (limit < 0) {
+            return items
+        }
+        val fromIndex = offset.coerceAtMost(items.size)
+        val toIndex = (offset + limit).coerceAtMost(items.size)
+        return items.subList(fromIndex, toIndex)
+    }
+
+    fun getKey(itemId: String) = getKeyPrefix(itemId) + page + PAGE_KEY_DELIMITER + pageSize
+
+    companion object {
+
+        private val ALL = ItemsPage(0, -1)
+
+        fun from(options: Bundle?): ItemsPage {
+            val page = options?.getInt(MediaBrowserCompat.EXTRA_PAGE, -1) ?: -1
+            val pageSize = options?.getInt(MediaBrowserCompat.EXTRA_PAGE_SIZE, -1) ?: -1
+            return from(page, pageSize)
+        }
+
+        @JvmStatic
+        fun from(page: Int, pageSize: Int): ItemsPage {
+            if (page < 0 || pageSize < 1) {
+                return ALL
+            }
+            return ItemsPage(page, pageSize)
+        }
+
+        @JvmStatic
+        fun getKeyPrefix(itemId: String) = itemId + PAGE_KEY_DELIMITER
+
+    }
+}
@@ -0,0 +1,30 @@
+package com.github.anrimian.musicplayer.infrastructure.service.media_browser
+
+import androidx.collection.LruCache
+
+/**
+ * Already built pages of browsable item children, least recently used pages are evicted
+ * when count of pages exceeds [maxPages]. Pages are invalidated together with update of parent item.
+ */
+class ItemsPageCache<T>(maxPages: Int) {
+
+    private val cache = LruCache<String, List<T>>(maxPages)
+
+    operator fun get(parentId: String, page: ItemsPage): List<T>? = cache[page.getKey(parentId)]
+
+    fun put(parentId: String, page: ItemsPage, items: List<T>) {
+        cache.put(page.getKey(parentId), items)
+    }
+
+    fun invalidate(parentId: String) {
+        val keyPrefix = ItemsPage.getKeyPrefix(parentId)
+        cache.snapshot().keys
+            .filter { key -> key.startsWith(keyPrefix) }
+            .forEach(cache::remove)
+    }
+
+    fun clear() {
+        cache.evictAll()
+    }
+
+}
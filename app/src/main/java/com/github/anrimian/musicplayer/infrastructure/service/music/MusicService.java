@@ -98,6 +98,7 @@ public class MusicService extends Service {
     public void onDestroy() {
         super.onDestroy();
         Components.getAppComponent().mediaSessionHandler().dispatchServiceDestroyed();
+        Components.getAppComponent().uiStateRepository().flush();
         serviceDisposable.dispose();
     }
 
@@ -17,6 +17,7 @@ import com.github.anrimian.musicplayer.ui.utils.fragments.navigation.FragmentLay
 import com.github.anrimian.musicplayer.ui.utils.getAppInfo
 import com.github.anrimian.musicplayer.ui.utils.slidr.SlidrPanel
 import com.github.anrimian.musicplayer.utils.logger.FileLog
+import io.reactivex.rxjava3.android.schedulers.AndroidSchedulers
 
 class AboutAppFragment : Fragment(), FragmentLayerListener {
     
@@ -42,14 +43,7 @@ class AboutAppFragment : Fragment(), FragmentLayerListener {
         val appLogger = Components.getAppComponent().appLogger()
         val loggerRepository = Components.getAppComponent().loggerRepository()
 
-        val isLogExists = fileLog.isFileExists
-        setLogActionsVisibility(isLogExists)
-        if (isLogExists) {
-            viewBinding.tvLogInfo.text = getString(
-                R.string.log_info_text,
-                fileLog.fileSize / 1024
-            )
-        }
+        showLogInfo()
         val aboutText = getString(
             R.string.about_app_text,
             linkify("mailto:", R.string.about_app_text_write, R.string.feedback_email),
@@ -66,6 +60,18 @@ class AboutAppFragment : Fragment(), FragmentLayerListener {
         viewBinding.cbShowReportDialogOnStart.isChecked = loggerRepository.isReportDialogOnStartEnabled
         ViewUtils.onCheckChanged(viewBinding.cbShowReportDialogOnStart, loggerRepository::showReportDialogOnStart)
 
+        val isMetricsEnabled = loggerRepository.isPerformanceMetricsEnabled
+        viewBinding.cbCollectPerformanceMetrics.isChecked = isMetricsEnabled
+        viewBinding.btnWriteMetrics.visibility = if (isMetricsEnabled) View.VISIBLE else View.GONE
+        ViewUtils.onCheckChanged(viewBinding.cbCollectPerformanceMetrics) { enabled ->
+            appLogger.setPerformanceMetricsEnabled(enabled)
+            viewBinding.btnWriteMetrics.visibility = if (enabled) View.VISIBLE else View.GONE
+        }
+        viewBinding.btnWriteMetrics.setOnClickListener {
+            appLogger.writePerformanceMetrics()
+            showLogInfo()
+        }
+
         SlidrPanel.simpleSwipeBack(viewBinding.containerView, this, toolbar::onStackFragmentSlided)
     }
 
@@ -82,10 +88,29 @@ class AboutAppFragment : Fragment(), FragmentLayerListener {
         toolbar.clearOptionsMenu()
     }
 
+    private fun showLogInfo() {
+        val isLogExists = fileLog.isFileExists
+        setLogActionsVisibility(isLogExists)
+        if (isLogExists) {
+            viewBinding.tvLogInfo.text = getString(
+                R.string.log_info_text,
+                fileLog.fileSize / 1024
+            )
+        }
+    }
+
     private fun deleteLogFile() {
+        val appContext = requireContext().applicationContext
         fileLog.deleteLogFile()
-        setLogActionsVisibility(false)
-        Toast.makeText(requireContext(), R.string.log_file_deleted, Toast.LENGTH_SHORT).show()
+            .observeOn(AndroidSchedulers.mainThread())
+            .doOnComplete {
+                if (view != null) {
+                    setLogActionsVisibility(false)
+                }
+                Toast.makeText(appContext, R.string.log_file_deleted, Toast.LENGTH_SHORT).show()
+            }
+            .onErrorComplete()
+            .subscribe()
     }
 
     private fun setLogActionsVisibility(isLogExists: Boolean) {
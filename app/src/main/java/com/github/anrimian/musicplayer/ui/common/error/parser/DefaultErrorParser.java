@@ -12,9 +12,11 @@ import com.github.anrimian.musicplayer.data.models.exceptions.PlayListNotCreated
 import com.github.anrimian.musicplayer.data.repositories.library.edit.exceptions.AlbumAlreadyExistsException;
 import com.github.anrimian.musicplayer.data.repositories.library.edit.exceptions.ArtistAlreadyExistsException;
 import com.github.anrimian.musicplayer.data.repositories.library.edit.exceptions.DuplicateFolderNamesException;
+import com.github.anrimian.musicplayer.data.repositories.library.edit.exceptions.EditFilesException;
 import com.github.anrimian.musicplayer.data.repositories.library.edit.exceptions.EditorTimeoutException;
 import com.github.anrimian.musicplayer.data.repositories.library.edit.exceptions.FileExistsException;
 import com.github.anrimian.musicplayer.data.repositories.library.edit.exceptions.GenreAlreadyExistsException;
+import com.github.anrimian.musicplayer.data.repositories.library.edit.exceptions.MoveFilesException;
 import com.github.anrimian.musicplayer.data.repositories.library.edit.exceptions.MoveFolderToItselfException;
 import com.github.anrimian.musicplayer.data.repositories.library.edit.exceptions.MoveInTheSameFolderException;
 import com.github.anrimian.musicplayer.data.storage.exceptions.UnavailableMediaStoreException;
@@ -79,6 +81,19 @@ public class DefaultErrorParser extends ErrorParser {
         if (throwable instanceof FileExistsException) {
             return error(R.string.file_already_exists);
         }
+        if (throwable instanceof MoveFilesException) {
+            MoveFilesException exception = (MoveFilesException) throwable;
+            return new ErrorCommand(getString(R.string.files_partially_moved,
+                    exception.getMovedCount(),
+                    exception.getTotalCount(),
+                    parseError(exception.getCause()).getMessage()));
+        }
+        if (throwable instanceof EditFilesException) {
+            EditFilesException exception = (EditFilesException) throwable;
+            return new ErrorCommand(getString(R.string.files_partially_edited,
+                    exception.getEditedCount(),
+                    exception.getTotalCount()));
+        }
         if (throwable instanceof ArtistAlreadyExistsException) {
             return error(R.string.artist_already_exists);
         }
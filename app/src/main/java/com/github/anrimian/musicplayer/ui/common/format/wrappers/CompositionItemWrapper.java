@@ -77,8 +77,16 @@ public class CompositionItemWrapper {
         btnActionsMenu = itemView.findViewById(R.id.btn_actions_menu);
         iconClickableArea = itemView.findViewById(R.id.icon_clickable_area);
 
-        iconClickableArea.setOnClickListener(v -> onIconClickListener.call(composition));
-        clickableItem.setOnClickListener(v -> onClickListener.call(composition));
+        iconClickableArea.setOnClickListener(v -> {
+            if (composition != null) {
+                onIconClickListener.call(composition);
+            }
+        });
+        clickableItem.setOnClickListener(v -> {
+            if (composition != null) {
+                onClickListener.call(composition);
+            }
+        });
 
         backgroundDrawable.setColor(getColorFromAttr(getContext(), R.attr.listItemBackground));
         itemView.setBackground(backgroundDrawable);
@@ -102,6 +110,23 @@ public class CompositionItemWrapper {
         showAsPlaying(false, false);
     }
 
+    /**
+     * Shows empty item of the same height while composition is not loaded
+     */
+    public void bindPlaceholder() {
+        this.composition = null;
+
+        tvMusicName.setText(null);
+        tvAdditionalInfo.setText(null);
+        clickableItem.setContentDescription(null);
+        iconClickableArea.setContentDescription(null);
+        Components.getAppComponent().imageLoader().clearImage(ivMusicIcon);
+        ivMusicIcon.setImageResource(R.drawable.ic_music_placeholder_simple);
+        ivMusicIcon.setColorFilter(Color.TRANSPARENT);
+
+        showAsPlaying(false, false);
+    }
+
     public void update(Composition composition, List<Object> payloads) {
         this.composition = composition;
         for (Object payload: payloads) {
@@ -8,12 +8,18 @@ import androidx.annotation.NonNull;
 
 import com.bumptech.glide.Priority;
 import com.bumptech.glide.load.data.DataFetcher;
+import com.bumptech.glide.request.target.Target;
 import com.github.anrimian.musicplayer.R;
+import com.github.anrimian.musicplayer.data.storage.source.ArtworkThumbnailCache;
 import com.github.anrimian.musicplayer.data.storage.source.CompositionSourceProvider;
+import com.github.anrimian.musicplayer.data.utils.dev.PerformanceMetrics;
 import com.github.anrimian.musicplayer.ui.common.images.glide.util.AppModelLoader;
 import com.github.anrimian.musicplayer.ui.common.images.models.CompositionImage;
 import com.github.anrimian.musicplayer.ui.utils.ImageUtils;
 
+import java.io.IOException;
+import java.util.Date;
+
 public class CompositionModelLoader extends AppModelLoader<CompositionImage, Bitmap> {
 
     private final Context context;
@@ -33,31 +39,75 @@ public class CompositionModelLoader extends AppModelLoader<CompositionImage, Bit
     protected void loadData(CompositionImage compositionImage,
                             @NonNull Priority priority,
                             @NonNull DataFetcher.DataCallback<? super Bitmap> callback) {
-        MediaMetadataRetriever mmr = null;
+        loadData(compositionImage, Target.SIZE_ORIGINAL, Target.SIZE_ORIGINAL, priority, callback);
+    }
+
+    @Override
+    protected void loadData(CompositionImage compositionImage,
+                            int width,
+                            int height,
+                            @NonNull Priority priority,
+                            @NonNull DataFetcher.DataCallback<? super Bitmap> callback) {
         try {
+            long startTime = PerformanceMetrics.startTimer();
             long id = compositionImage.getId();
-            byte[] imageBytes = compositionSourceProvider.getCompositionArtworkBinaryData(id)
-                    .blockingGet();
+            Date dateModified = compositionImage.getLastModifyTime();
+            int thumbnailSize = getThumbnailSize(width, height);
 
+            byte[] imageBytes = compositionSourceProvider.getCompositionArtworkThumbnail(id,
+                    dateModified,
+                    thumbnailSize);
             if (imageBytes == null) {
-                mmr = new MediaMetadataRetriever();
-                mmr.setDataSource(compositionSourceProvider.getCompositionFileDescriptor(id));
-                imageBytes = mmr.getEmbeddedPicture();
+                PerformanceMetrics.increment(PerformanceMetrics.IMAGE_COMPOSITION_THUMBNAIL_MISS);
+                imageBytes = getArtworkFromFile(id);
+                storeThumbnail(id, dateModified, imageBytes, thumbnailSize);
             }
 
             Bitmap bitmap = null;
-            if (imageBytes != null) {
-                int coverSize = context.getResources().getInteger(R.integer.icon_image_full_size);
-                bitmap = ImageUtils.decodeBitmap(imageBytes, coverSize);
+            if (imageBytes != null && imageBytes.length > 0) {
+                long decodeStartTime = PerformanceMetrics.startTimer();
+                bitmap = ImageUtils.decodeBitmap(imageBytes, thumbnailSize);
+                PerformanceMetrics.stopTimer(PerformanceMetrics.IMAGE_COMPOSITION_DECODE, decodeStartTime);
             }
+            PerformanceMetrics.stopTimer(PerformanceMetrics.IMAGE_COMPOSITION_LOAD, startTime);
             callback.onDataReady(bitmap);
         } catch (Exception e) {
             callback.onLoadFailed(e);
+        }
+    }
+
+    private byte[] getArtworkFromFile(long id) throws Exception {
+        byte[] imageBytes = compositionSourceProvider.getCompositionArtworkBinaryData(id)
+                .blockingGet();
+        if (imageBytes != null) {
+            return imageBytes;
+        }
+        MediaMetadataRetriever mmr = new MediaMetadataRetriever();
+        try {
+            mmr.setDataSource(compositionSourceProvider.getCompositionFileDescriptor(id));
+            return mmr.getEmbeddedPicture();
         } finally {
-            if (mmr != null) {
-                mmr.release();
-            }
+            mmr.release();
+        }
+    }
+
+    private void storeThumbnail(long id, Date dateModified, byte[] imageBytes, int thumbnailSize) {
+        try {
+            compositionSourceProvider.putCompositionArtworkThumbnail(id,
+                    dateModified,
+                    imageBytes,
+                    thumbnailSize);
+        } catch (IOException ignored) {
+            //thumbnail is an optimization, image is already loaded
+        }
+    }
+
+    private int getThumbnailSize(int width, int height) {
+        int maxSize = context.getResources().getInteger(R.integer.icon_image_full_size);
+        if (width != Target.SIZE_ORIGINAL && height != Target.SIZE_ORIGINAL) {
+            maxSize = Math.min(maxSize, Math.max(width, height));
         }
+        return ArtworkThumbnailCache.selectSize(maxSize);
     }
 
 }
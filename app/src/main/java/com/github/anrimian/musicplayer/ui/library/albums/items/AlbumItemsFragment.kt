@@ -18,6 +18,7 @@ import com.github.anrimian.musicplayer.domain.models.composition.Composition
 import com.github.anrimian.musicplayer.domain.models.composition.CurrentComposition
 import com.github.anrimian.musicplayer.domain.models.playlist.PlayList
 import com.github.anrimian.musicplayer.domain.models.utils.ListPosition
+import com.github.anrimian.musicplayer.domain.utils.paging.PagedList
 import com.github.anrimian.musicplayer.ui.common.dialogs.DialogUtils
 import com.github.anrimian.musicplayer.ui.common.dialogs.composition.CompositionActionDialogFragment
 import com.github.anrimian.musicplayer.ui.common.error.ErrorCommand
@@ -90,7 +91,6 @@ class AlbumItemsFragment : BaseLibraryCompositionsFragment(), AlbumItemsView, Fr
 
         RecyclerViewUtils.attachFastScroller(viewBinding.recyclerView, true)
         adapter = CompositionsAdapter(
-            viewBinding.recyclerView,
             presenter.getSelectedCompositions(),
             presenter::onCompositionClicked,
             presenter::onCompositionLongClick,
@@ -190,8 +190,8 @@ class AlbumItemsFragment : BaseLibraryCompositionsFragment(), AlbumItemsView, Fr
         viewBinding.progressStateView.showMessage(errorCommand.message, true)
     }
 
-    override fun updateList(genres: List<Composition>) {
-        adapter.submitList(genres)
+    override fun updateList(list: PagedList<Composition>) {
+        adapter.submitList(list)
     }
 
     override fun restoreListPosition(listPosition: ListPosition) {
@@ -7,6 +7,7 @@ import com.github.anrimian.musicplayer.domain.interactors.settings.DisplaySettin
 import com.github.anrimian.musicplayer.domain.models.albums.Album
 import com.github.anrimian.musicplayer.domain.models.composition.Composition
 import com.github.anrimian.musicplayer.domain.models.utils.ListPosition
+import com.github.anrimian.musicplayer.domain.utils.paging.PageSource
 import com.github.anrimian.musicplayer.ui.common.error.parser.ErrorParser
 import com.github.anrimian.musicplayer.ui.library.common.compositions.BaseLibraryCompositionsPresenter
 import io.reactivex.rxjava3.core.Observable
@@ -19,13 +20,15 @@ class AlbumItemsPresenter(
     playerInteractor: LibraryPlayerInteractor,
     displaySettingsInteractor: DisplaySettingsInteractor,
     errorParser: ErrorParser,
-    uiScheduler: Scheduler
+    uiScheduler: Scheduler,
+    ioScheduler: Scheduler
 ) : BaseLibraryCompositionsPresenter<AlbumItemsView>(
     playerInteractor,
     playListsInteractor,
     displaySettingsInteractor,
     errorParser,
-    uiScheduler
+    uiScheduler,
+    ioScheduler
 ) {
 
     private var album: Album? = null
@@ -39,6 +42,10 @@ class AlbumItemsPresenter(
         return interactor.getAlbumItemsObservable(albumId)
     }
 
+    override fun getCompositionsPageSource(searchText: String?): PageSource<Composition> {
+        return interactor.getAlbumItemsPageSource(albumId)
+    }
+
     override fun getSavedListPosition(): ListPosition? {
         return interactor.getSavedItemsListPosition(albumId)
     }
@@ -20,6 +20,7 @@ import com.github.anrimian.musicplayer.domain.models.composition.CurrentComposit
 import com.github.anrimian.musicplayer.domain.models.playlist.PlayList
 import com.github.anrimian.musicplayer.domain.models.utils.ListPosition
 import com.github.anrimian.musicplayer.domain.utils.functions.BooleanConditionRunner
+import com.github.anrimian.musicplayer.domain.utils.paging.PagedList
 import com.github.anrimian.musicplayer.ui.common.dialogs.DialogUtils
 import com.github.anrimian.musicplayer.ui.common.dialogs.composition.CompositionActionDialogFragment
 import com.github.anrimian.musicplayer.ui.common.dialogs.input.InputTextDialogFragment
@@ -103,7 +104,7 @@ class ArtistItemsFragment : BaseLibraryCompositionsFragment(),
         RecyclerViewUtils.attachFastScroller(viewBinding.recyclerView, true)
 
         adapter = ArtistItemsAdapter(
-            viewBinding.recyclerView,
+            artistAlbumsPresenter,
             presenter.getSelectedCompositions(),
             presenter::onCompositionClicked,
             presenter::onCompositionLongClick,
@@ -221,13 +222,10 @@ class ArtistItemsFragment : BaseLibraryCompositionsFragment(),
         viewBinding.progressStateView.showMessage(errorCommand.message, true)
     }
 
-    override fun updateList(compositions: List<Composition>) {
-        val list: MutableList<Any> = ArrayList()
-        list.add(artistAlbumsPresenter)
-        list.addAll(compositions)
+    override fun updateList(list: PagedList<Composition>) {
         adapter.submitList(list)
-        showNoCompositionsRunner.setCondition(compositions.isEmpty())
-        artistAlbumsPresenter.setCompositionsTitleVisible(compositions.isNotEmpty())
+        showNoCompositionsRunner.setCondition(list.isEmpty())
+        artistAlbumsPresenter.setCompositionsTitleVisible(!list.isEmpty())
     }
 
     override fun restoreListPosition(listPosition: ListPosition) {
@@ -7,6 +7,7 @@ import com.github.anrimian.musicplayer.domain.interactors.settings.DisplaySettin
 import com.github.anrimian.musicplayer.domain.models.artist.Artist
 import com.github.anrimian.musicplayer.domain.models.composition.Composition
 import com.github.anrimian.musicplayer.domain.models.utils.ListPosition
+import com.github.anrimian.musicplayer.domain.utils.paging.PageSource
 import com.github.anrimian.musicplayer.ui.common.error.parser.ErrorParser
 import com.github.anrimian.musicplayer.ui.library.common.compositions.BaseLibraryCompositionsPresenter
 import io.reactivex.rxjava3.core.Completable
@@ -20,13 +21,15 @@ class ArtistItemsPresenter(
     playerInteractor: LibraryPlayerInteractor,
     displaySettingsInteractor: DisplaySettingsInteractor,
     errorParser: ErrorParser,
-    uiScheduler: Scheduler
+    uiScheduler: Scheduler,
+    ioScheduler: Scheduler
 ) : BaseLibraryCompositionsPresenter<ArtistItemsView>(
     playerInteractor,
     playListsInteractor,
     displaySettingsInteractor,
     errorParser,
-    uiScheduler
+    uiScheduler,
+    ioScheduler
 ) {
 
     private var artist: Artist? = null
@@ -43,6 +46,10 @@ class ArtistItemsPresenter(
         return interactor.getCompositionsByArtist(artistId)
     }
 
+    override fun getCompositionsPageSource(searchText: String?): PageSource<Composition> {
+        return interactor.getCompositionsByArtistPageSource(artistId)
+    }
+
     override fun getSavedListPosition(): ListPosition? {
         return interactor.getSavedItemsListPosition(artistId)
     }
@@ -17,7 +17,7 @@ import com.github.anrimian.musicplayer.domain.utils.functions.Callback;
 import com.github.anrimian.musicplayer.ui.library.compositions.adapter.MusicViewHolder;
 import com.github.anrimian.musicplayer.ui.utils.OnPositionItemClickListener;
 import com.github.anrimian.musicplayer.ui.utils.views.recycler_view.diff_utils.SimpleDiffItemCallback;
-import com.github.anrimian.musicplayer.ui.utils.views.recycler_view.diff_utils.adapter.DiffListAdapter;
+import com.github.anrimian.musicplayer.ui.utils.views.recycler_view.diff_utils.adapter.PagedDiffAdapter;
 
 import java.util.HashSet;
 import java.util.List;
@@ -27,13 +27,15 @@ import java.util.Set;
  * Created on 31.10.2017.
  */
 
-public class ArtistItemsAdapter extends DiffListAdapter<Object, RecyclerView.ViewHolder> {
+public class ArtistItemsAdapter extends PagedDiffAdapter<Composition, RecyclerView.ViewHolder> {
 
     private static final int TYPE_ALBUMS = 1;
     private static final int TYPE_COMPOSITIONS = 2;
 
     private final Set<MusicViewHolder> viewHolders = new HashSet<>();
 
+    private final ArtistAlbumsPresenter artistAlbumsPresenter;
+
     private final HashSet<Composition> selectedCompositions;
     private final OnPositionItemClickListener<Composition> onCompositionClickListener;
     private final OnPositionItemClickListener<Composition> onLongClickListener;
@@ -46,7 +48,7 @@ public class ArtistItemsAdapter extends DiffListAdapter<Object, RecyclerView.Vie
     private CurrentComposition currentComposition;
     private boolean isCoversEnabled;
 
-    public ArtistItemsAdapter(RecyclerView recyclerView,
+    public ArtistItemsAdapter(ArtistAlbumsPresenter artistAlbumsPresenter,
                               HashSet<Composition> selectedCompositions,
                               OnPositionItemClickListener<Composition> onCompositionClickListener,
                               OnPositionItemClickListener<Composition> onLongClickListener,
@@ -54,10 +56,12 @@ public class ArtistItemsAdapter extends DiffListAdapter<Object, RecyclerView.Vie
                               OnPositionItemClickListener<Composition> menuClickListener,
                               Callback<Album> albumClickListener,
                               Callback<Boolean> albumsScrollStateCallback) {
-        super(recyclerView, new SimpleDiffItemCallback<>(
-                ArtistItemsAdapter::areSourcesTheSame,
-                ArtistItemsAdapter::getChangePayload)
+        super(new SimpleDiffItemCallback<>(
+                CompositionHelper::areSourcesTheSame,
+                CompositionHelper::getChangePayload),
+                1
         );
+        this.artistAlbumsPresenter = artistAlbumsPresenter;
         this.selectedCompositions = selectedCompositions;
         this.onCompositionClickListener = onCompositionClickListener;
         this.onLongClickListener = onLongClickListener;
@@ -88,24 +92,22 @@ public class ArtistItemsAdapter extends DiffListAdapter<Object, RecyclerView.Vie
 
     @Override
     public void onBindViewHolder(@NonNull RecyclerView.ViewHolder baseHolder, int position) {
-
-        Object item = getItem(position);
-        if (item instanceof Composition) {
-            Composition composition = (Composition) item;
-            MusicViewHolder holder = (MusicViewHolder) baseHolder;
-            viewHolders.add(holder);
-
-            holder.bind(composition, isCoversEnabled);
-            boolean selected = selectedCompositions.contains(composition);
-            holder.setSelected(selected);
-            holder.showCurrentComposition(currentComposition, false);
+        if (baseHolder instanceof AlbumsViewHolder) {
+            artistAlbumsPresenter.attachView((AlbumsViewHolder) baseHolder);
             return;
         }
-        if (item instanceof ArtistAlbumsPresenter) {
-            ArtistAlbumsPresenter artistAlbumsPresenter = (ArtistAlbumsPresenter) item;
-            AlbumsViewHolder holder = (AlbumsViewHolder) baseHolder;
-            artistAlbumsPresenter.attachView(holder);
+        MusicViewHolder holder = (MusicViewHolder) baseHolder;
+        viewHolders.add(holder);
+
+        Composition composition = getItem(position);
+        if (composition == null) {
+            holder.bindPlaceholder();
+        } else {
+            holder.bind(composition, isCoversEnabled);
         }
+        boolean selected = composition != null && selectedCompositions.contains(composition);
+        holder.setSelected(selected);
+        holder.showCurrentComposition(currentComposition, false);
     }
 
     @Override
@@ -116,9 +118,7 @@ public class ArtistItemsAdapter extends DiffListAdapter<Object, RecyclerView.Vie
             super.onBindViewHolder(baseHolder, position, payloads);
             return;
         }
-        Object item = getItem(position);
-        if (item instanceof Composition) {
-            Composition composition = (Composition) item;
+        if (baseHolder instanceof MusicViewHolder) {
             MusicViewHolder holder = (MusicViewHolder) baseHolder;
 
             for (Object payload : payloads) {
@@ -131,20 +131,16 @@ public class ArtistItemsAdapter extends DiffListAdapter<Object, RecyclerView.Vie
                     return;
                 }
             }
-            holder.update(composition, payloads);
+            Composition composition = getItem(position);
+            if (composition != null) {
+                holder.update(composition, payloads);
+            }
         }
     }
 
     @Override
     public int getItemViewType(int position) {
-        Object item = getItem(position);
-        if (item instanceof Composition) {
-            return TYPE_COMPOSITIONS;
-        }
-        if (item instanceof ArtistAlbumsPresenter) {
-            return TYPE_ALBUMS;
-        }
-        throw new IllegalStateException("unexpected view type: " + position);
+        return position == 0? TYPE_ALBUMS : TYPE_COMPOSITIONS;
     }
 
     @Override
@@ -184,20 +180,6 @@ public class ArtistItemsAdapter extends DiffListAdapter<Object, RecyclerView.Vie
         }
     }
 
-    private static boolean areSourcesTheSame(Object first, Object second) {
-        if (first instanceof Composition) {
-            return CompositionHelper.areSourcesTheSame((Composition) first, (Composition) second);
-        }
-        return true;
-    }
-
-    private static List<Object> getChangePayload(Object first, Object second) {
-        if (first instanceof Composition) {
-            return CompositionHelper.getChangePayload((Composition) first, (Composition) second);
-        }
-        return null;
-    }
-
     private OnPositionItemClickListener<Composition> wrapPositionListener(
             OnPositionItemClickListener<Composition> listener) {
         return (position, data) -> listener.onItemClick(--position, data);
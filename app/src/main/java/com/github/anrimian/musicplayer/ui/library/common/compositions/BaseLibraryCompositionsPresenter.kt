@@ -10,6 +10,9 @@ import com.github.anrimian.musicplayer.domain.models.playlist.PlayList
 import com.github.anrimian.musicplayer.domain.models.utils.ListPosition
 import com.github.anrimian.musicplayer.domain.utils.ListUtils
 import com.github.anrimian.musicplayer.domain.utils.TextUtils
+import com.github.anrimian.musicplayer.domain.utils.paging.PageSource
+import com.github.anrimian.musicplayer.domain.utils.paging.PagedList
+import com.github.anrimian.musicplayer.domain.utils.paging.PagedListLoader
 import com.github.anrimian.musicplayer.ui.common.error.parser.ErrorParser
 import com.github.anrimian.musicplayer.ui.common.mvp.AppPresenter
 import io.reactivex.rxjava3.core.Completable
@@ -19,12 +22,16 @@ import io.reactivex.rxjava3.disposables.CompositeDisposable
 import io.reactivex.rxjava3.disposables.Disposable
 import java.util.*
 
+private const val PAGE_SIZE = 50
+private const val PREFETCH_PAGES = 1
+
 abstract class BaseLibraryCompositionsPresenter<T : BaseLibraryCompositionsView>(
         private val playerInteractor: LibraryPlayerInteractor,
         private val playListsInteractor: PlayListsInteractor,
         private val displaySettingsInteractor: DisplaySettingsInteractor,
         errorParser: ErrorParser,
         uiScheduler: Scheduler,
+        private val ioScheduler: Scheduler,
 ) : AppPresenter<T>(uiScheduler, errorParser) {
 
     private val presenterBatterySafeDisposable = CompositeDisposable()
@@ -32,7 +39,7 @@ abstract class BaseLibraryCompositionsPresenter<T : BaseLibraryCompositionsView>
     private var currentCompositionDisposable: Disposable? = null
     private var compositionsDisposable: Disposable? = null
 
-    private var compositions: List<Composition> = ArrayList()
+    private var compositions: PagedList<Composition>? = null
     private val selectedCompositions = LinkedHashSet<Composition>()
     private val compositionsForPlayList: MutableList<Composition> = LinkedList()
     private val compositionsToDelete: MutableList<Composition> = LinkedList()
@@ -52,7 +59,7 @@ abstract class BaseLibraryCompositionsPresenter<T : BaseLibraryCompositionsView>
     }
 
     fun onStart() {
-        if (compositions.isNotEmpty()) {
+        if (!isListEmpty()) {
             subscribeOnCurrentComposition()
         }
     }
@@ -71,7 +78,7 @@ abstract class BaseLibraryCompositionsPresenter<T : BaseLibraryCompositionsView>
             if (composition == currentComposition) {
                 playerInteractor.playOrPause()
             } else {
-                playerInteractor.startPlaying(compositions, position)
+                startPlaying(composition, position)
                 viewState.showCurrentComposition(CurrentComposition(composition, true))
             }
             return
@@ -94,7 +101,7 @@ abstract class BaseLibraryCompositionsPresenter<T : BaseLibraryCompositionsView>
         if (composition == currentComposition) {
             playerInteractor.playOrPause()
         } else {
-            playerInteractor.startPlaying(compositions, position)
+            startPlaying(composition, position)
             viewState.showCurrentComposition(CurrentComposition(composition, true))
         }
     }
@@ -107,7 +114,7 @@ abstract class BaseLibraryCompositionsPresenter<T : BaseLibraryCompositionsView>
 
     fun onPlayAllButtonClicked() {
         if (selectedCompositions.isEmpty()) {
-            playerInteractor.startPlaying(compositions)
+            loadCompositions { compositions -> playerInteractor.startPlaying(compositions) }
         } else {
             playSelectedCompositions()
         }
@@ -130,7 +137,7 @@ abstract class BaseLibraryCompositionsPresenter<T : BaseLibraryCompositionsView>
     }
 
     fun onPlayNextCompositionClicked(position: Int) {
-        val composition = compositions.elementAtOrNull(position)
+        val composition = compositions?.get(position)
         if (composition != null) {
             onPlayNextCompositionClicked(composition)
         }
@@ -177,10 +184,12 @@ abstract class BaseLibraryCompositionsPresenter<T : BaseLibraryCompositionsView>
     }
 
     fun onSelectAllButtonClicked() {
-        selectedCompositions.clear() //reselect previous feature
-        selectedCompositions.addAll(compositions)
-        viewState.showSelectionMode(compositions.size)
-        viewState.setItemsSelected(true)
+        loadCompositions { compositions ->
+            selectedCompositions.clear() //reselect previous feature
+            selectedCompositions.addAll(compositions)
+            viewState.showSelectionMode(compositions.size)
+            viewState.setItemsSelected(true)
+        }
     }
 
     fun onPlayNextSelectedCompositionsClicked() {
@@ -194,7 +203,8 @@ abstract class BaseLibraryCompositionsPresenter<T : BaseLibraryCompositionsView>
     }
 
     fun onPlayActionSelected(position: Int) {
-        playerInteractor.startPlaying(compositions, position)
+        val composition = compositions?.get(position) ?: return
+        startPlaying(composition, position)
     }
 
     fun onSearchTextChanged(text: String?) {
@@ -221,11 +231,18 @@ abstract class BaseLibraryCompositionsPresenter<T : BaseLibraryCompositionsView>
     fun getSearchText() = searchText
 
     protected fun subscribeOnCompositions() {
-        if (compositions.isEmpty()) {
+        if (isListEmpty()) {
             viewState.showLoading()
         }
         RxUtils.dispose(compositionsDisposable, presenterDisposable)
-        compositionsDisposable = getCompositionsObservable(searchText)
+        val loader = PagedListLoader(getCompositionsPageSource(searchText),
+                ioScheduler,
+                PAGE_SIZE,
+                PREFETCH_PAGES)
+        if (compositions == null) {
+            getSavedListPosition()?.let { listPosition -> loader.loadAround(listPosition.position) }
+        }
+        compositionsDisposable = loader.getPagedListObservable()
                 .observeOn(uiScheduler)
                 .subscribe(this::onCompositionsReceived, this::onCompositionsReceivingError)
         presenterDisposable.add(compositionsDisposable!!)
@@ -264,6 +281,30 @@ abstract class BaseLibraryCompositionsPresenter<T : BaseLibraryCompositionsView>
                 .subscribeOnUi(viewState::onCompositionsAddedToQueue, this::onDefaultError)
     }
 
+    //whole list is loaded after shown pages, it can be changed since then,
+    //so start position is found by composition id. Position is checked first as usual case
+    private fun startPlaying(composition: Composition, position: Int) {
+        loadCompositions { compositions ->
+            val index = if (compositions.getOrNull(position)?.id == composition.id) {
+                position
+            } else {
+                compositions.indexOfFirst { item -> item.id == composition.id }
+            }
+            if (index != -1) {
+                playerInteractor.startPlaying(compositions, index)
+            }
+        }
+    }
+
+    //screen keeps only loaded pages, whole list is loaded for each action with it
+    //(play from position, play all, select all): play queue and selection need all items.
+    //Limit: on all compositions screen it is one query of the whole library per action
+    private fun loadCompositions(onLoaded: (List<Composition>) -> Unit) {
+        getCompositionsObservable(searchText)
+                .firstOrError()
+                .subscribeOnUi(onLoaded, this::onDefaultError)
+    }
+
     private fun playSelectedCompositions() {
         playerInteractor.startPlaying(ArrayList(selectedCompositions))
         closeSelectionMode()
@@ -303,8 +344,8 @@ abstract class BaseLibraryCompositionsPresenter<T : BaseLibraryCompositionsView>
         viewState.showLoadingError(errorCommand)
     }
 
-    private fun onCompositionsReceived(compositions: List<Composition>) {
-        val firstReceive = this.compositions.isEmpty()
+    private fun onCompositionsReceived(compositions: PagedList<Composition>) {
+        val firstReceive = isListEmpty()
 
         this.compositions = compositions
         viewState.updateList(compositions)
@@ -344,7 +385,17 @@ abstract class BaseLibraryCompositionsPresenter<T : BaseLibraryCompositionsView>
             .subscribeOnUi(viewState::showRandomMode, errorParser::logError)
     }
 
+    private fun isListEmpty() = compositions?.isEmpty() ?: true
+
+    /**
+     * @return whole list, used for actions like play all or select all
+     */
     protected abstract fun getCompositionsObservable(searchText: String?): Observable<List<Composition>>
+
+    /**
+     * @return source of shown list, only requested pages are loaded from database
+     */
+    protected abstract fun getCompositionsPageSource(searchText: String?): PageSource<Composition>
     protected abstract fun getSavedListPosition(): ListPosition?
     protected abstract fun saveListPosition(listPosition: ListPosition)
 
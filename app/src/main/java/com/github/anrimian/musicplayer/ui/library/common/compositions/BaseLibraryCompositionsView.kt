@@ -4,13 +4,35 @@ import com.github.anrimian.musicplayer.domain.models.composition.Composition
 import com.github.anrimian.musicplayer.domain.models.composition.CurrentComposition
 import com.github.anrimian.musicplayer.domain.models.playlist.PlayList
 import com.github.anrimian.musicplayer.domain.models.utils.ListPosition
+import com.github.anrimian.musicplayer.domain.utils.paging.PagedList
 import com.github.anrimian.musicplayer.ui.common.error.ErrorCommand
-import com.github.anrimian.musicplayer.ui.common.mvp.ListMvpView
+import com.github.anrimian.musicplayer.ui.common.mvp.ListMvpView.LIST_STATE
+import moxy.MvpView
+import moxy.viewstate.strategy.AddToEndSingleTagStrategy
+import moxy.viewstate.strategy.StateStrategyType
 import moxy.viewstate.strategy.alias.AddToEndSingle
 import moxy.viewstate.strategy.alias.OneExecution
 import moxy.viewstate.strategy.alias.Skip
 
-interface BaseLibraryCompositionsView : ListMvpView<Composition> {
+interface BaseLibraryCompositionsView : MvpView {
+
+    @StateStrategyType(value = AddToEndSingleTagStrategy::class, tag = LIST_STATE)
+    fun showEmptyList()
+
+    @StateStrategyType(value = AddToEndSingleTagStrategy::class, tag = LIST_STATE)
+    fun showEmptySearchResult()
+
+    @StateStrategyType(value = AddToEndSingleTagStrategy::class, tag = LIST_STATE)
+    fun showList()
+
+    @StateStrategyType(value = AddToEndSingleTagStrategy::class, tag = LIST_STATE)
+    fun showLoading()
+
+    @StateStrategyType(value = AddToEndSingleTagStrategy::class, tag = LIST_STATE)
+    fun showLoadingError(errorCommand: ErrorCommand)
+
+    @AddToEndSingle
+    fun updateList(list: PagedList<Composition>)
 
     @OneExecution
     fun showSelectPlayListDialog()
@@ -19,6 +19,7 @@ import com.github.anrimian.musicplayer.domain.models.order.Order
 import com.github.anrimian.musicplayer.domain.models.order.OrderType
 import com.github.anrimian.musicplayer.domain.models.playlist.PlayList
 import com.github.anrimian.musicplayer.domain.models.utils.ListPosition
+import com.github.anrimian.musicplayer.domain.utils.paging.PagedList
 import com.github.anrimian.musicplayer.ui.common.dialogs.DialogUtils
 import com.github.anrimian.musicplayer.ui.common.dialogs.composition.CompositionActionDialogFragment
 import com.github.anrimian.musicplayer.ui.common.error.ErrorCommand
@@ -85,7 +86,6 @@ class LibraryCompositionsFragment : BaseLibraryCompositionsFragment(), LibraryCo
         viewBinding.recyclerView.layoutManager = layoutManager
         RecyclerViewUtils.attachFastScroller(viewBinding.recyclerView, true)
         adapter = CompositionsAdapter(
-            viewBinding.recyclerView,
             presenter.getSelectedCompositions(),
             presenter::onCompositionClicked,
             presenter::onCompositionLongClick,
@@ -176,8 +176,8 @@ class LibraryCompositionsFragment : BaseLibraryCompositionsFragment(), LibraryCo
         viewBinding.progressStateView.showMessage(errorCommand.message, true)
     }
 
-    override fun updateList(genres: List<Composition>) {
-        adapter.submitList(genres)
+    override fun updateList(list: PagedList<Composition>) {
+        adapter.submitList(list)
     }
 
     override fun restoreListPosition(listPosition: ListPosition) {
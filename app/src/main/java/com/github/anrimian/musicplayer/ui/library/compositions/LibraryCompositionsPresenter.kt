@@ -7,6 +7,7 @@ import com.github.anrimian.musicplayer.domain.interactors.settings.DisplaySettin
 import com.github.anrimian.musicplayer.domain.models.composition.Composition
 import com.github.anrimian.musicplayer.domain.models.order.Order
 import com.github.anrimian.musicplayer.domain.models.utils.ListPosition
+import com.github.anrimian.musicplayer.domain.utils.paging.PageSource
 import com.github.anrimian.musicplayer.ui.common.error.parser.ErrorParser
 import com.github.anrimian.musicplayer.ui.library.common.compositions.BaseLibraryCompositionsPresenter
 import io.reactivex.rxjava3.core.Observable
@@ -18,18 +19,24 @@ class LibraryCompositionsPresenter(
     playerInteractor: LibraryPlayerInteractor,
     displaySettingsInteractor: DisplaySettingsInteractor,
     errorParser: ErrorParser,
-    uiScheduler: Scheduler
+    uiScheduler: Scheduler,
+    ioScheduler: Scheduler
 ) : BaseLibraryCompositionsPresenter<LibraryCompositionsView>(
     playerInteractor,
     playListsInteractor,
     displaySettingsInteractor,
     errorParser,
-    uiScheduler
+    uiScheduler,
+    ioScheduler
 ) {
     override fun getCompositionsObservable(searchText: String?): Observable<List<Composition>> {
         return interactor.getCompositionsObservable(searchText)
     }
 
+    override fun getCompositionsPageSource(searchText: String?): PageSource<Composition> {
+        return interactor.getCompositionsPageSource(searchText)
+    }
+
     override fun getSavedListPosition(): ListPosition? {
         return interactor.savedListPosition
     }
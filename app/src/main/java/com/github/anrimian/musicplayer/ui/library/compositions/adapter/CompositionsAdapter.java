@@ -7,14 +7,13 @@ import android.view.ViewGroup;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
-import androidx.recyclerview.widget.RecyclerView;
 
 import com.github.anrimian.musicplayer.domain.models.composition.Composition;
 import com.github.anrimian.musicplayer.domain.models.composition.CurrentComposition;
 import com.github.anrimian.musicplayer.domain.models.utils.CompositionHelper;
 import com.github.anrimian.musicplayer.ui.utils.OnPositionItemClickListener;
 import com.github.anrimian.musicplayer.ui.utils.views.recycler_view.diff_utils.SimpleDiffItemCallback;
-import com.github.anrimian.musicplayer.ui.utils.views.recycler_view.diff_utils.adapter.DiffListAdapter;
+import com.github.anrimian.musicplayer.ui.utils.views.recycler_view.diff_utils.adapter.PagedDiffAdapter;
 
 import java.util.HashSet;
 import java.util.List;
@@ -24,7 +23,7 @@ import java.util.Set;
  * Created on 31.10.2017.
  */
 
-public class CompositionsAdapter extends DiffListAdapter<Composition, MusicViewHolder> {
+public class CompositionsAdapter extends PagedDiffAdapter<Composition, MusicViewHolder> {
 
     private final Set<MusicViewHolder> viewHolders = new HashSet<>();
 
@@ -38,15 +37,15 @@ public class CompositionsAdapter extends DiffListAdapter<Composition, MusicViewH
     private CurrentComposition currentComposition;
     private boolean isCoversEnabled;
 
-    public CompositionsAdapter(RecyclerView recyclerView,
-                               HashSet<Composition> selectedCompositions,
+    public CompositionsAdapter(HashSet<Composition> selectedCompositions,
                                OnPositionItemClickListener<Composition> onCompositionClickListener,
                                OnPositionItemClickListener<Composition> onLongClickListener,
                                OnPositionItemClickListener<Composition> iconClickListener,
                                OnPositionItemClickListener<Composition> menuClickListener) {
-        super(recyclerView, new SimpleDiffItemCallback<>(
+        super(new SimpleDiffItemCallback<>(
                 CompositionHelper::areSourcesTheSame,
-                CompositionHelper::getChangePayload)
+                CompositionHelper::getChangePayload),
+                0
         );
         this.selectedCompositions = selectedCompositions;
         this.onCompositionClickListener = onCompositionClickListener;
@@ -70,8 +69,12 @@ public class CompositionsAdapter extends DiffListAdapter<Composition, MusicViewH
         viewHolders.add(holder);
 
         Composition composition = getItem(position);
-        holder.bind(composition, isCoversEnabled);
-        boolean selected = selectedCompositions.contains(composition);
+        if (composition == null) {
+            holder.bindPlaceholder();
+        } else {
+            holder.bind(composition, isCoversEnabled);
+        }
+        boolean selected = composition != null && selectedCompositions.contains(composition);
         holder.setSelected(selected);
 
         holder.showCurrentComposition(currentComposition, false);
@@ -95,7 +98,10 @@ public class CompositionsAdapter extends DiffListAdapter<Composition, MusicViewH
                 return;
             }
         }
-        holder.update(getItem(position), payloads);
+        Composition composition = getItem(position);
+        if (composition != null) {
+            holder.update(composition, payloads);
+        }
     }
 
     @Override
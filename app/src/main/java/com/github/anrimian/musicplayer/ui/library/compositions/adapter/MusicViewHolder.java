@@ -46,13 +46,15 @@ public class MusicViewHolder extends SelectableViewHolder implements SwipeListen
                 o -> iconClickListener.onItemClick(getBindingAdapterPosition(), composition),
                 composition -> onCompositionClickListener.onItemClick(getBindingAdapterPosition(), composition)
         );
-        binding.btnActionsMenu.setOnClickListener(v ->
-                menuClickListener.onItemClick(getBindingAdapterPosition(), composition)
-        );
+        binding.btnActionsMenu.setOnClickListener(v -> {
+            if (composition != null) {
+                menuClickListener.onItemClick(getBindingAdapterPosition(), composition);
+            }
+        });
 
         if (onLongClickListener != null) {
             binding.clickableItem.setOnLongClickListener(v -> {
-                if (selected) {
+                if (selected || composition == null) {
                     return false;
                 }
                 selectImmediate();
@@ -67,6 +69,11 @@ public class MusicViewHolder extends SelectableViewHolder implements SwipeListen
         compositionItemWrapper.bind(composition, isCoversEnabled);
     }
 
+    public void bindPlaceholder() {
+        this.composition = null;
+        compositionItemWrapper.bindPlaceholder();
+    }
+
     public void update(Composition composition, List<Object> payloads) {
         this.composition = composition;
         compositionItemWrapper.update(composition, payloads);
@@ -100,7 +107,7 @@ public class MusicViewHolder extends SelectableViewHolder implements SwipeListen
                                        boolean animate) {
         boolean isCurrent = false;
         boolean isPlaying = false;
-        if (currentComposition != null) {
+        if (currentComposition != null && composition != null) {
             isCurrent = composition.equals(currentComposition.getComposition());
             isPlaying = isCurrent && currentComposition.isPlaying();
         }
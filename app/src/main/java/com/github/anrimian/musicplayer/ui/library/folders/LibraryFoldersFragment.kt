@@ -18,6 +18,7 @@ import com.github.anrimian.musicplayer.databinding.FragmentLibraryFoldersBinding
 import com.github.anrimian.musicplayer.di.Components
 import com.github.anrimian.musicplayer.domain.models.composition.Composition
 import com.github.anrimian.musicplayer.domain.models.composition.CurrentComposition
+import com.github.anrimian.musicplayer.domain.models.folders.FileMoveProgress
 import com.github.anrimian.musicplayer.domain.models.folders.FileSource
 import com.github.anrimian.musicplayer.domain.models.folders.FolderFileSource
 import com.github.anrimian.musicplayer.domain.models.folders.IgnoredFolder
@@ -507,6 +508,21 @@ class LibraryFoldersFragment : MvpAppCompatFragment(), LibraryFoldersView, BackB
         showProgressDialog(R.string.move_progress)
     }
 
+    override fun updateMoveProgress(progress: FileMoveProgress) {
+        val message = getString(
+            R.string.move_progress_count,
+            progress.movedCount,
+            progress.totalCount
+        )
+        val fragment = childFragmentManager.findFragmentByTag(Tags.PROGRESS_DIALOG_TAG)
+                as ProgressDialogFragment?
+        if (fragment == null) {
+            progressDialogRunner.show(ProgressDialogFragment.newInstance(message))
+        } else {
+            fragment.setMessage(message)
+        }
+    }
+
     override fun showDeleteProgress() {
         showProgressDialog(R.string.delete_progress)
     }
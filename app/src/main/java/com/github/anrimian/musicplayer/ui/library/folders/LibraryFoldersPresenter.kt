@@ -336,6 +336,8 @@ class LibraryFoldersPresenter(private val folderId: Long?,
         RxUtils.dispose(fileActionDisposable)
         lastEditAction = interactor.moveFilesTo(folderId)
                 .observeOn(uiScheduler)
+                .doOnNext(viewState::updateMoveProgress)
+                .ignoreElements()
                 .doOnSubscribe { viewState.showMoveProgress() }
                 .doOnComplete { viewState.updateMoveFilesList() }
                 .doFinally { viewState.hideProgressDialog() }
@@ -353,6 +355,8 @@ class LibraryFoldersPresenter(private val folderId: Long?,
         RxUtils.dispose(fileActionDisposable)
         lastEditAction = interactor.moveFilesToNewFolder(folderId, name)
                 .observeOn(uiScheduler)
+                .doOnNext(viewState::updateMoveProgress)
+                .ignoreElements()
                 .doOnSubscribe { viewState.showMoveProgress() }
                 .doOnComplete { viewState.updateMoveFilesList() }
                 .doFinally { viewState.hideProgressDialog() }
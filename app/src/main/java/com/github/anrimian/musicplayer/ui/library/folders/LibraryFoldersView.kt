@@ -2,6 +2,7 @@ package com.github.anrimian.musicplayer.ui.library.folders
 
 import com.github.anrimian.musicplayer.domain.models.composition.Composition
 import com.github.anrimian.musicplayer.domain.models.composition.CurrentComposition
+import com.github.anrimian.musicplayer.domain.models.folders.FileMoveProgress
 import com.github.anrimian.musicplayer.domain.models.folders.FileSource
 import com.github.anrimian.musicplayer.domain.models.folders.FolderFileSource
 import com.github.anrimian.musicplayer.domain.models.folders.IgnoredFolder
@@ -53,6 +54,9 @@ interface LibraryFoldersView : MvpView {
     @StateStrategyType(value = AddToEndSingleTagStrategy::class, tag = PROGRESS_DIALOG_STATE)
     fun showMoveProgress()
 
+    @StateStrategyType(value = AddToEndSingleTagStrategy::class, tag = PROGRESS_DIALOG_STATE)
+    fun updateMoveProgress(progress: FileMoveProgress)
+
     @StateStrategyType(value = AddToEndSingleTagStrategy::class, tag = PROGRESS_DIALOG_STATE)
     fun showDeleteProgress()
 
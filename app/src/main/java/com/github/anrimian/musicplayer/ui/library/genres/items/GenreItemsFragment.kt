@@ -18,6 +18,7 @@ import com.github.anrimian.musicplayer.domain.models.composition.CurrentComposit
 import com.github.anrimian.musicplayer.domain.models.genres.Genre
 import com.github.anrimian.musicplayer.domain.models.playlist.PlayList
 import com.github.anrimian.musicplayer.domain.models.utils.ListPosition
+import com.github.anrimian.musicplayer.domain.utils.paging.PagedList
 import com.github.anrimian.musicplayer.ui.common.dialogs.DialogUtils
 import com.github.anrimian.musicplayer.ui.common.dialogs.composition.CompositionActionDialogFragment
 import com.github.anrimian.musicplayer.ui.common.dialogs.input.InputTextDialogFragment
@@ -93,7 +94,6 @@ class GenreItemsFragment : BaseLibraryCompositionsFragment(), GenreItemsView, Fr
 
         RecyclerViewUtils.attachFastScroller(viewBinding.recyclerView, true)
         adapter = CompositionsAdapter(
-            viewBinding.recyclerView,
             presenter.getSelectedCompositions(),
             presenter::onCompositionClicked,
             presenter::onCompositionLongClick,
@@ -193,8 +193,8 @@ class GenreItemsFragment : BaseLibraryCompositionsFragment(), GenreItemsView, Fr
         viewBinding.progressStateView.showMessage(errorCommand.message, true)
     }
 
-    override fun updateList(genres: List<Composition>) {
-        adapter.submitList(genres)
+    override fun updateList(list: PagedList<Composition>) {
+        adapter.submitList(list)
     }
 
     override fun restoreListPosition(listPosition: ListPosition) {}
@@ -8,6 +8,7 @@ import com.github.anrimian.musicplayer.domain.interactors.settings.DisplaySettin
 import com.github.anrimian.musicplayer.domain.models.composition.Composition
 import com.github.anrimian.musicplayer.domain.models.genres.Genre
 import com.github.anrimian.musicplayer.domain.models.utils.ListPosition
+import com.github.anrimian.musicplayer.domain.utils.paging.PageSource
 import com.github.anrimian.musicplayer.ui.common.error.parser.ErrorParser
 import com.github.anrimian.musicplayer.ui.library.common.compositions.BaseLibraryCompositionsPresenter
 import io.reactivex.rxjava3.core.Observable
@@ -21,13 +22,15 @@ class GenreItemsPresenter(
     playerInteractor: LibraryPlayerInteractor,
     displaySettingsInteractor: DisplaySettingsInteractor,
     errorParser: ErrorParser,
-    uiScheduler: Scheduler
+    uiScheduler: Scheduler,
+    ioScheduler: Scheduler
 ) : BaseLibraryCompositionsPresenter<GenreItemsView>(
     playerInteractor,
     playListsInteractor,
     displaySettingsInteractor,
     errorParser,
-    uiScheduler
+    uiScheduler,
+    ioScheduler
 ) {
 
     private var changeDisposable: Disposable? = null
@@ -42,6 +45,10 @@ class GenreItemsPresenter(
         return interactor.getGenreItemsObservable(genreId)
     }
 
+    override fun getCompositionsPageSource(searchText: String?): PageSource<Composition> {
+        return interactor.getGenreItemsPageSource(genreId)
+    }
+
     override fun getSavedListPosition(): ListPosition? {
         return null
     }
@@ -140,7 +140,10 @@ public class MainActivity extends AppCompatActivity {
             FileLog fileLog = Components.getAppComponent().fileLog();
 
             binding.btnDelete.setOnClickListener(v -> {
-                fileLog.deleteLogFile();
+                //noinspection ResultOfMethodCallIgnored
+                fileLog.deleteLogFile()
+                        .onErrorComplete()
+                        .subscribe();
                 dismissAllowingStateLoss();
                 onReportDialogClosed();
             });
@@ -50,6 +50,7 @@ class PlayerSettingsFragment : MvpAppCompatFragment(), PlayerSettingsView {
         ViewUtils.onCheckChanged(viewBinding.cbDecreaseVolume, presenter::onDecreaseVolumeOnAudioFocusLossChecked)
         ViewUtils.onCheckChanged(viewBinding.cbPauseOnAudioFocusLoss, presenter::onPauseOnAudioFocusLossChecked)
         ViewUtils.onCheckChanged(viewBinding.cbPauseOnZeroVolumeLevel, presenter::onPauseOnZeroVolumeLevelChecked)
+        ViewUtils.onCheckChanged(viewBinding.cbVolumeNormalization, presenter::onVolumeNormalizationChecked)
 
         viewBinding.flEqualizerClickableArea.setOnClickListener { showEqualizerDialog() }
         viewBinding.flMediaPlayersClickableArea.setOnClickListener { showMediaPlayersSettingScreen() }
@@ -75,6 +76,10 @@ class PlayerSettingsFragment : MvpAppCompatFragment(), PlayerSettingsView {
         ViewUtils.setChecked(viewBinding.cbPauseOnZeroVolumeLevel, enabled)
     }
 
+    override fun showVolumeNormalizationEnabled(enabled: Boolean) {
+        ViewUtils.setChecked(viewBinding.cbVolumeNormalization, enabled)
+    }
+
     override fun showSoundBalance(soundBalance: SoundBalance) {
         val left = (soundBalance.left * 100).toInt()
         val right = (soundBalance.right * 100).toInt()
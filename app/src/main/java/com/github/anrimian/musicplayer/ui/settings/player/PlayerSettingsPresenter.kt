@@ -18,6 +18,7 @@ class PlayerSettingsPresenter(private val interactor: PlayerSettingsInteractor,
         )
         viewState.showPauseOnAudioFocusLossEnabled(interactor.isPauseOnAudioFocusLossEnabled())
         viewState.showPauseOnZeroVolumeLevelEnabled(interactor.isPauseOnZeroVolumeLevelEnabled())
+        viewState.showVolumeNormalizationEnabled(interactor.isVolumeNormalizationEnabled())
         viewState.showSoundBalance(interactor.getSoundBalance())
         viewState.showEnabledMediaPlayers(interactor.getEnabledMediaPlayers())
         subscribeOnSelectedEqualizer()
@@ -38,6 +39,11 @@ class PlayerSettingsPresenter(private val interactor: PlayerSettingsInteractor,
         interactor.setPauseOnAudioFocusLossEnabled(checked)
     }
 
+    fun onVolumeNormalizationChecked(checked: Boolean) {
+        viewState.showVolumeNormalizationEnabled(checked)
+        interactor.setVolumeNormalizationEnabled(checked)
+    }
+
     fun onSoundBalanceClicked() {
         viewState.showSoundBalanceDialog(interactor.getSoundBalance())
     }
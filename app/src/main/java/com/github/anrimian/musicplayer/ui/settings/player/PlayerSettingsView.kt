@@ -16,6 +16,9 @@ interface PlayerSettingsView : MvpView {
     @AddToEndSingle
     fun showPauseOnZeroVolumeLevelEnabled(enabled: Boolean)
 
+    @AddToEndSingle
+    fun showVolumeNormalizationEnabled(enabled: Boolean)
+
     @AddToEndSingle
     fun showSoundBalance(soundBalance: SoundBalance)
 
@@ -53,6 +53,18 @@ public class ProgressDialogFragment extends DialogFragment {
                 .create();
     }
 
+    public void setMessage(String message) {
+        Bundle args = requireArguments();
+        args.remove(MESSAGE_RES_ARG);
+        args.putString(MESSAGE_ARG, message);
+
+        Dialog dialog = getDialog();
+        if (dialog != null) {
+            TextView tvProgress = dialog.findViewById(R.id.tv_progress);
+            tvProgress.setText(message);
+        }
+    }
+
     private String getMessage() {
         Bundle args = getArguments();
         assert args != null;
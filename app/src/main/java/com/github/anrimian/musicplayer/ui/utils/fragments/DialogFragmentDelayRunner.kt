@@ -13,15 +13,26 @@ class DialogFragmentDelayRunner(
 
     private val handler = Handler(Looper.getMainLooper())
 
+    private var pendingFragment: DialogFragment? = null
+
+    //fragment shown again before delay is passed replaces pending one
     fun show(fragment: DialogFragment) {
+        val isPending = pendingFragment != null
+        pendingFragment = fragment
+        if (isPending) {
+            return
+        }
         handler.postDelayed({
-            if (!fragmentManager.isDestroyed) {
-                fragment.safeShow(fragmentManager, tag)
+            val pendingFragment = pendingFragment
+            this.pendingFragment = null
+            if (pendingFragment != null && !fragmentManager.isDestroyed) {
+                pendingFragment.safeShow(fragmentManager, tag)
             }
         }, delayMillis)
     }
 
     fun cancel() {
+        pendingFragment = null
         handler.removeCallbacksAndMessages(null)
         handler.post {
             val fragment = fragmentManager.findFragmentByTag(tag) as DialogFragment?
@@ -0,0 +1,91 @@
+package com.github.anrimian.musicplayer.ui.utils.views.recycler_view.diff_utils.adapter;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.github.anrimian.musicplayer.domain.utils.paging.PagedList;
+
+import java.util.List;
+
+/**
+ * {@link RecyclerView.Adapter RecyclerView.Adapter} base class for presenting {@link PagedList}.
+ * <p>
+ * Only reloaded pages are compared, item by item with previous content of the same page, so update
+ * costs the size of loaded window, not the size of the list, and is dispatched on main thread
+ * without background diff. Change of list size can't be located without whole list,
+ * so it is dispatched as data set change.
+ * <p>
+ * Access to item requests loading of items around it, item of not loaded page is null.
+ *
+ * @param <T> Type of the list items.
+ * @param <VH> A class that extends ViewHolder that will be used by the adapter.
+ */
+public abstract class PagedDiffAdapter<T, VH extends RecyclerView.ViewHolder>
+        extends RecyclerView.Adapter<VH> {
+
+    private final DiffUtil.ItemCallback<T> diffCallback;
+    private final int headersCount;
+
+    @Nullable
+    private PagedList<T> list;
+
+    /**
+     * @param headersCount count of items before the list, list positions are adapter positions
+     *                     minus this count
+     */
+    protected PagedDiffAdapter(@NonNull DiffUtil.ItemCallback<T> diffCallback, int headersCount) {
+        this.diffCallback = diffCallback;
+        this.headersCount = headersCount;
+    }
+
+    public void submitList(@NonNull PagedList<T> newList) {
+        PagedList<T> oldList = list;
+        list = newList;
+        if (oldList == null || oldList.size() != newList.size()) {
+            notifyDataSetChanged();
+            return;
+        }
+        for (int i = 0, count = newList.getPagesCount(); i < count; i++) {
+            List<T> oldPage = oldList.getPage(i);
+            List<T> newPage = newList.getPage(i);
+            //removed pages are out of screen and are reloaded before they are shown
+            if (oldPage == newPage || newPage == null) {
+                continue;
+            }
+            dispatchPageChanges(headersCount + i * newList.getPageSize(), oldPage, newPage);
+        }
+    }
+
+    @Nullable
+    protected T getItem(int position) {
+        if (list == null) {
+            return null;
+        }
+        int listPosition = position - headersCount;
+        list.loadAround(listPosition);
+        return list.get(listPosition);
+    }
+
+    @Override
+    public int getItemCount() {
+        return headersCount + (list == null? 0 : list.size());
+    }
+
+    private void dispatchPageChanges(int pageStart, @Nullable List<T> oldPage, List<T> newPage) {
+        if (oldPage == null) {
+            notifyItemRangeChanged(pageStart, newPage.size());
+            return;
+        }
+        for (int i = 0; i < newPage.size(); i++) {
+            T newItem = newPage.get(i);
+            T oldItem = i < oldPage.size()? oldPage.get(i) : null;
+            if (oldItem == null || !diffCallback.areItemsTheSame(oldItem, newItem)) {
+                notifyItemChanged(pageStart + i);
+            } else if (!diffCallback.areContentsTheSame(oldItem, newItem)) {
+                notifyItemChanged(pageStart + i, diffCallback.getChangePayload(oldItem, newItem));
+            }
+        }
+    }
+}
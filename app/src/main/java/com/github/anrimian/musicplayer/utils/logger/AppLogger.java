@@ -9,10 +9,14 @@ import android.net.Uri;
 import android.widget.Toast;
 
 import com.github.anrimian.musicplayer.R;
+import com.github.anrimian.musicplayer.data.utils.dev.PerformanceMetrics;
 import com.github.anrimian.musicplayer.domain.repositories.LoggerRepository;
 
+import java.io.File;
 import java.util.List;
 
+import io.reactivex.rxjava3.android.schedulers.AndroidSchedulers;
+
 import static com.github.anrimian.musicplayer.ui.common.AppAndroidUtils.createUri;
 
 public class AppLogger {
@@ -37,8 +41,47 @@ public class AppLogger {
                 });
     }
 
+    public void initPerformanceMetrics() {
+        PerformanceMetrics.setEnabled(loggerRepository.isPerformanceMetricsEnabled());
+    }
+
+    public void setPerformanceMetricsEnabled(boolean enabled) {
+        loggerRepository.setPerformanceMetricsEnabled(enabled);
+        PerformanceMetrics.setEnabled(enabled);
+        if (!enabled) {
+            PerformanceMetrics.reset();
+        }
+    }
+
+    /**
+     * Appends collected metrics to log file, so they can be viewed and sent with log screens
+     */
+    public void writePerformanceMetrics() {
+        fileLog.writePerformanceMetrics(PerformanceMetrics.dump());
+    }
+
     public void startViewLogScreen(Activity activity) {
-        Uri uri = createUri(activity, fileLog.getFile());
+        fileLog.getFile()
+                .observeOn(AndroidSchedulers.mainThread())
+                .doOnSuccess(file -> startViewLogScreen(activity, file))
+                .doOnError(t -> showLogNotExportedMessage(activity))
+                .ignoreElement()
+                .onErrorComplete()
+                .subscribe();
+    }
+
+    public void startSendLogScreen(Activity activity) {
+        fileLog.getFile()
+                .observeOn(AndroidSchedulers.mainThread())
+                .doOnSuccess(file -> startSendLogScreen(activity, file))
+                .doOnError(t -> showLogNotExportedMessage(activity))
+                .ignoreElement()
+                .onErrorComplete()
+                .subscribe();
+    }
+
+    private void startViewLogScreen(Activity activity, File file) {
+        Uri uri = createUri(activity, file);
         Intent intent = new Intent(Intent.ACTION_VIEW, uri);
         intent.addFlags(Intent.FLAG_GRANT_READ_URI_PERMISSION);
         intent.setDataAndType(uri, "text/*");
@@ -49,8 +92,8 @@ public class AppLogger {
         }
     }
 
-    public void startSendLogScreen(Activity activity) {
-        Uri uri = createUri(activity, fileLog.getFile());
+    private void startSendLogScreen(Activity activity, File file) {
+        Uri uri = createUri(activity, file);
         Intent intent = new Intent(Intent.ACTION_SENDTO);
         intent.putExtra(Intent.EXTRA_SUBJECT, "Log info");
         intent.putExtra(Intent.EXTRA_STREAM, uri);
@@ -73,4 +116,8 @@ public class AppLogger {
         }
     }
 
+    private void showLogNotExportedMessage(Activity activity) {
+        Toast.makeText(activity, "Log file is not ready, try again", Toast.LENGTH_SHORT).show();
+    }
+
 }
@@ -0,0 +1,284 @@
+package com.github.anrimian.musicplayer.utils.logger;
+
+import androidx.annotation.Nullable;
+
+import com.github.anrimian.musicplayer.domain.utils.functions.Mapper;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Writes log records to files on single background thread.
+ * <p>
+ * Callers only put record to lock-free ring buffer and never wait for file system. Records are
+ * formatted on writer thread. When buffer is full, record is dropped and count of dropped
+ * records is written before the next one.
+ * <p>
+ * Log is kept in several segment files of limited size. When current segment is full, it
+ * becomes previous one and the oldest segment is deleted, so the newest records are always kept.
+ */
+public class AsyncLogWriter<T> {
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final File directory;
+    private final String fileName;
+    private final Mapper<T, String> formatter;
+    private final long segmentSize;
+    private final int segmentsCount;
+
+    private final RingBuffer<Object> buffer;
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final Thread writerThread;
+
+    private volatile boolean idle;
+
+    //accessed only from writer thread
+    @Nullable
+    private OutputStream outputStream;
+    private long currentSegmentSize;
+
+    /**
+     * @param fileName name of segment files without extension
+     * @param formatter converts record to text, called on writer thread only
+     * @param bufferCapacity max count of records waiting for write, power of two
+     */
+    public AsyncLogWriter(File directory,
+                          String fileName,
+                          Mapper<T, String> formatter,
+                          int bufferCapacity,
+                          long segmentSize,
+                          int segmentsCount) {
+        this.directory = directory;
+        this.fileName = fileName;
+        this.formatter = formatter;
+        this.segmentSize = segmentSize;
+        this.segmentsCount = segmentsCount;
+
+        buffer = new RingBuffer<>(bufferCapacity);
+        writerThread = new Thread(this::runWriterLoop, "log writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * @return false if record was dropped because buffer is full
+     */
+    public boolean write(T record) {
+        if (!buffer.offer(record)) {
+            droppedCount.incrementAndGet();
+            return false;
+        }
+        wakeUpWriter();
+        return true;
+    }
+
+    /**
+     * Waits until all records written before this call are stored in file.
+     *
+     * @return false if timeout is elapsed
+     */
+    public boolean flush(long timeoutMillis) {
+        return runOnWriterThread(this::flushOutput, timeoutMillis);
+    }
+
+    /**
+     * Writes all segments to target file, from the oldest one to the newest.
+     *
+     * @return false if timeout is elapsed or file is not written
+     */
+    public boolean exportTo(File target, long timeoutMillis) {
+        boolean[] exported = new boolean[1];
+        boolean completed = runOnWriterThread(() -> exported[0] = exportSegments(target), timeoutMillis);
+        return completed && exported[0];
+    }
+
+    public boolean clear(long timeoutMillis) {
+        return runOnWriterThread(this::deleteSegments, timeoutMillis);
+    }
+
+    /**
+     * @return existing segment files, from the oldest one to the newest
+     */
+    public List<File> getSegments() {
+        List<File> files = new ArrayList<>(segmentsCount);
+        for (int i = segmentsCount - 1; i >= 0; i--) {
+            File file = getSegment(i);
+            if (file.exists()) {
+                files.add(file);
+            }
+        }
+        return files;
+    }
+
+    private boolean runOnWriterThread(Runnable action, long timeoutMillis) {
+        CountDownLatch latch = new CountDownLatch(1);
+        Runnable command = () -> {
+            try {
+                action.run();
+            } finally {
+                latch.countDown();
+            }
+        };
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while (!buffer.offer(command)) {
+            if (System.nanoTime() >= deadline) {
+                return false;
+            }
+            wakeUpWriter();
+            Thread.yield();
+        }
+        wakeUpWriter();
+        try {
+            return latch.await(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void wakeUpWriter() {
+        if (idle) {
+            LockSupport.unpark(writerThread);
+        }
+    }
+
+    private void runWriterLoop() {
+        //noinspection InfiniteLoopStatement
+        while (true) {
+            Object item = buffer.poll();
+            if (item == null) {
+                flushOutput();
+                idle = true;
+                //producer checks idle flag after publishing, so record can't be missed here
+                if (buffer.isEmpty()) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+                idle = false;
+                continue;
+            }
+            try {
+                processItem(item);
+            } catch (RuntimeException ignored) {}
+        }
+    }
+
+    private void processItem(Object item) {
+        if (item instanceof Runnable) {
+            ((Runnable) item).run();
+            return;
+        }
+        long dropped = droppedCount.getAndSet(0);
+        if (dropped > 0) {
+            writeText(dropped + " log records dropped\n");
+        }
+        //noinspection unchecked
+        writeText(formatter.map((T) item));
+    }
+
+    private void writeText(String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        try {
+            if (outputStream != null
+                    && currentSegmentSize > 0
+                    && currentSegmentSize + bytes.length > segmentSize) {
+                rotateSegments();
+            }
+            OutputStream outputStream = getOutputStream();
+            outputStream.write(bytes);
+            currentSegmentSize += bytes.length;
+        } catch (IOException ignored) {
+            closeOutput();
+        }
+    }
+
+    private OutputStream getOutputStream() throws IOException {
+        if (outputStream == null) {
+            File file = getSegment(0);
+            currentSegmentSize = file.length();
+            if (currentSegmentSize >= segmentSize) {
+                rotateSegments();
+            }
+            outputStream = new BufferedOutputStream(new FileOutputStream(file, true));
+        }
+        return outputStream;
+    }
+
+    @SuppressWarnings("ResultOfMethodCallIgnored")
+    private void rotateSegments() {
+        closeOutput();
+        getSegment(segmentsCount - 1).delete();
+        for (int i = segmentsCount - 2; i >= 0; i--) {
+            File file = getSegment(i);
+            if (file.exists()) {
+                file.renameTo(getSegment(i + 1));
+            }
+        }
+        currentSegmentSize = 0;
+    }
+
+    private boolean exportSegments(File target) {
+        flushOutput();
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(target))) {
+            byte[] copyBuffer = new byte[8192];
+            for (File segment: getSegments()) {
+                try (InputStream in = new FileInputStream(segment)) {
+                    int count;
+                    while ((count = in.read(copyBuffer)) != -1) {
+                        out.write(copyBuffer, 0, count);
+                    }
+                }
+            }
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    @SuppressWarnings("ResultOfMethodCallIgnored")
+    private void deleteSegments() {
+        closeOutput();
+        for (int i = 0; i < segmentsCount; i++) {
+            getSegment(i).delete();
+        }
+        droppedCount.set(0);
+    }
+
+    private void flushOutput() {
+        if (outputStream == null) {
+            return;
+        }
+        try {
+            outputStream.flush();
+        } catch (IOException ignored) {
+            closeOutput();
+        }
+    }
+
+    private void closeOutput() {
+        if (outputStream == null) {
+            return;
+        }
+        try {
+            outputStream.close();
+        } catch (IOException ignored) {}
+        outputStream = null;
+    }
+
+    private File getSegment(int index) {
+        String name = index == 0? fileName + ".txt" : fileName + "." + index + ".txt";
+        return new File(directory, name);
+    }
+}
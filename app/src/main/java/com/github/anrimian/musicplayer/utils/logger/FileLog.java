@@ -1,17 +1,15 @@
 package com.github.anrimian.musicplayer.utils.logger;
 
-import static java.io.File.separator;
-
 import android.content.Context;
 import android.os.Build;
 
+import androidx.annotation.Nullable;
+
 import com.github.anrimian.musicplayer.ui.utils.AppInfoKt;
 
 import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.PrintWriter;
@@ -20,61 +18,83 @@ import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.Locale;
 
+import io.reactivex.rxjava3.core.Completable;
+import io.reactivex.rxjava3.core.Scheduler;
+import io.reactivex.rxjava3.core.Single;
+
 @SuppressWarnings("WeakerAccess")
 public class FileLog {
 
-    private static final String LOG_FILE_NAME = "log.txt";
-    private static final int MAX_FILE_SIZE = 2 * 1024 * 1024;
+    private static final String LOG_FILE_NAME = "log";
+    private static final String REPORT_FILE_NAME = "log_report.txt";
+    private static final int BUFFER_CAPACITY = 256;
+    private static final int SEGMENT_SIZE = 1024 * 1024;
+    private static final int SEGMENTS_COUNT = 2;
+    private static final long WAIT_TIMEOUT_MILLIS = 2000;
 
     private final Context context;
+    private final Scheduler ioScheduler;
+    private final AsyncLogWriter<LogRecord> logWriter;
 
-    public FileLog(Context context) {
+    //accessed only from writer thread
+    private final SimpleDateFormat dateFormat = new SimpleDateFormat("dd-MM-yyyy HH:mm:ss.SSS", Locale.getDefault());
+    private final Date date = new Date();
+    private String systemInfo;
+
+    public FileLog(Context context, Scheduler ioScheduler) {
         this.context = context;
+        this.ioScheduler = ioScheduler;
+        logWriter = new AsyncLogWriter<>(context.getFilesDir(),
+                LOG_FILE_NAME,
+                this::formatRecord,
+                BUFFER_CAPACITY,
+                SEGMENT_SIZE,
+                SEGMENTS_COUNT);
     }
 
     public boolean isFileExists() {
-        return getFile().exists();
+        return !logWriter.getSegments().isEmpty();
     }
 
     public long getFileSize() {
-        return getFile().length();
+        long size = 0;
+        for (File segment: logWriter.getSegments()) {
+            size += segment.length();
+        }
+        return size;
     }
 
     public void writeMessage(String message) {
-        StringBuilder sb = new StringBuilder();
-        sb.append("Log message:\n");
-        appendSystemInfo(sb);
-
-        sb.append("Message: ");
-        sb.append(message);
-        sb.append("\n");
+        logWriter.write(new LogRecord("Log message", "Message: " + message + "\n", null));
+    }
 
-        writeLog(sb.toString());
+    public void writePerformanceMetrics(String metrics) {
+        logWriter.write(new LogRecord("Performance metrics", metrics, null));
     }
 
+    /**
+     * Waits for record to be written, process is expected to be killed after this call
+     */
     public void writeFatalException(Throwable throwable) {
-        StringBuilder sb = new StringBuilder();
-        sb.append("Fatal error:\n");
-        appendSystemInfo(sb);
-        writeStackTrace(sb, throwable);
-        writeLog(sb.toString());
+        logWriter.write(new LogRecord("Fatal error", null, throwable));
+        logWriter.flush(WAIT_TIMEOUT_MILLIS);
     }
 
     public void writeException(Throwable throwable) {
-        StringBuilder sb = new StringBuilder();
-        sb.append("Non fatal error:\n");
-        appendSystemInfo(sb);
-        writeStackTrace(sb, throwable);
-        writeLog(sb.toString());
+        logWriter.write(new LogRecord("Non fatal error", null, throwable));
     }
 
-    public File getFile() {
-        String path = context.getFilesDir().getAbsolutePath() + separator + LOG_FILE_NAME;
-        return new File(path);
+    /**
+     * @return file with all log segments, from the oldest records to the newest.
+     * Emits error if log is not exported in time or can not be written
+     */
+    public Single<File> getFile() {
+        return Single.fromCallable(this::exportFile)
+                .subscribeOn(ioScheduler);
     }
 
     public String getLogText() {
-        try (FileInputStream fin = new FileInputStream(getFile());
+        try (FileInputStream fin = new FileInputStream(exportFile());
              BufferedReader reader = new BufferedReader(new InputStreamReader(fin))
         ) {
             StringBuilder sb = new StringBuilder();
@@ -88,22 +108,62 @@ public class FileLog {
         }
     }
 
-    private void appendSystemInfo(StringBuilder sb) {
-        sb.append("App version code: ");
-        sb.append(AppInfoKt.getAppInfo(context).getVersionCode());
-        sb.append("\n");
+    @SuppressWarnings("ResultOfMethodCallIgnored")
+    public Completable deleteLogFile() {
+        return Completable.fromAction(() -> {
+            if (!logWriter.clear(WAIT_TIMEOUT_MILLIS)) {
+                throw new IOException("log is not cleared");
+            }
+            new File(context.getFilesDir(), REPORT_FILE_NAME).delete();
+        }).subscribeOn(ioScheduler);
+    }
 
-        sb.append("Android system version: ");
-        sb.append(Build.VERSION.SDK_INT);
-        sb.append("\n");
+    private File exportFile() throws IOException {
+        File file = new File(context.getFilesDir(), REPORT_FILE_NAME);
+        if (!logWriter.exportTo(file, WAIT_TIMEOUT_MILLIS)) {
+            throw new IOException("log is not exported");
+        }
+        return file;
+    }
 
-        sb.append("Device: ");
-        sb.append(Build.MODEL);
-        sb.append("\n");
+    private String formatRecord(LogRecord record) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(record.title);
+        sb.append(":\n");
+        sb.append(getSystemInfo());
 
         sb.append("Log time: ");
-        sb.append(new SimpleDateFormat("dd-MM-yyyy HH:mm", Locale.getDefault()).format(new Date()));
+        date.setTime(record.time);
+        sb.append(dateFormat.format(date));
+        sb.append("\n");
+
+        if (record.text != null) {
+            sb.append(record.text);
+        }
+        if (record.throwable != null) {
+            writeStackTrace(sb, record.throwable);
+        }
         sb.append("\n");
+        return sb.toString();
+    }
+
+    private String getSystemInfo() {
+        if (systemInfo == null) {
+            StringBuilder sb = new StringBuilder();
+            sb.append("App version code: ");
+            sb.append(AppInfoKt.getAppInfo(context).getVersionCode());
+            sb.append("\n");
+
+            sb.append("Android system version: ");
+            sb.append(Build.VERSION.SDK_INT);
+            sb.append("\n");
+
+            sb.append("Device: ");
+            sb.append(Build.MODEL);
+            sb.append("\n");
+            systemInfo = sb.toString();
+        }
+        return systemInfo;
     }
 
     private void writeStackTrace(StringBuilder sb, Throwable throwable) {
@@ -119,28 +179,18 @@ public class FileLog {
         sb.append("\n");
     }
 
-    private void writeLog(String text) {
-        File logFile = getFile();
-        if (!logFile.exists()) {
-            try {
-                boolean created = logFile.createNewFile();
-                if (!created) {
-                    return;
-                }
-            } catch (IOException ignored) {
-                return;
-            }
-        } else if (logFile.length() > MAX_FILE_SIZE) {
-            return;
+    private static class LogRecord {
+        final long time = System.currentTimeMillis();
+        final String title;
+        @Nullable
+        final String text;
+        @Nullable
+        final Throwable throwable;
+
+        LogRecord(String title, @Nullable String text, @Nullable Throwable throwable) {
+            this.title = title;
+            this.text = text;
+            this.throwable = throwable;
         }
-        try (BufferedWriter buf = new BufferedWriter(new FileWriter(logFile, true))) {
-            buf.append(text);
-            buf.newLine();
-        } catch (IOException ignored) {}
-    }
-
-    @SuppressWarnings("ResultOfMethodCallIgnored")
-    public void deleteLogFile() {
-        getFile().delete();
     }
 }
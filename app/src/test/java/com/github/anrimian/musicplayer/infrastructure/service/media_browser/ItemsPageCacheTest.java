@@ -0,0 +1,45 @@
+package com.github.anrimian.musicplayer.infrastructure.service.media_browser;
+
+import static com.github.anrimian.musicplayer.domain.utils.ListUtils.asList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+
+public class ItemsPageCacheTest {
+
+    private final ItemsPageCache<String> cache = new ItemsPageCache<>(2);
+
+    @Test
+    public void evictLeastRecentlyUsedPageTest() {
+        cache.put("parent", ItemsPage.from(0, 10), asList("0"));
+        cache.put("parent", ItemsPage.from(1, 10), asList("1"));
+
+        //page 0 is used, so page 1 is evicted
+        assertEquals(asList("0"), cache.get("parent", ItemsPage.from(0, 10)));
+        cache.put("parent", ItemsPage.from(2, 10), asList("2"));
+
+        assertEquals(asList("0"), cache.get("parent", ItemsPage.from(0, 10)));
+        assertNull(cache.get("parent", ItemsPage.from(1, 10)));
+        assertEquals(asList("2"), cache.get("parent", ItemsPage.from(2, 10)));
+    }
+
+    @Test
+    public void separatePagesOfDifferentSizeTest() {
+        cache.put("parent", ItemsPage.from(0, 10), asList("0"));
+
+        assertNull(cache.get("parent", ItemsPage.from(0, 20)));
+    }
+
+    @Test
+    public void invalidateOnlyPagesOfParentTest() {
+        cache.put("folders-1", ItemsPage.from(0, 10), asList("1"));
+        cache.put("folders-12", ItemsPage.from(0, 10), asList("12"));
+
+        cache.invalidate("folders-1");
+
+        assertNull(cache.get("folders-1", ItemsPage.from(0, 10)));
+        assertEquals(asList("12"), cache.get("folders-12", ItemsPage.from(0, 10)));
+    }
+
+}
@@ -0,0 +1,51 @@
+package com.github.anrimian.musicplayer.infrastructure.service.media_browser;
+
+import static com.github.anrimian.musicplayer.domain.utils.ListUtils.asList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+public class ItemsPageTest {
+
+    private final List<Integer> items = asList(0, 1, 2, 3, 4, 5, 6);
+
+    @Test
+    public void calculateOffsetAndLimitTest() {
+        ItemsPage page = ItemsPage.from(2, 3);
+
+        assertEquals(6, page.getOffset());
+        assertEquals(3, page.getLimit());
+    }
+
+    @Test
+    public void returnAllItemsWithoutPageSizeTest() {
+        ItemsPage page = ItemsPage.from(2, 0);
+
+        assertEquals(0, page.getOffset());
+        assertEquals(-1, page.getLimit());
+        assertEquals(items, page.of(items));
+        assertEquals(items, ItemsPage.from(-1, 10).of(items));
+    }
+
+    @Test
+    public void selectItemsOfPageTest() {
+        assertEquals(asList(0, 1, 2), ItemsPage.from(0, 3).of(items));
+        assertEquals(asList(3, 4, 5), ItemsPage.from(1, 3).of(items));
+        assertEquals(asList(6), ItemsPage.from(2, 3).of(items));
+        assertTrue(ItemsPage.from(3, 3).of(items).isEmpty());
+    }
+
+    @Test
+    public void separateKeysOfParentsAndPagesTest() {
+        ItemsPage page = ItemsPage.from(1, 3);
+
+        assertTrue(page.getKey("folders-1").startsWith(ItemsPage.getKeyPrefix("folders-1")));
+        assertNotEquals(page.getKey("folders-1"), page.getKey("folders-12"));
+        assertNotEquals(page.getKey("folders-1"), ItemsPage.from(3, 1).getKey("folders-1"));
+    }
+
+}
@@ -0,0 +1,93 @@
+package com.github.anrimian.musicplayer.utils.logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+public class AsyncLogWriterTest {
+
+    private static final long TIMEOUT_MILLIS = 5000;
+
+    private File directory;
+
+    @BeforeEach
+    void setUp(@TempDir File dir) {
+        directory = dir;
+    }
+
+    @Test
+    public void writeRecordsTest() throws IOException {
+        AsyncLogWriter<String> writer = createWriter(1024, 2);
+
+        writer.write("first");
+        writer.write("second");
+        assertTrue(writer.flush(TIMEOUT_MILLIS));
+
+        assertEquals("first\nsecond\n", read(new File(directory, "log.txt")));
+    }
+
+    @Test
+    public void keepNewestRecordsOnRotationTest() throws IOException {
+        AsyncLogWriter<String> writer = createWriter(10, 2);
+
+        for (int i = 0; i < 10; i++) {
+            writer.write("record" + i);
+        }
+        assertTrue(writer.flush(TIMEOUT_MILLIS));
+
+        List<File> segments = writer.getSegments();
+        assertEquals(2, segments.size());
+        assertEquals("record8\n", read(segments.get(0)));
+        assertEquals("record9\n", read(segments.get(1)));
+    }
+
+    @Test
+    public void exportSegmentsFromOldestTest() throws IOException {
+        AsyncLogWriter<String> writer = createWriter(10, 3);
+        for (int i = 0; i < 3; i++) {
+            writer.write("record" + i);
+        }
+
+        File target = new File(directory, "export.txt");
+        assertTrue(writer.exportTo(target, TIMEOUT_MILLIS));
+
+        assertEquals("record0\nrecord1\nrecord2\n", read(target));
+    }
+
+    @Test
+    public void clearSegmentsTest() throws IOException {
+        AsyncLogWriter<String> writer = createWriter(10, 2);
+        for (int i = 0; i < 3; i++) {
+            writer.write("record" + i);
+        }
+
+        assertTrue(writer.clear(TIMEOUT_MILLIS));
+        assertTrue(writer.getSegments().isEmpty());
+
+        writer.write("new record");
+        assertTrue(writer.flush(TIMEOUT_MILLIS));
+        assertEquals("new record\n", read(new File(directory, "log.txt")));
+    }
+
+    private AsyncLogWriter<String> createWriter(long segmentSize, int segmentsCount) {
+        return new AsyncLogWriter<>(directory,
+                "log",
+                record -> record + "\n",
+                16,
+                segmentSize,
+                segmentsCount);
+    }
+
+    private static String read(File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,83 @@
+package com.github.anrimian.musicplayer.utils.logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class RingBufferTest {
+
+    @Test
+    public void rejectItemsWhenFullTest() {
+        RingBuffer<Integer> buffer = new RingBuffer<>(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(buffer.offer(i));
+        }
+        assertFalse(buffer.offer(4));
+
+        assertEquals(0, buffer.poll());
+        assertTrue(buffer.offer(4));
+    }
+
+    @Test
+    public void keepOrderAfterWrapTest() {
+        RingBuffer<Integer> buffer = new RingBuffer<>(4);
+        List<Integer> result = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            buffer.offer(i);
+            if (i % 2 == 1) {
+                result.add(buffer.poll());
+                result.add(buffer.poll());
+            }
+        }
+
+        assertEquals(10, result.size());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(i, result.get(i));
+        }
+        assertNull(buffer.poll());
+        assertTrue(buffer.isEmpty());
+    }
+
+    @Test
+    public void receiveEachItemFromConcurrentProducersTest() throws InterruptedException {
+        int producersCount = 4;
+        int itemsCount = 20000;
+        RingBuffer<Integer> buffer = new RingBuffer<>(64);
+
+        List<Thread> producers = new ArrayList<>();
+        for (int p = 0; p < producersCount; p++) {
+            int offset = p * itemsCount;
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < itemsCount; i++) {
+                    while (!buffer.offer(offset + i)) {
+                        Thread.yield();
+                    }
+                }
+            });
+            producers.add(thread);
+            thread.start();
+        }
+
+        Set<Integer> received = new HashSet<>();
+        while (received.size() < producersCount * itemsCount) {
+            Integer item = buffer.poll();
+            if (item == null) {
+                Thread.yield();
+                continue;
+            }
+            assertTrue(received.add(item));
+        }
+        for (Thread thread: producers) {
+            thread.join();
+        }
+        assertTrue(buffer.isEmpty());
+    }
+}
@@ -0,0 +1,101 @@
+package com.github.anrimian.musicplayer.data.controllers.music.players.exoplayer;
+
+import android.util.Log;
+
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.audio.AudioProcessor;
+
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Measures real time factor (duration of processed audio divided by processing time)
+ * of {@link ParametricEqualizerProcessor} with ten bands, preamp and limiter on stereo audio.
+ * Run with instrumentation argument: -e benchmark true
+ */
+public class ParametricEqualizerProcessorBenchmarkTest {
+
+    private static final String TAG = "EqualizerBenchmark";
+
+    private static final int CHANNEL_COUNT = 2;
+    private static final int FRAMES_PER_BUFFER = 4096;
+    private static final int AUDIO_SECONDS = 60;
+    private static final int WARM_UP_SECONDS = 5;
+
+    private static final float[] FREQUENCIES = {
+            31f, 62f, 125f, 250f, 500f, 1000f, 2000f, 4000f, 8000f, 16000f
+    };
+    private static final float[] GAINS = { 4f, 3f, 1f, -2f, -1f, 0.5f, 2f, 3f, -3f, 5f };
+
+    @BeforeEach
+    public void setUp() {
+        Assumptions.assumeTrue(Boolean.parseBoolean(
+                InstrumentationRegistry.getArguments().getString("benchmark")
+        ));
+    }
+
+    @Test
+    public void measureRealTimeFactor() {
+        int[] sampleRates = { 44100, 96000 };
+        for (int sampleRate: sampleRates) {
+            double shortFactor = runBenchmark(sampleRate, C.ENCODING_PCM_16BIT);
+            double floatFactor = runBenchmark(sampleRate, C.ENCODING_PCM_FLOAT);
+            Log.d(TAG, sampleRate + " Hz"
+                    + ", 16 bit: x" + Math.round(shortFactor)
+                    + ", float: x" + Math.round(floatFactor));
+        }
+    }
+
+    private double runBenchmark(int sampleRate, int encoding) {
+        ParametricEqualizerProcessor processor = new ParametricEqualizerProcessor();
+        processor.setBands(FREQUENCIES, GAINS, ParametricEqualizerProcessor.DEFAULT_Q);
+        processor.setPreamp(-3f);
+        processor.setLimiterEnabled(true);
+        AudioProcessor.AudioFormat format = new AudioProcessor.AudioFormat(sampleRate,
+                CHANNEL_COUNT,
+                encoding);
+        processor.configure(format);
+        processor.flush();
+
+        ByteBuffer input = createInput(encoding, format.bytesPerFrame * FRAMES_PER_BUFFER, sampleRate);
+
+        processBuffers(processor, input, WARM_UP_SECONDS * sampleRate / FRAMES_PER_BUFFER);
+
+        int buffersCount = AUDIO_SECONDS * sampleRate / FRAMES_PER_BUFFER;
+        long startTime = System.nanoTime();
+        processBuffers(processor, input, buffersCount);
+        long time = System.nanoTime() - startTime;
+
+        double audioSeconds = (double) buffersCount * FRAMES_PER_BUFFER / sampleRate;
+        return audioSeconds / (time / 1_000_000_000d);
+    }
+
+    private void processBuffers(ParametricEqualizerProcessor processor, ByteBuffer input, int count) {
+        for (int i = 0; i < count; i++) {
+            input.rewind();
+            processor.queueInput(input);
+            processor.getOutput();
+        }
+    }
+
+    private ByteBuffer createInput(int encoding, int size, int sampleRate) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(size).order(ByteOrder.nativeOrder());
+        int bytesPerSample = encoding == C.ENCODING_PCM_FLOAT? 4 : 2;
+        for (int i = 0; i < size / bytesPerSample; i++) {
+            double value = 0.5 * Math.sin(2 * Math.PI * 440 * (i / CHANNEL_COUNT) / sampleRate);
+            if (encoding == C.ENCODING_PCM_FLOAT) {
+                buffer.putFloat((float) value);
+            } else {
+                buffer.putShort((short) (value * Short.MAX_VALUE));
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+}
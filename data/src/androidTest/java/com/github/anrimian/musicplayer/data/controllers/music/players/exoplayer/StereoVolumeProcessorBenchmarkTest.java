@@ -0,0 +1,104 @@
+package com.github.anrimian.musicplayer.data.controllers.music.players.exoplayer;
+
+import android.util.Log;
+
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.audio.AudioProcessor;
+
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Measures {@link StereoVolumeProcessor} throughput in samples per second for each supported
+ * encoding, with changed balance and with full volume.
+ * Run with instrumentation argument: -e benchmark true
+ */
+public class StereoVolumeProcessorBenchmarkTest {
+
+    private static final String TAG = "VolumeBenchmark";
+
+    private static final int SAMPLE_RATE = 44100;
+    private static final int CHANNEL_COUNT = 2;
+    //close to size of buffers which audio sink passes to processors
+    private static final int FRAMES_PER_BUFFER = 4096;
+    private static final int WARM_UP_ITERATIONS = 2_000;
+    private static final int ITERATIONS = 20_000;
+
+    @BeforeEach
+    public void setUp() {
+        Assumptions.assumeTrue(Boolean.parseBoolean(
+                InstrumentationRegistry.getArguments().getString("benchmark")
+        ));
+    }
+
+    @Test
+    public void measureSamplesPerSecond() throws Exception {
+        int[] encodings = {
+                C.ENCODING_PCM_16BIT,
+                C.ENCODING_PCM_24BIT,
+                C.ENCODING_PCM_32BIT,
+                C.ENCODING_PCM_FLOAT
+        };
+        String[] names = { "16 bit", "24 bit", "32 bit", "float" };
+        for (int i = 0; i < encodings.length; i++) {
+            long balanced = runBenchmark(encodings[i], 0.7f, 0.4f);
+            long unity = runBenchmark(encodings[i], 1f, 1f);
+            Log.d(TAG, names[i]
+                    + ", balance: " + balanced + " samples/s"
+                    + ", full volume: " + unity + " samples/s");
+        }
+    }
+
+    private long runBenchmark(int encoding, float left, float right) throws Exception {
+        StereoVolumeProcessor processor = new StereoVolumeProcessor();
+        processor.setChannelMap(new int[] { 0, 1 });
+        processor.setVolume(left, right);
+        AudioProcessor.AudioFormat format = new AudioProcessor.AudioFormat(SAMPLE_RATE,
+                CHANNEL_COUNT,
+                encoding);
+        processor.configure(format);
+        processor.flush();
+
+        ByteBuffer input = createInput(encoding, format.bytesPerFrame * FRAMES_PER_BUFFER);
+
+        for (int i = 0; i < WARM_UP_ITERATIONS; i++) {
+            processBuffer(processor, input);
+        }
+        long startTime = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            processBuffer(processor, input);
+        }
+        long time = System.nanoTime() - startTime;
+
+        long samples = (long) ITERATIONS * FRAMES_PER_BUFFER * CHANNEL_COUNT;
+        return samples * 1_000_000_000L / time;
+    }
+
+    private void processBuffer(StereoVolumeProcessor processor, ByteBuffer input) {
+        input.rewind();
+        processor.queueInput(input);
+        processor.getOutput();
+    }
+
+    private ByteBuffer createInput(int encoding, int size) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(size).order(ByteOrder.nativeOrder());
+        if (encoding == C.ENCODING_PCM_FLOAT) {
+            //random bytes can give NaN and denormal values which are slower to multiply
+            for (int i = 0; i < size / 4; i++) {
+                buffer.putFloat((float) Math.sin(i / 16d));
+            }
+        } else {
+            for (int i = 0; i < size; i++) {
+                buffer.put((byte) (i * 31));
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+}
@@ -1,6 +1,7 @@
 package com.github.anrimian.musicplayer.data.database;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import android.app.Instrumentation;
 import android.content.ContentValues;
@@ -30,6 +31,129 @@ public class MigrationsTest {
                     new FrameworkSQLiteOpenHelperFactory()
     );
 
+    @Test
+    public void testMigrationFrom11To12() throws Exception {
+        testHelper.createDatabase(TEST_DB_NAME, 11);
+        testHelper.runMigrationsAndValidate(TEST_DB_NAME,
+                12,
+                false,
+                Migrations.MIGRATION_11_12);
+    }
+
+    @Test
+    public void testMigrationFrom10To11() throws Exception {
+        SupportSQLiteDatabase db = testHelper.createDatabase(TEST_DB_NAME, 10);
+
+        ContentValues cv = new ContentValues();
+        cv.put("name", "parent");
+        long parentId = db.insert("folders", SQLiteDatabase.CONFLICT_ABORT, cv);
+
+        cv = new ContentValues();
+        cv.put("parentId", parentId);
+        cv.put("name", "child");
+        long childId = db.insert("folders", SQLiteDatabase.CONFLICT_ABORT, cv);
+
+        for (int i = 0; i < 2; i++) {
+            cv = new ContentValues();
+            cv.put("storageId", (long) i);
+            cv.put("folderId", childId);
+            cv.put("title", "test title");
+            cv.put("fileName", "filename.mp3");
+            cv.put("filePath", "test/music/filename.mp3");
+            cv.put("duration", 13);
+            cv.put("size", 100);
+            cv.put("dateAdded", (long) i);
+            cv.put("dateModified", 0L);
+            cv.put("lastScanDate", 0L);
+            db.insert("compositions", SQLiteDatabase.CONFLICT_ABORT, cv);
+        }
+
+        testHelper.runMigrationsAndValidate(TEST_DB_NAME,
+                11,
+                false,
+                Migrations.MIGRATION_10_11);
+
+        Cursor c = db.query("SELECT count() FROM folder_tree WHERE descendantId = " + childId);
+        c.moveToFirst();
+        assertEquals(2, c.getInt(0));
+
+        c = db.query("SELECT filesCount, duration, size, lastAddDate FROM folder_aggregates WHERE folderId = " + parentId);
+        c.moveToFirst();
+        assertEquals(2, c.getInt(0));
+        assertEquals(26, c.getLong(1));
+        assertEquals(200, c.getLong(2));
+        assertEquals(1, c.getLong(3));
+    }
+
+    @Test
+    public void testMigrationFrom9To10() throws Exception {
+        SupportSQLiteDatabase db = testHelper.createDatabase(TEST_DB_NAME, 9);
+
+        ContentValues cv = new ContentValues();
+        cv.put("storageId", 1L);
+        cv.put("title", "test title");
+        cv.put("fileName", "filename.mp3");
+        cv.put("filePath", "test/music/filename.mp3");
+        cv.put("duration", 13);
+        cv.put("size", 100);
+        cv.put("dateAdded", 0L);
+        cv.put("dateModified", 0L);
+        long id = db.insert("compositions", SQLiteDatabase.CONFLICT_ABORT, cv);
+
+        cv = new ContentValues();
+        cv.put("audioId", id);
+        cv.put("position", 0);
+        cv.put("shuffledPosition", 0);
+        db.insert("play_queue", SQLiteDatabase.CONFLICT_ABORT, cv);
+
+        testHelper.runMigrationsAndValidate(TEST_DB_NAME,
+                10,
+                false,
+                Migrations.MIGRATION_9_10);
+
+        db.execSQL("UPDATE compositions SET lastScanDate = 100 WHERE id = " + id);
+        Cursor c = db.query("SELECT count() FROM play_queue_composition_changes");
+        c.moveToFirst();
+        assertEquals(0, c.getInt(0));
+
+        //each change is recorded with its own id, even for the same composition
+        db.execSQL("UPDATE compositions SET title = 'new title' WHERE id = " + id);
+        db.execSQL("UPDATE compositions SET title = 'new title 2' WHERE id = " + id);
+        c = db.query("SELECT id, compositionId FROM play_queue_composition_changes ORDER BY id");
+        assertEquals(2, c.getCount());
+        c.moveToFirst();
+        long firstChangeId = c.getLong(0);
+        assertEquals(id, c.getLong(1));
+        c.moveToNext();
+        assertTrue(c.getLong(0) > firstChangeId);
+        assertEquals(id, c.getLong(1));
+    }
+
+    @Test
+    public void testMigrationFrom8To9() throws Exception {
+        SupportSQLiteDatabase db = testHelper.createDatabase(TEST_DB_NAME, 8);
+
+        ContentValues cv = new ContentValues();
+        cv.put("storageId", 1L);
+        cv.put("title", "test title");
+        cv.put("fileName", "filename.mp3");
+        cv.put("filePath", "test/music/filename.mp3");
+        cv.put("duration", 13);
+        cv.put("size", 100);
+        cv.put("dateAdded", 0L);
+        cv.put("dateModified", 0L);
+        long id = db.insert("compositions", SQLiteDatabase.CONFLICT_ABORT, cv);
+
+        testHelper.runMigrationsAndValidate(TEST_DB_NAME,
+                9,
+                false,
+                Migrations.MIGRATION_8_9);
+
+        Cursor c = db.query("SELECT rowid FROM compositions_search WHERE compositions_search MATCH 'tit*'");
+        c.moveToFirst();
+        assertEquals(id, c.getLong(0));
+    }
+
     @Test
     public void testMigrationFrom7To8() throws Exception {
         testHelper.createDatabase(TEST_DB_NAME, 7);
@@ -12,15 +12,22 @@ import androidx.room.Room;
 import androidx.test.platform.app.InstrumentationRegistry;
 
 import com.github.anrimian.musicplayer.data.database.AppDatabase;
+import com.github.anrimian.musicplayer.data.database.SearchIndexCallback;
 import com.github.anrimian.musicplayer.data.database.dao.albums.AlbumsDao;
 import com.github.anrimian.musicplayer.data.database.dao.artist.ArtistsDao;
 import com.github.anrimian.musicplayer.data.database.entities.albums.AlbumEntity;
 import com.github.anrimian.musicplayer.data.database.entities.artist.ArtistEntity;
+import com.github.anrimian.musicplayer.domain.models.composition.Composition;
+import com.github.anrimian.musicplayer.domain.models.order.Order;
+import com.github.anrimian.musicplayer.domain.models.order.OrderType;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public class CompositionsDaoWrapperTest {
 
     private AppDatabase db;
@@ -33,12 +40,14 @@ public class CompositionsDaoWrapperTest {
     @BeforeEach
     public void setUp() {
         Context context = InstrumentationRegistry.getInstrumentation().getContext();
-        db = Room.inMemoryDatabaseBuilder(context, AppDatabase.class).build();
+        db = Room.inMemoryDatabaseBuilder(context, AppDatabase.class)
+                .addCallback(new SearchIndexCallback())
+                .build();
         compositionsDao = db.compositionsDao();
         artistsDao = db.artistsDao();
         albumsDao = db.albumsDao();
 
-        daoWrapper = new CompositionsDaoWrapper(db, artistsDao, compositionsDao, albumsDao);
+        daoWrapper = new CompositionsDaoWrapper(db, artistsDao, compositionsDao, albumsDao, db.foldersDao());
     }
 
     @AfterEach
@@ -288,4 +297,154 @@ public class CompositionsDaoWrapperTest {
         assertEquals(secondAlbumId, newAlbumId);
         assertEquals(newAlbumId, compositionsDao.getAlbumId(compositionId));
     }
+
+    @Test
+    public void searchCompositionsByWordPrefix() {
+        long artistId = artistsDao.insertArtist(new ArtistEntity("Pink Floyd"));
+        compositionsDao.insert(composition(artistId, null, "Comfortably Numb"));
+        compositionsDao.insert(composition(null, null, "Money"));
+
+        List<Composition> result = daoWrapper.searchCompositions("numb", false);
+        assertEquals(1, result.size());
+        assertEquals("Comfortably Numb", result.get(0).getTitle());
+
+        assertEquals(1, daoWrapper.searchCompositions("floy", false).size());
+        assertEquals(0, daoWrapper.searchCompositions("loyd", false).size());
+        assertEquals(1, daoWrapper.searchCompositions("floyd numb", false).size());
+    }
+
+    @Test
+    public void searchCompositionsOnlyByDisplayedName() {
+        compositionsDao.insert(composition(null, null, "Money"));
+
+        assertEquals(0, daoWrapper.searchCompositions("file", false).size());
+        assertEquals(1, daoWrapper.searchCompositions("file", true).size());
+        assertEquals(0, daoWrapper.searchCompositions("money", true).size());
+
+        compositionsDao.insert(composition(null, null, ""));
+        assertEquals(1, daoWrapper.searchCompositions("file", false).size());
+    }
+
+    @Test
+    public void searchCompositionsOrderedByRelevance() {
+        long artistId = artistsDao.insertArtist(new ArtistEntity("Money band"));
+        compositionsDao.insert(composition(artistId, null, "Another title"));
+        compositionsDao.insert(composition(null, null, "Money"));
+
+        List<Composition> result = daoWrapper.searchCompositions("mon", false);
+        assertEquals(2, result.size());
+        assertEquals("Money", result.get(0).getTitle());
+        assertEquals("Another title", result.get(1).getTitle());
+    }
+
+    @Test
+    public void searchCompositionsAfterArtistRename() {
+        long artistId = artistsDao.insertArtist(new ArtistEntity("old name"));
+        compositionsDao.insert(composition(artistId, null, "test title"));
+
+        artistsDao.updateArtistName("new name", artistId);
+
+        assertEquals(1, daoWrapper.searchCompositions("new", false).size());
+        assertEquals(0, daoWrapper.searchCompositions("old", false).size());
+    }
+
+    @Test
+    public void getCompositionsPage() {
+        for (int i = 0; i < 5; i++) {
+            compositionsDao.insert(composition(null, null, "title " + i));
+        }
+        Order order = new Order(OrderType.NAME, false);
+
+        List<Composition> page = daoWrapper.getPageObservable(order, false, 2, 2).blockingFirst();
+        assertEquals(2, page.size());
+        assertEquals("title 2", page.get(0).getTitle());
+        assertEquals("title 3", page.get(1).getTitle());
+
+        List<Composition> lastPage = daoWrapper.getPageObservable(order, false, 4, -1).blockingFirst();
+        assertEquals(1, lastPage.size());
+        assertEquals("title 4", lastPage.get(0).getTitle());
+    }
+
+    @Test
+    public void getCompositionsPageAfterComposition() {
+        String[] titles = { "a", "b", "b", "b", "c" };
+        for (String title: titles) {
+            compositionsDao.insert(composition(null, null, title));
+        }
+        for (boolean reversed: new boolean[] { false, true }) {
+            Order order = new Order(OrderType.NAME, reversed);
+            List<Composition> firstPage = daoWrapper.getPage(order, false, null, 0, 2);
+            List<Composition> secondPage = daoWrapper.getPageAfter(order,
+                    false,
+                    null,
+                    firstPage.get(1).getId(),
+                    2);
+            List<Composition> thirdPage = daoWrapper.getPageAfter(order,
+                    false,
+                    null,
+                    secondPage.get(1).getId(),
+                    2);
+
+            assertEquals(daoWrapper.getPage(order, false, null, 2, 2), secondPage);
+            assertEquals(daoWrapper.getPage(order, false, null, 4, 2), thirdPage);
+        }
+    }
+
+    @Test
+    public void getAllCompositionsInSameOrderAsPagesWithDuplicateKeys() {
+        for (int i = 0; i < 5; i++) {
+            compositionsDao.insert(composition(null, null, "title " + i));
+        }
+        for (boolean reversed: new boolean[] { false, true }) {
+            //all test compositions have the same size
+            Order order = new Order(OrderType.SIZE, reversed);
+            List<Composition> pages = new ArrayList<>(daoWrapper.getPage(order, false, null, 0, 2));
+            pages.addAll(daoWrapper.getPageAfter(order,
+                    false,
+                    null,
+                    pages.get(pages.size() - 1).getId(),
+                    10));
+
+            List<Composition> all = daoWrapper.getAllObservable(order, false, null).blockingFirst();
+            assertEquals(all, pages);
+            assertEquals(all, daoWrapper.getPageObservable(order, false, 0, -1).blockingFirst());
+        }
+    }
+
+    @Test
+    public void getCompositionsPageAfterDeletedComposition() {
+        long id = compositionsDao.insert(composition(null, null, "a"));
+        compositionsDao.insert(composition(null, null, "b"));
+        Order order = new Order(OrderType.NAME, false);
+
+        daoWrapper.delete(id);
+
+        assertNull(daoWrapper.getPageAfter(order, false, null, id, 2));
+    }
+
+    @Test
+    public void getCompositionsPageByCondition() {
+        long artistId = artistsDao.insertArtist(new ArtistEntity("test artist"));
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(compositionsDao.insert(composition(artistId, null, "title " + i)));
+            compositionsDao.insert(composition(null, null, "other " + i));
+        }
+        String condition = ArtistsDao.getCompositionsCondition();
+
+        List<Composition> pages = new ArrayList<>(daoWrapper.getPage(condition, artistId, null, false, 0, 2));
+        pages.addAll(daoWrapper.getPageAfter(condition,
+                artistId,
+                null,
+                false,
+                pages.get(1).getId(),
+                10));
+
+        List<Long> pageIds = new ArrayList<>();
+        for (Composition composition: pages) {
+            pageIds.add(composition.getId());
+        }
+        assertEquals(ids, pageIds);
+        assertEquals(5, (int) daoWrapper.getCountObservable(condition, artistId).blockingFirst());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,302 @@
+package com.github.anrimian.musicplayer.data.database.dao.compositions;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.util.Log;
+
+import androidx.collection.LongSparseArray;
+import androidx.room.Room;
+import androidx.sqlite.db.SimpleSQLiteQuery;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.github.anrimian.musicplayer.data.database.AppDatabase;
+import com.github.anrimian.musicplayer.data.database.dao.albums.AlbumsDao;
+import com.github.anrimian.musicplayer.data.database.dao.artist.ArtistsDao;
+import com.github.anrimian.musicplayer.data.database.dao.folders.FoldersDao;
+import com.github.anrimian.musicplayer.data.database.entities.albums.AlbumEntity;
+import com.github.anrimian.musicplayer.data.database.entities.artist.ArtistEntity;
+import com.github.anrimian.musicplayer.data.database.entities.composition.CompositionEntity;
+import com.github.anrimian.musicplayer.data.database.entities.folder.FolderEntity;
+import com.github.anrimian.musicplayer.data.database.mappers.CompositionMapper;
+import com.github.anrimian.musicplayer.data.models.changes.Change;
+import com.github.anrimian.musicplayer.data.repositories.scanner.FolderMerger;
+import com.github.anrimian.musicplayer.data.storage.providers.albums.StorageAlbum;
+import com.github.anrimian.musicplayer.data.storage.providers.music.StorageComposition;
+import com.github.anrimian.musicplayer.data.storage.providers.music.StorageFullComposition;
+import com.github.anrimian.musicplayer.domain.utils.Objects;
+
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import utils.TestDataProvider;
+
+/**
+ * Compares per row writes (as they were before batching) with {@link StorageCompositionsInserter}
+ * on synthetic library.
+ * Run with instrumentation argument: -e benchmark true
+ */
+public class StorageCompositionsInserterBenchmarkTest {
+
+    private static final String TAG = "InserterBenchmark";
+
+    private static final int COMPOSITIONS_COUNT = 50_000;
+    private static final int FOLDERS_COUNT = 500;
+    private static final int ARTISTS_COUNT = 1000;
+    private static final int ALBUMS_COUNT = 4000;
+
+    private AppDatabase db;
+    private CompositionsDao compositionsDao;
+    private CompositionsDaoWrapper compositionsDaoWrapper;
+    private FoldersDao foldersDao;
+    private ArtistsDao artistsDao;
+    private AlbumsDao albumsDao;
+
+    private StorageCompositionsInserter inserter;
+
+    @BeforeEach
+    public void setUp() {
+        Assumptions.assumeTrue(Boolean.parseBoolean(
+                InstrumentationRegistry.getArguments().getString("benchmark")
+        ));
+    }
+
+    @Test
+    public void compareApplyChangesTime() {
+        long legacyTime = runBenchmark(this::applyChangesPerRow);
+        long batchTime = runBenchmark(this::applyChangesBatch);
+
+        Log.d(TAG, "compositions: " + COMPOSITIONS_COUNT
+                + ", per row: " + legacyTime + "ms"
+                + ", batch: " + batchTime + "ms");
+    }
+
+    private long runBenchmark(ChangesApplier applier) {
+        createDatabase();
+        try {
+            List<Long> folderIds = fillLibrary();
+
+            LongSparseArray<StorageComposition> current = compositionsDaoWrapper.selectAllAsStorageCompositions();
+            List<StorageFullComposition> added = new ArrayList<>();
+            List<StorageComposition> deleted = new ArrayList<>();
+            List<Change<StorageComposition, StorageFullComposition>> changed = new ArrayList<>();
+            LongSparseArray<Long> addedFilesFolderMap = new LongSparseArray<>();
+            createChanges(current, folderIds, added, deleted, changed, addedFilesFolderMap);
+
+            long startTime = System.currentTimeMillis();
+            applier.apply(added, deleted, changed, addedFilesFolderMap);
+            long time = System.currentTimeMillis() - startTime;
+
+            long expectedCount = COMPOSITIONS_COUNT - deleted.size() + added.size();
+            assertEquals(expectedCount, compositionsDao.getCompositionsCount());
+            return time;
+        } finally {
+            db.close();
+        }
+    }
+
+    private void applyChangesBatch(List<StorageFullComposition> added,
+                                   List<StorageComposition> deleted,
+                                   List<Change<StorageComposition, StorageFullComposition>> changed,
+                                   LongSparseArray<Long> addedFilesFolderMap) {
+        inserter.applyChanges(Collections.emptyList(),
+                added,
+                deleted,
+                changed,
+                addedFilesFolderMap,
+                Collections.emptyList());
+    }
+
+    //writes as they were applied before batching
+    private void applyChangesPerRow(List<StorageFullComposition> added,
+                                    List<StorageComposition> deleted,
+                                    List<Change<StorageComposition, StorageFullComposition>> changed,
+                                    LongSparseArray<Long> addedFilesFolderMap) {
+        db.runInTransaction(() -> {
+            List<CompositionEntity> entities = new ArrayList<>();
+            for (StorageFullComposition composition: added) {
+                Long folderId = addedFilesFolderMap.get(composition.getId());
+                if (folderId != null && !isFolderExists(folderId)) {
+                    folderId = null;
+                }
+                entities.add(CompositionMapper.toEntity(composition, null, null, folderId));
+            }
+            compositionsDao.insert(entities);
+
+            for (StorageComposition composition: deleted) {
+                compositionsDao.delete(composition.getId());
+            }
+
+            for (Change<StorageComposition, StorageFullComposition> change: changed) {
+                StorageFullComposition composition = change.getObj();
+                StorageComposition oldComposition = change.getOld();
+                long compositionId = oldComposition.getId();
+
+                StorageAlbum newAlbum = composition.getStorageAlbum();
+                String newAlbumName = newAlbum == null? null : newAlbum.getAlbum();
+                String newAlbumArtist = newAlbum == null? null : newAlbum.getArtist();
+                if (!Objects.equals(newAlbumName, oldComposition.getAlbum())) {
+                    compositionsDaoWrapper.updateAlbum(compositionId, newAlbumName);
+                }
+                if (!Objects.equals(newAlbumArtist, oldComposition.getAlbumArtist())) {
+                    compositionsDaoWrapper.updateAlbumArtist(compositionId, newAlbumArtist);
+                }
+                if (!Objects.equals(composition.getArtist(), oldComposition.getArtist())) {
+                    compositionsDaoWrapper.updateArtist(compositionId, composition.getArtist());
+                }
+                Long newFolderId = addedFilesFolderMap.get(oldComposition.getStorageId());
+                if (!Objects.equals(newFolderId, FolderMerger.UNKNOWN_CURRENT_FOLDER_ID)
+                        && !Objects.equals(oldComposition.getFolderId(), newFolderId)) {
+                    compositionsDao.updateFolderId(compositionId, newFolderId);
+                }
+                compositionsDao.update(composition.getTitle(),
+                        composition.getFileName(),
+                        composition.getRelativePath(),
+                        composition.getDuration(),
+                        composition.getSize(),
+                        composition.getDateAdded(),
+                        composition.getDateModified(),
+                        composition.getId());
+            }
+            albumsDao.deleteEmptyAlbums();
+            artistsDao.deleteEmptyArtists();
+        });
+    }
+
+    private boolean isFolderExists(long folderId) {
+        SimpleSQLiteQuery query = new SimpleSQLiteQuery(
+                "SELECT exists(SELECT 1 FROM folders WHERE id = ? LIMIT 1)",
+                new Object[] { folderId });
+        try (Cursor cursor = db.query(query)) {
+            return cursor.moveToFirst() && cursor.getInt(0) == 1;
+        }
+    }
+
+    private void createDatabase() {
+        Context context = InstrumentationRegistry.getInstrumentation().getContext();
+        db = Room.inMemoryDatabaseBuilder(context, AppDatabase.class).build();
+        compositionsDao = db.compositionsDao();
+        artistsDao = db.artistsDao();
+        albumsDao = db.albumsDao();
+        foldersDao = db.foldersDao();
+        compositionsDaoWrapper = new CompositionsDaoWrapper(db,
+                artistsDao,
+                compositionsDao,
+                albumsDao,
+                foldersDao);
+        inserter = new StorageCompositionsInserter(db,
+                compositionsDao,
+                compositionsDaoWrapper,
+                foldersDao,
+                artistsDao,
+                albumsDao);
+    }
+
+    private List<Long> fillLibrary() {
+        return db.runInTransaction(() -> {
+            List<Long> folderIds = new ArrayList<>();
+            for (int i = 0; i < FOLDERS_COUNT; i++) {
+                folderIds.add(foldersDao.insertFolder(new FolderEntity(null, "folder " + i)));
+            }
+            List<Long> artistIds = new ArrayList<>();
+            for (int i = 0; i < ARTISTS_COUNT; i++) {
+                artistIds.add(artistsDao.insertArtist(new ArtistEntity(artistName(i))));
+            }
+            List<Long> albumIds = new ArrayList<>();
+            for (int i = 0; i < ALBUMS_COUNT; i++) {
+                long artistId = artistIds.get(i % ARTISTS_COUNT);
+                albumIds.add(albumsDao.insert(new AlbumEntity(artistId, albumName(i), 0, 0)));
+            }
+            List<CompositionEntity> compositions = new ArrayList<>(COMPOSITIONS_COUNT);
+            for (int i = 0; i < COMPOSITIONS_COUNT; i++) {
+                int albumIndex = i % ALBUMS_COUNT;
+                compositions.add(new CompositionEntity(
+                        artistIds.get(albumIndex % ARTISTS_COUNT),
+                        albumIds.get(albumIndex),
+                        folderIds.get(i % FOLDERS_COUNT),
+                        "title " + i,
+                        null,
+                        "file " + i,
+                        "folder " + (i % FOLDERS_COUNT),
+                        1000L,
+                        1000L,
+                        (long) i,
+                        new Date(0),
+                        new Date(0),
+                        new Date(0),
+                        null));
+            }
+            compositionsDao.insert(compositions);
+            return folderIds;
+        });
+    }
+
+    // 10% deleted, 10% added, 40% with changed title, every 10th changed one also
+    // changes artist, every 20th album and every 30th folder
+    private void createChanges(LongSparseArray<StorageComposition> current,
+                               List<Long> folderIds,
+                               List<StorageFullComposition> added,
+                               List<StorageComposition> deleted,
+                               List<Change<StorageComposition, StorageFullComposition>> changed,
+                               LongSparseArray<Long> addedFilesFolderMap) {
+        for (int i = 0, size = current.size(); i < size; i++) {
+            StorageComposition composition = current.valueAt(i);
+            if (i % 10 == 0) {
+                deleted.add(composition);
+                continue;
+            }
+            if (i % 10 > 4) {
+                continue;
+            }
+            String artist = composition.getArtist();
+            if (i % 10 == 1) {
+                artist = artistName(i + 1);
+            }
+            StorageAlbum album = new StorageAlbum(0,
+                    i % 20 == 2? albumName(i + 2) : composition.getAlbum(),
+                    composition.getAlbumArtist(),
+                    0,
+                    0);
+            if (i % 30 == 3) {
+                addedFilesFolderMap.put(composition.getStorageId(), folderIds.get((i + 1) % FOLDERS_COUNT));
+            }
+            changed.add(new Change<>(composition, new StorageFullComposition(artist,
+                    "new title " + i,
+                    composition.getFileName(),
+                    composition.getFilePath(),
+                    composition.getDuration(),
+                    composition.getSize(),
+                    composition.getStorageId(),
+                    composition.getDateAdded(),
+                    new Date(),
+                    album)));
+        }
+        for (int i = 0; i < COMPOSITIONS_COUNT / 10; i++) {
+            long storageId = COMPOSITIONS_COUNT + i;
+            added.add(TestDataProvider.fakeStorageFullComposition(storageId, "added " + i));
+            addedFilesFolderMap.put(storageId, folderIds.get(i % FOLDERS_COUNT));
+        }
+    }
+
+    private static String artistName(int index) {
+        return "artist " + (index % ARTISTS_COUNT);
+    }
+
+    private static String albumName(int index) {
+        return "album " + (index % ALBUMS_COUNT);
+    }
+
+    private interface ChangesApplier {
+        void apply(List<StorageFullComposition> added,
+                   List<StorageComposition> deleted,
+                   List<Change<StorageComposition, StorageFullComposition>> changed,
+                   LongSparseArray<Long> addedFilesFolderMap);
+    }
+}
@@ -1,18 +1,22 @@
 package com.github.anrimian.musicplayer.data.database.dao.compositions;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static utils.TestDataProvider.composition;
 
 import android.content.Context;
+import android.database.Cursor;
 
 import androidx.collection.LongSparseArray;
 import androidx.room.Room;
+import androidx.sqlite.db.SimpleSQLiteQuery;
 import androidx.test.platform.app.InstrumentationRegistry;
 
 import com.github.anrimian.musicplayer.data.database.AppDatabase;
 import com.github.anrimian.musicplayer.data.database.dao.albums.AlbumsDao;
 import com.github.anrimian.musicplayer.data.database.dao.artist.ArtistsDao;
 import com.github.anrimian.musicplayer.data.database.dao.folders.FoldersDao;
+import com.github.anrimian.musicplayer.data.database.entities.artist.ArtistEntity;
 import com.github.anrimian.musicplayer.data.database.entities.folder.FolderEntity;
 import com.github.anrimian.musicplayer.data.database.entities.folder.StorageFolder;
 import com.github.anrimian.musicplayer.data.models.changes.Change;
@@ -26,6 +30,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -53,7 +58,8 @@ public class StorageCompositionsInserterTest {
         compositionsDaoWrapper = new CompositionsDaoWrapper(db,
                 artistsDao,
                 compositionsDao,
-                albumsDao);
+                albumsDao,
+                foldersDao);
 
         inserter = new StorageCompositionsInserter(db,
                 compositionsDao,
@@ -128,6 +134,140 @@ public class StorageCompositionsInserterTest {
         assertEquals("test folder 2", folder.getName());
     }
 
+    @Test
+    public void applyCompositionArtistAndDeleteChanges() {
+        long oldArtistId = artistsDao.insertArtist(new ArtistEntity("old artist"));
+        long compositionId = compositionsDao.insert(composition(oldArtistId, null, "test title"));
+        long deletedCompositionId = compositionsDao.insert(composition(null, null, "deleted title"));
+
+        List<StorageComposition> deletedCompositions = new ArrayList<>();
+        deletedCompositions.add(TestDataProvider.fakeStorageComposition(deletedCompositionId, "deleted title"));
+        List<Change<StorageComposition, StorageFullComposition>> changedCompositions = new ArrayList<>();
+        changedCompositions.add(new Change<>(
+                TestDataProvider.fakeStorageComposition(compositionId, "test title"),
+                new StorageFullComposition("new artist",
+                        "new title",
+                        "fileName",
+                        "",
+                        0,
+                        0,
+                        compositionId,
+                        new Date(0),
+                        new Date(1),
+                        null)
+        ));
+
+        inserter.applyChanges(new LinkedList<>(),
+                new ArrayList<>(),
+                deletedCompositions,
+                changedCompositions,
+                new LongSparseArray<>(),
+                new LinkedList<>());
+
+        assertEquals(1, compositionsDao.getCompositionsCount());
+        assertEquals(artistsDao.findArtistIdByName("new artist"), compositionsDao.getArtistId(compositionId));
+        assertNull(artistsDao.findArtistIdByName("old artist"));
+    }
+
+    @Test
+    public void applyAddedCompositionsToNestedFolders() {
+        FolderNode<Long> parentNode = new FolderNode<>("parent");
+        FolderNode<Long> childNode = new FolderNode<>("child");
+        childNode.addFile(1L);
+        childNode.addFile(2L);
+        parentNode.addFolder(childNode);
+        parentNode.addFile(3L);
+        List<AddedNode> foldersToInsert = new LinkedList<>();
+        foldersToInsert.add(new AddedNode(null, parentNode));
+
+        List<StorageFullComposition> addedCompositions = new ArrayList<>();
+        addedCompositions.add(new TestDataProvider.StorageCompositionBuilder(1L, "first").createDate(1000).build());
+        addedCompositions.add(new TestDataProvider.StorageCompositionBuilder(2L, "second").createDate(3000).build());
+        addedCompositions.add(new TestDataProvider.StorageCompositionBuilder(3L, "third").createDate(2000).build());
+
+        inserter.applyChanges(foldersToInsert,
+                addedCompositions,
+                new ArrayList<>(),
+                new ArrayList<>(),
+                new LongSparseArray<>(),
+                new LinkedList<>());
+
+        long parentId = findFolderId("parent");
+        long childId = findFolderId("child");
+        assertEquals(3, getAggregate(parentId, "filesCount"));
+        assertEquals(3000, getAggregate(parentId, "lastAddDate"));
+        assertEquals(2, getAggregate(childId, "filesCount"));
+
+        List<StorageComposition> deletedCompositions = new ArrayList<>();
+        deletedCompositions.add(compositionsDaoWrapper.selectAllAsStorageCompositions().get(2L));
+        inserter.applyChanges(new LinkedList<>(),
+                new ArrayList<>(),
+                deletedCompositions,
+                new ArrayList<>(),
+                new LongSparseArray<>(),
+                new LinkedList<>());
+
+        assertEquals(2, getAggregate(parentId, "filesCount"));
+        assertEquals(2000, getAggregate(parentId, "lastAddDate"));
+        assertEquals(1, getAggregate(childId, "filesCount"));
+    }
+
+    @Test
+    public void deleteFoldersEmptiedByDeletedCompositions() {
+        FolderNode<Long> parentNode = new FolderNode<>("parent");
+        FolderNode<Long> childNode = new FolderNode<>("child");
+        childNode.addFile(1L);
+        parentNode.addFolder(childNode);
+        FolderNode<Long> otherNode = new FolderNode<>("other");
+        otherNode.addFile(2L);
+        List<AddedNode> foldersToInsert = new LinkedList<>();
+        foldersToInsert.add(new AddedNode(null, parentNode));
+        foldersToInsert.add(new AddedNode(null, otherNode));
+
+        List<StorageFullComposition> addedCompositions = new ArrayList<>();
+        addedCompositions.add(new TestDataProvider.StorageCompositionBuilder(1L, "first").build());
+        addedCompositions.add(new TestDataProvider.StorageCompositionBuilder(2L, "second").build());
+
+        inserter.applyChanges(foldersToInsert,
+                addedCompositions,
+                new ArrayList<>(),
+                new ArrayList<>(),
+                new LongSparseArray<>(),
+                new LinkedList<>());
+        assertEquals(3, foldersDao.getAllFolders().size());
+
+        List<StorageComposition> deletedCompositions = new ArrayList<>();
+        deletedCompositions.add(compositionsDaoWrapper.selectAllAsStorageCompositions().get(1L));
+        inserter.applyChanges(new LinkedList<>(),
+                new ArrayList<>(),
+                deletedCompositions,
+                new ArrayList<>(),
+                new LongSparseArray<>(),
+                new LinkedList<>());
+
+        List<StorageFolder> folders = foldersDao.getAllFolders();
+        assertEquals(1, folders.size());
+        assertEquals("other", folders.get(0).getName());
+    }
+
+    private long findFolderId(String name) {
+        for (StorageFolder folder: foldersDao.getAllFolders()) {
+            if (name.equals(folder.getName())) {
+                return folder.getId();
+            }
+        }
+        throw new AssertionError("folder not found: " + name);
+    }
+
+    private long getAggregate(long folderId, String column) {
+        SimpleSQLiteQuery query = new SimpleSQLiteQuery(
+                "SELECT " + column + " FROM folder_aggregates WHERE folderId = ?",
+                new Object[] { folderId });
+        try (Cursor cursor = db.query(query)) {
+            return cursor.moveToFirst()? cursor.getLong(0) : 0;
+        }
+    }
+
 /*    @Test
     public void testDeleteFolderWithExistsCompositions() {
         long folder1Id = foldersDao.insertFolder(new FolderEntity(null, "test folder 1"));
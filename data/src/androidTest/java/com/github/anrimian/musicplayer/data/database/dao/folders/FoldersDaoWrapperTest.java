@@ -0,0 +1,179 @@
+package com.github.anrimian.musicplayer.data.database.dao.folders;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static utils.TestDataProvider.composition;
+import static utils.TestDataProvider.fakeComposition;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.room.Room;
+import androidx.sqlite.db.SimpleSQLiteQuery;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.github.anrimian.musicplayer.data.database.AppDatabase;
+import com.github.anrimian.musicplayer.data.database.dao.compositions.CompositionsDao;
+import com.github.anrimian.musicplayer.data.database.dao.compositions.CompositionsDaoWrapper;
+import com.github.anrimian.musicplayer.domain.models.folders.CompositionFileSource;
+import com.github.anrimian.musicplayer.domain.models.folders.FileSource;
+import com.github.anrimian.musicplayer.domain.models.folders.FolderFileSource;
+import com.github.anrimian.musicplayer.domain.models.order.Order;
+import com.github.anrimian.musicplayer.domain.models.order.OrderType;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+public class FoldersDaoWrapperTest {
+
+    private AppDatabase db;
+    private FoldersDao foldersDao;
+    private CompositionsDao compositionsDao;
+    private CompositionsDaoWrapper compositionsDaoWrapper;
+
+    private FoldersDaoWrapper daoWrapper;
+
+    @BeforeEach
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getContext();
+        db = Room.inMemoryDatabaseBuilder(context, AppDatabase.class).build();
+        foldersDao = db.foldersDao();
+        compositionsDao = db.compositionsDao();
+        compositionsDaoWrapper = new CompositionsDaoWrapper(db,
+                db.artistsDao(),
+                compositionsDao,
+                db.albumsDao(),
+                foldersDao);
+
+        daoWrapper = new FoldersDaoWrapper(db, foldersDao, compositionsDaoWrapper);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        db.close();
+    }
+
+    @Test
+    public void moveCompositionsToNestedFolder() {
+        long rootId = daoWrapper.createFolder(null, "root");
+        long childId = daoWrapper.createFolder(rootId, "child");
+        List<FileSource> files = insertCompositions(3);
+
+        daoWrapper.updateFolderId(files, childId);
+
+        assertEquals(3, getFilesCount(rootId));
+        assertEquals(3, getFilesCount(childId));
+        assertEquals(300, getAggregate(rootId, "duration"));
+        assertEquals(300, getAggregate(rootId, "size"));
+        assertEquals(3, getFolder(null, "root").getFilesCount());
+    }
+
+    @Test
+    public void moveFolderToAnotherFolder() {
+        long firstId = daoWrapper.createFolder(null, "first");
+        long secondId = daoWrapper.createFolder(null, "second");
+        long childId = daoWrapper.createFolder(firstId, "child");
+        long nestedId = daoWrapper.createFolder(childId, "nested");
+        daoWrapper.updateFolderId(insertCompositions(2), nestedId);
+
+        List<FileSource> folders = Collections.singletonList(
+                new FolderFileSource(childId, "child", 2)
+        );
+        daoWrapper.updateFolderId(folders, secondId);
+
+        assertEquals(0, getFilesCount(firstId));
+        assertEquals(2, getFilesCount(secondId));
+        assertEquals(2, getFilesCount(childId));
+        assertEquals(2, getFolder(secondId, "child").getFilesCount());
+
+        //paths inside of moved folder are kept
+        assertEquals(secondId, (long) daoWrapper.getAllParentFoldersId(nestedId).get(1));
+    }
+
+    @Test
+    public void deleteCompositionsFromFolder() {
+        long rootId = daoWrapper.createFolder(null, "root");
+        long childId = daoWrapper.createFolder(rootId, "child");
+        List<FileSource> files = insertCompositions(3);
+        daoWrapper.updateFolderId(files, childId);
+
+        long id = ((CompositionFileSource) files.get(0)).getComposition().getId();
+        compositionsDaoWrapper.delete(id);
+
+        assertEquals(2, getFilesCount(rootId));
+        assertEquals(200, getAggregate(rootId, "duration"));
+    }
+
+    @Test
+    public void updateCompositionSizeInFolder() {
+        long rootId = daoWrapper.createFolder(null, "root");
+        long childId = daoWrapper.createFolder(rootId, "child");
+        List<FileSource> files = insertCompositions(2);
+        daoWrapper.updateFolderId(files, childId);
+
+        long id = ((CompositionFileSource) files.get(0)).getComposition().getId();
+        compositionsDaoWrapper.updateModifyTimeAndSize(id, 150, new Date());
+
+        assertEquals(2, getFilesCount(rootId));
+        assertEquals(250, getAggregate(rootId, "size"));
+        assertEquals(250, getAggregate(childId, "size"));
+    }
+
+    @Test
+    public void sortFoldersBySize() {
+        long smallId = daoWrapper.createFolder(null, "small");
+        long largeId = daoWrapper.createFolder(null, "large");
+        daoWrapper.updateFolderId(insertCompositions(1), smallId);
+        daoWrapper.updateFolderId(insertCompositions(2), largeId);
+
+        List<FileSource> files = daoWrapper.getFilesObservable(null,
+                new Order(OrderType.SIZE, true),
+                false,
+                null
+        ).blockingFirst();
+
+        assertEquals(largeId, ((FolderFileSource) files.get(0)).getId());
+        assertEquals(smallId, ((FolderFileSource) files.get(1)).getId());
+    }
+
+    private List<FileSource> insertCompositions(int count) {
+        List<FileSource> files = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long id = compositionsDao.insert(composition(null, null, "title " + i));
+            files.add(new CompositionFileSource(fakeComposition(id)));
+        }
+        return files;
+    }
+
+    private FolderFileSource getFolder(Long parentId, String name) {
+        List<FileSource> files = daoWrapper.getFilesObservable(parentId,
+                new Order(OrderType.NAME, false),
+                false,
+                null
+        ).blockingFirst();
+        for (FileSource file: files) {
+            if (file instanceof FolderFileSource && name.equals(((FolderFileSource) file).getName())) {
+                return (FolderFileSource) file;
+            }
+        }
+        throw new AssertionError("folder not found: " + name);
+    }
+
+    private int getFilesCount(long folderId) {
+        return (int) getAggregate(folderId, "filesCount");
+    }
+
+    private long getAggregate(long folderId, String column) {
+        SimpleSQLiteQuery query = new SimpleSQLiteQuery(
+                "SELECT " + column + " FROM folder_aggregates WHERE folderId = ?",
+                new Object[] { folderId });
+        try (Cursor cursor = db.query(query)) {
+            return cursor.moveToFirst()? cursor.getLong(0) : 0;
+        }
+    }
+}
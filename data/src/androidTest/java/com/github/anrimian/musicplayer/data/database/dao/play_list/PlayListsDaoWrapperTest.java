@@ -2,6 +2,8 @@ package com.github.anrimian.musicplayer.data.database.dao.play_list;
 
 import static com.github.anrimian.musicplayer.domain.utils.ListUtils.asList;
 import static java.util.Collections.emptyList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static utils.TestDataProvider.composition;
 
 import android.content.Context;
@@ -13,8 +15,12 @@ import androidx.test.platform.app.InstrumentationRegistry;
 
 import com.github.anrimian.musicplayer.data.database.AppDatabase;
 import com.github.anrimian.musicplayer.data.database.dao.compositions.CompositionsDao;
+import com.github.anrimian.musicplayer.data.database.entities.composition.CompositionEntity;
 import com.github.anrimian.musicplayer.data.database.entities.playlist.PlayListEntryEntity;
+import com.github.anrimian.musicplayer.data.models.changes.Change;
+import com.github.anrimian.musicplayer.data.storage.providers.playlists.AppPlayList;
 import com.github.anrimian.musicplayer.data.storage.providers.playlists.StoragePlayList;
+import com.github.anrimian.musicplayer.data.storage.providers.playlists.StoragePlayListItem;
 import com.github.anrimian.musicplayer.domain.models.playlist.PlayListItem;
 
 import org.junit.jupiter.api.AfterEach;
@@ -127,6 +133,78 @@ public class PlayListsDaoWrapperTest {
         System.out.println("KEKAS" + daoWrapper.getPlayListsObservable().blockingFirst());
     }
 
+    @Test
+    public void mergePlayListWithAppAndStorageEntries() {
+        long firstId = compositionsDao.insert(storageComposition(100L));
+        long secondId = compositionsDao.insert(storageComposition(200L));
+        long thirdId = compositionsDao.insert(storageComposition(300L));
+        long appId = compositionsDao.insert(composition(null, null, "app"));
+        long newId = compositionsDao.insert(storageComposition(500L));
+
+        StoragePlayList storagePlayList = new StoragePlayList(10L, "test", new Date(1000), new Date(1000));
+        daoWrapper.applyChanges(
+                asList(new Pair<>(storagePlayList, asList(
+                        new StoragePlayListItem(1L, 100L),
+                        new StoragePlayListItem(2L, 200L),
+                        new StoragePlayListItem(3L, 300L)))),
+                emptyList(),
+                emptyList());
+        AppPlayList playList = daoWrapper.getAllAsStoragePlayLists().get(0);
+        long playListId = playList.getId();
+
+        //added in app after first item
+        playListDao.increasePositionsByCountAfter(1, 1, playListId);
+        playListDao.insertPlayListEntries(asList(new PlayListEntryEntity(null, appId, playListId, 1)));
+        List<PlayListItem> oldItems = daoWrapper.getPlayListItemsObservable(playListId, false)
+                .blockingFirst();
+
+        StoragePlayList modifiedPlayList = new StoragePlayList(10L, "test", new Date(1000), new Date(2000));
+        Change<AppPlayList, StoragePlayList> change = new Change<>(playList, modifiedPlayList);
+        daoWrapper.applyChanges(
+                emptyList(),
+                asList(change),
+                asList(new Pair<>(change, asList(
+                        new StoragePlayListItem(1L, 100L),
+                        new StoragePlayListItem(3L, 300L),
+                        new StoragePlayListItem(5L, 500L),
+                        new StoragePlayListItem(6L, 600L)))));
+
+        List<PlayListItem> items = daoWrapper.getPlayListItemsObservable(playListId, false)
+                .blockingFirst();
+        assertEquals(4, items.size());
+        assertEquals(firstId, items.get(0).getComposition().getId());
+        assertEquals(oldItems.get(0).getItemId(), items.get(0).getItemId());
+        assertEquals(appId, items.get(1).getComposition().getId());
+        assertEquals(oldItems.get(1).getItemId(), items.get(1).getItemId());
+        assertEquals(thirdId, items.get(2).getComposition().getId());
+        assertEquals(oldItems.get(3).getItemId(), items.get(2).getItemId());
+        assertEquals(newId, items.get(3).getComposition().getId());
+        for (PlayListItem item: items) {
+            assertNotEquals(secondId, item.getComposition().getId());
+        }
+
+        //composition of storage item 6 is not found, playlist is merged again on next scan
+        assertEquals(1999, daoWrapper.getAllAsStoragePlayLists().get(0).getDateModified().getTime());
+    }
+
+    private CompositionEntity storageComposition(long storageId) {
+        return new CompositionEntity(
+                null,
+                null,
+                null,
+                "test title " + storageId,
+                null,
+                "test file name",
+                "test file path",
+                100L,
+                100L,
+                storageId,
+                new Date(),
+                new Date(),
+                new Date(),
+                null);
+    }
+
     private void displayItems(String message, List<PlayListItem> items) {
         StringBuilder sb = new StringBuilder();
         for (PlayListItem item : items) {
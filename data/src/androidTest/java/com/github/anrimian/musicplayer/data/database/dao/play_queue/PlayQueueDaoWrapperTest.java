@@ -0,0 +1,229 @@
+package com.github.anrimian.musicplayer.data.database.dao.play_queue;
+
+import static com.github.anrimian.musicplayer.data.repositories.state.UiStateRepositoryImpl.NO_ITEM;
+import static com.github.anrimian.musicplayer.domain.Constants.NO_POSITION;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static utils.TestDataProvider.composition;
+import static utils.TestDataProvider.fakeComposition;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.room.Room;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.github.anrimian.musicplayer.data.database.AppDatabase;
+import com.github.anrimian.musicplayer.data.database.PlayQueueChangesCallback;
+import com.github.anrimian.musicplayer.data.database.dao.compositions.CompositionsDao;
+import com.github.anrimian.musicplayer.data.database.entities.play_queue.PlayQueueEntity;
+import com.github.anrimian.musicplayer.domain.models.composition.Composition;
+import com.github.anrimian.musicplayer.domain.models.play_queue.PlayQueueItem;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import io.reactivex.rxjava3.observers.TestObserver;
+
+public class PlayQueueDaoWrapperTest {
+
+    private AppDatabase db;
+    private PlayQueueDao playQueueDao;
+    private CompositionsDao compositionsDao;
+
+    private PlayQueueDaoWrapper daoWrapper;
+
+    @BeforeEach
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getContext();
+        db = Room.inMemoryDatabaseBuilder(context, AppDatabase.class)
+                .addCallback(new PlayQueueChangesCallback())
+                .build();
+        playQueueDao = db.playQueueDao();
+        compositionsDao = db.compositionsDao();
+
+        daoWrapper = new PlayQueueDaoWrapper(db, playQueueDao);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        db.close();
+    }
+
+    @Test
+    public void insertCompositionsAfterCurrentItem() {
+        List<Composition> compositions = insertCompositions(3);
+        long firstId = daoWrapper.insertNewPlayQueue(compositions, false, NO_POSITION);
+
+        List<Composition> added = insertCompositions(2);
+        long addedId = daoWrapper.addCompositionsToQueue(added, firstId);
+
+        List<Long> queue = getQueueAudioIds();
+        assertEquals(5, queue.size());
+        assertEquals(compositions.get(0).getId(), (long) queue.get(0));
+        assertEquals(added.get(0).getId(), (long) queue.get(1));
+        assertEquals(added.get(1).getId(), (long) queue.get(2));
+        assertEquals(compositions.get(1).getId(), (long) queue.get(3));
+        assertEquals(compositions.get(2).getId(), (long) queue.get(4));
+
+        assertEquals(1, daoWrapper.getIndexPosition(addedId, false));
+    }
+
+    @Test
+    public void insertCompositionsUntilGapIsExhausted() {
+        List<Composition> compositions = insertCompositions(2);
+        long firstId = daoWrapper.insertNewPlayQueue(compositions, false, NO_POSITION);
+
+        List<Composition> expected = new ArrayList<>(compositions);
+        for (int i = 0; i < 12; i++) {
+            List<Composition> added = insertCompositions(1);
+            daoWrapper.addCompositionsToQueue(added, firstId);
+            expected.add(1, added.get(0));
+        }
+
+        List<Long> queue = getQueueAudioIds();
+        assertEquals(expected.size(), queue.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getId(), (long) queue.get(i));
+        }
+    }
+
+    @Test
+    public void insertCompositionsToEmptyQueue() {
+        List<Composition> compositions = insertCompositions(3);
+        long firstId = daoWrapper.addCompositionsToQueue(compositions, NO_ITEM);
+
+        assertEquals(0, daoWrapper.getIndexPosition(firstId, false));
+        assertEquals(0, daoWrapper.getIndexPosition(firstId, true));
+        assertEquals(3, getQueueAudioIds().size());
+    }
+
+    @Test
+    public void addCompositionsToEnd() {
+        List<Composition> compositions = insertCompositions(2);
+        daoWrapper.insertNewPlayQueue(compositions, false, NO_POSITION);
+
+        List<Composition> added = insertCompositions(2);
+        long addedId = daoWrapper.addCompositionsToEndQueue(added);
+
+        assertEquals(2, daoWrapper.getIndexPosition(addedId, false));
+        assertEquals(2, daoWrapper.getIndexPosition(addedId, true));
+        assertEquals(added.get(1).getId(), (long) getQueueAudioIds().get(3));
+    }
+
+    @Test
+    public void swapAdjacentAndDistantItems() {
+        List<Composition> compositions = insertCompositions(4);
+        daoWrapper.insertNewPlayQueue(compositions, false, NO_POSITION);
+        List<PlayQueueEntity> entities = playQueueDao.getPlayQueue();
+
+        daoWrapper.swapItems(queueItem(entities.get(1)), queueItem(entities.get(2)), false);
+        List<Long> queue = getQueueAudioIds();
+        assertEquals(compositions.get(2).getId(), (long) queue.get(1));
+        assertEquals(compositions.get(1).getId(), (long) queue.get(2));
+
+        daoWrapper.swapItems(queueItem(entities.get(0)), queueItem(entities.get(3)), false);
+        queue = getQueueAudioIds();
+        assertEquals(compositions.get(3).getId(), (long) queue.get(0));
+        assertEquals(compositions.get(2).getId(), (long) queue.get(1));
+        assertEquals(compositions.get(1).getId(), (long) queue.get(2));
+        assertEquals(compositions.get(0).getId(), (long) queue.get(3));
+    }
+
+    @Test
+    public void insertNewQueueWithStartPosition() {
+        List<Composition> compositions = insertCompositions(5);
+        long id = daoWrapper.insertNewPlayQueue(compositions, true, 3);
+
+        assertEquals(compositions.get(3).getId(), playQueueDao.getItem(id).getAudioId());
+        assertEquals(3, daoWrapper.getIndexPosition(id, false));
+    }
+
+    @Test
+    public void getNextItemWithLoop() {
+        List<Composition> compositions = insertCompositions(3);
+        daoWrapper.insertNewPlayQueue(compositions, false, NO_POSITION);
+        List<PlayQueueEntity> entities = playQueueDao.getPlayQueue();
+        long firstId = entities.get(0).getId();
+        long lastId = entities.get(2).getId();
+
+        PlayQueueItem next = daoWrapper.getNextItemObservable(firstId, false, false, false)
+                .blockingFirst()
+                .getValue();
+        assertEquals(entities.get(1).getId(), next.getId());
+
+        PlayQueueItem afterLast = daoWrapper.getNextItemObservable(lastId, false, false, false)
+                .blockingFirst()
+                .getValue();
+        assertNull(afterLast);
+
+        PlayQueueItem afterLastWithLoop = daoWrapper.getNextItemObservable(lastId, false, true, false)
+                .blockingFirst()
+                .getValue();
+        assertEquals(firstId, afterLastWithLoop.getId());
+    }
+
+    @Test
+    public void notifyEachObserverAboutCompositionChange() {
+        List<Composition> compositions = insertCompositions(2);
+        daoWrapper.insertNewPlayQueue(compositions, false, NO_POSITION);
+
+        TestObserver<List<PlayQueueItem>> firstObserver = daoWrapper.getPlayQueueObservable(false, false)
+                .test();
+        TestObserver<List<PlayQueueItem>> secondObserver = daoWrapper.getPlayQueueObservable(false, false)
+                .test();
+        firstObserver.awaitCount(1);
+        secondObserver.awaitCount(1);
+
+        compositionsDao.updateTitle(compositions.get(0).getId(), "new title");
+        firstObserver.awaitCount(2);
+        secondObserver.awaitCount(2);
+        assertEquals("new title", firstObserver.values().get(1).get(0).getComposition().getTitle());
+        assertEquals("new title", secondObserver.values().get(1).get(0).getComposition().getTitle());
+
+        //resubscribed observer loads actual data and receives next changes
+        firstObserver.dispose();
+        TestObserver<List<PlayQueueItem>> thirdObserver = daoWrapper.getPlayQueueObservable(false, false)
+                .test();
+        thirdObserver.awaitCount(1);
+        assertEquals("new title", thirdObserver.values().get(0).get(0).getComposition().getTitle());
+
+        compositionsDao.updateTitle(compositions.get(1).getId(), "new title 2");
+        secondObserver.awaitCount(3);
+        thirdObserver.awaitCount(2);
+        assertEquals("new title 2", secondObserver.values().get(2).get(1).getComposition().getTitle());
+        assertEquals("new title 2", thirdObserver.values().get(1).get(1).getComposition().getTitle());
+
+        //changes read by all active observers are deleted
+        try (Cursor cursor = db.query("SELECT count() FROM play_queue_composition_changes", null)) {
+            cursor.moveToFirst();
+            assertEquals(0, cursor.getInt(0));
+        }
+    }
+
+    private List<Composition> insertCompositions(int count) {
+        List<Composition> compositions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long id = compositionsDao.insert(composition(null, null, "title " + i));
+            compositions.add(fakeComposition(id));
+        }
+        return Collections.unmodifiableList(compositions);
+    }
+
+    private List<Long> getQueueAudioIds() {
+        List<Long> result = new ArrayList<>();
+        for (PlayQueueEntity entity: playQueueDao.getPlayQueue()) {
+            result.add(entity.getAudioId());
+        }
+        return result;
+    }
+
+    private PlayQueueItem queueItem(PlayQueueEntity entity) {
+        return new PlayQueueItem(entity.getId(), fakeComposition(entity.getAudioId()));
+    }
+}
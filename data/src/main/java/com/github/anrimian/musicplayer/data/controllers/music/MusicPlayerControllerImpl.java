@@ -76,6 +76,7 @@ public class MusicPlayerControllerImpl implements MusicPlayerController {
 
         //volume reducing by notification: exo player - check, media player - impl, check
         mediaPlayer.setSoundBalance(settingsRepository.getSoundBalance());
+        mediaPlayer.setVolumeNormalizationEnabled(settingsRepository.isVolumeNormalizationEnabled());
     }
 
     @Override
@@ -90,6 +91,11 @@ public class MusicPlayerControllerImpl implements MusicPlayerController {
         mediaPlayer.prepareToPlay(source, trackPosition, null);
     }
 
+    @Override
+    public void setNextSource(@Nullable CompositionSource source) {
+        mediaPlayer.setNextCompositionSource(source);
+    }
+
     @Override
     public void stop() {
         mediaPlayer.stop();
@@ -119,6 +125,11 @@ public class MusicPlayerControllerImpl implements MusicPlayerController {
         mediaPlayer.setSoundBalance(soundBalance);
     }
 
+    @Override
+    public void setVolumeNormalizationEnabled(boolean enabled) {
+        mediaPlayer.setVolumeNormalizationEnabled(enabled);
+    }
+
     @Override
     public void resume() {
         mediaPlayer.resume();
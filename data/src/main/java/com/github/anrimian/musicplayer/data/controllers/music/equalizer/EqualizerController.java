@@ -4,8 +4,18 @@ import android.app.Activity;
 
 import com.github.anrimian.musicplayer.data.controllers.music.equalizer.external.ExternalEqualizer;
 import com.github.anrimian.musicplayer.data.controllers.music.equalizer.internal.InternalEqualizer;
+import com.github.anrimian.musicplayer.data.controllers.music.players.exoplayer.ParametricEqualizerProcessor;
+import com.github.anrimian.musicplayer.domain.models.equalizer.Band;
+import com.github.anrimian.musicplayer.domain.models.equalizer.EqualizerConfig;
+import com.github.anrimian.musicplayer.domain.models.equalizer.EqualizerState;
 import com.github.anrimian.musicplayer.domain.repositories.SettingsRepository;
 
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+import io.reactivex.rxjava3.core.Completable;
+
 public class EqualizerController {
 
     private final SettingsRepository settingsRepository;
@@ -16,6 +26,10 @@ public class EqualizerController {
 
     private AppEqualizer currentEqualizer;
 
+    //when player has audio processor, app equalizer is applied by it instead of audio effect
+    @Nullable
+    private volatile ParametricEqualizerProcessor audioProcessor;
+
     public EqualizerController(SettingsRepository settingsRepository,
                                ExternalEqualizer externalEqualizer,
                                InternalEqualizer internalEqualizer) {
@@ -27,13 +41,24 @@ public class EqualizerController {
     public void attachEqualizer(int audioSessionId) {
         this.audioSessionId = audioSessionId;
         int type = settingsRepository.getSelectedEqualizerType();
-        if (type == EqualizerType.NONE) {
+        if (type == EqualizerType.NONE || isAppliedByAudioProcessor(type)) {
             return;
         }
         currentEqualizer = selectEqualizerByType(type);
         currentEqualizer.attachEqualizer(audioSessionId);
     }
 
+    /**
+     * App equalizer settings are passed to processor while returned completable is subscribed.
+     * Bands are flat when app equalizer is not selected, so processor copies audio as is.
+     */
+    public Completable attachAudioProcessor(ParametricEqualizerProcessor processor) {
+        audioProcessor = processor;
+        return settingsRepository.getSelectedEqualizerTypeObservable()
+                .switchMapCompletable(type -> applyToAudioProcessor(processor, type))
+                .doFinally(() -> audioProcessor = null);
+    }
+
     public void detachEqualizer() {
         if (currentEqualizer != null) {
             currentEqualizer.detachEqualizer(this.audioSessionId);
@@ -49,6 +74,9 @@ public class EqualizerController {
 
     public void enableEqualizer(int type) {
         settingsRepository.setSelectedEqualizerType(type);
+        if (isAppliedByAudioProcessor(type)) {
+            return;
+        }
         currentEqualizer = selectEqualizerByType(type);
         currentEqualizer.attachEqualizer(audioSessionId);
     }
@@ -63,6 +91,47 @@ public class EqualizerController {
         return settingsRepository.getSelectedEqualizerType();
     }
 
+    private boolean isAppliedByAudioProcessor(int type) {
+        return type == EqualizerType.APP && audioProcessor != null;
+    }
+
+    private Completable applyToAudioProcessor(ParametricEqualizerProcessor processor, int type) {
+        if (type != EqualizerType.APP) {
+            return Completable.fromAction(() -> {
+                processor.setBands(new float[0], new float[0], ParametricEqualizerProcessor.DEFAULT_Q);
+                processor.setPreamp(0f);
+                processor.setLimiterEnabled(false);
+            });
+        }
+        return internalEqualizer.getEqualizerConfig()
+                .flatMapObservable(config -> internalEqualizer.getEqualizerStateObservable()
+                        .doOnNext(state -> applyToAudioProcessor(processor, config, state)))
+                .ignoreElements()
+                //device doesn't provide equalizer bands, audio is kept as is
+                .onErrorComplete();
+    }
+
+    //band levels are in millibels, center frequencies are in millihertz
+    private void applyToAudioProcessor(ParametricEqualizerProcessor processor,
+                                       EqualizerConfig config,
+                                       EqualizerState state) {
+        List<Band> bands = config.getBands();
+        float[] frequencies = new float[bands.size()];
+        float[] gainsDb = new float[bands.size()];
+        float maxGainDb = 0f;
+        for (int i = 0; i < bands.size(); i++) {
+            Band band = bands.get(i);
+            Short level = state.getBendLevels().get(band.getBandNumber());
+            frequencies[i] = band.getCenterFreq() / 1000f;
+            gainsDb[i] = level == null? 0f : level / 100f;
+            maxGainDb = Math.max(maxGainDb, gainsDb[i]);
+        }
+        processor.setBands(frequencies, gainsDb, ParametricEqualizerProcessor.DEFAULT_Q);
+        //boost is compensated by preamp, limiter catches peaks of overlapped bands
+        processor.setPreamp(-maxGainDb);
+        processor.setLimiterEnabled(true);
+    }
+
     private AppEqualizer selectEqualizerByType(int type) {
         switch (type) {
             case EqualizerType.EXTERNAL: {
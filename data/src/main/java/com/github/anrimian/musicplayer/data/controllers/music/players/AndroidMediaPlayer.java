@@ -120,6 +120,11 @@ public class AndroidMediaPlayer implements AppMediaPlayer {
                 .subscribe();
     }
 
+    @Override
+    public void setNextCompositionSource(@Nullable CompositionSource composition) {
+        //not supported, next composition is prepared after finish event
+    }
+
     @Override
     public void stop() {
         if (!isPlaying) {
@@ -174,6 +179,11 @@ public class AndroidMediaPlayer implements AppMediaPlayer {
         applyVolume();
     }
 
+    @Override
+    public void setVolumeNormalizationEnabled(boolean enabled) {
+        //not supported, gain is applied by audio processor of exo player
+    }
+
     @Override
     public Observable<Long> getTrackPositionObservable() {
         return trackPositionSubject;
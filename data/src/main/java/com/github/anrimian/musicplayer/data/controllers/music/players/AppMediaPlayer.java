@@ -18,6 +18,13 @@ public interface AppMediaPlayer {
                        long startPosition,
                        @Nullable ErrorType previousErrorType);
 
+    /**
+     * Composition which will be played after current one. Player can prepare it in advance
+     * and switch to it without gap, in this case {@link #prepareToPlay} with the same
+     * composition keeps already started playback
+     */
+    void setNextCompositionSource(@Nullable CompositionSource composition);
+
     void stop();
 
     void resume();
@@ -41,4 +48,9 @@ public interface AppMediaPlayer {
     Observable<Boolean> getSpeedChangeAvailableObservable();
 
     void setSoundBalance(SoundBalance soundBalance);
+
+    /**
+     * Apply replay gain of composition, if it is known
+     */
+    void setVolumeNormalizationEnabled(boolean enabled);
 }
@@ -34,6 +34,9 @@ public class CompositeMediaPlayer implements AppMediaPlayer {
 
     private float currentPlaySpeed = 1f;
     private SoundBalance currentSoundBalance;
+    private boolean volumeNormalizationEnabled;
+    @Nullable
+    private CompositionSource nextComposition;
 
     public CompositeMediaPlayer(ArrayList<Function<AppMediaPlayer>> mediaPlayers) {
         this.mediaPlayers = mediaPlayers;
@@ -58,6 +61,12 @@ public class CompositeMediaPlayer implements AppMediaPlayer {
         currentPlayer.prepareToPlay(composition, startPosition, previousErrorType);
     }
 
+    @Override
+    public void setNextCompositionSource(@Nullable CompositionSource composition) {
+        this.nextComposition = composition;
+        currentPlayer.setNextCompositionSource(composition);
+    }
+
     @Override
     public void stop() {
         currentPlayer.stop();
@@ -120,6 +129,12 @@ public class CompositeMediaPlayer implements AppMediaPlayer {
         currentPlayer.setSoundBalance(currentSoundBalance);
     }
 
+    @Override
+    public void setVolumeNormalizationEnabled(boolean enabled) {
+        this.volumeNormalizationEnabled = enabled;
+        currentPlayer.setVolumeNormalizationEnabled(enabled);
+    }
+
     private void setPlayer(int index) {
         currentPlayerIndex = index;
         if (currentPlayer != null) {
@@ -130,6 +145,8 @@ public class CompositeMediaPlayer implements AppMediaPlayer {
         if (currentSoundBalance != null) {
             currentPlayer.setSoundBalance(currentSoundBalance);
         }
+        currentPlayer.setVolumeNormalizationEnabled(volumeNormalizationEnabled);
+        currentPlayer.setNextCompositionSource(nextComposition);
 
         playerDisposable.clear();
         playerDisposable.add(currentPlayer.getEventsObservable()
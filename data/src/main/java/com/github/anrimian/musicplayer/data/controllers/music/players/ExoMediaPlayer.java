@@ -5,9 +5,11 @@ import android.net.Uri;
 
 import com.github.anrimian.musicplayer.data.controllers.music.equalizer.EqualizerController;
 import com.github.anrimian.musicplayer.data.controllers.music.error.PlayerErrorParser;
+import com.github.anrimian.musicplayer.data.controllers.music.players.exoplayer.ParametricEqualizerProcessor;
 import com.github.anrimian.musicplayer.data.controllers.music.players.exoplayer.StereoVolumeProcessor;
 import com.github.anrimian.musicplayer.data.models.composition.source.UriCompositionSource;
 import com.github.anrimian.musicplayer.data.storage.source.CompositionSourceProvider;
+import com.github.anrimian.musicplayer.data.utils.dev.PerformanceMetrics;
 import com.github.anrimian.musicplayer.data.utils.exo_player.PlayerEventListener;
 import com.github.anrimian.musicplayer.domain.models.composition.source.CompositionSource;
 import com.github.anrimian.musicplayer.domain.models.composition.source.LibraryCompositionSource;
@@ -17,7 +19,9 @@ import com.github.anrimian.musicplayer.domain.models.player.events.ErrorEvent;
 import com.github.anrimian.musicplayer.domain.models.player.events.FinishedEvent;
 import com.github.anrimian.musicplayer.domain.models.player.events.PlayerEvent;
 import com.github.anrimian.musicplayer.domain.models.player.events.PreparedEvent;
+import com.github.anrimian.musicplayer.domain.utils.Objects;
 import com.github.anrimian.musicplayer.domain.utils.functions.Callback;
+import com.google.android.exoplayer2.C;
 import com.google.android.exoplayer2.ExoPlayer;
 import com.google.android.exoplayer2.DefaultRenderersFactory;
 import com.google.android.exoplayer2.ExoPlaybackException;
@@ -26,6 +30,7 @@ import com.google.android.exoplayer2.PlaybackException;
 import com.google.android.exoplayer2.PlaybackParameters;
 import com.google.android.exoplayer2.RenderersFactory;
 import com.google.android.exoplayer2.SimpleExoPlayer;
+import com.google.android.exoplayer2.Timeline;
 import com.google.android.exoplayer2.audio.AudioCapabilities;
 import com.google.android.exoplayer2.audio.AudioProcessor;
 import com.google.android.exoplayer2.audio.AudioSink;
@@ -60,7 +65,9 @@ public class ExoMediaPlayer implements AppMediaPlayer {
     private final PlayerErrorParser playerErrorParser;
     private final EqualizerController equalizerController;
 
+    private final ParametricEqualizerProcessor equalizerProcessor = new ParametricEqualizerProcessor();
     private final StereoVolumeProcessor stereoVolumeProcessor = new StereoVolumeProcessor();
+    private final DataSource.Factory dataSourceFactory;
 
     private volatile ExoPlayer player;
 
@@ -69,6 +76,24 @@ public class ExoMediaPlayer implements AppMediaPlayer {
 
     private CompositionSource currentComposition;
 
+    //requested next composition, added to playlist after current one is prepared
+    @Nullable
+    private CompositionSource nextComposition;
+    //next composition which is already added to playlist
+    @Nullable
+    private CompositionSource loadedNextComposition;
+    //composition which playback was started by player itself after previous one
+    @Nullable
+    private CompositionSource transitionedComposition;
+    @Nullable
+    private Disposable nextSourceDisposable;
+
+    private volatile boolean volumeNormalizationEnabled;
+    @Nullable
+    private Disposable trackGainDisposable;
+    @Nullable
+    private Disposable equalizerProcessorDisposable;
+
     private boolean isPreparing = false;
     private boolean playAfterPrepare = false;
 
@@ -86,6 +111,7 @@ public class ExoMediaPlayer implements AppMediaPlayer {
         this.equalizerController = equalizerController;
 
         stereoVolumeProcessor.setChannelMap(new int[] { 0, 1 } );
+        dataSourceFactory = new DefaultDataSource.Factory(context);
     }
 
     @Override
@@ -99,16 +125,38 @@ public class ExoMediaPlayer implements AppMediaPlayer {
                               @Nullable ErrorType previousErrorType) {
         isPreparing = true;
         this.currentComposition = composition;
+        applyTrackGain(composition);
         trackPositionSubject.onNext(startPosition);
+        long prepareStartTime = PerformanceMetrics.startTimer();
         //cancel previous preparation?
         Single.fromCallable(() -> composition)
-                .flatMapCompletable(this::prepareMediaSource)
-                .doOnEvent(t -> onCompositionPrepared(t, startPosition))
+                .flatMapCompletable(source -> {
+                    if (isLoadedInPlaylist(source)) {
+                        PerformanceMetrics.increment(PerformanceMetrics.PLAYER_PREPARED_IN_ADVANCE);
+                        return Completable.fromRunnable(() -> onLoadedCompositionSelected(source, startPosition));
+                    }
+                    resetNextMediaSource();
+                    return prepareMediaSource(source)
+                            .doOnComplete(() -> PerformanceMetrics.stopTimer(PerformanceMetrics.PLAYER_PREPARE, prepareStartTime))
+                            .doOnEvent(t -> onCompositionPrepared(t, startPosition));
+                })
                 .onErrorComplete()
                 .subscribeOn(uiScheduler)
                 .subscribe();
     }
 
+    @Override
+    public void setNextCompositionSource(@Nullable CompositionSource composition) {
+        Completable.fromRunnable(() -> {
+            if (Objects.equals(nextComposition, composition)) {
+                return;
+            }
+            nextComposition = composition;
+            removeNextMediaSource();
+            appendNextMediaSource();
+        }).subscribeOn(uiScheduler).subscribe();
+    }
+
     @Override
     public void stop() {
         Completable.fromRunnable(() -> {
@@ -195,6 +243,11 @@ public class ExoMediaPlayer implements AppMediaPlayer {
 //            equalizerController.detachEqualizer();
             pausePlayer();
             stopTracingTrackPosition();
+            resetNextMediaSource();
+            disposeTrackGain();
+            if (equalizerProcessorDisposable != null) {
+                equalizerProcessorDisposable.dispose();
+            }
             player.release();
         });
     }
@@ -209,6 +262,12 @@ public class ExoMediaPlayer implements AppMediaPlayer {
         stereoVolumeProcessor.setVolume(soundBalance.getLeft(), soundBalance.getRight());
     }
 
+    @Override
+    public void setVolumeNormalizationEnabled(boolean enabled) {
+        volumeNormalizationEnabled = enabled;
+        applyTrackGain(currentComposition);
+    }
+
     private void startPlayWhenReady() {
         Completable.fromRunnable(() -> {
             getPlayer().setPlayWhenReady(true);
@@ -226,6 +285,7 @@ public class ExoMediaPlayer implements AppMediaPlayer {
                 playAfterPrepare = false;
                 startPlayWhenReady();
             }
+            appendNextMediaSource();
         } else {
             seekTo(0);
             pausePlayer();
@@ -245,6 +305,12 @@ public class ExoMediaPlayer implements AppMediaPlayer {
                 prepareToPlay(currentComposition, getPlayer().getCurrentPosition(), null);
                 return;
             }
+            //error can come from composition prepared in advance, continue without it
+            if (loadedNextComposition != null && isNextItemError(throwable)) {
+                nextComposition = null;
+                prepareToPlay(currentComposition, getPlayer().getCurrentPosition(), null);
+                return;
+            }
 
             playerEventSubject.onNext(new ErrorEvent(
                     playerErrorParser.getErrorType(throwable),
@@ -281,6 +347,121 @@ public class ExoMediaPlayer implements AppMediaPlayer {
                 .ignoreElement();
     }
 
+    private boolean isLoadedInPlaylist(CompositionSource composition) {
+        return composition.equals(transitionedComposition)
+                || composition.equals(loadedNextComposition);
+    }
+
+    //composition is already in playlist, keep loaded data instead of new preparation
+    private void onLoadedCompositionSelected(CompositionSource composition, long startPosition) {
+        ExoPlayer player = getPlayer();
+        if (composition.equals(transitionedComposition)) {
+            transitionedComposition = null;
+            //playback is already started, don't return it to the beginning
+            if (startPosition > 0) {
+                seekTo(startPosition);
+            }
+        } else {
+            loadedNextComposition = null;
+            nextComposition = null;
+            player.seekTo(player.getCurrentMediaItemIndex() + 1, startPosition);
+        }
+        int currentIndex = player.getCurrentMediaItemIndex();
+        if (currentIndex > 0) {
+            player.removeMediaItems(0, currentIndex);
+        }
+
+        isPreparing = false;
+        playerEventSubject.onNext(new PreparedEvent(currentComposition));
+        if (playAfterPrepare) {
+            playAfterPrepare = false;
+            startPlayWhenReady();
+        }
+        appendNextMediaSource();
+    }
+
+    private void onAutoTransition() {
+        if (loadedNextComposition == null) {
+            return;
+        }
+        CompositionSource previousComposition = currentComposition;
+        currentComposition = loadedNextComposition;
+        transitionedComposition = loadedNextComposition;
+        loadedNextComposition = null;
+        nextComposition = null;
+        applyTrackGain(currentComposition);
+        trackPositionSubject.onNext(0L);
+        playerEventSubject.onNext(new FinishedEvent(previousComposition));
+    }
+
+    private void appendNextMediaSource() {
+        CompositionSource composition = nextComposition;
+        if (composition == null
+                || isPreparing
+                || loadedNextComposition != null
+                || getPlayer().getMediaItemCount() == 0) {
+            return;
+        }
+        disposeNextSourcePreparation();
+        nextSourceDisposable = getCompositionUri(composition)
+                .flatMap(this::createMediaSource)
+                .subscribeOn(ioScheduler)
+                .timeout(6, TimeUnit.SECONDS)
+                .observeOn(uiScheduler)
+                .subscribe(mediaSource -> {
+                    getPlayer().addMediaSource(mediaSource);
+                    loadedNextComposition = composition;
+                }, throwable -> {});//error will be handled when composition is prepared as current
+    }
+
+    private void removeNextMediaSource() {
+        disposeNextSourcePreparation();
+        loadedNextComposition = null;
+        ExoPlayer player = getPlayer();
+        int nextIndex = player.getCurrentMediaItemIndex() + 1;
+        int count = player.getMediaItemCount();
+        if (nextIndex < count) {
+            player.removeMediaItems(nextIndex, count);
+        }
+    }
+
+    private void resetNextMediaSource() {
+        disposeNextSourcePreparation();
+        loadedNextComposition = null;
+        transitionedComposition = null;
+    }
+
+    private void disposeNextSourcePreparation() {
+        if (nextSourceDisposable != null) {
+            nextSourceDisposable.dispose();
+            nextSourceDisposable = null;
+        }
+    }
+
+    //gain is changed on composition switch, so after gapless transition beginning
+    //of next composition which is already in audio buffer keeps gain of previous one
+    private void applyTrackGain(@Nullable CompositionSource composition) {
+        disposeTrackGain();
+        trackGainDisposable = getTrackGainVolume(composition)
+                .onErrorReturnItem(1f)
+                .subscribe(stereoVolumeProcessor::setGain);
+    }
+
+    private Single<Float> getTrackGainVolume(@Nullable CompositionSource composition) {
+        if (!volumeNormalizationEnabled || !(composition instanceof LibraryCompositionSource)) {
+            return Single.just(1f);
+        }
+        long id = ((LibraryCompositionSource) composition).getComposition().getId();
+        return sourceRepository.getTrackGainVolume(id);
+    }
+
+    private void disposeTrackGain() {
+        if (trackGainDisposable != null) {
+            trackGainDisposable.dispose();
+            trackGainDisposable = null;
+        }
+    }
+
     private Single<Uri> getCompositionUri(CompositionSource composition) {
         if (composition instanceof LibraryCompositionSource) {
             long id = ((LibraryCompositionSource) composition).getComposition().getId();
@@ -292,6 +473,24 @@ public class ExoMediaPlayer implements AppMediaPlayer {
         throw new IllegalArgumentException("unknown composition source");
     }
 
+    private boolean isNextItemError(Throwable throwable) {
+        if (!(throwable instanceof ExoPlaybackException)) {
+            return false;
+        }
+        MediaSource.MediaPeriodId periodId = ((ExoPlaybackException) throwable).mediaPeriodId;
+        if (periodId == null) {
+            return false;
+        }
+        ExoPlayer player = getPlayer();
+        Timeline timeline = player.getCurrentTimeline();
+        int periodIndex = timeline.getIndexOfPeriod(periodId.periodUid);
+        if (periodIndex == C.INDEX_UNSET) {
+            return false;
+        }
+        int itemIndex = timeline.getPeriod(periodIndex, new Timeline.Period()).windowIndex;
+        return itemIndex > player.getCurrentMediaItemIndex();
+    }
+
     private boolean isStrangeLoaderException(Throwable throwable) {
         if (throwable instanceof PlaybackException) {
             Throwable cause = throwable.getCause();
@@ -302,7 +501,6 @@ public class ExoMediaPlayer implements AppMediaPlayer {
 
     private Single<MediaSource> createMediaSource(Uri uri) {
         return Single.fromCallable(() -> {
-            DataSource.Factory dataSourceFactory = new DefaultDataSource.Factory(context);
             MediaItem mediaItem = MediaItem.fromUri(uri);
             return new ProgressiveMediaSource.Factory(dataSourceFactory).createMediaSource(mediaItem);
         });
@@ -318,13 +516,19 @@ public class ExoMediaPlayer implements AppMediaPlayer {
         if (player == null) {
             synchronized (this) {
                 if (player == null) {
-                    RenderersFactory factory = createSimpleRenderersFactory(context, stereoVolumeProcessor);
+                    RenderersFactory factory = createSimpleRenderersFactory(context,
+                            equalizerProcessor,
+                            stereoVolumeProcessor);
+                    equalizerProcessorDisposable = equalizerController.attachAudioProcessor(equalizerProcessor)
+                            .subscribeOn(ioScheduler)
+                            .subscribe();
 
                     player = new ExoPlayer.Builder(context, factory)
                             .build();
 
                     PlayerEventListener playerEventListener = new PlayerEventListener(
                             () -> playerEventSubject.onNext(new FinishedEvent(currentComposition)),
+                            this::onAutoTransition,
                             this::sendErrorEvent
                     );
                     player.addListener(playerEventListener);
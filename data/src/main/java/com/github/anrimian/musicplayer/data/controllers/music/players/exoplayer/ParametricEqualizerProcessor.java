@@ -0,0 +1,355 @@
+package com.github.anrimian.musicplayer.data.controllers.music.players.exoplayer;
+
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.Format;
+import com.google.android.exoplayer2.audio.AudioProcessor;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import javax.annotation.Nullable;
+
+/**
+ * Multi band equalizer with preamp and peak limiter, which works inside player audio chain and
+ * doesn't depend on device audio effects. Each band is a peaking biquad filter
+ * (audio eq cookbook, R. Bristow-Johnson).
+ *
+ * Filter coefficients are computed when settings or sample rate are changed, processing
+ * of audio buffers doesn't allocate memory. Without gain on bands and preamp audio is copied
+ * as is. Supported encodings: 16 bit and float pcm, other formats are passed by.
+ *
+ * Settings are passed from app equalizer by EqualizerController.
+ */
+public class ParametricEqualizerProcessor implements AudioProcessor {
+
+    public static final float DEFAULT_Q = 1.41f;
+
+    //gains below this value are not audible, such bands are skipped
+    private static final double MIN_GAIN_DB = 0.01;
+
+    private static final double LIMITER_THRESHOLD = 0.98;
+    private static final double LIMITER_RELEASE_SECONDS = 0.1;
+
+    private static final double SHORT_SCALE = 32768d;
+
+    private int channelCount;
+    private int sampleRateHz;
+    private @C.Encoding int encoding;
+
+    private boolean active;
+    private ByteBuffer buffer;
+    private ByteBuffer outputBuffer;
+    private boolean inputEnded;
+
+    private volatile Settings settings = Settings.FLAT;
+
+    //settings and sample rate for which coefficients are computed
+    @Nullable
+    private Settings appliedSettings;
+    private int appliedSampleRateHz = Format.NO_VALUE;
+
+    //coefficients of filters with audible gain, normalized by a0, 5 values per filter
+    private double[] coefficients = new double[0];
+    private int filterCount;
+    //filter state, 2 values per filter per channel
+    private double[] filterState = new double[0];
+    private double preampGain = 1d;
+    private boolean limiterEnabled;
+    private double limiterReleaseCoefficient;
+    private double limiterGain = 1d;
+
+    public ParametricEqualizerProcessor() {
+        buffer = EMPTY_BUFFER;
+        outputBuffer = EMPTY_BUFFER;
+        channelCount = Format.NO_VALUE;
+        sampleRateHz = Format.NO_VALUE;
+        encoding = C.ENCODING_INVALID;
+    }
+
+    /**
+     * @param frequencies center frequencies of bands, Hz
+     * @param gainsDb gain of each band, dB
+     * @param q quality factor of bands, bigger value gives narrower band
+     */
+    public void setBands(float[] frequencies, float[] gainsDb, float q) {
+        if (frequencies.length != gainsDb.length) {
+            throw new IllegalArgumentException("frequencies and gains have different size");
+        }
+        Settings settings = this.settings;
+        this.settings = new Settings(frequencies.clone(),
+                gainsDb.clone(),
+                q,
+                settings.preampDb,
+                settings.limiterEnabled);
+    }
+
+    public void setPreamp(float gainDb) {
+        Settings settings = this.settings;
+        this.settings = new Settings(settings.frequencies,
+                settings.gainsDb,
+                settings.q,
+                gainDb,
+                settings.limiterEnabled);
+    }
+
+    /**
+     * Limiter softly reduces volume of peaks which are going to be clipped after boost
+     */
+    public void setLimiterEnabled(boolean enabled) {
+        Settings settings = this.settings;
+        this.settings = new Settings(settings.frequencies,
+                settings.gainsDb,
+                settings.q,
+                settings.preampDb,
+                enabled);
+    }
+
+    @Override
+    public AudioFormat configure(AudioFormat inputAudioFormat) {
+        if (inputAudioFormat.encoding != C.ENCODING_PCM_16BIT
+                && inputAudioFormat.encoding != C.ENCODING_PCM_FLOAT) {
+            active = false;
+            return AudioFormat.NOT_SET;
+        }
+        channelCount = inputAudioFormat.channelCount;
+        sampleRateHz = inputAudioFormat.sampleRate;
+        encoding = inputAudioFormat.encoding;
+        //filter state depends on channel count, recompute it for new format
+        appliedSettings = null;
+        active = true;
+        return inputAudioFormat;
+    }
+
+    @Override
+    public boolean isActive() {
+        return active;
+    }
+
+    @Override
+    public void queueInput(ByteBuffer inputBuffer) {
+        if (!isActive()) {
+            throw new IllegalStateException();
+        }
+        int position = inputBuffer.position();
+        int limit = inputBuffer.limit();
+        int size = limit - position;
+
+        ByteBuffer buffer = obtainBuffer(size);
+
+        Settings settings = this.settings;
+        if (settings != appliedSettings || sampleRateHz != appliedSampleRateHz) {
+            applySettings(settings);
+        }
+
+        if (filterCount == 0 && preampGain == 1d && !limiterEnabled) {
+            buffer.put(inputBuffer);
+        } else {
+            if (encoding == C.ENCODING_PCM_16BIT) {
+                process16Bit(inputBuffer, position, limit, buffer);
+            } else {
+                processFloat(inputBuffer, position, limit, buffer);
+            }
+            inputBuffer.position(limit);
+            buffer.position(size);
+        }
+
+        buffer.flip();
+        outputBuffer = buffer;
+    }
+
+    @Override
+    public void queueEndOfStream() {
+        inputEnded = true;
+    }
+
+    @Override
+    public ByteBuffer getOutput() {
+        ByteBuffer outputBuffer = this.outputBuffer;
+        this.outputBuffer = EMPTY_BUFFER;
+        return outputBuffer;
+    }
+
+    @SuppressWarnings("ReferenceEquality")
+    @Override
+    public boolean isEnded() {
+        return inputEnded && outputBuffer == EMPTY_BUFFER;
+    }
+
+    @Override
+    public void flush() {
+        outputBuffer = EMPTY_BUFFER;
+        inputEnded = false;
+        clearFilterState();
+    }
+
+    @Override
+    public void reset() {
+        flush();
+        buffer = EMPTY_BUFFER;
+        channelCount = Format.NO_VALUE;
+        sampleRateHz = Format.NO_VALUE;
+        encoding = C.ENCODING_INVALID;
+        appliedSettings = null;
+        appliedSampleRateHz = Format.NO_VALUE;
+        active = false;
+    }
+
+    private void process16Bit(ByteBuffer input, int position, int limit, ByteBuffer output) {
+        int channelCount = this.channelCount;
+        int out = 0;
+        for (int i = position; i < limit; ) {
+            for (int ch = 0; ch < channelCount; ch++, i += 2, out += 2) {
+                double sample = processSample(input.getShort(i) / SHORT_SCALE, ch);
+                output.putShort(out, toShort(sample));
+            }
+        }
+    }
+
+    private void processFloat(ByteBuffer input, int position, int limit, ByteBuffer output) {
+        int channelCount = this.channelCount;
+        int out = 0;
+        for (int i = position; i < limit; ) {
+            for (int ch = 0; ch < channelCount; ch++, i += 4, out += 4) {
+                double sample = processSample(input.getFloat(i), ch);
+                output.putFloat(out, (float) sample);
+            }
+        }
+    }
+
+    private double processSample(double sample, int channel) {
+        double[] coefficients = this.coefficients;
+        double[] state = this.filterState;
+
+        double value = sample * preampGain;
+        int stateIndex = channel * filterCount * 2;
+        for (int f = 0, c = 0; f < filterCount; f++, c += 5, stateIndex += 2) {
+            //transposed direct form II
+            double result = coefficients[c] * value + state[stateIndex];
+            state[stateIndex] = coefficients[c + 1] * value
+                    - coefficients[c + 3] * result
+                    + state[stateIndex + 1];
+            state[stateIndex + 1] = coefficients[c + 2] * value - coefficients[c + 4] * result;
+            value = result;
+        }
+
+        if (limiterEnabled) {
+            double level = Math.abs(value) * limiterGain;
+            if (level > LIMITER_THRESHOLD) {
+                limiterGain = LIMITER_THRESHOLD / Math.abs(value);
+            }
+            value *= limiterGain;
+            limiterGain += (1d - limiterGain) * limiterReleaseCoefficient;
+        }
+        return value;
+    }
+
+    private void applySettings(Settings settings) {
+        appliedSettings = settings;
+        appliedSampleRateHz = sampleRateHz;
+
+        double nyquist = sampleRateHz / 2d;
+        int filterCount = 0;
+        for (int i = 0; i < settings.frequencies.length; i++) {
+            if (isFilterAudible(settings.frequencies[i], settings.gainsDb[i], nyquist)) {
+                filterCount++;
+            }
+        }
+        if (coefficients.length != filterCount * 5) {
+            coefficients = new double[filterCount * 5];
+        }
+        int stateSize = filterCount * 2 * Math.max(channelCount, 1);
+        if (this.filterCount != filterCount || filterState.length != stateSize) {
+            filterState = new double[stateSize];
+        }
+        this.filterCount = filterCount;
+
+        int c = 0;
+        for (int i = 0; i < settings.frequencies.length; i++) {
+            float frequency = settings.frequencies[i];
+            float gainDb = settings.gainsDb[i];
+            if (isFilterAudible(frequency, gainDb, nyquist)) {
+                computePeakingCoefficients(frequency, gainDb, settings.q, sampleRateHz, coefficients, c);
+                c += 5;
+            }
+        }
+
+        preampGain = Math.pow(10d, settings.preampDb / 20d);
+        limiterEnabled = settings.limiterEnabled;
+        limiterReleaseCoefficient = 1d - Math.exp(-1d / (LIMITER_RELEASE_SECONDS * sampleRateHz));
+        limiterGain = 1d;
+    }
+
+    private void clearFilterState() {
+        for (int i = 0; i < filterState.length; i++) {
+            filterState[i] = 0d;
+        }
+        limiterGain = 1d;
+    }
+
+    private ByteBuffer obtainBuffer(int size) {
+        if (buffer.capacity() < size) {
+            int capacity = Math.max(size, buffer.capacity() * 2);
+            buffer = ByteBuffer.allocateDirect(capacity).order(ByteOrder.nativeOrder());
+        } else {
+            buffer.clear();
+        }
+        return buffer;
+    }
+
+    private static boolean isFilterAudible(float frequency, float gainDb, double nyquist) {
+        return Math.abs(gainDb) >= MIN_GAIN_DB && frequency > 0 && frequency < nyquist;
+    }
+
+    static void computePeakingCoefficients(double frequency,
+                                           double gainDb,
+                                           double q,
+                                           int sampleRateHz,
+                                           double[] result,
+                                           int offset) {
+        double a = Math.pow(10d, gainDb / 40d);
+        double w0 = 2d * Math.PI * frequency / sampleRateHz;
+        double cosW0 = Math.cos(w0);
+        double alpha = Math.sin(w0) / (2d * q);
+
+        double a0 = 1d + alpha / a;
+        result[offset] = (1d + alpha * a) / a0;//b0
+        result[offset + 1] = (-2d * cosW0) / a0;//b1
+        result[offset + 2] = (1d - alpha * a) / a0;//b2
+        result[offset + 3] = (-2d * cosW0) / a0;//a1
+        result[offset + 4] = (1d - alpha / a) / a0;//a2
+    }
+
+    private static short toShort(double sample) {
+        long value = Math.round(sample * SHORT_SCALE);
+        if (value > Short.MAX_VALUE) {
+            return Short.MAX_VALUE;
+        }
+        if (value < Short.MIN_VALUE) {
+            return Short.MIN_VALUE;
+        }
+        return (short) value;
+    }
+
+    private static class Settings {
+
+        static final Settings FLAT = new Settings(new float[0], new float[0], DEFAULT_Q, 0f, false);
+
+        final float[] frequencies;
+        final float[] gainsDb;
+        final float q;
+        final float preampDb;
+        final boolean limiterEnabled;
+
+        Settings(float[] frequencies,
+                 float[] gainsDb,
+                 float q,
+                 float preampDb,
+                 boolean limiterEnabled) {
+            this.frequencies = frequencies;
+            this.gainsDb = gainsDb;
+            this.q = q;
+            this.preampDb = preampDb;
+            this.limiterEnabled = limiterEnabled;
+        }
+    }
+}
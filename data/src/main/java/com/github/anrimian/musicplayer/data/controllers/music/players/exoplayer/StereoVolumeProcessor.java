@@ -8,10 +8,25 @@ import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.util.Arrays;
 
+/**
+ * Applies left and right volume and gain of current track to pcm audio. Supported encodings:
+ * 16 bit, 24 bit, 32 bit and float. Channels after the second one (and the only channel of mono
+ * audio) get average of left and right volume.
+ *
+ * Processing loops are written separately for each encoding and for mono and stereo audio,
+ * without per sample branches. With equal to one volume input is copied as is.
+ */
 public class StereoVolumeProcessor implements AudioProcessor {
 
+    private static final int LEFT_SPEAKER = 0;
+    private static final int RIGHT_SPEAKER = 1;
+
+    private static final int MIN_24BIT_VALUE = -0x800000;
+    private static final int MAX_24BIT_VALUE = 0x7fffff;
+
     private int channelCount;
     private int sampleRateHz;
+    private @C.Encoding int encoding;
     private int[] pendingOutputChannels;
 
     private boolean active;
@@ -20,16 +35,18 @@ public class StereoVolumeProcessor implements AudioProcessor {
     private ByteBuffer outputBuffer;
     private boolean inputEnded;
 
-    private float[] volume;
-
-    private static final int LEFT_SPEAKER = 0;
-    private static final int RIGHT_SPEAKER = 1;
+    private volatile float[] volume;
+    //multiplier for both channels, not bigger than one
+    private volatile float gain = 1f;
+    //volume per channel of current format, reused for each input
+    private float[] channelVolumes;
 
     public StereoVolumeProcessor() {
         buffer = EMPTY_BUFFER;
         outputBuffer = EMPTY_BUFFER;
         channelCount = Format.NO_VALUE;
         sampleRateHz = Format.NO_VALUE;
+        encoding = C.ENCODING_INVALID;
     }
 
     public void setChannelMap(int[] outputChannels) {
@@ -52,15 +69,18 @@ public class StereoVolumeProcessor implements AudioProcessor {
             active = false;
             return inputAudioFormat;
         }
-        if (encoding != C.ENCODING_PCM_16BIT) {
+        if (!isEncodingSupported(encoding)) {
             throw new UnhandledAudioFormatException(inputAudioFormat);
         }
         if (!outputChannelsChanged && this.sampleRateHz == sampleRateHz
-                && this.channelCount == channelCount) {
+                && this.channelCount == channelCount
+                && this.encoding == encoding) {
             return inputAudioFormat;
         }
         this.sampleRateHz = sampleRateHz;
         this.channelCount = channelCount;
+        this.encoding = encoding;
+        channelVolumes = new float[channelCount];
 
         active = true;
 
@@ -74,28 +94,46 @@ public class StereoVolumeProcessor implements AudioProcessor {
 
     @Override
     public void queueInput(ByteBuffer inputBuffer) {
+        if (!isActive()) {
+            throw new IllegalStateException();
+        }
         int position = inputBuffer.position();
         int limit = inputBuffer.limit();
         int size = limit - position;
 
-        if (buffer.capacity() < size) {
-            buffer = ByteBuffer.allocateDirect(size).order(ByteOrder.nativeOrder());
-        } else {
-            buffer.clear();
-        }
+        ByteBuffer buffer = obtainBuffer(size);
 
-        if (isActive()) {
-            int ch = 0;
-            for (int i = position; i < limit; i += 2) {
-                short sample = (short) (inputBuffer.getShort(i) * volume[ch++]);
-                buffer.putShort(sample);
-                ch %= channelCount;
-            }
+        float[] volume = this.volume;
+        float gain = this.gain;
+        float left = volume[LEFT_SPEAKER] * gain;
+        float right = volume[RIGHT_SPEAKER] * gain;
+        if (left == 1f && right == 1f) {
+            buffer.put(inputBuffer);
         } else {
-            throw new IllegalStateException();
+            float[] channelVolumes = getChannelVolumes(left, right);
+            switch (encoding) {
+                case C.ENCODING_PCM_16BIT: {
+                    process16Bit(inputBuffer, position, limit, buffer, channelVolumes);
+                    break;
+                }
+                case C.ENCODING_PCM_24BIT: {
+                    process24Bit(inputBuffer, position, limit, buffer, channelVolumes);
+                    break;
+                }
+                case C.ENCODING_PCM_32BIT: {
+                    process32Bit(inputBuffer, position, limit, buffer, channelVolumes);
+                    break;
+                }
+                case C.ENCODING_PCM_FLOAT: {
+                    processFloat(inputBuffer, position, limit, buffer, channelVolumes);
+                    break;
+                }
+                default: throw new IllegalStateException("unexpected encoding: " + encoding);
+            }
+            inputBuffer.position(limit);
+            buffer.position(size);
         }
 
-        inputBuffer.position(limit);
         buffer.flip();
         outputBuffer = buffer;
     }
@@ -109,6 +147,10 @@ public class StereoVolumeProcessor implements AudioProcessor {
         volume = new float[]{left, right};
     }
 
+    public void setGain(float gain) {
+        this.gain = gain;
+    }
+
     public float getLeftVolume() {
         return volume[LEFT_SPEAKER];
     }
@@ -142,7 +184,173 @@ public class StereoVolumeProcessor implements AudioProcessor {
         buffer = EMPTY_BUFFER;
         channelCount = Format.NO_VALUE;
         sampleRateHz = Format.NO_VALUE;
+        encoding = C.ENCODING_INVALID;
+        channelVolumes = null;
         outputChannels = null;
         active = false;
     }
-}
\ No newline at end of file
+
+    private ByteBuffer obtainBuffer(int size) {
+        if (buffer.capacity() < size) {
+            //input size changes a little between buffers, take extra space to not allocate each time
+            int capacity = Math.max(size, buffer.capacity() * 2);
+            buffer = ByteBuffer.allocateDirect(capacity).order(ByteOrder.nativeOrder());
+        } else {
+            buffer.clear();
+        }
+        return buffer;
+    }
+
+    private float[] getChannelVolumes(float left, float right) {
+        float[] channelVolumes = this.channelVolumes;
+        if (channelCount == 1) {
+            channelVolumes[0] = (left + right) / 2;
+            return channelVolumes;
+        }
+        channelVolumes[LEFT_SPEAKER] = left;
+        channelVolumes[RIGHT_SPEAKER] = right;
+        if (channelCount > 2) {
+            Arrays.fill(channelVolumes, 2, channelCount, (left + right) / 2);
+        }
+        return channelVolumes;
+    }
+
+    private static boolean isEncodingSupported(@C.Encoding int encoding) {
+        return encoding == C.ENCODING_PCM_16BIT
+                || encoding == C.ENCODING_PCM_24BIT
+                || encoding == C.ENCODING_PCM_32BIT
+                || encoding == C.ENCODING_PCM_FLOAT;
+    }
+
+    static void process16Bit(ByteBuffer input,
+                             int position,
+                             int limit,
+                             ByteBuffer output,
+                             float[] volumes) {
+        int channelCount = volumes.length;
+        int out = 0;
+        if (channelCount == 1) {
+            float volume = volumes[0];
+            for (int i = position; i < limit; i += 2, out += 2) {
+                output.putShort(out, (short) (input.getShort(i) * volume));
+            }
+        } else if (channelCount == 2) {
+            float left = volumes[LEFT_SPEAKER];
+            float right = volumes[RIGHT_SPEAKER];
+            for (int i = position; i < limit; i += 4, out += 4) {
+                output.putShort(out, (short) (input.getShort(i) * left));
+                output.putShort(out + 2, (short) (input.getShort(i + 2) * right));
+            }
+        } else {
+            for (int i = position; i < limit; ) {
+                for (int ch = 0; ch < channelCount; ch++, i += 2, out += 2) {
+                    output.putShort(out, (short) (input.getShort(i) * volumes[ch]));
+                }
+            }
+        }
+    }
+
+    static void process24Bit(ByteBuffer input,
+                             int position,
+                             int limit,
+                             ByteBuffer output,
+                             float[] volumes) {
+        int channelCount = volumes.length;
+        int out = 0;
+        if (channelCount == 1) {
+            float volume = volumes[0];
+            for (int i = position; i < limit; i += 3, out += 3) {
+                put24Bit(output, out, get24Bit(input, i) * volume);
+            }
+        } else if (channelCount == 2) {
+            float left = volumes[LEFT_SPEAKER];
+            float right = volumes[RIGHT_SPEAKER];
+            for (int i = position; i < limit; i += 6, out += 6) {
+                put24Bit(output, out, get24Bit(input, i) * left);
+                put24Bit(output, out + 3, get24Bit(input, i + 3) * right);
+            }
+        } else {
+            for (int i = position; i < limit; ) {
+                for (int ch = 0; ch < channelCount; ch++, i += 3, out += 3) {
+                    put24Bit(output, out, get24Bit(input, i) * volumes[ch]);
+                }
+            }
+        }
+    }
+
+    //float keeps only 24 bit of precision, so 32 bit samples are multiplied as double
+    static void process32Bit(ByteBuffer input,
+                             int position,
+                             int limit,
+                             ByteBuffer output,
+                             float[] volumes) {
+        int channelCount = volumes.length;
+        int out = 0;
+        if (channelCount == 1) {
+            double volume = volumes[0];
+            for (int i = position; i < limit; i += 4, out += 4) {
+                output.putInt(out, (int) (input.getInt(i) * volume));
+            }
+        } else if (channelCount == 2) {
+            double left = volumes[LEFT_SPEAKER];
+            double right = volumes[RIGHT_SPEAKER];
+            for (int i = position; i < limit; i += 8, out += 8) {
+                output.putInt(out, (int) (input.getInt(i) * left));
+                output.putInt(out + 4, (int) (input.getInt(i + 4) * right));
+            }
+        } else {
+            for (int i = position; i < limit; ) {
+                for (int ch = 0; ch < channelCount; ch++, i += 4, out += 4) {
+                    output.putInt(out, (int) (input.getInt(i) * (double) volumes[ch]));
+                }
+            }
+        }
+    }
+
+    static void processFloat(ByteBuffer input,
+                             int position,
+                             int limit,
+                             ByteBuffer output,
+                             float[] volumes) {
+        int channelCount = volumes.length;
+        int out = 0;
+        if (channelCount == 1) {
+            float volume = volumes[0];
+            for (int i = position; i < limit; i += 4, out += 4) {
+                output.putFloat(out, input.getFloat(i) * volume);
+            }
+        } else if (channelCount == 2) {
+            float left = volumes[LEFT_SPEAKER];
+            float right = volumes[RIGHT_SPEAKER];
+            for (int i = position; i < limit; i += 8, out += 8) {
+                output.putFloat(out, input.getFloat(i) * left);
+                output.putFloat(out + 4, input.getFloat(i + 4) * right);
+            }
+        } else {
+            for (int i = position; i < limit; ) {
+                for (int ch = 0; ch < channelCount; ch++, i += 4, out += 4) {
+                    output.putFloat(out, input.getFloat(i) * volumes[ch]);
+                }
+            }
+        }
+    }
+
+    //24 bit pcm is packed little endian
+    private static int get24Bit(ByteBuffer buffer, int index) {
+        return (buffer.get(index) & 0xff)
+                | ((buffer.get(index + 1) & 0xff) << 8)
+                | (buffer.get(index + 2) << 16);
+    }
+
+    private static void put24Bit(ByteBuffer buffer, int index, float value) {
+        int sample = (int) value;
+        if (sample > MAX_24BIT_VALUE) {
+            sample = MAX_24BIT_VALUE;
+        } else if (sample < MIN_24BIT_VALUE) {
+            sample = MIN_24BIT_VALUE;
+        }
+        buffer.put(index, (byte) sample);
+        buffer.put(index + 1, (byte) (sample >> 8));
+        buffer.put(index + 2, (byte) (sample >> 16));
+    }
+}
@@ -16,10 +16,15 @@ import com.github.anrimian.musicplayer.data.database.dao.play_queue.PlayQueueDao
 import com.github.anrimian.musicplayer.data.database.entities.albums.AlbumEntity;
 import com.github.anrimian.musicplayer.data.database.entities.artist.ArtistEntity;
 import com.github.anrimian.musicplayer.data.database.entities.composition.CompositionEntity;
+import com.github.anrimian.musicplayer.data.database.entities.composition.CompositionSearchEntity;
+import com.github.anrimian.musicplayer.data.database.entities.folder.FolderAggregateEntity;
 import com.github.anrimian.musicplayer.data.database.entities.folder.FolderEntity;
+import com.github.anrimian.musicplayer.data.database.entities.folder.FolderSearchEntity;
+import com.github.anrimian.musicplayer.data.database.entities.folder.FolderTreeEntity;
 import com.github.anrimian.musicplayer.data.database.entities.folder.IgnoredFolderEntity;
 import com.github.anrimian.musicplayer.data.database.entities.genres.GenreEntity;
 import com.github.anrimian.musicplayer.data.database.entities.genres.GenreEntryEntity;
+import com.github.anrimian.musicplayer.data.database.entities.play_queue.PlayQueueCompositionChangeEntity;
 import com.github.anrimian.musicplayer.data.database.entities.play_queue.PlayQueueEntity;
 import com.github.anrimian.musicplayer.data.database.entities.playlist.PlayListEntity;
 import com.github.anrimian.musicplayer.data.database.entities.playlist.PlayListEntryEntity;
@@ -38,8 +43,13 @@ import com.github.anrimian.musicplayer.data.database.entities.playlist.PlayListE
         GenreEntity.class,
         GenreEntryEntity.class,
         IgnoredFolderEntity.class,
-        FolderEntity.class
-}, version = 8)
+        FolderEntity.class,
+        CompositionSearchEntity.class,
+        FolderSearchEntity.class,
+        PlayQueueCompositionChangeEntity.class,
+        FolderTreeEntity.class,
+        FolderAggregateEntity.class
+}, version = 12)
 @TypeConverters({
         DateConverter.class,
         EnumConverter.class
@@ -26,7 +26,13 @@ public class DatabaseManager {
                         Migrations.MIGRATION_4_5,
                         Migrations.MIGRATION_5_6,
                         Migrations.MIGRATION_6_7,
-                        Migrations.MIGRATION_7_8)
+                        Migrations.MIGRATION_7_8,
+                        Migrations.MIGRATION_8_9,
+                        Migrations.MIGRATION_9_10,
+                        Migrations.MIGRATION_10_11,
+                        Migrations.MIGRATION_11_12)
+                .addCallback(new SearchIndexCallback())
+                .addCallback(new PlayQueueChangesCallback())
                 .build();
     }
 }
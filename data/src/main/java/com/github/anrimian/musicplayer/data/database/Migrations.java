@@ -31,6 +31,59 @@ import java.util.Map;
 @SuppressLint("RestrictedApi")
 class Migrations {
 
+    static Migration MIGRATION_11_12 = new Migration(11, 12) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("ALTER TABLE compositions ADD COLUMN trackGain REAL");
+            database.execSQL("ALTER TABLE compositions ADD COLUMN trackPeak REAL");
+            database.execSQL("ALTER TABLE compositions ADD COLUMN loudnessScanDate INTEGER");
+        }
+    };
+
+    static Migration MIGRATION_10_11 = new Migration(10, 11) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS `folder_tree` (`ancestorId` INTEGER NOT NULL, `descendantId` INTEGER NOT NULL, PRIMARY KEY(`ancestorId`, `descendantId`), FOREIGN KEY(`ancestorId`) REFERENCES `folders`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE , FOREIGN KEY(`descendantId`) REFERENCES `folders`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE )");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_folder_tree_descendantId` ON `folder_tree` (`descendantId`)");
+            database.execSQL("CREATE TABLE IF NOT EXISTS `folder_aggregates` (`folderId` INTEGER NOT NULL, `filesCount` INTEGER NOT NULL, `duration` INTEGER NOT NULL, `size` INTEGER NOT NULL, `lastAddDate` INTEGER, PRIMARY KEY(`folderId`), FOREIGN KEY(`folderId`) REFERENCES `folders`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE )");
+
+            database.execSQL("WITH RECURSIVE tree(ancestorId, descendantId) AS (" +
+                    "SELECT id, id FROM folders " +
+                    "UNION ALL " +
+                    "SELECT tree.ancestorId, folders.id FROM folders JOIN tree ON folders.parentId = tree.descendantId" +
+                    ") " +
+                    "INSERT INTO folder_tree (ancestorId, descendantId) " +
+                    "SELECT ancestorId, descendantId FROM tree");
+            database.execSQL("INSERT INTO folder_aggregates (folderId, filesCount, duration, size, lastAddDate) " +
+                    "SELECT tree.ancestorId, " +
+                    "count(compositions.id), " +
+                    "ifnull(sum(compositions.duration), 0), " +
+                    "ifnull(sum(compositions.size), 0), " +
+                    "max(compositions.dateAdded) " +
+                    "FROM folder_tree AS tree " +
+                    "LEFT JOIN compositions ON compositions.folderId = tree.descendantId " +
+                    "GROUP BY tree.ancestorId");
+        }
+    };
+
+    static Migration MIGRATION_9_10 = new Migration(9, 10) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS `play_queue_composition_changes` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, `compositionId` INTEGER NOT NULL)");
+            PlayQueueChangesCallback.createPlayQueueChangesTriggers(database);
+        }
+    };
+
+    static Migration MIGRATION_8_9 = new Migration(8, 9) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS `compositions_search` USING FTS4(`title` TEXT, `fileName` TEXT, `artist` TEXT, `album` TEXT, tokenize=unicode61)");
+            database.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS `folders_search` USING FTS4(`name` TEXT, tokenize=unicode61)");
+            SearchIndexCallback.createSearchTriggers(database);
+            SearchIndexCallback.fillSearchTables(database);
+        }
+    };
+
     static Migration MIGRATION_7_8 = new Migration(7, 8) {
         @Override
         public void migrate(@NonNull SupportSQLiteDatabase database) {
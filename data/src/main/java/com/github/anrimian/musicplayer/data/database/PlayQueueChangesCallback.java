@@ -0,0 +1,62 @@
+package com.github.anrimian.musicplayer.data.database;
+
+import androidx.annotation.NonNull;
+import androidx.room.RoomDatabase;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+/**
+ * Room invalidates observers by tables, so any write to compositions (like scan date update)
+ * reloads joined play queue. Triggers created here record only changes of data visible in queue
+ * into play_queue_composition_changes table, which is observed instead.
+ *
+ * Changes which are read by all active observers are deleted by play queue dao wrapper,
+ * the rest are cleared on database open, when there are no observers yet.
+ */
+public class PlayQueueChangesCallback extends RoomDatabase.Callback {
+
+    @Override
+    public void onCreate(@NonNull SupportSQLiteDatabase db) {
+        createPlayQueueChangesTriggers(db);
+    }
+
+    @Override
+    public void onOpen(@NonNull SupportSQLiteDatabase db) {
+        db.execSQL("DELETE FROM play_queue_composition_changes");
+    }
+
+    static void createPlayQueueChangesTriggers(SupportSQLiteDatabase db) {
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS play_queue_compositions_update " +
+                "AFTER UPDATE OF storageId, artistId, albumId, title, fileName, duration, size, " +
+                "dateAdded, dateModified, corruptionType ON compositions " +
+                "WHEN (old.storageId IS NOT new.storageId " +
+                "OR old.artistId IS NOT new.artistId " +
+                "OR old.albumId IS NOT new.albumId " +
+                "OR old.title IS NOT new.title " +
+                "OR old.fileName IS NOT new.fileName " +
+                "OR old.duration IS NOT new.duration " +
+                "OR old.size IS NOT new.size " +
+                "OR old.dateAdded IS NOT new.dateAdded " +
+                "OR old.dateModified IS NOT new.dateModified " +
+                "OR old.corruptionType IS NOT new.corruptionType) " +
+                "AND EXISTS(SELECT 1 FROM play_queue WHERE audioId = new.id) " +
+                "BEGIN " +
+                "INSERT INTO play_queue_composition_changes(compositionId) VALUES (new.id); " +
+                "END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS play_queue_artists_update " +
+                "AFTER UPDATE OF name ON artists " +
+                "WHEN old.name IS NOT new.name " +
+                "BEGIN " +
+                "INSERT INTO play_queue_composition_changes(compositionId) " +
+                "SELECT DISTINCT audioId FROM play_queue " +
+                "WHERE audioId IN (SELECT id FROM compositions WHERE artistId = new.id); " +
+                "END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS play_queue_albums_update " +
+                "AFTER UPDATE OF name ON albums " +
+                "WHEN old.name IS NOT new.name " +
+                "BEGIN " +
+                "INSERT INTO play_queue_composition_changes(compositionId) " +
+                "SELECT DISTINCT audioId FROM play_queue " +
+                "WHERE audioId IN (SELECT id FROM compositions WHERE albumId = new.id); " +
+                "END");
+    }
+}
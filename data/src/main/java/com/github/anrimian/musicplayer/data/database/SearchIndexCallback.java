@@ -0,0 +1,91 @@
+package com.github.anrimian.musicplayer.data.database;
+
+import androidx.annotation.NonNull;
+import androidx.room.RoomDatabase;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+/**
+ * Room can't declare triggers, so full text search tables are kept in sync with
+ * compositions, artists, albums and folders by triggers created here.
+ */
+public class SearchIndexCallback extends RoomDatabase.Callback {
+
+    @Override
+    public void onCreate(@NonNull SupportSQLiteDatabase db) {
+        createSearchTriggers(db);
+    }
+
+    static void createSearchTriggers(SupportSQLiteDatabase db) {
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS compositions_search_insert " +
+                "AFTER INSERT ON compositions " +
+                "BEGIN " +
+                "INSERT INTO compositions_search(rowid, title, fileName, artist, album) " +
+                "VALUES (new.id, new.title, new.fileName, " +
+                "(SELECT name FROM artists WHERE id = new.artistId), " +
+                "(SELECT name FROM albums WHERE id = new.albumId)); " +
+                "END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS compositions_search_update " +
+                "AFTER UPDATE OF title, fileName, artistId, albumId ON compositions " +
+                "WHEN old.title IS NOT new.title " +
+                "OR old.fileName IS NOT new.fileName " +
+                "OR old.artistId IS NOT new.artistId " +
+                "OR old.albumId IS NOT new.albumId " +
+                "BEGIN " +
+                "UPDATE compositions_search SET " +
+                "title = new.title, " +
+                "fileName = new.fileName, " +
+                "artist = (SELECT name FROM artists WHERE id = new.artistId), " +
+                "album = (SELECT name FROM albums WHERE id = new.albumId) " +
+                "WHERE rowid = new.id; " +
+                "END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS compositions_search_delete " +
+                "AFTER DELETE ON compositions " +
+                "BEGIN " +
+                "DELETE FROM compositions_search WHERE rowid = old.id; " +
+                "END");
+
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS artists_search_update " +
+                "AFTER UPDATE OF name ON artists " +
+                "WHEN old.name IS NOT new.name " +
+                "BEGIN " +
+                "UPDATE compositions_search SET artist = new.name " +
+                "WHERE rowid IN (SELECT id FROM compositions WHERE artistId = new.id); " +
+                "END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS albums_search_update " +
+                "AFTER UPDATE OF name ON albums " +
+                "WHEN old.name IS NOT new.name " +
+                "BEGIN " +
+                "UPDATE compositions_search SET album = new.name " +
+                "WHERE rowid IN (SELECT id FROM compositions WHERE albumId = new.id); " +
+                "END");
+
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS folders_search_insert " +
+                "AFTER INSERT ON folders " +
+                "BEGIN " +
+                "INSERT INTO folders_search(rowid, name) VALUES (new.id, new.name); " +
+                "END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS folders_search_update " +
+                "AFTER UPDATE OF name ON folders " +
+                "WHEN old.name IS NOT new.name " +
+                "BEGIN " +
+                "UPDATE folders_search SET name = new.name WHERE rowid = new.id; " +
+                "END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS folders_search_delete " +
+                "AFTER DELETE ON folders " +
+                "BEGIN " +
+                "DELETE FROM folders_search WHERE rowid = old.id; " +
+                "END");
+    }
+
+    static void fillSearchTables(SupportSQLiteDatabase db) {
+        db.execSQL("INSERT INTO compositions_search(rowid, title, fileName, artist, album) " +
+                "SELECT id, title, fileName, " +
+                "(SELECT name FROM artists WHERE id = artistId), " +
+                "(SELECT name FROM albums WHERE id = albumId) " +
+                "FROM compositions");
+        db.execSQL("INSERT INTO folders_search(rowid, name) SELECT id, name FROM folders");
+        //merge index segments after bulk insert
+        db.execSQL("INSERT INTO compositions_search(compositions_search) VALUES('optimize')");
+        db.execSQL("INSERT INTO folders_search(folders_search) VALUES('optimize')");
+    }
+}
@@ -105,8 +105,13 @@ public interface AlbumsDao {
         return "SELECT " +
                 CompositionsDao.getCompositionSelectionQuery(useFileName) +
                 "FROM compositions " +
-                "WHERE albumId = ? " +
-                "ORDER BY fileName";
+                "WHERE " + getCompositionsCondition() + " " +
+                "ORDER BY fileName, id";
+    }
+
+    //compositions of album in order by file name
+    static String getCompositionsCondition() {
+        return "albumId = ?";
     }
 
 }
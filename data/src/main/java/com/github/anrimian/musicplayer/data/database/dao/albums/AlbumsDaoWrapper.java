@@ -1,7 +1,9 @@
 package com.github.anrimian.musicplayer.data.database.dao.albums;
 
+import static com.github.anrimian.musicplayer.data.database.utils.DatabaseUtils.getLimitQuery;
 import static com.github.anrimian.musicplayer.data.database.utils.DatabaseUtils.getSearchArgs;
 
+import androidx.room.rxjava3.RxRoom;
 import androidx.sqlite.db.SimpleSQLiteQuery;
 
 import com.github.anrimian.musicplayer.data.database.AppDatabase;
@@ -29,17 +31,24 @@ public class AlbumsDaoWrapper {
     }
 
     public Observable<List<Album>> getAllObservable(Order order, String searchText) {
-        String query = "SELECT id as id," +
-                "name as name, " +
-                "(SELECT name FROM artists WHERE artists.id = albums.artistId) as artist, " +
-                "(SELECT count() FROM compositions WHERE albumId = albums.id) as compositionsCount " +
-                "FROM albums";
-        query += getSearchQuery();
-        query += getOrderQuery(order);
+        String query = getAllQuery(order);
         SimpleSQLiteQuery sqlQuery = new SimpleSQLiteQuery(query, getSearchArgs(searchText, 3));
         return albumsDao.getAllObservable(sqlQuery);
     }
 
+    /**
+     * Emits on each change of tables which are used in albums query, without query of albums.
+     */
+    public Observable<Object> getChangesObservable() {
+        return RxRoom.createObservable(appDatabase, "albums", "artists", "compositions").skip(1);
+    }
+
+    public Observable<List<Album>> getPageObservable(Order order, int offset, int limit) {
+        String query = getAllQuery(order) + getLimitQuery(offset, limit);
+        SimpleSQLiteQuery sqlQuery = new SimpleSQLiteQuery(query, getSearchArgs(null, 3));
+        return albumsDao.getAllObservable(sqlQuery);
+    }
+
     public Observable<List<Album>> getAllAlbumsForArtistObservable(long artistId) {
         return albumsDao.getAllAlbumsForArtistObservable(artistId);
     }
@@ -94,6 +103,17 @@ public class AlbumsDaoWrapper {
         return albumsDao.isAlbumExists(name);
     }
 
+    private String getAllQuery(Order order) {
+        String query = "SELECT id as id," +
+                "name as name, " +
+                "(SELECT name FROM artists WHERE artists.id = albums.artistId) as artist, " +
+                "(SELECT count() FROM compositions WHERE albumId = albums.id) as compositionsCount " +
+                "FROM albums";
+        query += getSearchQuery();
+        query += getOrderQuery(order);
+        return query;
+    }
+
     private String getOrderQuery(Order order) {
         StringBuilder orderQuery = new StringBuilder(" ORDER BY ");
         switch (order.getOrderType()) {
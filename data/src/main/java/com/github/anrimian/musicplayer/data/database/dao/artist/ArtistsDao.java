@@ -73,6 +73,12 @@ public interface ArtistsDao {
         return "SELECT " +
                 CompositionsDao.getCompositionSelectionQuery(useFileName) +
                 "FROM compositions " +
-                "WHERE artistId = ?";
+                "WHERE " + getCompositionsCondition() + " " +
+                "ORDER BY id";
+    }
+
+    //compositions of artist in order by id
+    static String getCompositionsCondition() {
+        return "artistId = ?";
     }
 }
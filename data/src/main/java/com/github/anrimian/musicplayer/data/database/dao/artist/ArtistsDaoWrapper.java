@@ -1,9 +1,12 @@
 package com.github.anrimian.musicplayer.data.database.dao.artist;
 
+import static com.github.anrimian.musicplayer.data.database.utils.DatabaseUtils.getLimitQuery;
 import static com.github.anrimian.musicplayer.data.database.utils.DatabaseUtils.getSearchArgs;
 
+import androidx.room.rxjava3.RxRoom;
 import androidx.sqlite.db.SimpleSQLiteQuery;
 
+import com.github.anrimian.musicplayer.data.database.AppDatabase;
 import com.github.anrimian.musicplayer.data.models.composition.CompositionId;
 import com.github.anrimian.musicplayer.domain.models.artist.Artist;
 import com.github.anrimian.musicplayer.domain.models.composition.Composition;
@@ -15,24 +18,33 @@ import io.reactivex.rxjava3.core.Observable;
 
 public class ArtistsDaoWrapper {
 
+    private final AppDatabase appDatabase;
     private final ArtistsDao artistsDao;
 
-    public ArtistsDaoWrapper(ArtistsDao artistsDao) {
+    public ArtistsDaoWrapper(AppDatabase appDatabase, ArtistsDao artistsDao) {
+        this.appDatabase = appDatabase;
         this.artistsDao = artistsDao;
     }
 
     public Observable<List<Artist>> getAllObservable(Order order, String searchText) {
-        String query = "SELECT id as id," +
-                "name as name, " +
-                "(SELECT count() FROM compositions WHERE artistId = artists.id) as compositionsCount, " +
-                "(SELECT count() FROM albums WHERE artistId = artists.id) as albumsCount " +
-                "FROM artists";
-        query += getSearchQuery();
-        query += getOrderQuery(order);
+        String query = getAllQuery(order);
         SimpleSQLiteQuery sqlQuery = new SimpleSQLiteQuery(query, getSearchArgs(searchText, 2));
         return artistsDao.getAllObservable(sqlQuery);
     }
 
+    /**
+     * Emits on each change of tables which are used in artists query, without query of artists.
+     */
+    public Observable<Object> getChangesObservable() {
+        return RxRoom.createObservable(appDatabase, "artists", "albums", "compositions").skip(1);
+    }
+
+    public Observable<List<Artist>> getPageObservable(Order order, int offset, int limit) {
+        String query = getAllQuery(order) + getLimitQuery(offset, limit);
+        SimpleSQLiteQuery sqlQuery = new SimpleSQLiteQuery(query, getSearchArgs(null, 2));
+        return artistsDao.getAllObservable(sqlQuery);
+    }
+
     public Observable<List<Composition>> getCompositionsByArtistObservable(long artistId, boolean useFileName) {
         String query = ArtistsDao.getCompositionsQuery(useFileName);
         SimpleSQLiteQuery sqlQuery = new SimpleSQLiteQuery(query, new Object[] {artistId} );
@@ -61,6 +73,17 @@ public class ArtistsDaoWrapper {
         return artistsDao.isArtistExists(name);
     }
 
+    private String getAllQuery(Order order) {
+        String query = "SELECT id as id," +
+                "name as name, " +
+                "(SELECT count() FROM compositions WHERE artistId = artists.id) as compositionsCount, " +
+                "(SELECT count() FROM albums WHERE artistId = artists.id) as albumsCount " +
+                "FROM artists";
+        query += getSearchQuery();
+        query += getOrderQuery(order);
+        return query;
+    }
+
     private String getOrderQuery(Order order) {
         StringBuilder orderQuery = new StringBuilder(" ORDER BY ");
         switch (order.getOrderType()) {
@@ -7,9 +7,11 @@ import androidx.room.RawQuery;
 import androidx.sqlite.db.SimpleSQLiteQuery;
 import androidx.sqlite.db.SupportSQLiteQuery;
 
+import com.github.anrimian.musicplayer.data.database.entities.IdPair;
 import com.github.anrimian.musicplayer.data.database.entities.albums.AlbumEntity;
 import com.github.anrimian.musicplayer.data.database.entities.artist.ArtistEntity;
 import com.github.anrimian.musicplayer.data.database.entities.composition.CompositionEntity;
+import com.github.anrimian.musicplayer.data.models.composition.CompositionLoudness;
 import com.github.anrimian.musicplayer.data.storage.providers.music.StorageComposition;
 import com.github.anrimian.musicplayer.domain.models.composition.Composition;
 import com.github.anrimian.musicplayer.domain.models.composition.CorruptionType;
@@ -18,8 +20,8 @@ import com.github.anrimian.musicplayer.domain.models.composition.FullComposition
 import java.util.Date;
 import java.util.List;
 
-import io.reactivex.rxjava3.core.Maybe;
 import io.reactivex.rxjava3.core.Observable;
+import io.reactivex.rxjava3.core.Single;
 
 @Dao
 public interface CompositionsDao {
@@ -49,6 +51,12 @@ public interface CompositionsDao {
     @RawQuery(observedEntities = { CompositionEntity.class, ArtistEntity.class, AlbumEntity.class })
     Observable<List<Composition>> getAllInFolderObservable(SupportSQLiteQuery query);
 
+    @RawQuery(observedEntities = { CompositionEntity.class, ArtistEntity.class, AlbumEntity.class })
+    Observable<Integer> getCountObservable(SupportSQLiteQuery query);
+
+    @Query("SELECT EXISTS(SELECT 1 FROM compositions WHERE id = :id)")
+    boolean isCompositionExists(long id);
+
     @RawQuery
     List<Composition> executeQuery(SimpleSQLiteQuery sqlQuery);
 
@@ -70,11 +78,32 @@ public interface CompositionsDao {
             "FROM compositions WHERE storageId NOTNULL")
     List<StorageComposition> selectAllAsStorageCompositions();
 
+    @Query("SELECT " +
+            "(SELECT name FROM artists WHERE id = artistId) as artist, " +
+            "title as title, " +
+            "(SELECT name FROM albums WHERE id = albumId) as album, " +
+            "(SELECT name FROM artists WHERE id = (SELECT artistId FROM albums WHERE id = albumId)) as albumArtist, " +
+            "compositions.fileName as fileName, " +
+            "compositions.filePath as filePath, " +
+            "compositions.duration as duration, " +
+            "compositions.size as size, " +
+            "compositions.id as id, " +
+            "compositions.storageId as storageId, " +
+            "compositions.folderId as folderId, " +
+            "compositions.dateAdded as dateAdded, " +
+            "compositions.dateModified as dateModified, " +
+            "compositions.lastScanDate as lastScanDate " +
+            "FROM compositions WHERE storageId IN (:storageIds)")
+    List<StorageComposition> selectAsStorageCompositions(List<Long> storageIds);
+
+    @Query("SELECT storageId FROM compositions WHERE storageId NOTNULL")
+    List<Long> selectAllStorageIds();
+
     @Insert
     long insert(CompositionEntity entity);
 
     @Insert
-    void insert(List<CompositionEntity> entities);
+    List<Long> insert(List<CompositionEntity> entities);
 
     @Query("UPDATE compositions SET " +
             "title = :title, " +
@@ -121,9 +150,15 @@ public interface CompositionsDao {
     @Query("UPDATE compositions SET folderId = :folderId WHERE id = :id")
     void updateFolderId(long id, Long folderId);
 
+    @Query("UPDATE compositions SET folderId = :folderId WHERE id IN (:ids)")
+    void updateFolderId(List<Long> ids, Long folderId);
+
     @Query("SELECT id FROM compositions WHERE storageId = :storageId")
     long selectIdByStorageId(long storageId);
 
+    @Query("SELECT id as dbId, storageId as storageId FROM compositions WHERE storageId IN (:storageIds)")
+    List<IdPair> selectIdsByStorageIds(List<Long> storageIds);
+
     @Query("SELECT storageId FROM compositions WHERE id = :id")
     Long getStorageId(long id);
 
@@ -165,8 +200,12 @@ public interface CompositionsDao {
             "FROM compositions " +
             "WHERE lastScanDate < dateModified OR lastScanDate < :lastCompleteScanTime " +
             "ORDER BY dateModified DESC " +
-            "LIMIT 1")
-    Maybe<FullComposition> selectNextCompositionToScan(long lastCompleteScanTime);
+            "LIMIT :count")
+    Single<List<FullComposition>> selectNextCompositionsToScan(long lastCompleteScanTime, int count);
+
+    @Query("SELECT count() FROM compositions " +
+            "WHERE lastScanDate < dateModified OR lastScanDate < :lastCompleteScanTime")
+    int getCompositionsToScanCount(long lastCompleteScanTime);
 
     @Query("UPDATE compositions SET lastScanDate = :time WHERE id = :id")
     void setCompositionLastFileScanTime(long id, Date time);
@@ -174,6 +213,24 @@ public interface CompositionsDao {
     @Query("UPDATE compositions SET lastScanDate = 0")
     void cleanLastFileScanTime();
 
+    @Query("UPDATE compositions " +
+            "SET trackGain = :trackGain, trackPeak = :trackPeak, loudnessScanDate = :time " +
+            "WHERE id = :id")
+    void setTrackLoudness(long id, Float trackGain, Float trackPeak, Date time);
+
+    @Query("UPDATE compositions SET loudnessScanDate = :time WHERE id = :id")
+    void setLoudnessScanDate(long id, Date time);
+
+    @Query("SELECT trackGain, trackPeak FROM compositions WHERE id = :id")
+    CompositionLoudness selectTrackLoudness(long id);
+
+    //wait until tags are read, file can already have gain values
+    @Query("SELECT id FROM compositions " +
+            "WHERE trackGain IS NULL AND loudnessScanDate IS NULL AND lastScanDate >= dateModified " +
+            "ORDER BY dateAdded DESC " +
+            "LIMIT :count")
+    List<Long> selectNextCompositionsToAnalyzeLoudness(int count);
+
     static StringBuilder getCompositionQuery(boolean useFileName) {
         return new StringBuilder("SELECT " +
                 CompositionsDao.getCompositionSelectionQuery(useFileName) +
@@ -1,10 +1,14 @@
 package com.github.anrimian.musicplayer.data.database.dao.compositions;
 
-import static com.github.anrimian.musicplayer.data.database.utils.DatabaseUtils.getSearchArgs;
+import static com.github.anrimian.musicplayer.data.database.utils.DatabaseUtils.MAX_VARIABLES_COUNT;
+import static com.github.anrimian.musicplayer.data.database.utils.DatabaseUtils.getFtsMatchTerms;
+import static com.github.anrimian.musicplayer.data.database.utils.DatabaseUtils.getLikePrefixArg;
+import static com.github.anrimian.musicplayer.data.database.utils.DatabaseUtils.getLimitQuery;
 import static com.github.anrimian.musicplayer.domain.Constants.TRIGGER;
 import static com.github.anrimian.musicplayer.domain.utils.TextUtils.isEmpty;
 
 import androidx.collection.LongSparseArray;
+import androidx.room.rxjava3.RxRoom;
 import androidx.sqlite.db.SimpleSQLiteQuery;
 
 import com.github.anrimian.musicplayer.data.database.AppDatabase;
@@ -13,7 +17,10 @@ import com.github.anrimian.musicplayer.data.database.dao.artist.ArtistsDao;
 import com.github.anrimian.musicplayer.data.database.dao.folders.FoldersDao;
 import com.github.anrimian.musicplayer.data.database.entities.albums.AlbumEntity;
 import com.github.anrimian.musicplayer.data.database.entities.artist.ArtistEntity;
+import com.github.anrimian.musicplayer.data.database.entities.folder.FolderAggregateEntity;
+import com.github.anrimian.musicplayer.data.models.composition.CompositionLoudness;
 import com.github.anrimian.musicplayer.data.models.exceptions.CompositionNotFoundException;
+import com.github.anrimian.musicplayer.data.repositories.scanner.files.FileScanResult;
 import com.github.anrimian.musicplayer.data.storage.providers.music.FilePathComposition;
 import com.github.anrimian.musicplayer.data.storage.providers.music.StorageComposition;
 import com.github.anrimian.musicplayer.data.utils.collections.AndroidCollectionUtils;
@@ -22,15 +29,20 @@ import com.github.anrimian.musicplayer.domain.models.composition.CorruptionType;
 import com.github.anrimian.musicplayer.domain.models.composition.FullComposition;
 import com.github.anrimian.musicplayer.domain.models.composition.source.CompositionSourceTags;
 import com.github.anrimian.musicplayer.domain.models.order.Order;
+import com.github.anrimian.musicplayer.domain.utils.ListUtils;
 import com.github.anrimian.musicplayer.domain.utils.Objects;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 import javax.annotation.Nullable;
 
-import io.reactivex.rxjava3.core.Maybe;
 import io.reactivex.rxjava3.core.Observable;
+import io.reactivex.rxjava3.core.Single;
 import io.reactivex.rxjava3.subjects.BehaviorSubject;
 
 public class CompositionsDaoWrapper {
@@ -39,17 +51,20 @@ public class CompositionsDaoWrapper {
     private final CompositionsDao compositionsDao;
     private final ArtistsDao artistsDao;
     private final AlbumsDao albumsDao;
+    private final FoldersDao foldersDao;
 
     private final BehaviorSubject<Object> updateSubject = BehaviorSubject.createDefault(TRIGGER);
 
     public CompositionsDaoWrapper(AppDatabase appDatabase,
                                   ArtistsDao artistsDao,
                                   CompositionsDao compositionsDao,
-                                  AlbumsDao albumsDao) {
+                                  AlbumsDao albumsDao,
+                                  FoldersDao foldersDao) {
         this.appDatabase = appDatabase;
         this.artistsDao = artistsDao;
         this.compositionsDao = compositionsDao;
         this.albumsDao = albumsDao;
+        this.foldersDao = foldersDao;
     }
 
     public Observable<FullComposition> getCompositionObservable(long id) {
@@ -61,13 +76,182 @@ public class CompositionsDaoWrapper {
     public Observable<List<Composition>> getAllObservable(Order order,
                                                           boolean useFileName,
                                                           @Nullable String searchText) {
+        List<Object> args = new ArrayList<>();
         StringBuilder query = CompositionsDao.getCompositionQuery(useFileName);
-        query.append(getSearchQuery(useFileName));
+        query.append(getSearchQuery(searchText, useFileName, args));
         query.append(getOrderQuery(order));
-        SimpleSQLiteQuery sqlQuery = new SimpleSQLiteQuery(query.toString(), getSearchArgs(searchText, 3));
+        SimpleSQLiteQuery sqlQuery = new SimpleSQLiteQuery(query.toString(), args.toArray());
         return updateSubject.switchMap(o -> compositionsDao.getAllObservable(sqlQuery));
     }
 
+    public Observable<List<Composition>> getPageObservable(Order order,
+                                                           boolean useFileName,
+                                                           int offset,
+                                                           int limit) {
+        StringBuilder query = CompositionsDao.getCompositionQuery(useFileName);
+        query.append(getOrderQuery(order));
+        query.append(getLimitQuery(offset, limit));
+        SimpleSQLiteQuery sqlQuery = new SimpleSQLiteQuery(query.toString());
+        return updateSubject.switchMap(o -> compositionsDao.getAllObservable(sqlQuery));
+    }
+
+    /**
+     * Emits on each change of compositions table and of tables which are used in composition
+     * query, without query of compositions.
+     */
+    public Observable<Object> getChangesObservable() {
+        return Observable.merge(
+                RxRoom.createObservable(appDatabase, "compositions", "artists", "albums").skip(1),
+                updateSubject.skip(1)
+        );
+    }
+
+    public Observable<Integer> getCountObservable(@Nullable String searchText, boolean useFileName) {
+        List<Object> args = new ArrayList<>();
+        String query = "SELECT COUNT(*) FROM compositions" + getSearchQuery(searchText, useFileName, args);
+        SimpleSQLiteQuery sqlQuery = new SimpleSQLiteQuery(query, args.toArray());
+        return updateSubject.switchMap(o -> compositionsDao.getCountObservable(sqlQuery));
+    }
+
+    /**
+     * @param condition selection of compositions with one argument, e.g. "albumId = ?"
+     */
+    public Observable<Integer> getCountObservable(String condition, long conditionArg) {
+        String query = "SELECT COUNT(*) FROM compositions WHERE " + condition;
+        SimpleSQLiteQuery sqlQuery = new SimpleSQLiteQuery(query, new Object[] { conditionArg });
+        return updateSubject.switchMap(o -> compositionsDao.getCountObservable(sqlQuery));
+    }
+
+    public List<Composition> getPage(Order order,
+                                     boolean useFileName,
+                                     @Nullable String searchText,
+                                     int offset,
+                                     int limit) {
+        List<Object> args = new ArrayList<>();
+        String whereQuery = getSearchQuery(searchText, useFileName, args);
+        return getPage(whereQuery, args, order, useFileName, offset, limit);
+    }
+
+    /**
+     * @param condition selection of compositions with one argument, e.g. "albumId = ?"
+     * @param order null means order by id
+     */
+    public List<Composition> getPage(String condition,
+                                     long conditionArg,
+                                     @Nullable Order order,
+                                     boolean useFileName,
+                                     int offset,
+                                     int limit) {
+        List<Object> args = new ArrayList<>();
+        args.add(conditionArg);
+        return getPage(" WHERE (" + condition + ")", args, order, useFileName, offset, limit);
+    }
+
+    /**
+     * Keyset page: compositions which follow given composition in given order, ties are ordered
+     * by id. Position of page in list doesn't affect the cost of query, unlike offset.
+     *
+     * @return null if composition with given id doesn't exist
+     */
+    @Nullable
+    public List<Composition> getPageAfter(Order order,
+                                          boolean useFileName,
+                                          @Nullable String searchText,
+                                          long compositionId,
+                                          int limit) {
+        List<Object> args = new ArrayList<>();
+        String whereQuery = getSearchQuery(searchText, useFileName, args);
+        return getPageAfter(whereQuery, args, order, useFileName, compositionId, limit);
+    }
+
+    /**
+     * @param condition selection of compositions with one argument, e.g. "albumId = ?"
+     * @param order null means order by id
+     * @return null if composition with given id doesn't exist
+     */
+    @Nullable
+    public List<Composition> getPageAfter(String condition,
+                                          long conditionArg,
+                                          @Nullable Order order,
+                                          boolean useFileName,
+                                          long compositionId,
+                                          int limit) {
+        List<Object> args = new ArrayList<>();
+        args.add(conditionArg);
+        return getPageAfter(" WHERE (" + condition + ")", args, order, useFileName, compositionId, limit);
+    }
+
+    private List<Composition> getPage(String whereQuery,
+                                      List<Object> args,
+                                      @Nullable Order order,
+                                      boolean useFileName,
+                                      int offset,
+                                      int limit) {
+        StringBuilder query = CompositionsDao.getCompositionQuery(useFileName);
+        query.append(whereQuery);
+        query.append(getOrderQuery(order));
+        query.append(getLimitQuery(offset, limit));
+        SimpleSQLiteQuery sqlQuery = new SimpleSQLiteQuery(query.toString(), args.toArray());
+        return compositionsDao.executeQuery(sqlQuery);
+    }
+
+    @Nullable
+    private List<Composition> getPageAfter(String whereQuery,
+                                           List<Object> args,
+                                           @Nullable Order order,
+                                           boolean useFileName,
+                                           long compositionId,
+                                           int limit) {
+        StringBuilder query = CompositionsDao.getCompositionQuery(useFileName);
+        query.append(whereQuery);
+        if (order == null) {
+            query.append(" AND compositions.id > ?");
+        } else {
+            String orderColumn = getOrderColumn(order, "compositions");
+            String anchorColumn = "(SELECT " + getOrderColumn(order, "anchor")
+                    + " FROM compositions AS anchor WHERE anchor.id = ?)";
+            String operator = order.isReversed()? " < " : " > ";
+            query.append(" AND (");
+            query.append(orderColumn).append(operator).append(anchorColumn);
+            query.append(" OR (");
+            query.append(orderColumn).append(" = ").append(anchorColumn);
+            query.append(" AND compositions.id").append(operator).append("?))");
+            args.add(compositionId);
+            args.add(compositionId);
+        }
+        query.append(getOrderQuery(order));
+        query.append(" LIMIT ").append(limit);
+        args.add(compositionId);
+        SimpleSQLiteQuery sqlQuery = new SimpleSQLiteQuery(query.toString(), args.toArray());
+
+        return appDatabase.runInTransaction(() -> {
+            if (!compositionsDao.isCompositionExists(compositionId)) {
+                return null;
+            }
+            return compositionsDao.executeQuery(sqlQuery);
+        });
+    }
+
+    /**
+     * @return compositions found by words prefixes, ordered by relevance: displayed name match
+     * first, then artist and album matches, then other matches (e.g. words from different fields)
+     */
+    public List<Composition> searchCompositions(@Nullable String searchText, boolean useFileName) {
+        List<Object> args = new ArrayList<>();
+        StringBuilder query = CompositionsDao.getCompositionQuery(useFileName);
+        query.append(getSearchQuery(searchText, useFileName, args));
+        query.append(" ORDER BY CASE ");
+        query.append("WHEN title LIKE ? ESCAPE '\\' THEN 0 ");
+        query.append("WHEN artist LIKE ? ESCAPE '\\' OR album LIKE ? ESCAPE '\\' THEN 1 ");
+        query.append("ELSE 2 END, title");
+        String likeArg = getLikePrefixArg(searchText);
+        args.add(likeArg);
+        args.add(likeArg);
+        args.add(likeArg);
+        SimpleSQLiteQuery sqlQuery = new SimpleSQLiteQuery(query.toString(), args.toArray());
+        return compositionsDao.executeQuery(sqlQuery);
+    }
+
     public void launchManualUpdate() {
         updateSubject.onNext(TRIGGER);
     }
@@ -76,16 +260,17 @@ public class CompositionsDaoWrapper {
                                                                            Order order,
                                                                            boolean useFileName,
                                                                            @Nullable String searchText) {
+        List<Object> args = new ArrayList<>();
         StringBuilder query = CompositionsDao.getCompositionQuery(useFileName);
-        query.append(getSearchQuery(useFileName));
+        query.append(getSearchQuery(searchText, useFileName, args));
         query.append(" AND ");
-        query.append("folderId = ");
+        query.append("(folderId = ");
         query.append(folderId);
         query.append(" OR (folderId IS NULL AND ");
         query.append(folderId);
-        query.append(" IS NULL)");
+        query.append(" IS NULL))");
         query.append(getOrderQuery(order));
-        SimpleSQLiteQuery sqlQuery = new SimpleSQLiteQuery(query.toString(), getSearchArgs(searchText, 3));
+        SimpleSQLiteQuery sqlQuery = new SimpleSQLiteQuery(query.toString(), args.toArray());
         return compositionsDao.getAllInFolderObservable(sqlQuery);
     }
 
@@ -116,6 +301,20 @@ public class CompositionsDaoWrapper {
                 StorageComposition::getStorageId);
     }
 
+    public LongSparseArray<StorageComposition> selectAsStorageCompositions(Collection<Long> storageIds) {
+        LongSparseArray<StorageComposition> result = new LongSparseArray<>(storageIds.size());
+        for (List<Long> chunk: ListUtils.chunked(storageIds, MAX_VARIABLES_COUNT)) {
+            for (StorageComposition composition: compositionsDao.selectAsStorageCompositions(chunk)) {
+                result.put(composition.getStorageId(), composition);
+            }
+        }
+        return result;
+    }
+
+    public List<Long> selectAllStorageIds() {
+        return compositionsDao.selectAllStorageIds();
+    }
+
     public long getStorageId(long compositionId) {
         Long storageId = compositionsDao.getStorageId(compositionId);
         if (storageId == null) {
@@ -125,15 +324,20 @@ public class CompositionsDaoWrapper {
     }
 
     public void delete(long id) {
-        compositionsDao.delete(id);
+        runWithFolderAggregatesUpdate(Collections.singletonList(id),
+                () -> compositionsDao.delete(id));
     }
 
     public void deleteAll(List<Long> ids) {
-        compositionsDao.delete(ids);
+        runWithFolderAggregatesUpdate(ids, () -> compositionsDao.delete(ids));
     }
 
-    public void updateFolderId(long id, Long folderId) {
-        compositionsDao.updateFolderId(id, folderId);
+    public void updateFolderId(List<Long> ids, Long folderId) {
+        runWithFolderAggregatesUpdate(ids, () -> {
+            for (List<Long> chunk: ListUtils.chunked(ids, MAX_VARIABLES_COUNT)) {
+                compositionsDao.updateFolderId(chunk, folderId);
+            }
+        });
     }
 
     public void updateFilePath(long id, String filePath) {
@@ -268,7 +472,8 @@ public class CompositionsDaoWrapper {
     }
 
     public void updateModifyTimeAndSize(long id, long size, Date date) {
-        compositionsDao.setModifyTimeAndSize(id, size, date);
+        runWithFolderAggregatesUpdate(Collections.singletonList(id),
+                () -> compositionsDao.setModifyTimeAndSize(id, size, date));
     }
 
     public void updateCompositionFileName(long id, String fileName) {
@@ -279,8 +484,26 @@ public class CompositionsDaoWrapper {
         compositionsDao.setCorruptionType(corruptionType, id);
     }
 
-    public Maybe<FullComposition> selectNextCompositionToScan(long lastCompleteScanTime) {
-        return compositionsDao.selectNextCompositionToScan(lastCompleteScanTime);
+    public Single<List<FullComposition>> selectNextCompositionsToScan(long lastCompleteScanTime,
+                                                                      int count) {
+        return compositionsDao.selectNextCompositionsToScan(lastCompleteScanTime, count);
+    }
+
+    public int getCompositionsToScanCount(long lastCompleteScanTime) {
+        return compositionsDao.getCompositionsToScanCount(lastCompleteScanTime);
+    }
+
+    public void applyFileScanResults(List<FileScanResult> results, Date scanTime) {
+        appDatabase.runInTransaction(() -> {
+            for (FileScanResult result: results) {
+                FullComposition composition = result.getComposition();
+                CompositionSourceTags tags = result.getTags();
+                if (tags != null) {
+                    updateCompositionBySourceTags(composition, tags);
+                }
+                compositionsDao.setCompositionLastFileScanTime(composition.getId(), scanTime);
+            }
+        });
     }
 
     public void setCompositionLastFileScanTime(FullComposition composition, Date time) {
@@ -291,6 +514,22 @@ public class CompositionsDaoWrapper {
         compositionsDao.cleanLastFileScanTime();
     }
 
+    public List<Long> selectNextCompositionsToAnalyzeLoudness(int count) {
+        return compositionsDao.selectNextCompositionsToAnalyzeLoudness(count);
+    }
+
+    public void setTrackLoudness(long id, @Nullable Float trackGain, @Nullable Float trackPeak) {
+        compositionsDao.setTrackLoudness(id, trackGain, trackPeak, new Date());
+    }
+
+    public void setLoudnessScanDate(long id, Date time) {
+        compositionsDao.setLoudnessScanDate(id, time);
+    }
+
+    public CompositionLoudness selectTrackLoudness(long id) {
+        return compositionsDao.selectTrackLoudness(id);
+    }
+
     public void updateCompositionBySourceTags(FullComposition composition, CompositionSourceTags tags) {
         appDatabase.runInTransaction(() -> {
             long id = composition.getId();
@@ -319,44 +558,89 @@ public class CompositionsDaoWrapper {
             if (!isEmpty(tagLyrics) && !Objects.equals(composition.getLyrics(), tagLyrics)) {
                 updateLyrics(id, tagLyrics);
             }
+
+            //gain from tags replaces analyzed one
+            Float trackGain = tags.getTrackGain();
+            if (trackGain != null) {
+                setTrackLoudness(id, trackGain, tags.getTrackPeak());
+            }
+        });
+    }
+
+    //folder aggregates are adjusted by totals of changed compositions before and after change
+    private void runWithFolderAggregatesUpdate(List<Long> compositionIds, Runnable change) {
+        appDatabase.runInTransaction(() -> {
+            Map<Long, FolderAggregateEntity> oldAggregates =
+                    foldersDao.selectCompositionsAggregates(compositionIds);
+            change.run();
+            foldersDao.applyAggregatesDelta(oldAggregates,
+                    foldersDao.selectCompositionsAggregates(compositionIds));
         });
     }
 
-    private String getOrderQuery(Order order) {
-        StringBuilder orderQuery = new StringBuilder(" ORDER BY ");
+    //ties are ordered by id, so order is the same for full list, offset and keyset pages
+    private String getOrderQuery(@Nullable Order order) {
+        if (order == null) {
+            return " ORDER BY compositions.id";
+        }
+        String direction = order.isReversed()? " DESC" : " ASC";
+        return " ORDER BY " + getOrderColumn(order, "compositions") + direction
+                + ", compositions.id" + direction;
+    }
+
+    private String getOrderColumn(Order order, String table) {
         switch (order.getOrderType()) {
             case NAME: {
-                orderQuery.append("CASE WHEN title IS NULL OR title = '' THEN fileName ELSE title END");
-                break;
-            }
-            case FILE_NAME: {
-                orderQuery.append("fileName");
-                break;
-            }
-            case ADD_TIME: {
-                orderQuery.append("dateAdded");
-                break;
-            }
-            case SIZE: {
-                orderQuery.append("size");
-                break;
-            }
-            case DURATION: {
-                orderQuery.append("duration");
-                break;
+                return "CASE WHEN " + table + ".title IS NULL OR " + table + ".title = '' "
+                        + "THEN " + table + ".fileName ELSE " + table + ".title END";
             }
+            case FILE_NAME: return table + ".fileName";
+            case ADD_TIME: return table + ".dateAdded";
+            case SIZE: return table + ".size";
+            case DURATION: return table + ".duration";
             default: throw new IllegalStateException("unknown order type" + order);
         }
-        orderQuery.append(" ");
-        orderQuery.append(order.isReversed()? "DESC" : "ASC");
-        return orderQuery.toString();
     }
 
-    private StringBuilder getSearchQuery(boolean useFileName) {
-        StringBuilder sb = new StringBuilder(" WHERE (? IS NULL OR ");
-        sb.append(useFileName? "fileName": "CASE WHEN title IS NULL OR title = '' THEN fileName ELSE title END");
-        sb.append(" LIKE ? OR (artist NOTNULL AND artist LIKE ?))");
-        return sb;
+    /**
+     * Every word must match by prefix the displayed name, artist or album of composition.
+     * File name is displayed instead of empty title, so it is searched in this case too.
+     *
+     * @param args receives query arguments
+     */
+    private String getSearchQuery(@Nullable String searchText,
+                                  boolean useFileName,
+                                  List<Object> args) {
+        List<String> terms = getFtsMatchTerms(searchText);
+        if (terms == null) {
+            return " WHERE 1";
+        }
+        if (terms.isEmpty()) {
+            return " WHERE 0";
+        }
+        StringBuilder query = new StringBuilder(" WHERE ");
+        for (int i = 0; i < terms.size(); i++) {
+            String term = terms.get(i);
+            if (i != 0) {
+                query.append(" AND ");
+            }
+            query.append("compositions.id IN (");
+            if (useFileName) {
+                query.append("SELECT rowid FROM compositions_search WHERE fileName MATCH ?");
+                args.add(term);
+            } else {
+                query.append("SELECT rowid FROM compositions_search WHERE title MATCH ?");
+                query.append(" UNION SELECT rowid FROM compositions_search WHERE fileName MATCH ?");
+                query.append(" AND (title IS NULL OR title = '')");
+                args.add(term);
+                args.add(term);
+            }
+            query.append(" UNION SELECT rowid FROM compositions_search WHERE artist MATCH ?");
+            query.append(" UNION SELECT rowid FROM compositions_search WHERE album MATCH ?)");
+            args.add(term);
+            args.add(term);
+        }
+        return query.toString();
     }
 
 }
@@ -5,6 +5,7 @@ import static com.github.anrimian.musicplayer.domain.utils.ListUtils.mapList;
 import android.database.sqlite.SQLiteException;
 
 import androidx.collection.LongSparseArray;
+import androidx.sqlite.db.SupportSQLiteStatement;
 
 import com.github.anrimian.musicplayer.data.database.AppDatabase;
 import com.github.anrimian.musicplayer.data.database.dao.albums.AlbumsDao;
@@ -13,8 +14,10 @@ import com.github.anrimian.musicplayer.data.database.dao.folders.FoldersDao;
 import com.github.anrimian.musicplayer.data.database.entities.albums.AlbumEntity;
 import com.github.anrimian.musicplayer.data.database.entities.artist.ArtistEntity;
 import com.github.anrimian.musicplayer.data.database.entities.composition.CompositionEntity;
+import com.github.anrimian.musicplayer.data.database.entities.folder.FolderAggregateEntity;
 import com.github.anrimian.musicplayer.data.database.entities.folder.FolderEntity;
 import com.github.anrimian.musicplayer.data.database.mappers.CompositionMapper;
+import com.github.anrimian.musicplayer.data.database.utils.DatabaseUtils;
 import com.github.anrimian.musicplayer.data.models.changes.Change;
 import com.github.anrimian.musicplayer.data.repositories.scanner.FolderMerger;
 import com.github.anrimian.musicplayer.data.repositories.scanner.folders.FolderNode;
@@ -22,14 +25,37 @@ import com.github.anrimian.musicplayer.data.repositories.scanner.nodes.AddedNode
 import com.github.anrimian.musicplayer.data.storage.providers.albums.StorageAlbum;
 import com.github.anrimian.musicplayer.data.storage.providers.music.StorageComposition;
 import com.github.anrimian.musicplayer.data.storage.providers.music.StorageFullComposition;
+import com.github.anrimian.musicplayer.domain.utils.ListUtils;
 import com.github.anrimian.musicplayer.domain.utils.Objects;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.Nullable;
 
 public class StorageCompositionsInserter {
 
+    //artist, album and folder are replaced only when flag before them is set
+    private static final String UPDATE_COMPOSITION_QUERY = "UPDATE compositions SET " +
+            "title = ?, " +
+            "fileName = ?, " +
+            "filePath = ?, " +
+            "duration = ?, " +
+            "size = ?, " +
+            "dateAdded = ?, " +
+            "dateModified = ?, " +
+            "artistId = CASE WHEN ? THEN ? ELSE artistId END, " +
+            "albumId = CASE WHEN ? THEN ? ELSE albumId END, " +
+            "folderId = CASE WHEN ? THEN ? ELSE folderId END " +
+            "WHERE id = ?";
+
     private final AppDatabase appDatabase;
     private final CompositionsDao compositionsDao;
     private final CompositionsDaoWrapper compositionsDaoWrapper;
@@ -61,11 +87,26 @@ public class StorageCompositionsInserter {
 
         appDatabase.runInTransaction(() -> {
             addedFilesFolderMap.putAll(insertFolders(foldersToInsert));
-            applyCompositionChanges(addedCompositions,
+            //totals of deleted and changed compositions are taken before any change
+            List<Long> changedIds = mapList(changedCompositions, change -> change.getOld().getId());
+            List<Long> oldIds = new ArrayList<>(changedIds);
+            oldIds.addAll(mapList(deletedCompositions, StorageComposition::getId));
+            Map<Long, FolderAggregateEntity> oldAggregates =
+                    foldersDao.selectCompositionsAggregates(oldIds);
+
+            List<Long> addedIds = applyCompositionChanges(addedCompositions,
                     deletedCompositions,
                     changedCompositions,
                     addedFilesFolderMap);
             deleteFolders(foldersToDelete);
+
+            List<Long> newIds = new ArrayList<>(changedIds);
+            newIds.addAll(addedIds);
+            //deleted folders are skipped, their rows are removed by cascade
+            foldersDao.applyAggregatesDelta(oldAggregates,
+                    foldersDao.selectCompositionsAggregates(newIds));
+            //old folders of deleted and moved compositions, delta scan doesn't pass them to delete
+            deleteFolders(foldersDao.selectEmptyFolderIds(oldAggregates.keySet()));
         });
 
         if (previousCount == 0) {
@@ -85,30 +126,79 @@ public class StorageCompositionsInserter {
         }
     }
 
-    private void applyCompositionChanges(List<StorageFullComposition> addedCompositions,
+    /**
+     * @return ids of inserted compositions
+     */
+    private List<Long> applyCompositionChanges(List<StorageFullComposition> addedCompositions,
                                          List<StorageComposition> deletedCompositions,
                                          List<Change<StorageComposition, StorageFullComposition>> changedCompositions,
                                          LongSparseArray<Long> addedFilesFolderMap) {
-        insertCompositions(addedCompositions, addedFilesFolderMap);
+        //optimization with cache, ~33% faster
+        Map<String, Long> artistsCache = new HashMap<>();
+        Map<String, Long> albumsCache = new HashMap<>();
 
-        for (StorageComposition composition: deletedCompositions) {
-            compositionsDao.delete(composition.getId());
-        }
+        List<Long> addedIds = insertCompositions(addedCompositions, addedFilesFolderMap, artistsCache, albumsCache);
+        deleteCompositions(deletedCompositions);
+        updateCompositions(changedCompositions, addedFilesFolderMap, artistsCache, albumsCache);
 
-        for (Change<StorageComposition, StorageFullComposition> change: changedCompositions) {
-            handleCompositionUpdate(change, addedFilesFolderMap);
-        }
+        //old albums and artists of changed compositions are cleared here, not per composition
         albumsDao.deleteEmptyAlbums();
         artistsDao.deleteEmptyArtists();
 //        genresDao.deleteEmptyGenres();//not working properly here. Or just not working. Check
+        return addedIds;
     }
 
-    private void handleCompositionUpdate(Change<StorageComposition, StorageFullComposition> change,
-                                         LongSparseArray<Long> addedFilesFolderMap) {
+    private void deleteCompositions(List<StorageComposition> deletedCompositions) {
+        List<Long> ids = mapList(deletedCompositions, StorageComposition::getId);
+        for (List<Long> chunk: ListUtils.chunked(ids, DatabaseUtils.MAX_VARIABLES_COUNT)) {
+            compositionsDao.delete(chunk);
+        }
+    }
+
+    private void updateCompositions(List<Change<StorageComposition, StorageFullComposition>> changedCompositions,
+                                    LongSparseArray<Long> addedFilesFolderMap,
+                                    Map<String, Long> artistsCache,
+                                    Map<String, Long> albumsCache) {
+        if (changedCompositions.isEmpty()) {
+            return;
+        }
+        //one compiled statement for all rows instead of up to five statements per composition
+        try (SupportSQLiteStatement statement = appDatabase.compileStatement(UPDATE_COMPOSITION_QUERY)) {
+            for (Change<StorageComposition, StorageFullComposition> change: changedCompositions) {
+                bindCompositionUpdate(statement, change, addedFilesFolderMap, artistsCache, albumsCache);
+                statement.executeUpdateDelete();
+                statement.clearBindings();
+            }
+        } catch (IOException e) {
+            //thrown only on statement close, framework statements don't do it
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void bindCompositionUpdate(SupportSQLiteStatement statement,
+                                       Change<StorageComposition, StorageFullComposition> change,
+                                       LongSparseArray<Long> addedFilesFolderMap,
+                                       Map<String, Long> artistsCache,
+                                       Map<String, Long> albumsCache) {
         StorageFullComposition composition = change.getObj();
         StorageComposition oldComposition = change.getOld();
-        long compositionId = oldComposition.getId();
-        long compositionStorageId = oldComposition.getStorageId();
+
+        bindString(statement, 1, composition.getTitle());
+        statement.bindString(2, composition.getFileName());
+        statement.bindString(3, composition.getRelativePath());
+        statement.bindLong(4, composition.getDuration());
+        statement.bindLong(5, composition.getSize());
+        bindDate(statement, 6, composition.getDateAdded());
+        bindDate(statement, 7, composition.getDateModified());
+
+        String newArtist = composition.getArtist();
+        boolean isArtistChanged = !Objects.equals(newArtist, oldComposition.getArtist());
+        Long artistId = null;
+        if (isArtistChanged) {
+            artistId = getOrInsertArtist(newArtist, artistsCache);
+        }
+        bindFlag(statement, 8, isArtistChanged);
+        bindLong(statement, 9, artistId);
 
         String newAlbumName = null;
         String newAlbumArtist = null;
@@ -117,52 +207,50 @@ public class StorageCompositionsInserter {
             newAlbumName = newAlbum.getAlbum();
             newAlbumArtist = newAlbum.getArtist();
         }
-        if (!Objects.equals(newAlbumName, oldComposition.getAlbum())) {
-            compositionsDaoWrapper.updateAlbum(compositionId, newAlbumName);
-        }
-        if (!Objects.equals(newAlbumArtist, oldComposition.getAlbumArtist())) {
-            compositionsDaoWrapper.updateAlbumArtist(compositionId, newAlbumArtist);
+        boolean isAlbumChanged = !Objects.equals(newAlbumName, oldComposition.getAlbum())
+                || !Objects.equals(newAlbumArtist, oldComposition.getAlbumArtist());
+        Long albumId = null;
+        if (isAlbumChanged && newAlbum != null) {
+            Long albumArtistId = getOrInsertArtist(newAlbumArtist, artistsCache);
+            albumId = getOrInsertAlbum(newAlbum, albumArtistId, albumsCache);
         }
+        bindFlag(statement, 10, isAlbumChanged);
+        bindLong(statement, 11, albumId);
 
-        String newArtist = composition.getArtist();
-        if (!Objects.equals(newArtist, oldComposition.getArtist())) {
-            compositionsDaoWrapper.updateArtist(compositionId, newArtist);
-        }
+        Long newFolderId = addedFilesFolderMap.get(oldComposition.getStorageId());
+        boolean isFolderChanged = !Objects.equals(newFolderId, FolderMerger.UNKNOWN_CURRENT_FOLDER_ID)
+                && !Objects.equals(oldComposition.getFolderId(), newFolderId);
+        bindFlag(statement, 12, isFolderChanged);
+        bindLong(statement, 13, isFolderChanged? newFolderId : null);
 
-        Long newFolderId = addedFilesFolderMap.get(compositionStorageId);
-        if (!Objects.equals(newFolderId, FolderMerger.UNKNOWN_CURRENT_FOLDER_ID)
-                && !Objects.equals(oldComposition.getFolderId(), newFolderId)) {
-            compositionsDao.updateFolderId(compositionId, newFolderId);
-        }
-
-        compositionsDao.update(
-                composition.getTitle(),
-                composition.getFileName(),
-                composition.getRelativePath(),
-                composition.getDuration(),
-                composition.getSize(),
-                composition.getDateAdded(),
-                composition.getDateModified(),
-                composition.getId()
-        );
+        statement.bindLong(14, oldComposition.getId());
     }
 
-    private void insertCompositions(List<StorageFullComposition> addedCompositions,
-                                    LongSparseArray<Long> addedFilesFolderMap) {
-        //optimization with cache, ~33% faster
-        Map<String, Long> artistsCache = new HashMap<>();
-        Map<String, Long> albumsCache = new HashMap<>();
+    private List<Long> insertCompositions(List<StorageFullComposition> addedCompositions,
+                                          LongSparseArray<Long> addedFilesFolderMap,
+                                          Map<String, Long> artistsCache,
+                                          Map<String, Long> albumsCache) {
+        if (addedCompositions.isEmpty()) {
+            return Collections.emptyList();
+        }
+        //one lookup instead of exists query per inserted row
+        Set<Long> existingFolderIds = new HashSet<>(foldersDao.selectAllFolderIds());
         //TODO can cause sqlite constraint exception, figure out how
-        compositionsDao.insert(mapList(
+        return compositionsDao.insert(mapList(
                 addedCompositions,
-                composition -> toCompositionEntity(composition, artistsCache, albumsCache, addedFilesFolderMap))
+                composition -> toCompositionEntity(composition,
+                        artistsCache,
+                        albumsCache,
+                        addedFilesFolderMap,
+                        existingFolderIds))
         );
     }
 
     private CompositionEntity toCompositionEntity(StorageFullComposition composition,
                                                   Map<String, Long> artistsCache,
                                                   Map<String, Long> albumsCache,
-                                                  LongSparseArray<Long> addedFilesFolderMap) {
+                                                  LongSparseArray<Long> addedFilesFolderMap,
+                                                  Set<Long> existingFolderIds) {
         String artist = composition.getArtist();
         Long artistId = getOrInsertArtist(artist, artistsCache);
 
@@ -176,7 +264,7 @@ public class StorageCompositionsInserter {
         if (Objects.equals(folderId, FolderMerger.UNKNOWN_CURRENT_FOLDER_ID)) {
             folderId = null;
         }
-        if (folderId != null && !foldersDao.isFolderExists(folderId)) {
+        if (folderId != null && !existingFolderIds.contains(folderId)) {
             //for some reason in folder id map can be non-existing folder id
             //TODO fix non-existing folder id
             //throw new IllegalStateException("target folder not exists");
@@ -190,7 +278,9 @@ public class StorageCompositionsInserter {
                                   Map<String, Long> albumsCache) {
         String albumName = storageAlbum.getAlbum();
 
-        Long albumId = albumsCache.get(albumName);
+        //same album name can belong to different artists
+        String albumKey = albumArtistId + "/" + albumName;
+        Long albumId = albumsCache.get(albumKey);
         if (albumId != null) {
             return albumId;
         }
@@ -202,7 +292,7 @@ public class StorageCompositionsInserter {
                     storageAlbum.getFirstYear(),
                     storageAlbum.getLastYear()));
         }
-        albumsCache.put(albumName, albumId);
+        albumsCache.put(albumKey, albumId);
         return albumId;
     }
 
@@ -221,6 +311,30 @@ public class StorageCompositionsInserter {
         return artistId;
     }
 
+    private void bindString(SupportSQLiteStatement statement, int index, @Nullable String value) {
+        if (value == null) {
+            statement.bindNull(index);
+        } else {
+            statement.bindString(index, value);
+        }
+    }
+
+    private void bindLong(SupportSQLiteStatement statement, int index, @Nullable Long value) {
+        if (value == null) {
+            statement.bindNull(index);
+        } else {
+            statement.bindLong(index, value);
+        }
+    }
+
+    private void bindDate(SupportSQLiteStatement statement, int index, @Nullable Date value) {
+        bindLong(statement, index, value == null? null : value.getTime());
+    }
+
+    private void bindFlag(SupportSQLiteStatement statement, int index, boolean value) {
+        statement.bindLong(index, value? 1 : 0);
+    }
+
     private LongSparseArray<Long> insertFolders(List<AddedNode> foldersToInsert) {
         return appDatabase.runInTransaction(() -> {
             LongSparseArray<Long> addedFilesFolderMap = new LongSparseArray<>();
@@ -240,6 +354,7 @@ public class StorageCompositionsInserter {
         }
 
         long folderId = foldersDao.insertFolder(new FolderEntity(dbParentId, name));
+        foldersDao.insertFolderTreePaths(folderId, dbParentId);
         for (Long storageFileId : nodeToInsert.getFiles()) {
             addedFilesFolderMap.put(storageFileId, folderId);
         }
@@ -1,5 +1,7 @@
 package com.github.anrimian.musicplayer.data.database.dao.folders;
 
+import static com.github.anrimian.musicplayer.data.database.utils.DatabaseUtils.MAX_VARIABLES_COUNT;
+
 import androidx.room.Dao;
 import androidx.room.Insert;
 import androidx.room.OnConflictStrategy;
@@ -7,14 +9,20 @@ import androidx.room.Query;
 import androidx.room.RawQuery;
 import androidx.sqlite.db.SupportSQLiteQuery;
 
-import com.github.anrimian.musicplayer.data.database.entities.composition.CompositionEntity;
+import com.github.anrimian.musicplayer.data.database.entities.folder.FolderAggregateEntity;
 import com.github.anrimian.musicplayer.data.database.entities.folder.FolderEntity;
 import com.github.anrimian.musicplayer.data.database.entities.folder.IgnoredFolderEntity;
 import com.github.anrimian.musicplayer.data.database.entities.folder.StorageFolder;
 import com.github.anrimian.musicplayer.domain.models.folders.FolderFileSource;
 import com.github.anrimian.musicplayer.domain.models.folders.IgnoredFolder;
+import com.github.anrimian.musicplayer.domain.utils.ListUtils;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import io.reactivex.rxjava3.core.Observable;
 
@@ -33,7 +41,7 @@ public interface FoldersDao {
     @Query("DELETE FROM ignored_folders WHERE relativePath = :path")
     void deleteIgnoredFolder(String path);
 
-    @RawQuery(observedEntities = { CompositionEntity.class, FolderEntity.class })
+    @RawQuery(observedEntities = { FolderAggregateEntity.class, FolderEntity.class })
     Observable<List<FolderFileSource>> getFoldersObservable(SupportSQLiteQuery query);
 
     @RawQuery
@@ -122,8 +130,183 @@ public interface FoldersDao {
             "LIMIT 1)")
     boolean isFolderWithNameExists(Long parentId, String name);
 
-    @Query("SELECT exists(SELECT 1 FROM folders WHERE id = :id LIMIT 1)")
-    boolean isFolderExists(long id);
+    @Query("SELECT id FROM folders")
+    List<Long> selectAllFolderIds();
+
+    @Query("INSERT INTO folder_tree (ancestorId, descendantId) " +
+            "SELECT ancestorId, :folderId FROM folder_tree WHERE descendantId = :parentId " +
+            "UNION ALL " +
+            "SELECT :folderId, :folderId")
+    void insertFolderTreePaths(long folderId, Long parentId);
+
+    //paths inside of moved folder are kept, only paths from its old ancestors are removed
+    @Query("DELETE FROM folder_tree " +
+            "WHERE descendantId IN (SELECT descendantId FROM folder_tree WHERE ancestorId = :folderId) " +
+            "AND ancestorId NOT IN (SELECT descendantId FROM folder_tree WHERE ancestorId = :folderId)")
+    void detachFolderTree(long folderId);
+
+    @Query("INSERT INTO folder_tree (ancestorId, descendantId) " +
+            "SELECT parentPath.ancestorId, subtree.descendantId " +
+            "FROM folder_tree AS parentPath, folder_tree AS subtree " +
+            "WHERE parentPath.descendantId = :parentId AND subtree.ancestorId = :folderId")
+    void attachFolderTree(long folderId, Long parentId);
+
+    @Query("SELECT ancestorId FROM folder_tree WHERE descendantId = :folderId AND ancestorId != :folderId")
+    List<Long> getParentIds(long folderId);
+
+    @Query("SELECT * FROM folder_aggregates WHERE folderId = :folderId")
+    FolderAggregateEntity getFolderAggregate(long folderId);
+
+    //totals of given compositions only, one row per folder which contains them
+    @Query("SELECT tree.ancestorId AS folderId, " +
+            "count(compositions.id) AS filesCount, " +
+            "sum(compositions.duration) AS duration, " +
+            "sum(compositions.size) AS size, " +
+            "max(compositions.dateAdded) AS lastAddDate " +
+            "FROM compositions " +
+            "INNER JOIN folder_tree AS tree ON tree.descendantId = compositions.folderId " +
+            "WHERE compositions.id IN (:compositionIds) " +
+            "GROUP BY tree.ancestorId")
+    List<FolderAggregateEntity> getCompositionsAggregates(List<Long> compositionIds);
+
+    @Query("SELECT folderId FROM folder_aggregates WHERE folderId IN (:folderIds) AND filesCount = 0")
+    List<Long> getEmptyFolderIds(List<Long> folderIds);
+
+    @Query("INSERT OR IGNORE INTO folder_aggregates (folderId, filesCount, duration, size, lastAddDate) " +
+            "VALUES (:folderId, 0, 0, 0, NULL)")
+    void insertEmptyFolderAggregate(long folderId);
+
+    @Query("UPDATE folder_aggregates SET " +
+            "filesCount = filesCount + :filesCount, " +
+            "duration = duration + :duration, " +
+            "size = size + :size " +
+            "WHERE folderId = :folderId")
+    void addToFolderAggregate(long folderId, int filesCount, long duration, long size);
+
+    @Query("UPDATE folder_aggregates SET lastAddDate = :date " +
+            "WHERE folderId = :folderId AND (lastAddDate IS NULL OR lastAddDate < :date)")
+    void raiseFolderLastAddDate(long folderId, Date date);
+
+    //max can't be decreased by delta, so it is selected again when removed date could be the max
+    @Query("UPDATE folder_aggregates SET lastAddDate = (" +
+            "SELECT max(compositions.dateAdded) " +
+            "FROM folder_tree AS tree " +
+            "INNER JOIN compositions ON compositions.folderId = tree.descendantId " +
+            "WHERE tree.ancestorId = :folderId" +
+            ") " +
+            "WHERE folderId = :folderId AND lastAddDate <= :removedDate")
+    void recalculateFolderLastAddDate(long folderId, Date removedDate);
+
+    /**
+     * @return totals of given compositions for each folder which contains them directly or
+     * in subfolders
+     */
+    default Map<Long, FolderAggregateEntity> selectCompositionsAggregates(Collection<Long> compositionIds) {
+        Map<Long, FolderAggregateEntity> result = new HashMap<>();
+        for (List<Long> chunk: ListUtils.chunked(compositionIds, MAX_VARIABLES_COUNT)) {
+            for (FolderAggregateEntity aggregate: getCompositionsAggregates(chunk)) {
+                putAggregate(result, aggregate.getFolderId(), aggregate);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return given folders which don't contain compositions, directly or in subfolders
+     */
+    default List<Long> selectEmptyFolderIds(Collection<Long> folderIds) {
+        List<Long> result = new ArrayList<>();
+        for (List<Long> chunk: ListUtils.chunked(folderIds, MAX_VARIABLES_COUNT)) {
+            result.addAll(getEmptyFolderIds(chunk));
+        }
+        return result;
+    }
+
+    /**
+     * @return totals of folder subtree for each ancestor of folder, folder itself is skipped
+     */
+    default Map<Long, FolderAggregateEntity> selectParentsShare(long folderId) {
+        Map<Long, FolderAggregateEntity> result = new HashMap<>();
+        FolderAggregateEntity aggregate = getFolderAggregate(folderId);
+        if (aggregate == null) {
+            return result;
+        }
+        for (Long parentId: getParentIds(folderId)) {
+            putAggregate(result, parentId, aggregate);
+        }
+        return result;
+    }
+
+    /**
+     * Adjusts aggregates of folders by difference between totals before and after change,
+     * rows of folders which are not affected are not touched.
+     *
+     * @param oldAggregates totals of changed items before change
+     * @param newAggregates totals of the same items after change
+     */
+    default void applyAggregatesDelta(Map<Long, FolderAggregateEntity> oldAggregates,
+                                      Map<Long, FolderAggregateEntity> newAggregates) {
+        for (FolderAggregateEntity oldAggregate: oldAggregates.values()) {
+            long folderId = oldAggregate.getFolderId();
+            FolderAggregateEntity newAggregate = newAggregates.get(folderId);
+            if (newAggregate == null) {
+                newAggregate = new FolderAggregateEntity(folderId, 0, 0, 0, null);
+            }
+            int filesCount = newAggregate.getFilesCount() - oldAggregate.getFilesCount();
+            long duration = newAggregate.getDuration() - oldAggregate.getDuration();
+            long size = newAggregate.getSize() - oldAggregate.getSize();
+            if (filesCount != 0 || duration != 0 || size != 0) {
+                addToFolderAggregate(folderId, filesCount, duration, size);
+            }
+
+            Date oldDate = oldAggregate.getLastAddDate();
+            Date newDate = newAggregate.getLastAddDate();
+            if (oldDate != null && (newDate == null || newDate.before(oldDate))) {
+                recalculateFolderLastAddDate(folderId, oldDate);
+            } else if (newDate != null) {
+                raiseFolderLastAddDate(folderId, newDate);
+            }
+        }
+        for (FolderAggregateEntity newAggregate: newAggregates.values()) {
+            long folderId = newAggregate.getFolderId();
+            if (oldAggregates.containsKey(folderId)) {
+                continue;
+            }
+            insertEmptyFolderAggregate(folderId);
+            addToFolderAggregate(folderId,
+                    newAggregate.getFilesCount(),
+                    newAggregate.getDuration(),
+                    newAggregate.getSize());
+            Date newDate = newAggregate.getLastAddDate();
+            if (newDate != null) {
+                raiseFolderLastAddDate(folderId, newDate);
+            }
+        }
+    }
+
+    static void putAggregate(Map<Long, FolderAggregateEntity> map,
+                             long folderId,
+                             FolderAggregateEntity aggregate) {
+        FolderAggregateEntity current = map.get(folderId);
+        if (current == null) {
+            map.put(folderId, new FolderAggregateEntity(folderId,
+                    aggregate.getFilesCount(),
+                    aggregate.getDuration(),
+                    aggregate.getSize(),
+                    aggregate.getLastAddDate()));
+            return;
+        }
+        Date lastAddDate = current.getLastAddDate();
+        Date addDate = aggregate.getLastAddDate();
+        if (lastAddDate == null || (addDate != null && addDate.after(lastAddDate))) {
+            lastAddDate = addDate;
+        }
+        map.put(folderId, new FolderAggregateEntity(folderId,
+                current.getFilesCount() + aggregate.getFilesCount(),
+                current.getDuration() + aggregate.getDuration(),
+                current.getSize() + aggregate.getSize(),
+                lastAddDate));
+    }
 
     static String getRecursiveFolderQuery(Long parentFolderId) {
         return "WITH RECURSIVE allChildFolders(childFolderId, rootFolderId) AS (" +
@@ -1,7 +1,7 @@
 package com.github.anrimian.musicplayer.data.database.dao.folders;
 
 
-import static com.github.anrimian.musicplayer.data.database.utils.DatabaseUtils.getSearchArgs;
+import static com.github.anrimian.musicplayer.data.database.utils.DatabaseUtils.getFtsSearchArgs;
 import static com.github.anrimian.musicplayer.domain.utils.ListUtils.mapList;
 
 import androidx.annotation.Nullable;
@@ -9,6 +9,7 @@ import androidx.sqlite.db.SimpleSQLiteQuery;
 
 import com.github.anrimian.musicplayer.data.database.AppDatabase;
 import com.github.anrimian.musicplayer.data.database.dao.compositions.CompositionsDaoWrapper;
+import com.github.anrimian.musicplayer.data.database.entities.folder.FolderAggregateEntity;
 import com.github.anrimian.musicplayer.data.database.entities.folder.FolderEntity;
 import com.github.anrimian.musicplayer.data.database.entities.folder.IgnoredFolderEntity;
 import com.github.anrimian.musicplayer.data.database.entities.folder.StorageFolder;
@@ -24,6 +25,7 @@ import java.util.Collection;
 import java.util.Date;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 
 import io.reactivex.rxjava3.core.Observable;
 import io.reactivex.rxjava3.core.Single;
@@ -97,10 +99,10 @@ public class FoldersDaoWrapper {
     public List<Composition> getAllCompositionsInFolder(Long parentFolderId, Order order, boolean useFileName) {
         List<Composition> result = new LinkedList<>();
 
-        String query = FoldersDao.getRecursiveFolderQuery(parentFolderId) +
-                "SELECT id " +
+        String query = "SELECT id " +
                 "FROM folders " +
-                "WHERE parentId = " + parentFolderId + " OR (parentId IS NULL AND " + parentFolderId + " IS NULL)";
+                "LEFT JOIN folder_aggregates ON folder_aggregates.folderId = folders.id " +
+                "WHERE (parentId = " + parentFolderId + " OR (parentId IS NULL AND " + parentFolderId + " IS NULL))";
         query += getOrderQuery(order);
         SimpleSQLiteQuery sqlQuery = new SimpleSQLiteQuery(query);
         List<Long> folders = foldersDao.getFoldersIds(sqlQuery);
@@ -164,22 +166,32 @@ public class FoldersDaoWrapper {
     }
 
     public void updateFolderId(Collection<FileSource> files, Long toFolderId) {
+        List<Long> compositionIds = new ArrayList<>();
+        List<Long> folderIds = new ArrayList<>();
+        for (FileSource fileSource: files) {
+            if (fileSource instanceof CompositionFileSource) {
+                compositionIds.add(((CompositionFileSource) fileSource).getComposition().getId());
+            }
+            if (fileSource instanceof FolderFileSource) {
+                folderIds.add(((FolderFileSource) fileSource).getId());
+            }
+        }
         appDatabase.runInTransaction(() -> {
-            for (FileSource fileSource: files) {
-                if (fileSource instanceof CompositionFileSource) {
-                    long id = ((CompositionFileSource) fileSource).getComposition().getId();
-                    compositionsDao.updateFolderId(id, toFolderId);
-                }
-                if (fileSource instanceof FolderFileSource) {
-                    long id = ((FolderFileSource) fileSource).getId();
-                    foldersDao.updateParentId(id, toFolderId);
-                }
+            if (!compositionIds.isEmpty()) {
+                compositionsDao.updateFolderId(compositionIds, toFolderId);
+            }
+            if (!folderIds.isEmpty()) {
+                moveFolders(folderIds, toFolderId);
             }
         });
     }
 
     public long createFolder(Long parentId, String name) {
-        return foldersDao.insertFolder(new FolderEntity(parentId, name));
+        return appDatabase.runInTransaction(() -> {
+            long id = foldersDao.insertFolder(new FolderEntity(parentId, name));
+            foldersDao.insertFolderTreePaths(id, parentId);
+            return id;
+        });
     }
 
     public String[] getIgnoredFolders() {
@@ -198,18 +210,30 @@ public class FoldersDaoWrapper {
         return foldersDao.isFolderWithNameExists(parentId, name);
     }
 
+    private void moveFolders(List<Long> folderIds, Long toFolderId) {
+        for (Long id: folderIds) {
+            //subtree totals are moved from old ancestors to new ones
+            Map<Long, FolderAggregateEntity> oldAggregates = foldersDao.selectParentsShare(id);
+            foldersDao.detachFolderTree(id);
+            foldersDao.updateParentId(id, toFolderId);
+            foldersDao.attachFolderTree(id, toFolderId);
+            foldersDao.applyAggregatesDelta(oldAggregates, foldersDao.selectParentsShare(id));
+        }
+    }
+
     private Observable<List<FolderFileSource>> getFoldersObservable(Long parentFolderId,
                                                                     Order order,
                                                                     @Nullable String searchText) {
-        String query = FoldersDao.getRecursiveFolderQuery(parentFolderId) +
-                "SELECT id, name, " +
-                "(SELECT count() FROM compositions WHERE folderId IN (SELECT childFolderId FROM allChildFolders WHERE rootFolderId = folders.id)) as filesCount " +
+        //totals are read from folder aggregates, no subfolders traversal here
+        String query = "SELECT id, name, " +
+                "ifnull(filesCount, 0) as filesCount " +
                 "FROM folders " +
+                "LEFT JOIN folder_aggregates ON folder_aggregates.folderId = folders.id " +
                 "WHERE parentId = " + parentFolderId + " OR (parentId IS NULL AND " + parentFolderId + " IS NULL)";
 
         query += getSearchQuery();
         query += getOrderQuery(order);
-        SimpleSQLiteQuery sqlQuery = new SimpleSQLiteQuery(query, getSearchArgs(searchText, 2));
+        SimpleSQLiteQuery sqlQuery = new SimpleSQLiteQuery(query, getFtsSearchArgs(searchText));
         return foldersDao.getFoldersObservable(sqlQuery);
     }
 
@@ -222,15 +246,15 @@ public class FoldersDaoWrapper {
                 break;
             }
             case ADD_TIME: {
-                orderQuery.append("(SELECT max(dateAdded) FROM compositions WHERE folderId IN (SELECT childFolderId FROM allChildFolders WHERE rootFolderId = folders.id))");
+                orderQuery.append("lastAddDate");
                 break;
             }
             case DURATION: {
-                orderQuery.append("(SELECT sum(duration) FROM compositions WHERE folderId IN (SELECT childFolderId FROM allChildFolders WHERE rootFolderId = folders.id))");
+                orderQuery.append("duration");
                 break;
             }
             case SIZE: {
-                orderQuery.append("(SELECT sum(size) FROM compositions WHERE folderId IN (SELECT childFolderId FROM allChildFolders WHERE rootFolderId = folders.id))");
+                orderQuery.append("size");
                 break;
             }
             default: throw new IllegalStateException("unknown order type" + order);
@@ -241,7 +265,7 @@ public class FoldersDaoWrapper {
     }
 
     private String getSearchQuery() {
-        return " AND (? IS NULL OR (name NOTNULL AND name LIKE ?))";
+        return " AND (? IS NULL OR id IN (SELECT rowid FROM folders_search WHERE folders_search MATCH ?))";
     }
 
     private Observable<Composition> fileSourceToComposition(FileSource fileSource, Order order, boolean useFileName) {
@@ -59,11 +59,20 @@ public interface GenreDao {
     @RawQuery(observedEntities = { ArtistEntity.class, CompositionEntity.class, AlbumEntity.class, GenreEntryEntity.class })
     Observable<List<Composition>> getCompositionsInGenreObservable(SimpleSQLiteQuery query);
 
+    @RawQuery(observedEntities = { ArtistEntity.class, CompositionEntity.class, AlbumEntity.class, GenreEntryEntity.class })
+    Observable<Integer> getCompositionsCountObservable(SimpleSQLiteQuery query);
+
     static String getCompositionsQuery(boolean useFileName) {
         return "SELECT " +
                 CompositionsDao.getCompositionSelectionQuery(useFileName) +
                 "FROM compositions " +
-                "WHERE id IN (SELECT audioId FROM genre_entries WHERE genreId = :genreId)";
+                "WHERE " + getCompositionsCondition() + " " +
+                "ORDER BY id";
+    }
+
+    //compositions of genre in order by id
+    static String getCompositionsCondition() {
+        return "compositions.id IN (SELECT audioId FROM genre_entries WHERE genreId = ?)";
     }
 
     @Query("SELECT " +
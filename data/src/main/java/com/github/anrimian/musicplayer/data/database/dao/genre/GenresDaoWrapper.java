@@ -83,6 +83,12 @@ public class GenresDaoWrapper {
         return genreDao.getCompositionsInGenreObservable(sqlQuery);
     }
 
+    public Observable<Integer> getCompositionsCountObservable(long genreId) {
+        String query = "SELECT COUNT(*) FROM compositions WHERE " + GenreDao.getCompositionsCondition();
+        SimpleSQLiteQuery sqlQuery = new SimpleSQLiteQuery(query, new Object[] {genreId} );
+        return genreDao.getCompositionsCountObservable(sqlQuery);
+    }
+
     public List<CompositionId> getCompositionsInGenre(long genreId) {
         return genreDao.getCompositionsInGenre(genreId);
     }
@@ -15,6 +15,7 @@ import com.github.anrimian.musicplayer.data.database.entities.composition.Compos
 import com.github.anrimian.musicplayer.data.database.entities.playlist.PlayListEntity;
 import com.github.anrimian.musicplayer.data.database.entities.playlist.PlayListEntryDto;
 import com.github.anrimian.musicplayer.data.database.entities.playlist.PlayListEntryEntity;
+import com.github.anrimian.musicplayer.data.database.entities.playlist.PlayListStorageEntryDto;
 import com.github.anrimian.musicplayer.data.storage.providers.playlists.AppPlayList;
 import com.github.anrimian.musicplayer.data.storage.providers.playlists.StoragePlayListItem;
 import com.github.anrimian.musicplayer.domain.models.playlist.PlayList;
@@ -65,6 +66,9 @@ public interface PlayListDao {
     @Query("SELECT count() FROM play_lists_entries WHERE playListId = :playlistId")
     long getPlayListItemsCount(long playlistId);
 
+    @Query("SELECT playListId FROM play_lists_entries GROUP BY playListId")
+    List<Long> getNotEmptyPlayListIds();
+
     @Query("SELECT " +
             "play_lists.id as id, " +
             "play_lists.storageId as storageId, " +
@@ -103,6 +107,23 @@ public interface PlayListDao {
             "ORDER BY orderPosition")
     List<StoragePlayListItem> getPlayListItemsAsStorageItems(long playListId);
 
+    @Query("SELECT " +
+            "play_lists_entries.playListId as playListId, " +
+            "play_lists_entries.itemId as itemId, " +
+            "play_lists_entries.storageItemId as storageItemId, " +
+            "(SELECT storageId FROM compositions WHERE id = audioId) as audioId, " +
+            "play_lists_entries.orderPosition as orderPosition " +
+            "FROM play_lists_entries " +
+            "WHERE play_lists_entries.playListId IN (:playListIds) " +
+            "ORDER BY playListId, orderPosition")
+    List<PlayListStorageEntryDto> getPlayListsStorageEntries(List<Long> playListIds);
+
+    @Query("DELETE FROM play_lists_entries WHERE itemId IN (:ids)")
+    void deletePlayListEntries(List<Long> ids);
+
+    @Query("UPDATE play_lists_entries SET orderPosition = :position WHERE itemId = :id")
+    void updateOrderPosition(long id, int position);
+
     @Query("DELETE FROM play_lists_entries WHERE itemId = :id")
     void deletePlayListEntry(long id);
 
@@ -1,7 +1,9 @@
 package com.github.anrimian.musicplayer.data.database.dao.play_list;
 
+import static com.github.anrimian.musicplayer.data.database.utils.DatabaseUtils.MAX_VARIABLES_COUNT;
 import static com.github.anrimian.musicplayer.domain.utils.ListUtils.mapList;
 
+import androidx.collection.LongSparseArray;
 import androidx.core.util.Pair;
 import androidx.sqlite.db.SimpleSQLiteQuery;
 
@@ -11,6 +13,7 @@ import com.github.anrimian.musicplayer.data.database.entities.IdPair;
 import com.github.anrimian.musicplayer.data.database.entities.playlist.PlayListEntity;
 import com.github.anrimian.musicplayer.data.database.entities.playlist.PlayListEntryDto;
 import com.github.anrimian.musicplayer.data.database.entities.playlist.PlayListEntryEntity;
+import com.github.anrimian.musicplayer.data.database.entities.playlist.PlayListStorageEntryDto;
 import com.github.anrimian.musicplayer.data.models.changes.Change;
 import com.github.anrimian.musicplayer.data.models.exceptions.PlayListAlreadyExistsException;
 import com.github.anrimian.musicplayer.data.storage.providers.playlists.AppPlayList;
@@ -19,11 +22,14 @@ import com.github.anrimian.musicplayer.data.storage.providers.playlists.StorageP
 import com.github.anrimian.musicplayer.domain.models.composition.Composition;
 import com.github.anrimian.musicplayer.domain.models.playlist.PlayList;
 import com.github.anrimian.musicplayer.domain.models.playlist.PlayListItem;
+import com.github.anrimian.musicplayer.domain.utils.ListUtils;
 import com.github.anrimian.musicplayer.domain.utils.functions.Function;
 
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import io.reactivex.rxjava3.core.Observable;
 
@@ -41,10 +47,18 @@ public class PlayListsDaoWrapper {
         this.appDatabase = appDatabase;
     }
 
+    /**
+     * Storage items whose compositions are not found in database are not inserted, playlists are
+     * merged again when new compositions are added to library.
+     *
+     * @param playListsItems storage items of existing playlists, merged with current entries
+     */
     public void applyChanges(List<Pair<StoragePlayList, List<StoragePlayListItem>>> addedPlayLists,
                              List<Change<AppPlayList, StoragePlayList>> changedPlayLists,
-                             List<Pair<AppPlayList, List<StoragePlayListItem>>> itemsToInsert) {
+                             List<Pair<Change<AppPlayList, StoragePlayList>, List<StoragePlayListItem>>> playListsItems) {
         appDatabase.runInTransaction(() -> {
+            LongSparseArray<Long> compositionIds = selectCompositionIds(addedPlayLists, playListsItems);
+
             //add
             for (Pair<StoragePlayList, List<StoragePlayListItem>> addedPlaylist: addedPlayLists) {
                 StoragePlayList storagePlayList = addedPlaylist.first;
@@ -60,7 +74,19 @@ public class PlayListsDaoWrapper {
                         storagePlayList.getDateAdded(),
                         storagePlayList.getDateModified()
                 ));
-                insertPlayListItems(addedPlaylist.second, id);
+                insertPlayListItems(addedPlaylist.second, id, 0, compositionIds);
+            }
+
+            //merge items
+            LongSparseArray<List<PlayListStorageEntryDto>> currentEntries = selectStorageEntries(
+                    mapList(playListsItems, item -> item.first.getOld().getId()));
+            for (Pair<Change<AppPlayList, StoragePlayList>, List<StoragePlayListItem>> playListItems: playListsItems) {
+                long id = playListItems.first.getOld().getId();
+                List<PlayListStorageEntryDto> entries = currentEntries.get(id);
+                mergePlayListItems(id,
+                        entries == null? new ArrayList<>() : entries,
+                        playListItems.second,
+                        compositionIds);
             }
 
             //update
@@ -78,11 +104,6 @@ public class PlayListsDaoWrapper {
                     playListDao.updatePlayListNameByStorageId(id, getUniquePlayListName(newName));
                 }
             }
-
-            //insert items
-            for (Pair<AppPlayList, List<StoragePlayListItem>> itemToInsert: itemsToInsert){
-                insertPlayListItems(itemToInsert.second, itemToInsert.first.getId());
-            }
         });
     }
 
@@ -120,6 +141,21 @@ public class PlayListsDaoWrapper {
         return playListDao.getPlayListItemsCount(id);
     }
 
+    public Set<Long> getNotEmptyPlayListIds() {
+        return new HashSet<>(playListDao.getNotEmptyPlayListIds());
+    }
+
+    //storage ids of compositions which are present in database
+    public Set<Long> selectExistingCompositionStorageIds(Set<Long> storageIds) {
+        Set<Long> result = new HashSet<>(storageIds.size());
+        for (List<Long> chunk: ListUtils.chunked(storageIds, MAX_VARIABLES_COUNT)) {
+            for (IdPair idPair: compositionsDao.selectIdsByStorageIds(chunk)) {
+                result.add(idPair.getStorageId());
+            }
+        }
+        return result;
+    }
+
     public void deletePlayList(long id) {
         playListDao.deletePlayList(id);
     }
@@ -161,6 +197,27 @@ public class PlayListsDaoWrapper {
         return playListDao.getPlayListItemsAsStorageItems(playlistId);
     }
 
+    /**
+     * @return entries of playlists which are stored in media storage, entries added in app
+     * are skipped
+     */
+    public LongSparseArray<List<StoragePlayListItem>> getPlayListsItemsAsStorageItems(List<Long> playListIds) {
+        LongSparseArray<List<PlayListStorageEntryDto>> entries = selectStorageEntries(playListIds);
+        LongSparseArray<List<StoragePlayListItem>> result = new LongSparseArray<>(entries.size());
+        for (int i = 0; i < entries.size(); i++) {
+            List<StoragePlayListItem> items = new ArrayList<>();
+            for (PlayListStorageEntryDto entry: entries.valueAt(i)) {
+                Long storageItemId = entry.getStorageItemId();
+                Long audioId = entry.getAudioId();
+                if (storageItemId != null && audioId != null) {
+                    items.add(new StoragePlayListItem(storageItemId, audioId));
+                }
+            }
+            result.put(entries.keyAt(i), items);
+        }
+        return result;
+    }
+
     public int deletePlayListEntry(long id, long playListId) {
         return appDatabase.runInTransaction(() -> {
             int position = playListDao.selectPositionById(id);
@@ -246,6 +303,151 @@ public class PlayListsDaoWrapper {
         return playListDao.isPlayListExists(playListId);
     }
 
+    //items whose compositions are not found are skipped
+    private void insertPlayListItems(List<StoragePlayListItem> items,
+                                     long playListId,
+                                     int position,
+                                     LongSparseArray<Long> compositionIds) {
+        List<PlayListEntryEntity> entities = new ArrayList<>(items.size());
+        int orderPosition = position;
+        for (StoragePlayListItem item : items) {
+            Long compositionId = compositionIds.get(item.getAudioId());
+            if (compositionId == null) {
+                continue;
+            }
+
+            PlayListEntryEntity entryEntity = new PlayListEntryEntity(
+                    item.getItemId(),
+                    compositionId,
+                    playListId,
+                    orderPosition++
+            );
+            entities.add(entryEntity);
+        }
+        playListDao.insertPlayListEntries(entities);
+    }
+
+    /**
+     * Entries of storage items which are still in storage keep their rows, entries removed from
+     * storage are deleted and new storage items are inserted in storage order. Entries added in
+     * app have no storage item id, they are kept before the storage entry which followed them.
+     * New storage items whose compositions are not found are skipped.
+     */
+    private void mergePlayListItems(long playListId,
+                                    List<PlayListStorageEntryDto> currentEntries,
+                                    List<StoragePlayListItem> storageItems,
+                                    LongSparseArray<Long> compositionIds) {
+        LongSparseArray<Long> storageAudioIds = new LongSparseArray<>(storageItems.size());
+        for (StoragePlayListItem item: storageItems) {
+            storageAudioIds.put(item.getItemId(), item.getAudioId());
+        }
+
+        LongSparseArray<PlayListStorageEntryDto> keptEntries = new LongSparseArray<>();
+        LongSparseArray<List<PlayListStorageEntryDto>> appEntriesBefore = new LongSparseArray<>();
+        List<PlayListStorageEntryDto> appEntries = new ArrayList<>();
+        List<Long> removedIds = new ArrayList<>();
+        for (PlayListStorageEntryDto entry: currentEntries) {
+            Long storageItemId = entry.getStorageItemId();
+            if (storageItemId == null) {
+                appEntries.add(entry);
+                continue;
+            }
+            Long audioId = storageAudioIds.get(storageItemId);
+            if (audioId == null
+                    || !audioId.equals(entry.getAudioId())
+                    || keptEntries.get(storageItemId) != null) {
+                removedIds.add(entry.getItemId());
+                continue;
+            }
+            keptEntries.put(storageItemId, entry);
+            if (!appEntries.isEmpty()) {
+                appEntriesBefore.put(storageItemId, appEntries);
+                appEntries = new ArrayList<>();
+            }
+        }
+        List<PlayListStorageEntryDto> lastAppEntries = appEntries;
+
+        int position = 0;
+        List<PlayListEntryEntity> newEntities = new ArrayList<>();
+        for (StoragePlayListItem item: storageItems) {
+            long storageItemId = item.getItemId();
+            PlayListStorageEntryDto entry = keptEntries.get(storageItemId);
+            if (entry != null) {
+                keptEntries.remove(storageItemId);
+                List<PlayListStorageEntryDto> entriesBefore = appEntriesBefore.get(storageItemId);
+                if (entriesBefore != null) {
+                    for (PlayListStorageEntryDto appEntry: entriesBefore) {
+                        updateOrderPosition(appEntry, position++);
+                    }
+                }
+                updateOrderPosition(entry, position++);
+                continue;
+            }
+            Long compositionId = compositionIds.get(item.getAudioId());
+            if (compositionId == null) {
+                continue;
+            }
+            newEntities.add(new PlayListEntryEntity(storageItemId,
+                    compositionId,
+                    playListId,
+                    position++));
+        }
+        for (PlayListStorageEntryDto appEntry: lastAppEntries) {
+            updateOrderPosition(appEntry, position++);
+        }
+
+        for (List<Long> chunk: ListUtils.chunked(removedIds, MAX_VARIABLES_COUNT)) {
+            playListDao.deletePlayListEntries(chunk);
+        }
+        playListDao.insertPlayListEntries(newEntities);
+    }
+
+    private void updateOrderPosition(PlayListStorageEntryDto entry, int position) {
+        if (entry.getOrderPosition() != position) {
+            playListDao.updateOrderPosition(entry.getItemId(), position);
+        }
+    }
+
+    private LongSparseArray<List<PlayListStorageEntryDto>> selectStorageEntries(List<Long> playListIds) {
+        LongSparseArray<List<PlayListStorageEntryDto>> result = new LongSparseArray<>(playListIds.size());
+        for (List<Long> chunk: ListUtils.chunked(playListIds, MAX_VARIABLES_COUNT)) {
+            for (PlayListStorageEntryDto entry: playListDao.getPlayListsStorageEntries(chunk)) {
+                long playListId = entry.getPlayListId();
+                List<PlayListStorageEntryDto> entries = result.get(playListId);
+                if (entries == null) {
+                    entries = new ArrayList<>();
+                    result.put(playListId, entries);
+                }
+                entries.add(entry);
+            }
+        }
+        return result;
+    }
+
+    private LongSparseArray<Long> selectCompositionIds(
+            List<Pair<StoragePlayList, List<StoragePlayListItem>>> addedPlayLists,
+            List<Pair<Change<AppPlayList, StoragePlayList>, List<StoragePlayListItem>>> playListsItems) {
+        Set<Long> storageIds = new HashSet<>();
+        for (Pair<StoragePlayList, List<StoragePlayListItem>> playList: addedPlayLists) {
+            for (StoragePlayListItem item: playList.second) {
+                storageIds.add(item.getAudioId());
+            }
+        }
+        for (Pair<Change<AppPlayList, StoragePlayList>, List<StoragePlayListItem>> playList: playListsItems) {
+            for (StoragePlayListItem item: playList.second) {
+                storageIds.add(item.getAudioId());
+            }
+        }
+
+        LongSparseArray<Long> result = new LongSparseArray<>(storageIds.size());
+        for (List<Long> chunk: ListUtils.chunked(storageIds, MAX_VARIABLES_COUNT)) {
+            for (IdPair idPair: compositionsDao.selectIdsByStorageIds(chunk)) {
+                result.put(idPair.getStorageId(), idPair.getDbId());
+            }
+        }
+        return result;
+    }
+
     private String getUniquePlayListName(String name) {
         return getUniquePlayListName(name, "");
     }
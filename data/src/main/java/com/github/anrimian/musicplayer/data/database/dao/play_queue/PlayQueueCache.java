@@ -0,0 +1,136 @@
+package com.github.anrimian.musicplayer.data.database.dao.play_queue;
+
+import androidx.collection.LongSparseArray;
+
+import com.github.anrimian.musicplayer.data.database.entities.play_queue.PlayQueueEntity;
+import com.github.anrimian.musicplayer.domain.models.composition.Composition;
+import com.github.anrimian.musicplayer.domain.models.play_queue.PlayQueueItem;
+import com.github.anrimian.musicplayer.domain.utils.functions.Mapper;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.Nullable;
+
+/**
+ * Materialized play queue. Queue rows and changed compositions are applied separately,
+ * so only new or changed compositions are loaded and unchanged items are reused between snapshots.
+ *
+ * Not thread safe, changes must be applied sequentially.
+ */
+class PlayQueueCache {
+
+    private final Mapper<List<Long>, List<Composition>> compositionsLoader;
+
+    private LongSparseArray<Composition> compositions = new LongSparseArray<>();
+    private LongSparseArray<PlayQueueItem> items = new LongSparseArray<>();
+    private List<PlayQueueEntity> entities = Collections.emptyList();
+
+    @Nullable
+    private List<PlayQueueItem> snapshot;
+
+    //id of the last applied composition change of this observer, null until queue is loaded.
+    //Read from other observers to delete changes which are applied by all of them
+    @Nullable
+    private volatile Long lastChangeId;
+
+    PlayQueueCache(Mapper<List<Long>, List<Composition>> compositionsLoader) {
+        this.compositionsLoader = compositionsLoader;
+    }
+
+    /**
+     * @param newEntities actual queue rows in display order
+     * @return new queue snapshot or null if queue is not changed
+     */
+    @Nullable
+    List<PlayQueueItem> applyQueue(List<PlayQueueEntity> newEntities) {
+        LongSparseArray<Composition> actualCompositions = new LongSparseArray<>(newEntities.size());
+        Set<Long> missingIds = new LinkedHashSet<>();
+        for (PlayQueueEntity entity: newEntities) {
+            long audioId = entity.getAudioId();
+            if (actualCompositions.containsKey(audioId)) {
+                continue;
+            }
+            Composition composition = compositions.get(audioId);
+            if (composition == null) {
+                missingIds.add(audioId);
+                continue;
+            }
+            actualCompositions.put(audioId, composition);
+        }
+        if (!missingIds.isEmpty()) {
+            for (Composition composition: compositionsLoader.map(new ArrayList<>(missingIds))) {
+                actualCompositions.put(composition.getId(), composition);
+            }
+        }
+        compositions = actualCompositions;
+        return rebuildSnapshot(newEntities);
+    }
+
+    /**
+     * @param compositionIds ids of compositions with changed data
+     * @return new queue snapshot or null if none of these compositions are in queue
+     */
+    @Nullable
+    List<PlayQueueItem> applyCompositionChanges(List<Long> compositionIds) {
+        List<Long> cachedIds = new ArrayList<>(compositionIds.size());
+        for (Long id: compositionIds) {
+            if (compositions.containsKey(id)) {
+                cachedIds.add(id);
+            }
+        }
+        if (cachedIds.isEmpty()) {
+            return null;
+        }
+        for (Composition composition: compositionsLoader.map(cachedIds)) {
+            compositions.put(composition.getId(), composition);
+        }
+        return rebuildSnapshot(entities);
+    }
+
+    @Nullable
+    Long getLastChangeId() {
+        return lastChangeId;
+    }
+
+    void setLastChangeId(long lastChangeId) {
+        this.lastChangeId = lastChangeId;
+    }
+
+    @Nullable
+    private List<PlayQueueItem> rebuildSnapshot(List<PlayQueueEntity> newEntities) {
+        entities = newEntities;
+
+        int size = newEntities.size();
+        LongSparseArray<PlayQueueItem> newItems = new LongSparseArray<>(size);
+        List<PlayQueueItem> newSnapshot = new ArrayList<>(size);
+        boolean changed = snapshot == null;
+        for (PlayQueueEntity entity: newEntities) {
+            Composition composition = compositions.get(entity.getAudioId());
+            if (composition == null) {
+                //composition is deleted, queue row will be removed by cascade
+                continue;
+            }
+            long itemId = entity.getId();
+            PlayQueueItem item = items.get(itemId);
+            if (item == null || item.getComposition() != composition) {
+                item = new PlayQueueItem(itemId, composition);
+            }
+            if (!changed) {
+                int index = newSnapshot.size();
+                changed = index >= snapshot.size() || snapshot.get(index) != item;
+            }
+            newItems.put(itemId, item);
+            newSnapshot.add(item);
+        }
+        items = newItems;
+        if (!changed && newSnapshot.size() == snapshot.size()) {
+            return null;
+        }
+        snapshot = newSnapshot;
+        return newSnapshot;
+    }
+}
@@ -8,11 +8,10 @@ import androidx.room.Update;
 import androidx.sqlite.db.SupportSQLiteQuery;
 
 import com.github.anrimian.musicplayer.data.database.dao.compositions.CompositionsDao;
-import com.github.anrimian.musicplayer.data.database.entities.albums.AlbumEntity;
-import com.github.anrimian.musicplayer.data.database.entities.artist.ArtistEntity;
-import com.github.anrimian.musicplayer.data.database.entities.composition.CompositionEntity;
+import com.github.anrimian.musicplayer.data.database.entities.play_queue.PlayQueueCompositionChangeEntity;
 import com.github.anrimian.musicplayer.data.database.entities.play_queue.PlayQueueEntity;
 import com.github.anrimian.musicplayer.data.database.entities.play_queue.PlayQueueItemDto;
+import com.github.anrimian.musicplayer.domain.models.composition.Composition;
 
 import java.util.List;
 
@@ -24,22 +23,47 @@ public interface PlayQueueDao {
     @Query("SELECT * FROM play_queue ORDER BY position")
     List<PlayQueueEntity> getPlayQueue();
 
-    @RawQuery(observedEntities = { PlayQueueEntity.class, ArtistEntity.class, CompositionEntity.class, AlbumEntity.class })
-    Observable<List<PlayQueueItemDto>> getPlayQueueObservable(SupportSQLiteQuery query);
+    @Query("SELECT * FROM play_queue ORDER BY shuffledPosition")
+    List<PlayQueueEntity> getShuffledPlayQueue();
+
+    @Query("SELECT * FROM play_queue ORDER BY position")
+    Observable<List<PlayQueueEntity>> getPlayQueueEntitiesObservable();
+
+    @Query("SELECT * FROM play_queue ORDER BY shuffledPosition")
+    Observable<List<PlayQueueEntity>> getShuffledPlayQueueEntitiesObservable();
+
+    @RawQuery
+    List<Composition> getCompositions(SupportSQLiteQuery query);
+
+    @Query("SELECT ifnull(MAX(id), 0) FROM play_queue_composition_changes")
+    Observable<Long> getLastCompositionChangeIdObservable();
+
+    @Query("SELECT ifnull(MAX(id), 0) FROM play_queue_composition_changes")
+    long selectLastCompositionChangeId();
+
+    @Query("DELETE FROM play_queue_composition_changes WHERE id <= :toId")
+    void deleteCompositionChanges(long toId);
+
+    @Query("SELECT DISTINCT compositionId FROM play_queue_composition_changes " +
+            "WHERE id > :afterId AND id <= :toId")
+    List<Long> selectChangedCompositionIds(long afterId, long toId);
 
     @Query("SELECT id " +
             "FROM play_queue " +
             "WHERE position >= :position " +
+            "ORDER BY position " +
             "LIMIT 1")
     Long getItemIdAtPosition(int position);
 
     @Query("SELECT id " +
             "FROM play_queue " +
             "WHERE shuffledPosition >= :position " +
+            "ORDER BY shuffledPosition " +
             "LIMIT 1")
     Long getItemIdAtShuffledPosition(int position);
 
-    @RawQuery(observedEntities = { PlayQueueEntity.class, ArtistEntity.class, CompositionEntity.class, AlbumEntity.class })
+    //data changes of queued compositions are recorded in play_queue_composition_changes
+    @RawQuery(observedEntities = { PlayQueueEntity.class, PlayQueueCompositionChangeEntity.class })
     Observable<PlayQueueItemDto[]> getItemObservable(SupportSQLiteQuery query);
 
     @Insert
@@ -72,25 +96,13 @@ public interface PlayQueueDao {
     @Query("SELECT shuffledPosition FROM play_queue WHERE id = :id")
     Observable<Integer> getShuffledPositionObservable(long id);
 
-    @Query("WITH item AS (SELECT position FROM play_queue WHERE id = :id) " +
-            "SELECT CASE WHEN item.position IS NULL " +
-            "  THEN -1 " +
-            "  ELSE (SELECT count() FROM play_queue WHERE position < item.position)" +
-            "END " +
-            "AS result " +
-            "FROM play_queue, item " +
-            "LIMIT 1")
-    Observable<Integer> getIndexPositionObservable(long id);
-
-    @Query("WITH item AS (SELECT shuffledPosition FROM play_queue WHERE id = :id) " +
-            "SELECT CASE WHEN item.shuffledPosition IS NULL " +
-            "  THEN -1 " +
-            "  ELSE (SELECT count() FROM play_queue WHERE shuffledPosition < item.shuffledPosition)" +
-            "END " +
-            "AS result " +
-            "FROM play_queue, item " +
-            "LIMIT 1")
-    Observable<Integer> getShuffledIndexPositionObservable(long id);
+    @Query("SELECT count() FROM play_queue " +
+            "WHERE position < (SELECT position FROM play_queue WHERE id = :id)")
+    int getIndexPosition(long id);
+
+    @Query("SELECT count() FROM play_queue " +
+            "WHERE shuffledPosition < (SELECT shuffledPosition FROM play_queue WHERE id = :id)")
+    int getShuffledIndexPosition(long id);
 
     @Query("UPDATE play_queue SET shuffledPosition = :shuffledPosition WHERE id = :id")
     void updateShuffledPosition(long id, int shuffledPosition);
@@ -98,15 +110,28 @@ public interface PlayQueueDao {
     @Query("UPDATE play_queue SET position = :position WHERE id = :itemId")
     void updateItemPosition(long itemId, int position);
 
+    //positions are unique, so shifted values are stored as negative and then restored
     @Query("UPDATE play_queue " +
-            "SET position = position + :increaseBy " +
-            "WHERE position = :position")
-    void increasePosition(int increaseBy, int position);
+            "SET position = -(position + :shift) - 1 " +
+            "WHERE position > :position")
+    void shiftPositionsToNegative(int position, int shift);
+
+    @Query("UPDATE play_queue SET position = -position - 1 WHERE position < 0")
+    void restoreNegativePositions();
 
     @Query("UPDATE play_queue " +
-            "SET shuffledPosition = shuffledPosition + :increaseBy " +
-            "WHERE shuffledPosition = :position")
-    void increaseShuffledPosition(int increaseBy, int position);
+            "SET shuffledPosition = -(shuffledPosition + :shift) - 1 " +
+            "WHERE shuffledPosition > :position")
+    void shiftShuffledPositionsToNegative(int position, int shift);
+
+    @Query("UPDATE play_queue SET shuffledPosition = -shuffledPosition - 1 WHERE shuffledPosition < 0")
+    void restoreNegativeShuffledPositions();
+
+    @Query("SELECT MIN(position) FROM play_queue WHERE position > :position")
+    Integer getNextPosition(int position);
+
+    @Query("SELECT MIN(shuffledPosition) FROM play_queue WHERE shuffledPosition > :position")
+    Integer getNextShuffledPosition(int position);
 
     @Query("SELECT MAX(position) FROM play_queue")
     int getLastPosition();
@@ -124,6 +149,12 @@ public interface PlayQueueDao {
             "WHERE shuffledPosition = (SELECT MAX(shuffledPosition) FROM play_queue)")
     long getLastShuffledItem();
 
+    @Query("SELECT id FROM play_queue ORDER BY position DESC LIMIT 1")
+    Long getLastItemOrNull();
+
+    @Query("SELECT id FROM play_queue ORDER BY shuffledPosition DESC LIMIT 1")
+    Long getLastShuffledItemOrNull();
+
     @Query("SELECT id " +
             "FROM play_queue " +
             "WHERE position = (SELECT MIN(position) FROM play_queue)")
@@ -1,31 +1,41 @@
 package com.github.anrimian.musicplayer.data.database.dao.play_queue;
 
+import static com.github.anrimian.musicplayer.data.database.utils.DatabaseUtils.MAX_VARIABLES_COUNT;
 import static com.github.anrimian.musicplayer.data.repositories.state.UiStateRepositoryImpl.NO_ITEM;
 import static com.github.anrimian.musicplayer.domain.Constants.NO_POSITION;
-import static com.github.anrimian.musicplayer.domain.utils.ListUtils.mapList;
 
 import android.database.sqlite.SQLiteCantOpenDatabaseException;
 
 import androidx.sqlite.db.SimpleSQLiteQuery;
 
 import com.github.anrimian.musicplayer.data.database.AppDatabase;
+import com.github.anrimian.musicplayer.data.database.dao.compositions.CompositionsDao;
 import com.github.anrimian.musicplayer.data.database.entities.play_queue.PlayQueueEntity;
 import com.github.anrimian.musicplayer.data.database.entities.play_queue.PlayQueueItemDto;
 import com.github.anrimian.musicplayer.domain.models.composition.Composition;
 import com.github.anrimian.musicplayer.domain.models.play_queue.PlayQueueItem;
+import com.github.anrimian.musicplayer.domain.utils.ListUtils;
 import com.github.anrimian.musicplayer.domain.utils.functions.Optional;
 
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.annotation.Nullable;
 
+import io.reactivex.rxjava3.core.Maybe;
 import io.reactivex.rxjava3.core.Observable;
 
 /**
  * Created on 02.07.2018.
+ *
+ * Positions are ordering keys with gaps between items, so items can be inserted or moved
+ * without updating following items. Following items are shifted only when gap is exhausted.
  */
 public class PlayQueueDaoWrapper {
 
@@ -34,20 +44,43 @@ public class PlayQueueDaoWrapper {
 
     private static final int DB_OBSERVABLE_RETRY_COUNT = 5;
 
+    static final int POSITION_GAP = 1024;
+
     @Nullable
     private PlayQueueEntity deletedItem;
 
+    //caches of active queue observers, their change ids tell which recorded changes can be deleted
+    private final Set<PlayQueueCache> activeCaches = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    private final AtomicLong deletedChangeId = new AtomicLong();
+
     public PlayQueueDaoWrapper(AppDatabase appDatabase, PlayQueueDao playQueueDao) {
         this.appDatabase = appDatabase;
         this.playQueueDao = playQueueDao;
     }
 
+    /**
+     * Queue is kept in memory while observed. Queue rows and changed data of queued compositions
+     * are observed separately, so writes which don't affect queue (like scan date update)
+     * don't reload it. Each observer reads recorded composition changes after its own last seen
+     * change id, changes which are seen by all active observers are deleted.
+     */
     public Observable<List<PlayQueueItem>> getPlayQueueObservable(boolean isRandom, boolean useFileName) {
-        String query = PlayQueueDao.getCompositionQuery(useFileName);
-        query += isRandom? "ORDER BY shuffledPosition": "ORDER BY position";
-        SimpleSQLiteQuery sqlQuery = new SimpleSQLiteQuery(query);
-        return playQueueDao.getPlayQueueObservable(sqlQuery)
-                .map(list -> mapList(list, this::toQueueItem));
+        return Observable.defer(() -> {
+            PlayQueueCache cache = new PlayQueueCache(ids -> getCompositions(ids, useFileName));
+            activeCaches.add(cache);
+
+            Observable<List<PlayQueueEntity>> entitiesObservable = isRandom?
+                    playQueueDao.getShuffledPlayQueueEntitiesObservable() :
+                    playQueueDao.getPlayQueueEntitiesObservable();
+            Observable<Callable<List<PlayQueueItem>>> queueChanges = entitiesObservable
+                    .map(entities -> () -> applyQueue(cache, entities));
+            Observable<Callable<List<PlayQueueItem>>> compositionChanges = playQueueDao.getLastCompositionChangeIdObservable()
+                    .map(lastChangeId -> () -> applyCompositionChanges(cache, lastChangeId));
+            //changes are applied after merge to access cache sequentially
+            return Observable.merge(queueChanges, compositionChanges)
+                    .concatMapMaybe(Maybe::fromCallable)
+                    .doFinally(() -> activeCaches.remove(cache));
+        });
     }
 
     public void reshuffleQueue(long currentItemId) {
@@ -67,11 +100,11 @@ public class PlayQueueDaoWrapper {
                 if (entity.getId() == currentItemId) {
                     currentItemPosition = i;
                 }
-                entity.setShuffledPosition(i);
+                entity.setShuffledPosition(i * POSITION_GAP);
             }
             if (currentItemPosition != -1 && firstItemId != currentItemId) {
                 list.get(currentItemPosition).setShuffledPosition(0);
-                list.get(0).setShuffledPosition(currentItemPosition);
+                list.get(0).setShuffledPosition(currentItemPosition * POSITION_GAP);
             }
 
             playQueueDao.deletePlayQueue();
@@ -94,30 +127,29 @@ public class PlayQueueDaoWrapper {
             Collections.shuffle(shuffledPositionList, new Random(randomSeed));
 
             List<PlayQueueEntity> entities = new ArrayList<>(compositions.size());
-            int shuffledStartPosition = 0;
+            int shuffledFirstIndex = 0;
             for (int i = 0; i < compositions.size(); i++) {
                 Composition composition = compositions.get(i);
                 PlayQueueEntity playQueueEntity = new PlayQueueEntity();
                 playQueueEntity.setAudioId(composition.getId());
-                playQueueEntity.setPosition(i);
+                playQueueEntity.setPosition(i * POSITION_GAP);
                 int shuffledPosition =  shuffledPositionList.get(i);
-                playQueueEntity.setShuffledPosition(shuffledPosition);
+                playQueueEntity.setShuffledPosition(shuffledPosition * POSITION_GAP);
 
-                if (startPosition != NO_POSITION && i == startPosition) {
-                    shuffledStartPosition = shuffledPosition;
+                if (shuffledPosition == 0) {
+                    shuffledFirstIndex = i;
                 }
 
                 entities.add(playQueueEntity);
             }
 
             playQueueDao.deletePlayQueue();
-            playQueueDao.insertItems(entities);
+            long[] ids = playQueueDao.insertItems(entities);
 
-            if (randomPlayingEnabled) {
-                return playQueueDao.getItemIdAtShuffledPosition(shuffledStartPosition);
-            } else {
-                return playQueueDao.getItemIdAtPosition(startPosition == NO_POSITION? 0: startPosition);
+            if (startPosition != NO_POSITION) {
+                return ids[startPosition];
             }
+            return ids[randomPlayingEnabled? shuffledFirstIndex : 0];
         });
     }
 
@@ -126,13 +158,31 @@ public class PlayQueueDaoWrapper {
         query += "WHERE itemId = ? LIMIT 1";
         SimpleSQLiteQuery sqlQuery = new SimpleSQLiteQuery(query, new Object[] {id} );
         return playQueueDao.getItemObservable(sqlQuery)
-                .map(dto -> {
-                    PlayQueueItem item = null;
-                    if (dto.length > 0) {
-                        item = toQueueItem(dto[0]);
-                    }
-                    return new Optional<>(item);
-                });
+                .map(this::toOptionalItem);
+    }
+
+    /**
+     * @return item which follows current item in queue order, or first item when current is
+     * the last one and loop is enabled. Empty when there is no such item or it is the current one
+     */
+    public Observable<Optional<PlayQueueItem>> getNextItemObservable(long currentItemId,
+                                                                     boolean isShuffled,
+                                                                     boolean loop,
+                                                                     boolean useFileName) {
+        String position = isShuffled? "shuffledPosition" : "position";
+        String firstItemQuery = "(SELECT id FROM play_queue WHERE " + position + " = "
+                + "(SELECT MIN(" + position + ") FROM play_queue))";
+        String query = PlayQueueDao.getCompositionQuery(useFileName);
+        query += "WHERE itemId = ifnull(" +
+                "(SELECT id FROM play_queue WHERE " + position + " = " +
+                "   (SELECT MIN(" + position + ") FROM play_queue WHERE " + position + " > " +
+                "       (SELECT " + position + " FROM play_queue WHERE id = ?))), " +
+                (loop? firstItemQuery : "NULL") + ") " +
+                "AND itemId != ? " +
+                "LIMIT 1";
+        SimpleSQLiteQuery sqlQuery = new SimpleSQLiteQuery(query, new Object[] { currentItemId, currentItemId });
+        return playQueueDao.getItemObservable(sqlQuery)
+                .map(this::toOptionalItem);
     }
 
     public void deleteItem(long itemId) {
@@ -152,19 +202,15 @@ public class PlayQueueDaoWrapper {
         appDatabase.runInTransaction(() -> {
             long firstId = firstItem.getId();
             long secondId = secondItem.getId();
-            if (shuffleMode) {
-                int firstPosition = playQueueDao.getShuffledPosition(firstId);
-                int secondPosition = playQueueDao.getShuffledPosition(secondId);
 
-                playQueueDao.updateShuffledPosition(secondId, Integer.MIN_VALUE);
-                playQueueDao.updateShuffledPosition(firstId, secondPosition);
+            //move first item to free position right after second, then second takes first's place
+            PositionRange range = reservePositions(secondId, 1, shuffleMode);
+            int firstPosition = getPosition(firstId, shuffleMode);
+            if (shuffleMode) {
+                playQueueDao.updateShuffledPosition(firstId, range.get(0));
                 playQueueDao.updateShuffledPosition(secondId, firstPosition);
             } else {
-                int firstPosition = playQueueDao.getPosition(firstId);
-                int secondPosition = playQueueDao.getPosition(secondId);
-
-                playQueueDao.updateItemPosition(secondId, Integer.MIN_VALUE);
-                playQueueDao.updateItemPosition(firstId, secondPosition);
+                playQueueDao.updateItemPosition(firstId, range.get(0));
                 playQueueDao.updateItemPosition(secondId, firstPosition);
             }
         });
@@ -172,11 +218,10 @@ public class PlayQueueDaoWrapper {
 
     public long addCompositionsToEndQueue(List<Composition> compositions) {
         return appDatabase.runInTransaction(() -> {
-            int positionToInsert = playQueueDao.getLastPosition() + 1;
-            int shuffledPositionToInsert = playQueueDao.getLastShuffledPosition() + 1;
-            List<PlayQueueEntity> entities = toEntityList(compositions,
-                    positionToInsert,
-                    shuffledPositionToInsert);
+            int count = compositions.size();
+            PositionRange positions = reservePositions(playQueueDao.getLastItemOrNull(), count, false);
+            PositionRange shuffledPositions = reservePositions(playQueueDao.getLastShuffledItemOrNull(), count, true);
+            List<PlayQueueEntity> entities = toEntityList(compositions, positions, shuffledPositions);
             long[] ids = playQueueDao.insertItems(entities);
             return ids[0];
         });
@@ -184,34 +229,24 @@ public class PlayQueueDaoWrapper {
 
     public long addCompositionsToQueue(List<Composition> compositions, long currentItemId) {
         return appDatabase.runInTransaction(() -> {
-            int positionToInsert = 0;
-            int shuffledPositionToInsert = 0;
-            if (currentItemId != NO_ITEM) {
-                int currentPosition = playQueueDao.getPosition(currentItemId);
-                int currentShuffledPosition = playQueueDao.getShuffledPosition(currentItemId);
-
-                int increaseBy = compositions.size();
-                int lastPosition = playQueueDao.getLastPosition();
-                for (int pos = lastPosition; pos > currentPosition; pos--) {
-                    playQueueDao.increasePosition(increaseBy, pos);
-                }
-                int lastShuffledPosition = playQueueDao.getLastShuffledPosition();
-                for (int pos = lastShuffledPosition; pos > currentShuffledPosition; pos--) {
-                    playQueueDao.increaseShuffledPosition(increaseBy, pos);
-                }
-
-                positionToInsert = currentPosition + 1;
-                shuffledPositionToInsert = currentShuffledPosition + 1;
-            }
-
-            List<PlayQueueEntity> entities = toEntityList(compositions,
-                    positionToInsert,
-                    shuffledPositionToInsert);
+            Long afterItemId = currentItemId == NO_ITEM? null : currentItemId;
+            int count = compositions.size();
+            PositionRange positions = reservePositions(afterItemId, count, false);
+            PositionRange shuffledPositions = reservePositions(afterItemId, count, true);
+            List<PlayQueueEntity> entities = toEntityList(compositions, positions, shuffledPositions);
             long[] ids = playQueueDao.insertItems(entities);
             return ids[0];
         });
     }
 
+    public int getIndexPosition(long id, boolean isShuffle) {
+        if (isShuffle) {
+            return playQueueDao.getShuffledIndexPosition(id);
+        } else {
+            return playQueueDao.getIndexPosition(id);
+        }
+    }
+
     public int getPosition(long id, boolean isShuffle) {
         if (isShuffle) {
             return playQueueDao.getShuffledPosition(id);
@@ -240,17 +275,6 @@ public class PlayQueueDaoWrapper {
                 .distinctUntilChanged();
     }
 
-    public Observable<Integer> getIndexPositionObservable(long id, boolean isShuffle) {
-        Observable<Integer> observable;
-        if (isShuffle) {
-            observable = playQueueDao.getShuffledIndexPositionObservable(id);
-        } else {
-            observable = playQueueDao.getIndexPositionObservable(id);
-        }
-        return observable.filter(pos -> pos >= 0)
-                .distinctUntilChanged();
-    }
-
     public long getNextQueueItemId(long currentItemId, boolean isShuffled) {
         if (isShuffled) {
             Long id = playQueueDao.getNextShuffledQueueItemId(currentItemId);
@@ -299,23 +323,165 @@ public class PlayQueueDaoWrapper {
         return playQueueDao.getPlayQueueSizeObservable();
     }
 
+    /**
+     * Finds free positions for items which will be inserted right after given item.
+     * Following items are shifted only when there is not enough space before next item.
+     *
+     * @param afterItemId item to insert after, null to insert at the start of queue
+     */
+    private PositionRange reservePositions(@Nullable Long afterItemId, int count, boolean shuffled) {
+        int position = afterItemId == null? -1 : getPosition(afterItemId, shuffled);
+        Integer nextPosition = getNextPosition(position, shuffled);
+
+        long requiredSpace = (long) (count + 1) * POSITION_GAP;
+        if (nextPosition == null) {
+            if (position + requiredSpace > Integer.MAX_VALUE) {
+                renumberPositions(shuffled);
+                position = afterItemId == null? -1 : getPosition(afterItemId, shuffled);
+            }
+            return new PositionRange(position, POSITION_GAP);
+        }
+        if (nextPosition - position > count) {
+            return new PositionRange(position, (nextPosition - position) / (count + 1));
+        }
+
+        if (getLastPosition(shuffled) + requiredSpace > Integer.MAX_VALUE) {
+            renumberPositions(shuffled);
+            position = afterItemId == null? -1 : getPosition(afterItemId, shuffled);
+        }
+        int shift = (int) requiredSpace;
+        if (shuffled) {
+            playQueueDao.shiftShuffledPositionsToNegative(position, shift);
+            playQueueDao.restoreNegativeShuffledPositions();
+        } else {
+            playQueueDao.shiftPositionsToNegative(position, shift);
+            playQueueDao.restoreNegativePositions();
+        }
+        return new PositionRange(position, POSITION_GAP);
+    }
+
+    private void renumberPositions(boolean shuffled) {
+        List<PlayQueueEntity> list;
+        if (shuffled) {
+            list = playQueueDao.getShuffledPlayQueue();
+            playQueueDao.shiftShuffledPositionsToNegative(-1, 0);
+        } else {
+            list = playQueueDao.getPlayQueue();
+            playQueueDao.shiftPositionsToNegative(-1, 0);
+        }
+        for (int i = 0; i < list.size(); i++) {
+            PlayQueueEntity entity = list.get(i);
+            if (shuffled) {
+                entity.setShuffledPosition(i * POSITION_GAP);
+            } else {
+                entity.setPosition(i * POSITION_GAP);
+            }
+        }
+        playQueueDao.update(list);
+    }
+
+    @Nullable
+    private Integer getNextPosition(int position, boolean shuffled) {
+        if (shuffled) {
+            return playQueueDao.getNextShuffledPosition(position);
+        } else {
+            return playQueueDao.getNextPosition(position);
+        }
+    }
+
     private List<PlayQueueEntity> toEntityList(List<Composition> compositions,
-                                               int position,
-                                               int shuffledPosition) {
+                                               PositionRange positions,
+                                               PositionRange shuffledPositions) {
         List<PlayQueueEntity> entityList = new ArrayList<>(compositions.size());
 
-        for (Composition composition: compositions) {
+        for (int i = 0; i < compositions.size(); i++) {
             PlayQueueEntity playQueueEntity = new PlayQueueEntity();
-            playQueueEntity.setAudioId(composition.getId());
-            playQueueEntity.setPosition(position++);
-            playQueueEntity.setShuffledPosition(shuffledPosition++);
+            playQueueEntity.setAudioId(compositions.get(i).getId());
+            playQueueEntity.setPosition(positions.get(i));
+            playQueueEntity.setShuffledPosition(shuffledPositions.get(i));
 
             entityList.add(playQueueEntity);
         }
         return entityList;
     }
 
+    @Nullable
+    private List<PlayQueueItem> applyQueue(PlayQueueCache cache, List<PlayQueueEntity> entities) {
+        if (cache.getLastChangeId() == null) {
+            //compositions are loaded after this point, so they already contain earlier changes
+            cache.setLastChangeId(playQueueDao.selectLastCompositionChangeId());
+        }
+        return cache.applyQueue(entities);
+    }
+
+    @Nullable
+    private List<PlayQueueItem> applyCompositionChanges(PlayQueueCache cache, long lastChangeId) {
+        Long appliedChangeId = cache.getLastChangeId();
+        if (appliedChangeId == null || lastChangeId <= appliedChangeId) {
+            return null;
+        }
+        List<Long> ids = playQueueDao.selectChangedCompositionIds(appliedChangeId, lastChangeId);
+        cache.setLastChangeId(lastChangeId);
+        deleteAppliedCompositionChanges();
+        return cache.applyCompositionChanges(ids);
+    }
+
+    //observers which are not loaded yet start after the last change id, so they are skipped
+    private void deleteAppliedCompositionChanges() {
+        long appliedChangeId = Long.MAX_VALUE;
+        for (PlayQueueCache cache: activeCaches) {
+            Long lastChangeId = cache.getLastChangeId();
+            if (lastChangeId != null) {
+                appliedChangeId = Math.min(appliedChangeId, lastChangeId);
+            }
+        }
+        if (appliedChangeId == Long.MAX_VALUE) {
+            return;
+        }
+        long deletedId = deletedChangeId.get();
+        if (appliedChangeId > deletedId && deletedChangeId.compareAndSet(deletedId, appliedChangeId)) {
+            playQueueDao.deleteCompositionChanges(appliedChangeId);
+        }
+    }
+
+    private List<Composition> getCompositions(List<Long> ids, boolean useFileName) {
+        List<Composition> result = new ArrayList<>(ids.size());
+        for (List<Long> chunk: ListUtils.chunked(ids, MAX_VARIABLES_COUNT)) {
+            StringBuilder query = CompositionsDao.getCompositionQuery(useFileName);
+            query.append(" WHERE compositions.id IN (");
+            for (int i = 0; i < chunk.size(); i++) {
+                query.append(i == 0? "?" : ",?");
+            }
+            query.append(")");
+            SimpleSQLiteQuery sqlQuery = new SimpleSQLiteQuery(query.toString(), chunk.toArray());
+            result.addAll(playQueueDao.getCompositions(sqlQuery));
+        }
+        return result;
+    }
+
+    private Optional<PlayQueueItem> toOptionalItem(PlayQueueItemDto[] dto) {
+        PlayQueueItem item = null;
+        if (dto.length > 0) {
+            item = toQueueItem(dto[0]);
+        }
+        return new Optional<>(item);
+    }
+
     private PlayQueueItem toQueueItem(PlayQueueItemDto dto) {
         return new PlayQueueItem(dto.getItemId(), dto.getComposition());
     }
+
+    private static class PositionRange {
+        private final int startPosition;
+        private final int step;
+
+        PositionRange(int afterPosition, int step) {
+            this.startPosition = afterPosition + step;
+            this.step = step;
+        }
+
+        int get(int index) {
+            return startPosition + index * step;
+        }
+    }
 }
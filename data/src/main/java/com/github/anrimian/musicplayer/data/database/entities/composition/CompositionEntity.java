@@ -76,6 +76,15 @@ public class CompositionEntity {
     @Nullable
     private CorruptionType corruptionType;
 
+    //replay gain in dB and peak amplitude, from file tags or loudness analysis
+    @Nullable
+    private Float trackGain;
+    @Nullable
+    private Float trackPeak;
+    //time of last loudness analysis, set even if analysis failed
+    @Nullable
+    private Date loudnessScanDate;
+
     public CompositionEntity(@Nullable Long artistId,
                              @Nullable Long albumId,
                              @Nullable Long folderId,
@@ -183,4 +192,31 @@ public class CompositionEntity {
     public String getLyrics() {
         return lyrics;
     }
+
+    @Nullable
+    public Float getTrackGain() {
+        return trackGain;
+    }
+
+    public void setTrackGain(@Nullable Float trackGain) {
+        this.trackGain = trackGain;
+    }
+
+    @Nullable
+    public Float getTrackPeak() {
+        return trackPeak;
+    }
+
+    public void setTrackPeak(@Nullable Float trackPeak) {
+        this.trackPeak = trackPeak;
+    }
+
+    @Nullable
+    public Date getLoudnessScanDate() {
+        return loudnessScanDate;
+    }
+
+    public void setLoudnessScanDate(@Nullable Date loudnessScanDate) {
+        this.loudnessScanDate = loudnessScanDate;
+    }
 }
@@ -0,0 +1,70 @@
+package com.github.anrimian.musicplayer.data.database.entities.composition;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Fts4;
+import androidx.room.FtsOptions;
+import androidx.room.PrimaryKey;
+
+import javax.annotation.Nullable;
+
+/**
+ * Full text search index of compositions, rowid is equal to composition id.
+ * Filled by triggers, see {@link com.github.anrimian.musicplayer.data.database.SearchIndexCallback}
+ */
+@Fts4(tokenizer = FtsOptions.TOKENIZER_UNICODE61)
+@Entity(tableName = "compositions_search")
+public class CompositionSearchEntity {
+
+    @PrimaryKey
+    @ColumnInfo(name = "rowid")
+    private long rowId;
+
+    @Nullable
+    private String title;
+
+    @Nullable
+    private String fileName;
+
+    @Nullable
+    private String artist;
+
+    @Nullable
+    private String album;
+
+    public CompositionSearchEntity(long rowId,
+                                   @Nullable String title,
+                                   @Nullable String fileName,
+                                   @Nullable String artist,
+                                   @Nullable String album) {
+        this.rowId = rowId;
+        this.title = title;
+        this.fileName = fileName;
+        this.artist = artist;
+        this.album = album;
+    }
+
+    public long getRowId() {
+        return rowId;
+    }
+
+    @Nullable
+    public String getTitle() {
+        return title;
+    }
+
+    @Nullable
+    public String getFileName() {
+        return fileName;
+    }
+
+    @Nullable
+    public String getArtist() {
+        return artist;
+    }
+
+    @Nullable
+    public String getAlbum() {
+        return album;
+    }
+}
@@ -0,0 +1,67 @@
+package com.github.anrimian.musicplayer.data.database.entities.folder;
+
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+import androidx.room.PrimaryKey;
+
+import java.util.Date;
+
+import javax.annotation.Nullable;
+
+/**
+ * Totals of compositions in folder and all its subfolders.
+ * Adjusted by totals of changed compositions for their ancestors from {@link FolderTreeEntity}.
+ */
+@Entity(tableName = "folder_aggregates",
+        foreignKeys = {
+                @ForeignKey(entity = FolderEntity.class,
+                        parentColumns = "id",
+                        childColumns = "folderId",
+                        onDelete = ForeignKey.CASCADE)
+        }
+)
+public class FolderAggregateEntity {
+
+    @PrimaryKey
+    private final long folderId;
+
+    private final int filesCount;
+    private final long duration;
+    private final long size;
+
+    @Nullable
+    private final Date lastAddDate;
+
+    public FolderAggregateEntity(long folderId,
+                                 int filesCount,
+                                 long duration,
+                                 long size,
+                                 @Nullable Date lastAddDate) {
+        this.folderId = folderId;
+        this.filesCount = filesCount;
+        this.duration = duration;
+        this.size = size;
+        this.lastAddDate = lastAddDate;
+    }
+
+    public long getFolderId() {
+        return folderId;
+    }
+
+    public int getFilesCount() {
+        return filesCount;
+    }
+
+    public long getDuration() {
+        return duration;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    @Nullable
+    public Date getLastAddDate() {
+        return lastAddDate;
+    }
+}
@@ -0,0 +1,39 @@
+package com.github.anrimian.musicplayer.data.database.entities.folder;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Fts4;
+import androidx.room.FtsOptions;
+import androidx.room.PrimaryKey;
+
+import javax.annotation.Nullable;
+
+/**
+ * Full text search index of folders, rowid is equal to folder id.
+ * Filled by triggers, see {@link com.github.anrimian.musicplayer.data.database.SearchIndexCallback}
+ */
+@Fts4(tokenizer = FtsOptions.TOKENIZER_UNICODE61)
+@Entity(tableName = "folders_search")
+public class FolderSearchEntity {
+
+    @PrimaryKey
+    @ColumnInfo(name = "rowid")
+    private long rowId;
+
+    @Nullable
+    private String name;
+
+    public FolderSearchEntity(long rowId, @Nullable String name) {
+        this.rowId = rowId;
+        this.name = name;
+    }
+
+    public long getRowId() {
+        return rowId;
+    }
+
+    @Nullable
+    public String getName() {
+        return name;
+    }
+}
@@ -0,0 +1,44 @@
+package com.github.anrimian.musicplayer.data.database.entities.folder;
+
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+import androidx.room.Index;
+
+/**
+ * Closure table of folders tree: one row for every folder and each of its ancestors,
+ * including row where folder is ancestor of itself.
+ */
+@Entity(tableName = "folder_tree",
+        primaryKeys = { "ancestorId", "descendantId" },
+        foreignKeys = {
+                @ForeignKey(entity = FolderEntity.class,
+                        parentColumns = "id",
+                        childColumns = "ancestorId",
+                        onDelete = ForeignKey.CASCADE),
+                @ForeignKey(entity = FolderEntity.class,
+                        parentColumns = "id",
+                        childColumns = "descendantId",
+                        onDelete = ForeignKey.CASCADE)
+        },
+        indices = {
+                @Index("descendantId")
+        }
+)
+public class FolderTreeEntity {
+
+    private final long ancestorId;
+    private final long descendantId;
+
+    public FolderTreeEntity(long ancestorId, long descendantId) {
+        this.ancestorId = ancestorId;
+        this.descendantId = descendantId;
+    }
+
+    public long getAncestorId() {
+        return ancestorId;
+    }
+
+    public long getDescendantId() {
+        return descendantId;
+    }
+}
@@ -0,0 +1,36 @@
+package com.github.anrimian.musicplayer.data.database.entities.play_queue;
+
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+/**
+ * Change of displayed data of queued composition. Filled by triggers from
+ * {@link com.github.anrimian.musicplayer.data.database.PlayQueueChangesCallback}.
+ *
+ * Ids grow monotonically, each observer reads changes after the last id it has seen,
+ * so observers don't delete rows and don't miss changes of each other.
+ */
+@Entity(tableName = "play_queue_composition_changes")
+public class PlayQueueCompositionChangeEntity {
+
+    @PrimaryKey(autoGenerate = true)
+    private long id;
+
+    private long compositionId;
+
+    public PlayQueueCompositionChangeEntity(long compositionId) {
+        this.compositionId = compositionId;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public long getCompositionId() {
+        return compositionId;
+    }
+}
@@ -0,0 +1,54 @@
+package com.github.anrimian.musicplayer.data.database.entities.playlist;
+
+import javax.annotation.Nullable;
+
+public class PlayListStorageEntryDto {
+
+    private final long playListId;
+    private final long itemId;
+    @Nullable
+    private final Long storageItemId;
+    @Nullable
+    private final Long audioId;
+    private final int orderPosition;
+
+    public PlayListStorageEntryDto(long playListId,
+                                   long itemId,
+                                   @Nullable Long storageItemId,
+                                   @Nullable Long audioId,
+                                   int orderPosition) {
+        this.playListId = playListId;
+        this.itemId = itemId;
+        this.storageItemId = storageItemId;
+        this.audioId = audioId;
+        this.orderPosition = orderPosition;
+    }
+
+    public long getPlayListId() {
+        return playListId;
+    }
+
+    public long getItemId() {
+        return itemId;
+    }
+
+    /**
+     * @return null for entries added in app and not stored in media storage
+     */
+    @Nullable
+    public Long getStorageItemId() {
+        return storageItemId;
+    }
+
+    /**
+     * @return storage id of composition
+     */
+    @Nullable
+    public Long getAudioId() {
+        return audioId;
+    }
+
+    public int getOrderPosition() {
+        return orderPosition;
+    }
+}
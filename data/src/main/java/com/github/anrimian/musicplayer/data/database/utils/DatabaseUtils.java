@@ -2,8 +2,23 @@ package com.github.anrimian.musicplayer.data.database.utils;
 
 import static com.github.anrimian.musicplayer.domain.utils.TextUtils.isEmpty;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.annotation.Nullable;
+
 public class DatabaseUtils {
 
+    //default SQLITE_MAX_VARIABLE_NUMBER for sqlite versions prior to 3.32.0
+    public static final int MAX_VARIABLES_COUNT = 999;
+
+    /**
+     * @param limit max rows count, negative value means all rows after offset
+     */
+    public static String getLimitQuery(int offset, int limit) {
+        return " LIMIT " + limit + " OFFSET " + offset;
+    }
+
     public static String[] getSearchArgs(String arg, int count) {
         if (isEmpty(arg)) {
             arg = null;
@@ -19,4 +34,72 @@ public class DatabaseUtils {
         }
         return result;
     }
+
+    /**
+     * @return argument for condition like "... LIKE ? ESCAPE '\'", null if there is nothing
+     * to search. Wildcards from user input are escaped so they are matched as plain characters
+     */
+    @Nullable
+    public static String getLikePrefixArg(@Nullable String searchText) {
+        if (isEmpty(searchText)) {
+            return null;
+        }
+        String escaped = searchText.trim()
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+        return escaped + "%";
+    }
+
+    /**
+     * @return arguments for condition like "? IS NULL OR ... MATCH ?"
+     */
+    public static String[] getFtsSearchArgs(@Nullable String searchText) {
+        String matchQuery = getFtsMatchQuery(searchText);
+        return new String[] { matchQuery, matchQuery };
+    }
+
+    /**
+     * Converts user input to full text search query, every word is searched by prefix.
+     * Words are quoted so input can't be treated as query operators.
+     *
+     * @return null if there is nothing to search, empty string (matches nothing)
+     * if search text doesn't contain any word
+     */
+    @Nullable
+    public static String getFtsMatchQuery(@Nullable String searchText) {
+        List<String> terms = getFtsMatchTerms(searchText);
+        if (terms == null) {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder();
+        for (String term: terms) {
+            if (sb.length() != 0) {
+                sb.append(' ');
+            }
+            sb.append(term);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Splits user input to separate full text search queries, one quoted prefix term per word.
+     *
+     * @return null if there is nothing to search, empty list (matches nothing)
+     * if search text doesn't contain any word
+     */
+    @Nullable
+    public static List<String> getFtsMatchTerms(@Nullable String searchText) {
+        if (isEmpty(searchText)) {
+            return null;
+        }
+        List<String> terms = new ArrayList<>();
+        for (String word: searchText.split("[^\\p{L}\\p{N}]+")) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            terms.add('"' + word + "*\"");
+        }
+        return terms;
+    }
 }
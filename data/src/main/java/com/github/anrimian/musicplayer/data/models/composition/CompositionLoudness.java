@@ -0,0 +1,29 @@
+package com.github.anrimian.musicplayer.data.models.composition;
+
+import javax.annotation.Nullable;
+
+public class CompositionLoudness {
+
+    //replay gain in dB
+    @Nullable
+    private final Float trackGain;
+
+    //max sample amplitude, 1.0 is full scale
+    @Nullable
+    private final Float trackPeak;
+
+    public CompositionLoudness(@Nullable Float trackGain, @Nullable Float trackPeak) {
+        this.trackGain = trackGain;
+        this.trackPeak = trackPeak;
+    }
+
+    @Nullable
+    public Float getTrackGain() {
+        return trackGain;
+    }
+
+    @Nullable
+    public Float getTrackPeak() {
+        return trackPeak;
+    }
+}
@@ -0,0 +1,61 @@
+package com.github.anrimian.musicplayer.data.repositories.library;
+
+import com.github.anrimian.musicplayer.data.database.dao.compositions.CompositionsDaoWrapper;
+import com.github.anrimian.musicplayer.domain.models.composition.Composition;
+import com.github.anrimian.musicplayer.domain.models.order.Order;
+import com.github.anrimian.musicplayer.domain.repositories.SettingsRepository;
+import com.github.anrimian.musicplayer.domain.utils.paging.PageSource;
+
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+import io.reactivex.rxjava3.core.Observable;
+
+/**
+ * All compositions in order which was selected at the moment of creation.
+ * Change of display file name setting is treated as change of data.
+ */
+class CompositionsPageSource implements PageSource<Composition> {
+
+    private final CompositionsDaoWrapper compositionsDao;
+    private final SettingsRepository settingsRepository;
+    private final Order order;
+    @Nullable
+    private final String searchText;
+
+    CompositionsPageSource(CompositionsDaoWrapper compositionsDao,
+                           SettingsRepository settingsRepository,
+                           Order order,
+                           @Nullable String searchText) {
+        this.compositionsDao = compositionsDao;
+        this.settingsRepository = settingsRepository;
+        this.order = order;
+        this.searchText = searchText;
+    }
+
+    @Override
+    public Observable<Integer> getCountObservable() {
+        return settingsRepository.getDisplayFileNameObservable()
+                .switchMap(useFileName -> compositionsDao.getCountObservable(searchText, useFileName));
+    }
+
+    @Override
+    public List<Composition> loadPage(int offset, int limit) {
+        return compositionsDao.getPage(order,
+                settingsRepository.isDisplayFileNameEnabled(),
+                searchText,
+                offset,
+                limit);
+    }
+
+    @Nullable
+    @Override
+    public List<Composition> loadPageAfter(Composition item, int limit) {
+        return compositionsDao.getPageAfter(order,
+                settingsRepository.isDisplayFileNameEnabled(),
+                searchText,
+                item.getId(),
+                limit);
+    }
+}
@@ -0,0 +1,74 @@
+package com.github.anrimian.musicplayer.data.repositories.library;
+
+import com.github.anrimian.musicplayer.data.database.dao.compositions.CompositionsDaoWrapper;
+import com.github.anrimian.musicplayer.domain.models.composition.Composition;
+import com.github.anrimian.musicplayer.domain.models.order.Order;
+import com.github.anrimian.musicplayer.domain.repositories.SettingsRepository;
+import com.github.anrimian.musicplayer.domain.utils.paging.PageSource;
+
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+import io.reactivex.rxjava3.core.Observable;
+
+/**
+ * Compositions of one album, artist or genre, selected by condition with one argument.
+ * Only requested pages are queried, like in {@link CompositionsPageSource}.
+ * Change of display file name setting is treated as change of data.
+ */
+class FilteredCompositionsPageSource implements PageSource<Composition> {
+
+    private final CompositionsDaoWrapper compositionsDao;
+    private final SettingsRepository settingsRepository;
+    private final Observable<Integer> countObservable;
+    private final String condition;
+    private final long conditionArg;
+    @Nullable
+    private final Order order;
+
+    /**
+     * @param countObservable count of compositions which match condition
+     * @param order null means order by id
+     */
+    FilteredCompositionsPageSource(CompositionsDaoWrapper compositionsDao,
+                                   SettingsRepository settingsRepository,
+                                   Observable<Integer> countObservable,
+                                   String condition,
+                                   long conditionArg,
+                                   @Nullable Order order) {
+        this.compositionsDao = compositionsDao;
+        this.settingsRepository = settingsRepository;
+        this.countObservable = countObservable;
+        this.condition = condition;
+        this.conditionArg = conditionArg;
+        this.order = order;
+    }
+
+    @Override
+    public Observable<Integer> getCountObservable() {
+        return settingsRepository.getDisplayFileNameObservable()
+                .switchMap(useFileName -> countObservable);
+    }
+
+    @Override
+    public List<Composition> loadPage(int offset, int limit) {
+        return compositionsDao.getPage(condition,
+                conditionArg,
+                order,
+                settingsRepository.isDisplayFileNameEnabled(),
+                offset,
+                limit);
+    }
+
+    @Nullable
+    @Override
+    public List<Composition> loadPageAfter(Composition item, int limit) {
+        return compositionsDao.getPageAfter(condition,
+                conditionArg,
+                order,
+                settingsRepository.isDisplayFileNameEnabled(),
+                item.getId(),
+                limit);
+    }
+}
@@ -2,10 +2,13 @@ package com.github.anrimian.musicplayer.data.repositories.library;
 
 import static com.github.anrimian.musicplayer.domain.utils.ListUtils.mapList;
 
+import com.github.anrimian.musicplayer.data.database.dao.albums.AlbumsDao;
 import com.github.anrimian.musicplayer.data.database.dao.albums.AlbumsDaoWrapper;
+import com.github.anrimian.musicplayer.data.database.dao.artist.ArtistsDao;
 import com.github.anrimian.musicplayer.data.database.dao.artist.ArtistsDaoWrapper;
 import com.github.anrimian.musicplayer.data.database.dao.compositions.CompositionsDaoWrapper;
 import com.github.anrimian.musicplayer.data.database.dao.folders.FoldersDaoWrapper;
+import com.github.anrimian.musicplayer.data.database.dao.genre.GenreDao;
 import com.github.anrimian.musicplayer.data.database.dao.genre.GenresDaoWrapper;
 import com.github.anrimian.musicplayer.data.storage.files.StorageFilesDataSource;
 import com.github.anrimian.musicplayer.domain.models.albums.Album;
@@ -18,8 +21,11 @@ import com.github.anrimian.musicplayer.domain.models.folders.FolderFileSource;
 import com.github.anrimian.musicplayer.domain.models.folders.IgnoredFolder;
 import com.github.anrimian.musicplayer.domain.models.genres.Genre;
 import com.github.anrimian.musicplayer.domain.models.genres.ShortGenre;
+import com.github.anrimian.musicplayer.domain.models.order.Order;
+import com.github.anrimian.musicplayer.domain.models.order.OrderType;
 import com.github.anrimian.musicplayer.domain.repositories.LibraryRepository;
 import com.github.anrimian.musicplayer.domain.repositories.SettingsRepository;
+import com.github.anrimian.musicplayer.domain.utils.paging.PageSource;
 
 import java.util.LinkedList;
 import java.util.List;
@@ -74,6 +80,39 @@ public class LibraryRepositoryImpl implements LibraryRepository {
                 );
     }
 
+    @Override
+    public Observable<List<Composition>> getCompositionsPageObservable(int offset, int limit) {
+        return settingsPreferences.getDisplayFileNameObservable()
+                .switchMap(useFileName -> compositionsDao.getPageObservable(
+                        settingsPreferences.getCompositionsOrder(),
+                        useFileName,
+                        offset,
+                        limit)
+                );
+    }
+
+    @Override
+    public Observable<Object> getCompositionsChangeObservable() {
+        return Observable.merge(settingsPreferences.getDisplayFileNameObservable().skip(1),
+                compositionsDao.getChangesObservable());
+    }
+
+    @Override
+    public PageSource<Composition> getCompositionsPageSource(@Nullable String searchText) {
+        return new CompositionsPageSource(compositionsDao,
+                settingsPreferences,
+                settingsPreferences.getCompositionsOrder(),
+                searchText);
+    }
+
+    @Override
+    public Single<List<Composition>> searchCompositions(@Nullable String searchText) {
+        return Single.fromCallable(() -> compositionsDao.searchCompositions(
+                searchText,
+                settingsPreferences.isDisplayFileNameEnabled())
+        ).subscribeOn(scheduler);
+    }
+
     @Override
     public Observable<FullComposition> getCompositionObservable(long id) {
         return compositionsDao.getCompositionObservable(id);
@@ -85,12 +124,36 @@ public class LibraryRepositoryImpl implements LibraryRepository {
                 .switchMap(order -> artistsDao.getAllObservable(order, searchText));
     }
 
+    @Override
+    public Observable<List<Artist>> getArtistsPageObservable(int offset, int limit) {
+        return settingsPreferences.getArtistsOrderObservable()
+                .switchMap(order -> artistsDao.getPageObservable(order, offset, limit));
+    }
+
+    @Override
+    public Observable<Object> getArtistsChangeObservable() {
+        return Observable.merge(settingsPreferences.getArtistsOrderObservable().skip(1),
+                artistsDao.getChangesObservable());
+    }
+
     @Override
     public Observable<List<Album>> getAlbumsObservable(@Nullable String searchText) {
         return settingsPreferences.getAlbumsOrderObservable()
                 .switchMap(order -> albumsDao.getAllObservable(order, searchText));
     }
 
+    @Override
+    public Observable<List<Album>> getAlbumsPageObservable(int offset, int limit) {
+        return settingsPreferences.getAlbumsOrderObservable()
+                .switchMap(order -> albumsDao.getPageObservable(order, offset, limit));
+    }
+
+    @Override
+    public Observable<Object> getAlbumsChangeObservable() {
+        return Observable.merge(settingsPreferences.getAlbumsOrderObservable().skip(1),
+                albumsDao.getChangesObservable());
+    }
+
     @Override
     public Observable<List<Genre>> getGenresObservable(@Nullable String searchText) {
         return settingsPreferences.getGenresOrderObservable()
@@ -108,12 +171,33 @@ public class LibraryRepositoryImpl implements LibraryRepository {
                 .switchMap(useFileName -> genresDao.getCompositionsInGenreObservable(genreId, useFileName));
     }
 
+    @Override
+    public PageSource<Composition> getGenreItemsPageSource(long genreId) {
+        return new FilteredCompositionsPageSource(compositionsDao,
+                settingsPreferences,
+                genresDao.getCompositionsCountObservable(genreId),
+                GenreDao.getCompositionsCondition(),
+                genreId,
+                null);
+    }
+
     @Override
     public Observable<List<Composition>> getAlbumItemsObservable(long albumId) {
         return settingsPreferences.getDisplayFileNameObservable()
                 .switchMap(useFileName -> albumsDao.getCompositionsInAlbumObservable(albumId, useFileName));
     }
 
+    @Override
+    public PageSource<Composition> getAlbumItemsPageSource(long albumId) {
+        String condition = AlbumsDao.getCompositionsCondition();
+        return new FilteredCompositionsPageSource(compositionsDao,
+                settingsPreferences,
+                compositionsDao.getCountObservable(condition, albumId),
+                condition,
+                albumId,
+                new Order(OrderType.FILE_NAME, false));
+    }
+
     @Override
     public Observable<Album> getAlbumObservable(long albumId) {
         return albumsDao.getAlbumObservable(albumId);
@@ -125,6 +209,17 @@ public class LibraryRepositoryImpl implements LibraryRepository {
                 .switchMap(useFileName -> artistsDao.getCompositionsByArtistObservable(artistId, useFileName));
     }
 
+    @Override
+    public PageSource<Composition> getCompositionsByArtistPageSource(long artistId) {
+        String condition = ArtistsDao.getCompositionsCondition();
+        return new FilteredCompositionsPageSource(compositionsDao,
+                settingsPreferences,
+                compositionsDao.getCountObservable(condition, artistId),
+                condition,
+                artistId,
+                null);
+    }
+
     @Override
     public Observable<Artist> getArtistObservable(long artistId) {
         return artistsDao.getArtistObservable(artistId);
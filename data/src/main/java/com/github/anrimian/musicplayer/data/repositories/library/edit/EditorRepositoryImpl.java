@@ -1,7 +1,5 @@
 package com.github.anrimian.musicplayer.data.repositories.library.edit;
 
-import static com.github.anrimian.musicplayer.domain.Constants.TRIGGER;
-
 import androidx.core.util.Pair;
 
 import com.github.anrimian.musicplayer.data.database.dao.albums.AlbumsDaoWrapper;
@@ -13,9 +11,11 @@ import com.github.anrimian.musicplayer.data.models.composition.CompositionId;
 import com.github.anrimian.musicplayer.data.repositories.library.edit.exceptions.AlbumAlreadyExistsException;
 import com.github.anrimian.musicplayer.data.repositories.library.edit.exceptions.ArtistAlreadyExistsException;
 import com.github.anrimian.musicplayer.data.repositories.library.edit.exceptions.DuplicateFolderNamesException;
+import com.github.anrimian.musicplayer.data.repositories.library.edit.exceptions.EditFilesException;
 import com.github.anrimian.musicplayer.data.repositories.library.edit.exceptions.EditorTimeoutException;
 import com.github.anrimian.musicplayer.data.repositories.library.edit.exceptions.FileExistsException;
 import com.github.anrimian.musicplayer.data.repositories.library.edit.exceptions.GenreAlreadyExistsException;
+import com.github.anrimian.musicplayer.data.repositories.library.edit.exceptions.MoveFilesException;
 import com.github.anrimian.musicplayer.data.repositories.library.edit.exceptions.MoveFolderToItselfException;
 import com.github.anrimian.musicplayer.data.repositories.library.edit.exceptions.MoveInTheSameFolderException;
 import com.github.anrimian.musicplayer.data.storage.files.StorageFilesDataSource;
@@ -26,6 +26,8 @@ import com.github.anrimian.musicplayer.data.storage.source.CompositionSourceEdit
 import com.github.anrimian.musicplayer.domain.models.composition.Composition;
 import com.github.anrimian.musicplayer.domain.models.composition.FullComposition;
 import com.github.anrimian.musicplayer.domain.models.composition.source.CompositionSourceTags;
+import com.github.anrimian.musicplayer.domain.models.folders.CompositionFileSource;
+import com.github.anrimian.musicplayer.domain.models.folders.FileMoveProgress;
 import com.github.anrimian.musicplayer.domain.models.folders.FileSource;
 import com.github.anrimian.musicplayer.domain.models.folders.FolderFileSource;
 import com.github.anrimian.musicplayer.domain.models.genres.ShortGenre;
@@ -35,8 +37,10 @@ import com.github.anrimian.musicplayer.domain.repositories.SettingsRepository;
 import com.github.anrimian.musicplayer.domain.repositories.StateRepository;
 import com.github.anrimian.musicplayer.domain.utils.Objects;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
@@ -224,28 +228,37 @@ public class EditorRepositoryImpl implements EditorRepository {
     }
 
     @Override
-    public Completable moveFiles(Collection<FileSource> files,
-                                 @Nullable Long fromFolderId,
-                                 @Nullable Long toFolderId) {
+    public Observable<FileMoveProgress> moveFiles(Collection<FileSource> files,
+                                                  @Nullable Long fromFolderId,
+                                                  @Nullable Long toFolderId) {
         return verifyFolderMove(fromFolderId, toFolderId, files)
                 .andThen(Single.zip(getFullFolderPath(fromFolderId),
                         getFullFolderPath(toFolderId),
                         foldersDao.extractAllCompositionsFromFiles(files, settingsRepository.isDisplayFileNameEnabled()),
-                        (fromPath, toPath, compositions) -> {
-                            List<FilePathComposition> updateCompositions = filesDataSource.moveCompositionsToFolder(compositions, fromPath, toPath);
+                        (fromPath, toPath, compositions) -> Observable.<FileMoveProgress>create(emitter -> {
+                            List<FilePathComposition> updateCompositions;
+                            try {
+                                updateCompositions = filesDataSource.moveCompositionsToFolder(compositions,
+                                        fromPath,
+                                        toPath,
+                                        emitter::onNext);
+                            } catch (MoveFilesException e) {
+                                applyPartiallyMovedFiles(e, files, toFolderId);
+                                throw e;
+                            }
                             compositionsDao.updateFilesPath(updateCompositions);
-                            return TRIGGER;
-                        }))
-                .ignoreElement()
-                .doOnComplete(() -> foldersDao.updateFolderId(files, toFolderId))
+                            foldersDao.updateFolderId(files, toFolderId);
+                            emitter.onComplete();
+                        })))
+                .flatMapObservable(observable -> observable)
                 .subscribeOn(scheduler);
     }
 
     @Override
-    public Completable moveFilesToNewDirectory(Collection<FileSource> files,
-                                               @Nullable Long fromFolderId,
-                                               @Nullable Long targetParentFolderId,
-                                               String directoryName) {
+    public Observable<FileMoveProgress> moveFilesToNewDirectory(Collection<FileSource> files,
+                                                                @Nullable Long fromFolderId,
+                                                                @Nullable Long targetParentFolderId,
+                                                                String directoryName) {
         return Completable.fromRunnable(() -> {
             if (foldersDao.isFolderWithNameExists(targetParentFolderId, directoryName)) {
                 throw new FileExistsException();
@@ -253,20 +266,29 @@ public class EditorRepositoryImpl implements EditorRepository {
         }).andThen(Single.zip(getFullFolderPath(fromFolderId),
                 getFullFolderPath(targetParentFolderId),
                 foldersDao.extractAllCompositionsFromFiles(files, settingsRepository.isDisplayFileNameEnabled()),
-                (fromPath, toParentPath, compositions) -> {
+                (fromPath, toParentPath, compositions) -> Observable.<FileMoveProgress>create(emitter -> {
                     List<FilePathComposition> updatedCompositions = new LinkedList<>();
-                    String name = filesDataSource.moveCompositionsToNewFolder(compositions,
-                            fromPath,
-                            toParentPath,
-                            directoryName,
-                            updatedCompositions);
+                    String name;
+                    try {
+                        name = filesDataSource.moveCompositionsToNewFolder(compositions,
+                                fromPath,
+                                toParentPath,
+                                directoryName,
+                                updatedCompositions,
+                                emitter::onNext);
+                    } catch (MoveFilesException e) {
+                        long folderId = foldersDao.createFolder(targetParentFolderId, directoryName);
+                        applyPartiallyMovedFiles(e, files, folderId);
+                        throw e;
+                    }
 
                     compositionsDao.updateFilesPath(updatedCompositions);
 
-                    return foldersDao.createFolder(targetParentFolderId, name);
-                }))
-                .doOnSuccess(folderId -> foldersDao.updateFolderId(files, folderId))
-                .ignoreElement()
+                    long folderId = foldersDao.createFolder(targetParentFolderId, name);
+                    foldersDao.updateFolderId(files, folderId);
+                    emitter.onComplete();
+                })))
+                .flatMapObservable(observable -> observable)
                 .subscribeOn(scheduler);
     }
 
@@ -274,13 +296,12 @@ public class EditorRepositoryImpl implements EditorRepository {
     public Completable updateAlbumName(String name, long albumId) {
         return checkAlbumExists(name)
                 .andThen(Single.fromCallable(() -> albumsDao.getCompositionsInAlbum(albumId)))
-                .flatMap(compositions -> sourceEditor.setCompositionsAlbum(compositions, name))
-                .doOnSuccess(compositions -> {
-                    albumsDao.updateAlbumName(name, albumId);
-                    for (CompositionId composition: compositions) {
-                        runSystemRescan(composition);
-                    }
-                })
+                .flatMap(compositions -> sourceEditor.setCompositionsAlbum(compositions, name)
+                        .doOnSuccess(editedCompositions -> {
+                            albumsDao.updateAlbumName(name, albumId);
+                            runSystemRescan(editedCompositions);
+                            checkAllFilesEdited(editedCompositions.size(), compositions.size());
+                        }))
                 .ignoreElement()
                 .subscribeOn(scheduler);
     }
@@ -288,40 +309,40 @@ public class EditorRepositoryImpl implements EditorRepository {
     @Override
     public Completable updateAlbumArtist(String newArtistName, long albumId) {
         return Single.fromCallable(() -> albumsDao.getCompositionsInAlbum(albumId))
-                .flatMap(compositions -> sourceEditor.setCompositionsAlbumArtist(compositions, newArtistName))
-                .doOnSuccess(compositions -> {
-                    albumsDao.updateAlbumArtist(albumId, newArtistName);
-                    for (CompositionId composition: compositions) {
-                        runSystemRescan(composition);
-                    }
-                })
+                .flatMap(compositions -> sourceEditor.setCompositionsAlbumArtist(compositions, newArtistName)
+                        .doOnSuccess(editedCompositions -> {
+                            albumsDao.updateAlbumArtist(albumId, newArtistName);
+                            runSystemRescan(editedCompositions);
+                            checkAllFilesEdited(editedCompositions.size(), compositions.size());
+                        }))
                 .ignoreElement()
                 .subscribeOn(scheduler);
     }
 
     @Override
     public Completable updateArtistName(String name, long artistId) {
+        Set<CompositionId> allCompositions = new LinkedHashSet<>();
         Set<CompositionId> compositionsToScan = new LinkedHashSet<>();
         return checkArtistExists(name)
 
                 .andThen(Single.fromCallable(() -> artistsDao.getCompositionsByArtist(artistId)))
+                .doOnSuccess(allCompositions::addAll)
+                .flatMap(compositions -> sourceEditor.setCompositionsAuthor(compositions, name))
                 .doOnSuccess(compositionsToScan::addAll)
-                .flatMapObservable(Observable::fromIterable)
-                .flatMapCompletable(composition -> sourceEditor.setCompositionAuthor(composition, name))
+                .ignoreElement()
 
                 .andThen(Single.fromCallable(() -> albumsDao.getAllAlbumsForArtist(artistId)))
                 .flatMapObservable(Observable::fromIterable)
-                .flatMapCompletable(album -> Single.fromCallable(() -> albumsDao.getCompositionsInAlbum(album.getId()))
+                .concatMapCompletable(album -> Single.fromCallable(() -> albumsDao.getCompositionsInAlbum(album.getId()))
+                        .doOnSuccess(allCompositions::addAll)
+                        .flatMap(compositions -> sourceEditor.setCompositionsAlbumArtist(compositions, name))
                         .doOnSuccess(compositionsToScan::addAll)
-                        .flatMapObservable(Observable::fromIterable)
-                        .flatMapCompletable(composition -> sourceEditor.setCompositionAlbumArtist(composition, name))
+                        .ignoreElement()
                 )
                 .doOnComplete(() -> {
                     artistsDao.updateArtistName(name, artistId);
-
-                    for (CompositionId composition: compositionsToScan) {
-                        runSystemRescan(composition);
-                    }
+                    runSystemRescan(compositionsToScan);
+                    checkAllFilesEdited(compositionsToScan.size(), allCompositions.size());
                 })
                 .subscribeOn(scheduler);
     }
@@ -455,6 +476,40 @@ public class EditorRepositoryImpl implements EditorRepository {
         });
     }
 
+    /**
+     * Moved files are already written to media store, so they are applied to library too.
+     * Compositions moved from selected folders keep their folder until the next full scan.
+     */
+    private void applyPartiallyMovedFiles(MoveFilesException exception,
+                                          Collection<FileSource> files,
+                                          @Nullable Long toFolderId) {
+        List<FilePathComposition> movedCompositions = exception.getMovedCompositions();
+        compositionsDao.updateFilesPath(movedCompositions);
+
+        Set<Long> movedIds = new HashSet<>();
+        for (FilePathComposition composition: movedCompositions) {
+            movedIds.add(composition.getId());
+        }
+        List<FileSource> movedFiles = new ArrayList<>();
+        for (FileSource file: files) {
+            if (file instanceof CompositionFileSource
+                    && movedIds.contains(((CompositionFileSource) file).getComposition().getId())) {
+                movedFiles.add(file);
+            }
+        }
+        foldersDao.updateFolderId(movedFiles, toFolderId);
+    }
+
+    /**
+     * Compositions not found in media store are skipped by batch edit, changes of other ones
+     * are already applied, so it is reported after that
+     */
+    private void checkAllFilesEdited(int editedCount, int totalCount) {
+        if (editedCount < totalCount) {
+            throw new EditFilesException(editedCount, totalCount);
+        }
+    }
+
     private Completable verifyFolderMove(@Nullable Long fromFolderId,
                                          @Nullable Long toFolderId,
                                          Collection<FileSource> files) {
@@ -481,10 +536,16 @@ public class EditorRepositoryImpl implements EditorRepository {
         });
     }
 
-    private void runSystemRescan(CompositionId composition) {
-        Long storageId = composition.getStorageId();
-        if (storageId != null) {
-            storageMusicProvider.scanMedia(storageId);
+    private void runSystemRescan(Collection<CompositionId> compositions) {
+        List<Long> storageIds = new ArrayList<>(compositions.size());
+        for (CompositionId composition: compositions) {
+            Long storageId = composition.getStorageId();
+            if (storageId != null) {
+                storageIds.add(storageId);
+            }
+        }
+        if (!storageIds.isEmpty()) {
+            storageMusicProvider.scanMedia(storageIds);
         }
     }
 
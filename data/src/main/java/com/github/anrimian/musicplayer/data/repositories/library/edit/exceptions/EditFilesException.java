@@ -0,0 +1,25 @@
+package com.github.anrimian.musicplayer.data.repositories.library.edit.exceptions;
+
+/**
+ * Tags were changed only in part of files, other files were not found in system media store.
+ * Changes are already applied to library.
+ */
+public class EditFilesException extends RuntimeException {
+
+    private final int editedCount;
+    private final int totalCount;
+
+    public EditFilesException(int editedCount, int totalCount) {
+        super("edited " + editedCount + " of " + totalCount + " files");
+        this.editedCount = editedCount;
+        this.totalCount = totalCount;
+    }
+
+    public int getEditedCount() {
+        return editedCount;
+    }
+
+    public int getTotalCount() {
+        return totalCount;
+    }
+}
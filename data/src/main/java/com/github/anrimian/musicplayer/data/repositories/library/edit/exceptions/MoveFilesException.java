@@ -0,0 +1,35 @@
+package com.github.anrimian.musicplayer.data.repositories.library.edit.exceptions;
+
+import com.github.anrimian.musicplayer.data.storage.providers.music.FilePathComposition;
+
+import java.util.List;
+
+/**
+ * Files were moved only partially. Moved files are already updated in system media store,
+ * they must be applied to library before error is shown.
+ */
+public class MoveFilesException extends RuntimeException {
+
+    private final List<FilePathComposition> movedCompositions;
+    private final int totalCount;
+
+    public MoveFilesException(List<FilePathComposition> movedCompositions,
+                              int totalCount,
+                              Throwable cause) {
+        super("moved " + movedCompositions.size() + " of " + totalCount + " files", cause);
+        this.movedCompositions = movedCompositions;
+        this.totalCount = totalCount;
+    }
+
+    public List<FilePathComposition> getMovedCompositions() {
+        return movedCompositions;
+    }
+
+    public int getMovedCount() {
+        return movedCompositions.size();
+    }
+
+    public int getTotalCount() {
+        return totalCount;
+    }
+}
@@ -6,6 +6,7 @@ import android.content.SharedPreferences;
 import com.github.anrimian.musicplayer.data.utils.preferences.SharedPreferencesHelper;
 import com.github.anrimian.musicplayer.domain.repositories.LoggerRepository;
 
+import static com.github.anrimian.musicplayer.data.repositories.logger.LoggerRepositoryImpl.Constants.PERFORMANCE_METRICS_ENABLED;
 import static com.github.anrimian.musicplayer.data.repositories.logger.LoggerRepositoryImpl.Constants.PREFERENCES_NAME;
 import static com.github.anrimian.musicplayer.data.repositories.logger.LoggerRepositoryImpl.Constants.SHOW_REPORT_DIALOG_ON_START;
 import static com.github.anrimian.musicplayer.data.repositories.logger.LoggerRepositoryImpl.Constants.WAS_CRITICAL_FATAL_ERROR;
@@ -19,6 +20,7 @@ public class LoggerRepositoryImpl implements LoggerRepository {
         String WAS_FATAL_ERROR = "was_fatal_error";
         String WAS_CRITICAL_FATAL_ERROR = "was_critical_fatal_error";
         String SHOW_REPORT_DIALOG_ON_START = "show_report_dialog_on_start";
+        String PERFORMANCE_METRICS_ENABLED = "performance_metrics_enabled";
     }
     
     private final SharedPreferencesHelper preferences;
@@ -58,6 +60,16 @@ public class LoggerRepositoryImpl implements LoggerRepository {
         return preferences.getBoolean(SHOW_REPORT_DIALOG_ON_START, true);
     }
 
+    @Override
+    public void setPerformanceMetricsEnabled(boolean enabled) {
+        preferences.putBoolean(PERFORMANCE_METRICS_ENABLED, enabled);
+    }
+
+    @Override
+    public boolean isPerformanceMetricsEnabled() {
+        return preferences.getBoolean(PERFORMANCE_METRICS_ENABLED, false);
+    }
+
     @Override
     public void clearErrorFlags() {
         setWasFatalError(false);
@@ -4,6 +4,7 @@ import static com.github.anrimian.musicplayer.data.repositories.state.UiStateRep
 import static com.github.anrimian.musicplayer.domain.Constants.NO_POSITION;
 
 import com.github.anrimian.musicplayer.data.database.dao.play_queue.PlayQueueDaoWrapper;
+import com.github.anrimian.musicplayer.data.utils.dev.PerformanceMetrics;
 import com.github.anrimian.musicplayer.domain.models.composition.Composition;
 import com.github.anrimian.musicplayer.domain.models.play_queue.PlayQueueEvent;
 import com.github.anrimian.musicplayer.domain.models.play_queue.PlayQueueItem;
@@ -12,7 +13,9 @@ import com.github.anrimian.musicplayer.domain.repositories.SettingsRepository;
 import com.github.anrimian.musicplayer.domain.repositories.UiStateRepository;
 import com.github.anrimian.musicplayer.domain.utils.functions.Optional;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import javax.annotation.Nullable;
 
@@ -78,10 +81,15 @@ public class PlayQueueRepositoryImpl implements PlayQueueRepository {
 
     @Override
     public Flowable<Integer> getCurrentItemPositionObservable() {
+        //index is taken from loaded queue, counting it in database is linear for each change
         return Observable.combineLatest(uiStatePreferences.getCurrentItemIdObservable(),
-                settingsPreferences.getRandomPlayingObservable(),
-                playQueueDao::getIndexPositionObservable)
-                .switchMap(observable -> observable)
+                playQueueObservable.toObservable().map(this::toIndexMap),
+                (id, indexMap) -> {
+                    Integer index = indexMap.get(id);
+                    return index == null? -1 : index;
+                })
+                .filter(index -> index >= 0)
+                .distinctUntilChanged()
                 .toFlowable(BackpressureStrategy.LATEST);
     }
 
@@ -99,8 +107,10 @@ public class PlayQueueRepositoryImpl implements PlayQueueRepository {
     public void setRandomPlayingEnabled(boolean enabled) {
         Completable.fromAction(() -> {
             if (enabled) {
+                long startTime = PerformanceMetrics.startTimer();
                 long itemId = uiStatePreferences.getCurrentQueueItemId();
                 playQueueDao.reshuffleQueue(itemId);
+                PerformanceMetrics.stopTimer(PerformanceMetrics.QUEUE_RESHUFFLE, startTime);
             }
             settingsPreferences.setRandomPlayingEnabled(enabled);
         }).subscribeOn(scheduler)
@@ -110,15 +120,36 @@ public class PlayQueueRepositoryImpl implements PlayQueueRepository {
     @Override
     public Single<Integer> skipToNext() {
         return Single.fromCallable(() -> {
+            long startTime = PerformanceMetrics.startTimer();
             long currentItemId = uiStatePreferences.getCurrentQueueItemId();
             boolean isShuffled = settingsPreferences.isRandomPlayingEnabled();
             long nextQueueItemId = playQueueDao.getNextQueueItemId(currentItemId, isShuffled);
             setCurrentItem(nextQueueItemId);
 
-            return playQueueDao.getPosition(nextQueueItemId, isShuffled);
+            int position = playQueueDao.getIndexPosition(nextQueueItemId, isShuffled);
+            PerformanceMetrics.stopTimer(PerformanceMetrics.QUEUE_SKIP_TO_NEXT, startTime);
+            return position;
         }).subscribeOn(scheduler);
     }
 
+    @Override
+    public Observable<Optional<PlayQueueItem>> getNextQueueItemObservable(boolean loop) {
+        return uiStatePreferences.getCurrentItemIdObservable()
+                .switchMap(id -> {
+                    if (id == NO_ITEM) {
+                        return Observable.just(new Optional<PlayQueueItem>(null));
+                    }
+                    return settingsPreferences.getRandomPlayingObservable()
+                            .switchMap(isRandom -> settingsPreferences.getDisplayFileNameObservable()
+                                    .switchMap(useFileName -> playQueueDao.getNextItemObservable(id,
+                                            isRandom,
+                                            loop,
+                                            useFileName))
+                            );
+                })
+                .subscribeOn(scheduler);
+    }
+
     @Override
     public void skipToPrevious() {
         Completable.fromAction(() -> {
@@ -163,8 +194,10 @@ public class PlayQueueRepositoryImpl implements PlayQueueRepository {
     @Override
     public Completable addCompositionsToPlayNext(List<Composition> compositions) {
         return Completable.fromRunnable(() -> {
+            long startTime = PerformanceMetrics.startTimer();
             long id = uiStatePreferences.getCurrentQueueItemId();
             long firstId = playQueueDao.addCompositionsToQueue(compositions, id);
+            PerformanceMetrics.stopTimer(PerformanceMetrics.QUEUE_ADD, startTime);
             if (id == NO_ITEM) {
                 setCurrentItem(firstId);
             }
@@ -174,8 +207,10 @@ public class PlayQueueRepositoryImpl implements PlayQueueRepository {
     @Override
     public Completable addCompositionsToEnd(List<Composition> compositions) {
         return Completable.fromRunnable(() -> {
+            long startTime = PerformanceMetrics.startTimer();
             long id = uiStatePreferences.getCurrentQueueItemId();
             long firstId = playQueueDao.addCompositionsToEndQueue(compositions);
+            PerformanceMetrics.stopTimer(PerformanceMetrics.QUEUE_ADD, startTime);
             if (id == NO_ITEM) {
                 setCurrentItem(firstId);
             }
@@ -225,11 +260,21 @@ public class PlayQueueRepositoryImpl implements PlayQueueRepository {
                 .subscribe();//scheduler?
     }
 
+    private Map<Long, Integer> toIndexMap(List<PlayQueueItem> queue) {
+        Map<Long, Integer> indexMap = new HashMap<>(queue.size());
+        for (int i = 0; i < queue.size(); i++) {
+            indexMap.put(queue.get(i).getId(), i);
+        }
+        return indexMap;
+    }
+
     private void insertNewQueue(List<Composition> compositions, int startPosition) {
         consumeDeletedItemEvent = true;
+        long startTime = PerformanceMetrics.startTimer();
         long itemId = playQueueDao.insertNewPlayQueue(compositions,
                 settingsPreferences.isRandomPlayingEnabled(),
                 startPosition);
+        PerformanceMetrics.stopTimer(PerformanceMetrics.QUEUE_SET, startTime);
         setCurrentItem(itemId);
         consumeDeletedItemEvent = false;
     }
@@ -9,26 +9,36 @@ import androidx.core.util.Pair;
 import com.github.anrimian.musicplayer.data.database.dao.compositions.CompositionsDaoWrapper;
 import com.github.anrimian.musicplayer.data.database.dao.genre.GenresDaoWrapper;
 import com.github.anrimian.musicplayer.data.database.entities.IdPair;
+import com.github.anrimian.musicplayer.data.repositories.scanner.StorageCompositionAnalyzer.DeltaResult;
 import com.github.anrimian.musicplayer.data.repositories.scanner.files.FileScanner;
+import com.github.anrimian.musicplayer.data.repositories.scanner.loudness.LoudnessAnalyzer;
 import com.github.anrimian.musicplayer.data.storage.exceptions.ContentResolverQueryException;
 import com.github.anrimian.musicplayer.data.storage.providers.genres.StorageGenre;
 import com.github.anrimian.musicplayer.data.storage.providers.genres.StorageGenreItem;
 import com.github.anrimian.musicplayer.data.storage.providers.genres.StorageGenresProvider;
-import com.github.anrimian.musicplayer.data.storage.providers.music.StorageFullComposition;
+import com.github.anrimian.musicplayer.data.storage.providers.music.StorageCompositionColumns;
 import com.github.anrimian.musicplayer.data.storage.providers.music.StorageMusicProvider;
 import com.github.anrimian.musicplayer.data.storage.providers.playlists.StoragePlayList;
 import com.github.anrimian.musicplayer.data.storage.providers.playlists.StoragePlayListsProvider;
 import com.github.anrimian.musicplayer.data.utils.collections.AndroidCollectionUtils;
+import com.github.anrimian.musicplayer.data.utils.dev.PerformanceMetrics;
+import com.github.anrimian.musicplayer.data.utils.rx.content_observer.ChangeCoalescer;
 import com.github.anrimian.musicplayer.domain.interactors.analytics.Analytics;
 import com.github.anrimian.musicplayer.domain.models.scanner.FileScannerState;
+import com.github.anrimian.musicplayer.domain.models.scanner.Idle;
 import com.github.anrimian.musicplayer.domain.repositories.LoggerRepository;
 import com.github.anrimian.musicplayer.domain.repositories.MediaScannerRepository;
 import com.github.anrimian.musicplayer.domain.repositories.SettingsRepository;
+import com.github.anrimian.musicplayer.domain.repositories.StateRepository;
+import com.github.anrimian.musicplayer.domain.utils.functions.Function;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nullable;
 
 import io.reactivex.rxjava3.core.Completable;
 import io.reactivex.rxjava3.core.Observable;
@@ -39,6 +49,7 @@ import io.reactivex.rxjava3.disposables.Disposable;
 public class MediaScannerRepositoryImpl implements MediaScannerRepository {
 
     private static final int RETRY_COUNT = 5;
+    private static final long FULL_SCAN_INTERVAL_MILLIS = TimeUnit.DAYS.toMillis(1);
 
     private final StorageMusicProvider musicProvider;
     private final StoragePlayListsProvider playListsProvider;
@@ -46,27 +57,37 @@ public class MediaScannerRepositoryImpl implements MediaScannerRepository {
     private final CompositionsDaoWrapper compositionsDao;
     private final GenresDaoWrapper genresDao;
     private final SettingsRepository settingsRepository;
+    private final StateRepository stateRepository;
     private final StorageCompositionAnalyzer compositionAnalyzer;
     private final StoragePlaylistAnalyzer playlistAnalyzer;
     private final FileScanner fileScanner;
+    private final Function<LoudnessAnalyzer> loudnessAnalyzerProvider;
     private final LoggerRepository loggerRepository;
     private final Analytics analytics;
+    private final ChangeCoalescer changeCoalescer;
     private final Scheduler scheduler;
 
     private final CompositeDisposable mediaStoreDisposable = new CompositeDisposable();
     private final LongSparseArray<Disposable> genreEntriesDisposable = new LongSparseArray<>();
 
+    //created only when volume normalization is enabled
+    @Nullable
+    private LoudnessAnalyzer loudnessAnalyzer;
+
     public MediaScannerRepositoryImpl(StorageMusicProvider musicProvider,
                                       StoragePlayListsProvider playListsProvider,
                                       StorageGenresProvider genresProvider,
                                       CompositionsDaoWrapper compositionsDao,
                                       GenresDaoWrapper genresDao,
                                       SettingsRepository settingsRepository,
+                                      StateRepository stateRepository,
                                       StorageCompositionAnalyzer compositionAnalyzer,
                                       StoragePlaylistAnalyzer playlistAnalyzer,
                                       FileScanner fileScanner,
+                                      Function<LoudnessAnalyzer> loudnessAnalyzerProvider,
                                       LoggerRepository loggerRepository,
                                       Analytics analytics,
+                                      ChangeCoalescer changeCoalescer,
                                       Scheduler scheduler) {
         this.musicProvider = musicProvider;
         this.playListsProvider = playListsProvider;
@@ -74,17 +95,20 @@ public class MediaScannerRepositoryImpl implements MediaScannerRepository {
         this.compositionsDao = compositionsDao;
         this.genresDao = genresDao;
         this.settingsRepository = settingsRepository;
+        this.stateRepository = stateRepository;
         this.compositionAnalyzer = compositionAnalyzer;
         this.playlistAnalyzer = playlistAnalyzer;
         this.fileScanner = fileScanner;
+        this.loudnessAnalyzerProvider = loudnessAnalyzerProvider;
         this.loggerRepository = loggerRepository;
         this.analytics = analytics;
+        this.changeCoalescer = changeCoalescer;
         this.scheduler = scheduler;
     }
 
     @Override
     public void runStorageObserver() {
-        runRescanStorage()
+        runStartupScan()
                 .doOnComplete(this::subscribeOnMediaStoreChanges)
                 .subscribe();
     }
@@ -112,20 +136,25 @@ public class MediaScannerRepositoryImpl implements MediaScannerRepository {
     }
 
     private void subscribeOnMediaStoreChanges() {
-        mediaStoreDisposable.add(getCompositionsObservable()
-                .subscribeOn(scheduler)
-                .observeOn(scheduler)
-                .doOnNext(compositionAnalyzer::applyCompositionsData)
-                .doOnNext(o -> fileScanner.scheduleFileScanner())
+        mediaStoreDisposable.add(changeCoalescer.process(
+                getStorageChangeObservable().subscribeOn(scheduler),
+                (settings, isStale) -> runDeltaScan(settings.first, settings.second, isStale))
                 .retry(RETRY_COUNT, this::isStandardError)
                 .onErrorComplete(this::isStandardError)
-                .subscribe(o -> {}));
+                .subscribe());
         mediaStoreDisposable.add(playListsProvider.getPlayListsObservable()
                 .subscribeOn(scheduler)
                 .doOnNext(playlistAnalyzer::applyPlayListData)
                 .retry(RETRY_COUNT, this::isStandardError)
                 .onErrorComplete(this::isStandardError)
                 .subscribe(o -> {}));
+        //decoding files while file scanner is running only slows down both of them
+        mediaStoreDisposable.add(Observable.combineLatest(
+                settingsRepository.getVolumeNormalizationEnabledObservable(),
+                fileScanner.getStateObservable(),
+                (enabled, state) -> enabled && state == Idle.INSTANCE)
+                .distinctUntilChanged()
+                .subscribe(this::onLoudnessAnalysisAllowed));
 
         //genre in files and genre in media store are ofter different, we need deep file scanner for them
         //<return genres after deep scan implementation>
@@ -135,28 +164,148 @@ public class MediaScannerRepositoryImpl implements MediaScannerRepository {
 //        subscribeOnGenresData();
     }
 
+    private void onLoudnessAnalysisAllowed(boolean allowed) {
+        if (allowed) {
+            if (loudnessAnalyzer == null) {
+                loudnessAnalyzer = loudnessAnalyzerProvider.call();
+            }
+            loudnessAnalyzer.scheduleAnalysis();
+        } else if (loudnessAnalyzer != null) {
+            loudnessAnalyzer.cancelAnalysis();
+        }
+    }
+
     //update on change settings not working
-    private Observable<LongSparseArray<StorageFullComposition>> getCompositionsObservable() {
+    private Observable<Pair<Long, Boolean>> getStorageChangeObservable() {
         return Observable.combineLatest(
                 settingsRepository.getAudioFileMinDurationMillisObservable(),
                 settingsRepository.getShowAllAudioFilesEnabledObservable(),
                 Pair::new
-        ).switchMap(settings -> musicProvider.getCompositionsObservable(
-                settings.first,
-                settings.second
-        ));
+        ).switchMap(settings -> musicProvider.getStorageChangeObservable().map(o -> settings));
+    }
+
+    /**
+     * Reads only media store rows changed since the last scan mark. Full scan is still
+     * launched periodically as consistency check or when changes can't be applied partially.
+     * Runs one at a time, result of stale scan is dropped before it is applied.
+     */
+    private synchronized void runDeltaScan(long minAudioDurationMillis,
+                                           boolean showAllAudioFiles,
+                                           Function<Boolean> isStale) {
+        long scanTime = System.currentTimeMillis();
+        long startTime = PerformanceMetrics.startTimer();
+        if (scanTime - stateRepository.getLastFullStorageScanTime() > FULL_SCAN_INTERVAL_MILLIS) {
+            if (runFullScan(minAudioDurationMillis, showAllAudioFiles, isStale)) {
+                fileScanner.scheduleFileScanner();
+            }
+            return;
+        }
+
+        long lastStorageId = stateRepository.getLastStorageScanId();
+        StorageCompositionColumns changedCompositions = musicProvider.getChangedCompositions(
+                minAudioDurationMillis,
+                showAllAudioFiles,
+                stateRepository.getLastStorageScanModifyTime(),
+                lastStorageId
+        );
+        Set<Long> actualStorageIds = musicProvider.getCompositionIds(
+                minAudioDurationMillis,
+                showAllAudioFiles
+        );
+        if (changedCompositions == null || actualStorageIds == null || isStale.call()) {
+            return;
+        }
+        //analyzer can modify map, so calculate it before
+        long maxStorageId = Math.max(lastStorageId, changedCompositions.getMaxId());
+        DeltaResult result = compositionAnalyzer.applyCompositionsDelta(changedCompositions, actualStorageIds);
+        if (result != DeltaResult.FULL_SCAN_REQUIRED) {
+            stateRepository.setLastStorageScanMark(toStorageTime(scanTime), maxStorageId);
+            PerformanceMetrics.stopTimer(PerformanceMetrics.SCANNER_STORAGE_DELTA_SCAN, startTime);
+            if (result == DeltaResult.COMPOSITIONS_ADDED) {
+                syncAllPlayLists();
+            }
+        } else if (!runFullScan(minAudioDurationMillis, showAllAudioFiles, isStale)) {
+            return;
+        }
+        fileScanner.scheduleFileScanner();
+    }
+
+    private boolean runFullScan(long minAudioDurationMillis, boolean showAllAudioFiles) {
+        return runFullScan(minAudioDurationMillis, showAllAudioFiles, () -> false);
+    }
+
+    /**
+     * @param isStale checked after media store query, stale result is not applied
+     */
+    private boolean runFullScan(long minAudioDurationMillis,
+                                boolean showAllAudioFiles,
+                                Function<Boolean> isStale) {
+        long scanTime = System.currentTimeMillis();
+        long startTime = PerformanceMetrics.startTimer();
+        StorageCompositionColumns compositions = musicProvider.getCompositionColumns(
+                minAudioDurationMillis,
+                showAllAudioFiles
+        );
+        if (compositions == null || isStale.call()) {
+            return false;
+        }
+        long maxStorageId = compositions.getMaxId();
+        boolean compositionsAdded = compositionAnalyzer.applyCompositionsData(compositions);
+        stateRepository.setLastStorageScanMark(toStorageTime(scanTime), maxStorageId);
+        stateRepository.setLastFullStorageScanTime(scanTime);
+        PerformanceMetrics.stopTimer(PerformanceMetrics.SCANNER_STORAGE_FULL_SCAN, startTime);
+        if (compositionsAdded) {
+            syncAllPlayLists();
+        }
+        return true;
+    }
+
+    //playlist items skipped because their compositions were not in library can be resolved now
+    private void syncAllPlayLists() {
+        LongSparseArray<StoragePlayList> playlists = playListsProvider.getPlayLists();
+        if (playlists != null) {
+            playlistAnalyzer.applyPlayListData(playlists, true);
+        }
+    }
+
+    //media store keeps dates in seconds
+    private long toStorageTime(long millis) {
+        return TimeUnit.MILLISECONDS.toSeconds(millis);
+    }
+
+    /**
+     * Full scan of big library takes seconds and competes with restoring of playback on start,
+     * so when library was fully scanned recently only media store rows changed since the last
+     * launch are applied. Delta scan itself falls back to full scan when it's outdated.
+     */
+    private Completable runStartupScan() {
+        return Completable.fromAction(() -> {
+            long startTime = PerformanceMetrics.startTimer();
+            runDeltaScan(
+                    settingsRepository.getAudioFileMinDurationMillis(),
+                    settingsRepository.isShowAllAudioFilesEnabled(),
+                    () -> false
+            );
+            //playlist observer doesn't know about changes made while app was not running
+            LongSparseArray<StoragePlayList> playlists = playListsProvider.getPlayLists();
+            if (playlists != null) {
+                playlistAnalyzer.applyPlayListData(playlists);
+            }
+            PerformanceMetrics.stopTimer(PerformanceMetrics.STARTUP_STORAGE_SCAN, startTime);
+        }).onErrorResumeNext(this::processError)
+                .doOnError(e -> loggerRepository.setWasCriticalFatalError(true))
+                .subscribeOn(scheduler);
     }
 
     private Completable runRescanStorage() {
         return Completable.fromAction(() -> {
-            LongSparseArray<StorageFullComposition> compositions = musicProvider.getCompositions(
+            boolean scanned = runFullScan(
                     settingsRepository.getAudioFileMinDurationMillis(),
                     settingsRepository.isShowAllAudioFilesEnabled()
             );
-            if (compositions == null) {
+            if (!scanned) {
                 return;
             }
-            compositionAnalyzer.applyCompositionsData(compositions);
             LongSparseArray<StoragePlayList> playlists = playListsProvider.getPlayLists();
             if (playlists == null) {
                 return;
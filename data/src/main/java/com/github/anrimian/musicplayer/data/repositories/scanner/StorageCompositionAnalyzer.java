@@ -14,29 +14,36 @@ import com.github.anrimian.musicplayer.data.repositories.scanner.nodes.LocalFold
 import com.github.anrimian.musicplayer.data.repositories.scanner.nodes.NodeTreeBuilder;
 import com.github.anrimian.musicplayer.data.storage.providers.albums.StorageAlbum;
 import com.github.anrimian.musicplayer.data.storage.providers.music.StorageComposition;
+import com.github.anrimian.musicplayer.data.storage.providers.music.StorageCompositionColumns;
 import com.github.anrimian.musicplayer.data.storage.providers.music.StorageFullComposition;
-import com.github.anrimian.musicplayer.data.utils.collections.AndroidCollectionUtils;
 import com.github.anrimian.musicplayer.domain.repositories.StateRepository;
 import com.github.anrimian.musicplayer.domain.utils.Objects;
 import com.github.anrimian.musicplayer.domain.utils.TextUtils;
-import com.github.anrimian.musicplayer.domain.utils.validation.DateUtils;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
 
 import javax.annotation.Nullable;
 
-import io.reactivex.rxjava3.core.Observable;
-
 public class StorageCompositionAnalyzer {
 
+    public enum DeltaResult {
+        //changes can't be applied partially (e.g. root folder changed), full scan is required
+        FULL_SCAN_REQUIRED,
+        APPLIED,
+        //applied and new compositions were added to library
+        COMPOSITIONS_ADDED
+    }
+
     private final CompositionsDaoWrapper compositionsDao;
     private final FoldersDaoWrapper foldersDao;
     private final StateRepository stateRepository;
     private final StorageCompositionsInserter compositionsInserter;
 
-    private final FolderTreeBuilder<StorageFullComposition, Long> folderTreeBuilder;
     private final NodeTreeBuilder nodeTreeBuilder = new NodeTreeBuilder();
     private final FolderMerger folderMerger = new FolderMerger();
 
@@ -48,11 +55,6 @@ public class StorageCompositionAnalyzer {
         this.foldersDao = foldersDao;
         this.stateRepository = stateRepository;
         this.compositionsInserter = compositionsInserter;
-
-        folderTreeBuilder = new FolderTreeBuilder<>(
-                StorageFullComposition::getRelativePath,
-                StorageFullComposition::getId
-        );
     }
 
     //remove filePath from db - we detect move changes by tree analyzer
@@ -60,9 +62,16 @@ public class StorageCompositionAnalyzer {
     //rework analyzer to only tree analyzer(
 
     //there can be in addedFilesFolderMap composition storage id with non-existing folder id
-    public synchronized void applyCompositionsData(
-            LongSparseArray<StorageFullComposition> actualCompositionsMap) {//at the end check file path to relative path migration
-        FolderNode<Long> actualFolderTree = folderTreeBuilder.createFileTree(fromSparseArray(actualCompositionsMap));
+    public boolean applyCompositionsData(LongSparseArray<StorageFullComposition> actualCompositionsMap) {
+        return applyCompositionsData(StorageCompositionColumns.of(actualCompositionsMap));
+    }
+
+    /**
+     * @return true if new compositions were added to library
+     */
+    public synchronized boolean applyCompositionsData(
+            StorageCompositionColumns actualCompositionsMap) {//at the end check file path to relative path migration
+        FolderNode<Long> actualFolderTree = createFileTree(actualCompositionsMap);
 
         StringBuilder sbRootPath = new StringBuilder();
         actualFolderTree = cutEmptyRootNodes(actualFolderTree, sbRootPath);
@@ -86,12 +95,12 @@ public class StorageCompositionAnalyzer {
         List<StorageFullComposition> addedCompositions = new ArrayList<>();
         List<StorageComposition> deletedCompositions = new ArrayList<>();
         List<Change<StorageComposition, StorageFullComposition>> changedCompositions = new ArrayList<>();
-        boolean hasChanges = AndroidCollectionUtils.processDiffChanges(currentCompositionsMap,
+        boolean hasChanges = processDiffChanges(currentCompositionsMap,
                 actualCompositionsMap,
-                (first, second) -> hasActualChanges(first, second) || addedFilesFolderMap.containsKey(first.getStorageId()),
-                deletedCompositions::add,
-                addedCompositions::add,
-                (oldItem, newItem) -> changedCompositions.add(new Change<>(oldItem, newItem)));
+                addedFilesFolderMap,
+                deletedCompositions,
+                addedCompositions,
+                changedCompositions);
 
         if (hasChanges) {
             compositionsInserter.applyChanges(foldersToInsert,
@@ -101,10 +110,95 @@ public class StorageCompositionAnalyzer {
                     addedFilesFolderMap,
                     foldersToDelete);
         }
+        return !addedCompositions.isEmpty();
+    }
+
+    /**
+     * Applies only rows changed since the last scan mark instead of the whole media store.
+     *
+     * @param changedCompositionsMap media store rows changed since the last scan mark
+     * @param actualStorageIds ids of all rows which are currently in media store,
+     *                         used to detect deleted compositions
+     * @return {@link DeltaResult#FULL_SCAN_REQUIRED} if changes can't be applied partially
+     * (e.g. root folder changed)
+     */
+    public DeltaResult applyCompositionsDelta(
+            LongSparseArray<StorageFullComposition> changedCompositionsMap,
+            Set<Long> actualStorageIds) {
+        return applyCompositionsDelta(StorageCompositionColumns.of(changedCompositionsMap),
+                actualStorageIds);
+    }
+
+    public synchronized DeltaResult applyCompositionsDelta(
+            StorageCompositionColumns changedCompositionsMap,
+            Set<Long> actualStorageIds) {
+        List<Long> affectedStorageIds = new ArrayList<>();
+        for (Long storageId: compositionsDao.selectAllStorageIds()) {
+            if (!actualStorageIds.contains(storageId)) {
+                affectedStorageIds.add(storageId);
+            }
+        }
+        if (changedCompositionsMap.isEmpty() && affectedStorageIds.isEmpty()) {
+            return DeltaResult.APPLIED;
+        }
+        for(int row = 0, count = changedCompositionsMap.getRowCount(); row < count; row++) {
+            affectedStorageIds.add(changedCompositionsMap.getId(row));
+        }
+
+        FolderNode<Long> actualFolderTree = new FolderNode<>(null);
+        if (!changedCompositionsMap.isEmpty()) {
+            actualFolderTree = createFileTree(changedCompositionsMap);
+
+            //we don't know how new files affect root folder, let full scan cut it
+            String rootPath = stateRepository.getRootFolderPath();
+            if (rootPath != null) {
+                actualFolderTree = findFolder(actualFolderTree, rootPath);
+            }
+            if (actualFolderTree == null
+                    || getAllCompositionsInNode(actualFolderTree).size() != changedCompositionsMap.size()) {
+                return DeltaResult.FULL_SCAN_REQUIRED;
+            }
+        }
+
+        excludeCompositions(actualFolderTree, changedCompositionsMap);
+
+        List<StorageFolder> storageFolders = foldersDao.getAllFolders();
+        LongSparseArray<StorageComposition> currentCompositionsMap = compositionsDao.selectAsStorageCompositions(affectedStorageIds);
+
+        LocalFolderNode<Long> currentFolderTree = nodeTreeBuilder.createTreeFromIdMap(
+                storageFolders,
+                currentCompositionsMap);
+
+        //partial tree doesn't contain untouched folders, so we don't delete folders here.
+        //Folders emptied by these changes are removed by inserter
+        List<Long> foldersToDelete = new LinkedList<>();
+        List<AddedNode> foldersToInsert = new LinkedList<>();
+        LongSparseArray<Long> addedFilesFolderMap = new LongSparseArray<>();
+        folderMerger.mergeFolderTrees(actualFolderTree, currentFolderTree, foldersToDelete, foldersToInsert, addedFilesFolderMap);
+
+        List<StorageFullComposition> addedCompositions = new ArrayList<>();
+        List<StorageComposition> deletedCompositions = new ArrayList<>();
+        List<Change<StorageComposition, StorageFullComposition>> changedCompositions = new ArrayList<>();
+        boolean hasChanges = processDiffChanges(currentCompositionsMap,
+                changedCompositionsMap,
+                addedFilesFolderMap,
+                deletedCompositions,
+                addedCompositions,
+                changedCompositions);
+
+        if (hasChanges) {
+            compositionsInserter.applyChanges(foldersToInsert,
+                    addedCompositions,
+                    deletedCompositions,
+                    changedCompositions,
+                    addedFilesFolderMap,
+                    Collections.emptyList());
+        }
+        return addedCompositions.isEmpty()? DeltaResult.APPLIED : DeltaResult.COMPOSITIONS_ADDED;
     }
 
     private void excludeCompositions(FolderNode<Long> folderTree,
-                                     LongSparseArray<StorageFullComposition> compositions) {
+                                     StorageCompositionColumns compositions) {
         String[] ignoresFolders = foldersDao.getIgnoredFolders();
         for (String ignoredFoldersPath: ignoresFolders) {
 
@@ -165,37 +259,85 @@ public class StorageCompositionAnalyzer {
         return result;
     }
 
-    private <T> Observable<T> fromSparseArray(LongSparseArray<T> sparseArray) {
-        return Observable.create(emitter -> {
-            for(int i = 0, size = sparseArray.size(); i < size; i++) {
-                T existValue = sparseArray.valueAt(i);
-                emitter.onNext(existValue);
+    private FolderNode<Long> createFileTree(StorageCompositionColumns compositions) {
+        FolderTreeBuilder.TreeAppender<Long> treeAppender = new FolderTreeBuilder.TreeAppender<>();
+        for (int row = 0, rowCount = compositions.getRowCount(); row < rowCount; row++) {
+            if (!compositions.isRemoved(row)) {
+                treeAppender.add(compositions.getRelativePath(row), compositions.getId(row));
+            }
+        }
+        return treeAppender.getRoot();
+    }
+
+    /**
+     * Both sets are sorted by storage id, so they are compared in one pass.
+     * Objects are created only for added and changed compositions.
+     */
+    private boolean processDiffChanges(LongSparseArray<StorageComposition> currentCompositions,
+                                       StorageCompositionColumns actualCompositions,
+                                       LongSparseArray<Long> addedFilesFolderMap,
+                                       List<StorageComposition> deletedCompositions,
+                                       List<StorageFullComposition> addedCompositions,
+                                       List<Change<StorageComposition, StorageFullComposition>> changedCompositions) {
+        boolean hasChanges = false;
+        int currentIndex = 0;
+        int currentSize = currentCompositions.size();
+        int row = 0;
+        int rowCount = actualCompositions.getRowCount();
+        while (currentIndex < currentSize || row < rowCount) {
+            if (row < rowCount && actualCompositions.isRemoved(row)) {
+                row++;
+                continue;
+            }
+            long currentId = currentIndex < currentSize? currentCompositions.keyAt(currentIndex) : Long.MAX_VALUE;
+            long actualId = row < rowCount? actualCompositions.getId(row) : Long.MAX_VALUE;
+            if (currentIndex < currentSize && (row == rowCount || currentId < actualId)) {
+                deletedCompositions.add(currentCompositions.valueAt(currentIndex++));
+                hasChanges = true;
+            } else if (currentIndex == currentSize || actualId < currentId) {
+                addedCompositions.add(actualCompositions.get(row++));
+                hasChanges = true;
+            } else {
+                StorageComposition current = currentCompositions.valueAt(currentIndex++);
+                if (hasActualChanges(current, actualCompositions, row)
+                        || addedFilesFolderMap.containsKey(current.getStorageId())) {
+                    changedCompositions.add(new Change<>(current, actualCompositions.get(row)));
+                    hasChanges = true;
+                }
+                row++;
             }
-            emitter.onComplete();
-        });
+        }
+        return hasChanges;
     }
 
-    private boolean hasActualChanges(StorageComposition first, StorageFullComposition second) {
-        if (!DateUtils.isAfter(second.getDateModified(), first.getDateModified())
-                || !DateUtils.isAfter(second.getDateModified(), first.getLastScanDate())) {
+    private boolean hasActualChanges(StorageComposition first,
+                                     StorageCompositionColumns compositions,
+                                     int row) {
+        Date dateModified = first.getDateModified();
+        Date lastScanDate = first.getLastScanDate();
+        long newDateModified = compositions.getDateModified(row);
+        if (dateModified == null || lastScanDate == null
+                || newDateModified <= dateModified.getTime()
+                || newDateModified <= lastScanDate.getTime()) {
             return false;
         }
 
         String newAlbumName = null;
         String newAlbumArtist = null;
-        StorageAlbum newAlbum = second.getStorageAlbum();
+        StorageAlbum newAlbum = compositions.getStorageAlbum(row);
         if (newAlbum != null) {
             newAlbumName = newAlbum.getAlbum();
             newAlbumArtist = newAlbum.getArtist();
         }
 
-        return !(Objects.equals(first.getDateAdded(), second.getDateAdded())
-                && first.getDuration() == second.getDuration()
-                && Objects.equals(first.getFilePath(), second.getRelativePath())
-                && first.getSize() == second.getSize()
-                && Objects.equals(first.getTitle(), second.getTitle())
-                && Objects.equals(first.getFileName(), second.getFileName())
-                && Objects.equals(first.getArtist(), second.getArtist())
+        Date dateAdded = first.getDateAdded();
+        return !(dateAdded != null && dateAdded.getTime() == compositions.getDateAdded(row)
+                && first.getDuration() == compositions.getDuration(row)
+                && Objects.equals(first.getFilePath(), compositions.getRelativePath(row))
+                && first.getSize() == compositions.getSize(row)
+                && Objects.equals(first.getTitle(), compositions.getTitle(row))
+                && Objects.equals(first.getFileName(), compositions.getFileName(row))
+                && Objects.equals(first.getArtist(), compositions.getArtist(row))
                 && Objects.equals(first.getAlbum(), newAlbumName)
                 && Objects.equals(first.getAlbumArtist(), newAlbumArtist));
     }
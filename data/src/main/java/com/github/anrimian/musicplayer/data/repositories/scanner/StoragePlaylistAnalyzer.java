@@ -14,7 +14,9 @@ import com.github.anrimian.musicplayer.domain.utils.Objects;
 import com.github.anrimian.musicplayer.domain.utils.validation.DateUtils;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 public class StoragePlaylistAnalyzer {
 
@@ -27,38 +29,143 @@ public class StoragePlaylistAnalyzer {
         this.playListsProvider = playListsProvider;
     }
 
-    public synchronized void applyPlayListData(LongSparseArray<StoragePlayList> newPlayLists) {
+    public void applyPlayListData(LongSparseArray<StoragePlayList> newPlayLists) {
+        applyPlayListData(newPlayLists, false);
+    }
+
+    /**
+     * @param syncAllItems read items of all playlists, not only of new and modified ones. Used
+     *                     when compositions were added, so skipped playlist items can be resolved
+     */
+    public synchronized void applyPlayListData(LongSparseArray<StoragePlayList> newPlayLists,
+                                               boolean syncAllItems) {
         List<AppPlayList> currentPlayLists = playListsDao.getAllAsStoragePlayLists();
         LongSparseArray<AppPlayList> currentPlayListsMap = AndroidCollectionUtils.mapToSparseArray(currentPlayLists,
                 AppPlayList::getStorageId);
 
-        List<Pair<StoragePlayList, List<StoragePlayListItem>>> addedPlayLists = new ArrayList<>();
+        List<StoragePlayList> addedPlayLists = new ArrayList<>();
         List<Change<AppPlayList, StoragePlayList>> changedPlayLists = new ArrayList<>();
-        boolean hasChanges = AndroidCollectionUtils.processDiffChanges(currentPlayListsMap,
+        AndroidCollectionUtils.processDiffChanges(currentPlayListsMap,
                 newPlayLists,
                 this::hasActualChanges,
                 playList -> {},
-                item -> addedPlayLists.add(new Pair<>(item, playListsProvider.getPlayListItems(item.getStorageId()))),
+                addedPlayLists::add,
                 (old, item) -> changedPlayLists.add(new Change<>(old, item)));
 
-        //add items to empty existing playlist
-        List<Pair<AppPlayList, List<StoragePlayListItem>>> itemsToInsert = new ArrayList<>();
-        for (AppPlayList currentPlayList: currentPlayLists) {
-            if (playListsDao.getPlayListItemsCount(currentPlayList.getId()) == 0) {
-                List<StoragePlayListItem> items = playListsProvider.getPlayListItems(currentPlayList.getStorageId());
-                if (!items.isEmpty()) {
-                    itemsToInsert.add(new Pair<>(currentPlayList, items));
+        //items are read for new and modified playlists only
+        Set<Long> notEmptyPlayLists = playListsDao.getNotEmptyPlayListIds();
+        List<AppPlayList> playListsToSync = new ArrayList<>();
+        if (syncAllItems) {
+            for (AppPlayList currentPlayList: currentPlayLists) {
+                if (newPlayLists.get(currentPlayList.getStorageId()) != null) {
+                    playListsToSync.add(currentPlayList);
                 }
             }
+        } else {
+            for (Change<AppPlayList, StoragePlayList> change: changedPlayLists) {
+                AppPlayList playList = change.getOld();
+                if (isModifiedInStorage(playList, change.getObj())) {
+                    playListsToSync.add(playList);
+                }
+            }
+        }
+        if (addedPlayLists.isEmpty() && changedPlayLists.isEmpty() && playListsToSync.isEmpty()) {
+            return;
         }
 
-        if (hasChanges) {
-            playListsDao.applyChanges(addedPlayLists, changedPlayLists, itemsToInsert);
+        Set<Long> storageIds = new HashSet<>();
+        for (StoragePlayList playList: addedPlayLists) {
+            storageIds.add(playList.getStorageId());
+        }
+        for (AppPlayList playList: playListsToSync) {
+            storageIds.add(playList.getStorageId());
+        }
+        LongSparseArray<List<StoragePlayListItem>> storageItems = playListsProvider.getPlayListsItems(storageIds);
+
+        List<Long> modifiedPlayListIds = new ArrayList<>();
+        for (AppPlayList playList: playListsToSync) {
+            if (notEmptyPlayLists.contains(playList.getId())) {
+                modifiedPlayListIds.add(playList.getId());
+            }
+        }
+        LongSparseArray<List<StoragePlayListItem>> currentItems = playListsDao.getPlayListsItemsAsStorageItems(modifiedPlayListIds);
+
+        //items without compositions in library are not stored, so they are not compared
+        Set<Long> syncedAudioIds = new HashSet<>();
+        for (AppPlayList playList: playListsToSync) {
+            for (StoragePlayListItem item: getItems(storageItems, playList.getStorageId())) {
+                syncedAudioIds.add(item.getAudioId());
+            }
+        }
+        Set<Long> existingAudioIds = playListsDao.selectExistingCompositionStorageIds(syncedAudioIds);
+
+        List<Pair<StoragePlayList, List<StoragePlayListItem>>> playListsToInsert = new ArrayList<>();
+        for (StoragePlayList playList: addedPlayLists) {
+            playListsToInsert.add(new Pair<>(playList, getItems(storageItems, playList.getStorageId())));
+        }
+
+        List<Pair<Change<AppPlayList, StoragePlayList>, List<StoragePlayListItem>>> itemsToMerge = new ArrayList<>();
+        for (AppPlayList playList: playListsToSync) {
+            StoragePlayList storagePlayList = newPlayLists.get(playList.getStorageId());
+            if (storagePlayList == null) {
+                continue;
+            }
+            List<StoragePlayListItem> newItems = getResolvableItems(storageItems,
+                    playList.getStorageId(),
+                    existingAudioIds);
+            List<StoragePlayListItem> oldItems = getItems(currentItems, playList.getId());
+            if (!areItemsTheSame(oldItems, newItems)) {
+                itemsToMerge.add(new Pair<>(new Change<>(playList, storagePlayList), newItems));
+            }
+        }
+
+        if (!playListsToInsert.isEmpty() || !changedPlayLists.isEmpty() || !itemsToMerge.isEmpty()) {
+            playListsDao.applyChanges(playListsToInsert, changedPlayLists, itemsToMerge);
         }
     }
 
     private boolean hasActualChanges(AppPlayList first, StoragePlayList second) {
-        return (!Objects.equals(first.getName(), second.getName()))
-                && DateUtils.isAfter(first.getDateModified(), second.getDateModified());
+        return (!Objects.equals(first.getName(), second.getName())
+                && DateUtils.isAfter(first.getDateModified(), second.getDateModified()))
+                || isModifiedInStorage(first, second);
+    }
+
+    private boolean isModifiedInStorage(AppPlayList first, StoragePlayList second) {
+        return DateUtils.isAfter(second.getDateModified(), first.getDateModified());
+    }
+
+    private List<StoragePlayListItem> getItems(LongSparseArray<List<StoragePlayListItem>> itemsMap,
+                                               long id) {
+        List<StoragePlayListItem> items = itemsMap.get(id);
+        return items == null? new ArrayList<>() : items;
+    }
+
+    private List<StoragePlayListItem> getResolvableItems(LongSparseArray<List<StoragePlayListItem>> itemsMap,
+                                                         long id,
+                                                         Set<Long> existingAudioIds) {
+        List<StoragePlayListItem> result = new ArrayList<>();
+        for (StoragePlayListItem item: getItems(itemsMap, id)) {
+            if (existingAudioIds.contains(item.getAudioId())) {
+                result.add(item);
+            }
+        }
+        return result;
+    }
+
+    //entries added in app are not in current items, they are kept on merge
+    private boolean areItemsTheSame(List<StoragePlayListItem> first,
+                                    List<StoragePlayListItem> second) {
+        if (first.size() != second.size()) {
+            return false;
+        }
+        for (int i = 0; i < first.size(); i++) {
+            StoragePlayListItem firstItem = first.get(i);
+            StoragePlayListItem secondItem = second.get(i);
+            if (firstItem.getItemId() != secondItem.getItemId()
+                    || firstItem.getAudioId() != secondItem.getAudioId()) {
+                return false;
+            }
+        }
+        return true;
     }
 }
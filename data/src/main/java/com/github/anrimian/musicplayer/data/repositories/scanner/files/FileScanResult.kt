@@ -0,0 +1,12 @@
+package com.github.anrimian.musicplayer.data.repositories.scanner.files
+
+import com.github.anrimian.musicplayer.domain.models.composition.FullComposition
+import com.github.anrimian.musicplayer.domain.models.composition.source.CompositionSourceTags
+
+/**
+ * @param tags null if file can not be read, in this case only scan time is updated
+ */
+data class FileScanResult(
+    val composition: FullComposition,
+    val tags: CompositionSourceTags?
+)
@@ -2,15 +2,16 @@ package com.github.anrimian.musicplayer.data.repositories.scanner.files
 
 import com.github.anrimian.musicplayer.data.database.dao.compositions.CompositionsDaoWrapper
 import com.github.anrimian.musicplayer.data.storage.exceptions.TagReaderException
+import com.github.anrimian.musicplayer.data.storage.source.ArtworkThumbnailCache
 import com.github.anrimian.musicplayer.data.storage.source.CompositionSourceEditor
-import com.github.anrimian.musicplayer.domain.Constants.TRIGGER
+import com.github.anrimian.musicplayer.data.utils.dev.PerformanceMetrics
 import com.github.anrimian.musicplayer.domain.interactors.analytics.Analytics
 import com.github.anrimian.musicplayer.domain.models.composition.FullComposition
-import com.github.anrimian.musicplayer.domain.models.composition.source.CompositionSourceTags
 import com.github.anrimian.musicplayer.domain.models.scanner.FileScannerState
 import com.github.anrimian.musicplayer.domain.models.scanner.Idle
 import com.github.anrimian.musicplayer.domain.models.scanner.Running
 import com.github.anrimian.musicplayer.domain.repositories.StateRepository
+import io.reactivex.rxjava3.core.Flowable
 import io.reactivex.rxjava3.core.Observable
 import io.reactivex.rxjava3.core.Scheduler
 import io.reactivex.rxjava3.core.Single
@@ -25,21 +26,40 @@ import java.util.concurrent.TimeUnit
 private const val RETRY_TIMES = 2L
 private const val READ_FILE_TIMEOUT_SECONDS = 2L
 
+/**
+ * Reads tags of compositions which were changed since last scan.
+ *
+ * Compositions are claimed from database by batches, tags of batch are read on [workerScheduler]
+ * with at most [parallelism] files at once and the results of the whole batch are saved in one
+ * transaction. Next batch is claimed only when previous one is saved, so memory usage stays bounded.
+ *
+ * Artwork is read by the same tag parse and stored in [artworkThumbnailCache] in list size,
+ * so lists don't need to open audio files to show covers.
+ */
 class FileScanner(
     private val compositionsDao: CompositionsDaoWrapper,
     private val compositionSourceEditor: CompositionSourceEditor,
+    private val artworkThumbnailCache: ArtworkThumbnailCache,
     private val stateRepository: StateRepository,
     private val analytics: Analytics,
-    private val scheduler: Scheduler
+    private val scheduler: Scheduler,
+    private val workerScheduler: Scheduler,
+    private val parallelism: Int,
+    private val batchSize: Int
 ) {
 
     private val stateSubject = BehaviorSubject.createDefault<FileScannerState>(Idle)
 
+    private var scannedCount = 0
+    private var totalCount = 0
+
     @Synchronized
     fun scheduleFileScanner() {
         if (stateSubject.value != Idle) {
             return
         }
+        scannedCount = 0
+        totalCount = 0
         runFileScanner()
     }
 
@@ -49,39 +69,98 @@ class FileScanner(
         val lastCompleteScanTime = if (
             stateRepository.lastFileScannerVersion == stateRepository.currentFileScannerVersion
         ) 0L else stateRepository.lastCompleteScanTime
-        compositionsDao.selectNextCompositionToScan(lastCompleteScanTime)
+        compositionsDao.selectNextCompositionsToScan(lastCompleteScanTime, batchSize)
+            .filter { batch -> batch.isNotEmpty() }
             .doOnComplete(this::onScanCompleted)
+            .doOnSuccess { batch -> onBatchClaimed(batch, lastCompleteScanTime) }
             .retry(RETRY_TIMES)
             .doOnError(this::processError)
             .onErrorComplete()
-            .doOnSuccess { composition -> stateSubject.onNext(Running(composition))}
-            .flatMapSingle(this::scanCompositionFile)
+            .flatMapSingle(this::scanBatch)
             .doOnSuccess { runFileScanner() }
             .doOnComplete { stateSubject.onNext(Idle) }
             .subscribeOn(scheduler)
             .subscribe()
     }
 
+    private fun onBatchClaimed(batch: List<FullComposition>, lastCompleteScanTime: Long) {
+        if (totalCount == 0) {
+            //count remaining items once per run, batches don't know about each other
+            totalCount = compositionsDao.getCompositionsToScanCount(lastCompleteScanTime)
+        }
+        stateSubject.onNext(Running(batch[0], scannedCount, totalCount))
+    }
+
     private fun onScanCompleted() {
         stateRepository.lastFileScannerVersion = stateRepository.currentFileScannerVersion
         stateRepository.lastCompleteScanTime = System.currentTimeMillis()
     }
 
-    private fun scanCompositionFile(composition: FullComposition): Single<*> {
-        return Single.just(composition)
-            .flatMap(this::getFullTags)
+    private fun scanBatch(batch: List<FullComposition>): Single<*> {
+        return Flowable.fromIterable(batch)
+            .flatMapSingle(this::scanCompositionFile, false, parallelism)
+            .doOnNext(this::onCompositionScanned)
+            .toList()
+            .doOnSuccess(this::saveScanResults)
+    }
+
+    private fun onCompositionScanned(result: FileScanResult) {
+        PerformanceMetrics.increment(PerformanceMetrics.SCANNER_FILES_SCANNED)
+        scannedCount++
+        stateSubject.onNext(Running(result.composition, scannedCount, maxOf(scannedCount, totalCount)))
+    }
+
+    private fun scanCompositionFile(composition: FullComposition): Single<FileScanResult> {
+        return getFullSource(composition)
             .timeout(READ_FILE_TIMEOUT_SECONDS, TimeUnit.SECONDS, scheduler)
-            .doOnSuccess { tags -> compositionsDao.updateCompositionBySourceTags(composition, tags) }
             .retry(RETRY_TIMES)
             .doOnError(this::processError)
-            .map { TRIGGER }
-            .onErrorReturnItem(TRIGGER)
-            .doOnSuccess { compositionsDao.setCompositionLastFileScanTime(composition, Date()) }
+            .map { source ->
+                saveArtworkThumbnail(composition, source.artwork)
+                FileScanResult(composition, source.tags)
+            }
+            .onErrorReturnItem(FileScanResult(composition, null))
     }
 
-    private fun getFullTags(composition: FullComposition): Single<CompositionSourceTags> {
-        //scheduler is required to prevent timeout and handle it correctly
-        return compositionSourceEditor.getFullTags(composition).subscribeOn(scheduler)
+    private fun getFullSource(composition: FullComposition) =
+        Single.defer {
+            val startTime = PerformanceMetrics.startTimer()
+            compositionSourceEditor.getFullSource(composition)
+                .doOnSuccess { PerformanceMetrics.stopTimer(PerformanceMetrics.SCANNER_FILE_READ, startTime) }
+        }.subscribeOn(workerScheduler)//scheduler is required to prevent timeout and handle it correctly
+
+    private fun saveArtworkThumbnail(composition: FullComposition, artwork: ByteArray?) {
+        try {
+            artworkThumbnailCache.put(
+                composition.id,
+                composition.dateModified,
+                artwork,
+                ArtworkThumbnailCache.SMALL_SIZE
+            )
+        } catch (e: Exception) {
+            //thumbnail will be created on first display
+            processError(e)
+        }
+    }
+
+    private fun saveScanResults(results: List<FileScanResult>) {
+        try {
+            val startTime = PerformanceMetrics.startTimer()
+            compositionsDao.applyFileScanResults(results, Date())
+            PerformanceMetrics.stopTimer(PerformanceMetrics.SCANNER_FILES_SAVE, startTime)
+        } catch (e: Exception) {
+            //one broken item should not discard the whole batch, so save them one by one
+            results.forEach(this::saveScanResult)
+        }
+    }
+
+    private fun saveScanResult(result: FileScanResult) {
+        try {
+            compositionsDao.applyFileScanResults(listOf(result), Date())
+        } catch (e: Exception) {
+            processError(e)
+            compositionsDao.setCompositionLastFileScanTime(result.composition, Date())
+        }
     }
 
     private fun processError(throwable: Throwable) {
@@ -91,4 +170,4 @@ class FileScanner(
         analytics.processNonFatalError(throwable)
     }
 
-}
\ No newline at end of file
+}
@@ -5,7 +5,6 @@ import androidx.annotation.NonNull;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.LinkedHashMap;
-import java.util.LinkedList;
 import java.util.List;
 
 import javax.annotation.Nonnull;
@@ -17,7 +16,7 @@ public class FolderNode<V> {
 
     @Nullable
     private final String key;
-    private final List<V> files = new LinkedList<>();
+    private final List<V> files = new ArrayList<>();
 
     @Nullable
     private FolderNode<V> parent;
@@ -1,11 +1,11 @@
 package com.github.anrimian.musicplayer.data.repositories.scanner.folders;
 
-import com.github.anrimian.musicplayer.domain.utils.ListUtils;
 import com.github.anrimian.musicplayer.domain.utils.TextUtils;
 import com.github.anrimian.musicplayer.domain.utils.functions.Mapper;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.HashMap;
+
+import javax.annotation.Nullable;
 
 import io.reactivex.rxjava3.core.Observable;
 
@@ -20,44 +20,93 @@ public class FolderTreeBuilder<F, N> {
     }
 
     public FolderNode<N> createFileTree(Observable<F> objectsObservable) {
-        FolderNode<N> rootFolder = new FolderNode<>(null);
-        objectsObservable.groupBy(pathFunc::map)
-                .doOnNext(group -> group.collect(ArrayList<F>::new, List::add)
-                        .map(this::toValueList)
-                        .doOnSuccess(list -> addValuesToFolder(rootFolder, group.getKey(), list))
-                        .subscribe())
-                .subscribe();
-        return rootFolder;
+        return createFileTree(objectsObservable.blockingIterable());
     }
 
-    private List<N> toValueList(List<F> list) {
-        return ListUtils.mapList(list, valueFunc::map);
+    public FolderNode<N> createFileTree(Iterable<F> objects) {
+        TreeAppender<N> appender = new TreeAppender<>();
+        for (F object: objects) {
+            appender.add(pathFunc.map(object), valueFunc.map(object));
+        }
+        return appender.getRoot();
     }
 
-    private void addValuesToFolder(FolderNode<N> root,
-                                   String path,
-                                   List<N> values) {
-        FolderNode<N> parent = getNode(root, path);
-        parent.addFiles(values);
-    }
+    /**
+     * Builds folder tree file by file in one pass.
+     *
+     * Every distinct path is split only once, files with repeated path go straight to the cached
+     * node. Equal path segments of different folders share one string instance.
+     */
+    public static class TreeAppender<N> {
+
+        private final FolderNode<N> root = new FolderNode<>(null);
+
+        private final HashMap<String, FolderNode<N>> pathNodes = new HashMap<>();
+        private final HashMap<String, String> segments = new HashMap<>();
+
+        @Nullable
+        private String lastPath;
+        private FolderNode<N> lastNode = root;
+
+        public void add(@Nullable String path, N value) {
+            getNode(path).addFile(value);
+        }
 
-    private FolderNode<N> getNode(FolderNode<N> root, String path) {
-        if (TextUtils.isEmpty(path)) {
+        public FolderNode<N> getRoot() {
             return root;
         }
 
-        FolderNode<N> target = root;
+        private FolderNode<N> getNode(@Nullable String path) {
+            if (TextUtils.isEmpty(path)) {
+                return root;
+            }
+            //files of one folder usually go in a row
+            if (path.equals(lastPath)) {
+                return lastNode;
+            }
+            FolderNode<N> node = pathNodes.get(path);
+            if (node == null) {
+                node = createNode(path);
+                pathNodes.put(path, node);
+            }
+            lastPath = path;
+            lastNode = node;
+            return node;
+        }
+
+        private FolderNode<N> createNode(String path) {
+            FolderNode<N> target = root;
+            //trailing separators are ignored, as String.split() does
+            int length = path.length();
+            while (length > 0 && path.charAt(length - 1) == '/') {
+                length--;
+            }
+            int start = 0;
+            while (start < length) {
+                int end = path.indexOf('/', start);
+                if (end == -1 || end > length) {
+                    end = length;
+                }
+                String segment = internSegment(path.substring(start, end));
+                FolderNode<N> child = target.getFolder(segment);
+                if (child == null) {
+                    child = new FolderNode<>(segment);
+                    target.addFolder(child);
+                }
+                target = child;
+                start = end + 1;
+            }
+            return target;
+        }
 
-        String[] partialPaths = path.split("/");
-        for (String partialPath : partialPaths) {
-            FolderNode<N> child = target.getFolder(partialPath);
-            if (child == null) {
-                child = new FolderNode<>(partialPath);
-                target.addFolder(child);
+        private String internSegment(String segment) {
+            String pooledSegment = segments.get(segment);
+            if (pooledSegment == null) {
+                segments.put(segment, segment);
+                return segment;
             }
-            target = child;
+            return pooledSegment;
         }
-        return target;
     }
 
 }
@@ -0,0 +1,161 @@
+package com.github.anrimian.musicplayer.data.repositories.scanner.loudness;
+
+import android.content.Context;
+import android.media.AudioFormat;
+import android.media.MediaCodec;
+import android.media.MediaExtractor;
+import android.media.MediaFormat;
+import android.net.Uri;
+import android.os.SystemClock;
+
+import com.github.anrimian.musicplayer.data.models.composition.CompositionLoudness;
+import com.github.anrimian.musicplayer.data.storage.source.CompositionSourceProvider;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import javax.annotation.Nullable;
+
+/**
+ * Decodes composition file with platform decoder and measures its loudness.
+ *
+ * Decoding speed is limited to maxSpeed times of real time, so analysis of long
+ * files doesn't hold processor. Interruption of thread stops decoding.
+ */
+public class CompositionLoudnessReader {
+
+    private static final long DEQUEUE_TIMEOUT_MICROS = 10_000;
+
+    //replay gain 2.0 reference level
+    private static final double REFERENCE_LOUDNESS_LUFS = -18d;
+
+    private final Context context;
+    private final CompositionSourceProvider sourceProvider;
+    private final int maxSpeed;
+
+    public CompositionLoudnessReader(Context context,
+                                     CompositionSourceProvider sourceProvider,
+                                     int maxSpeed) {
+        this.context = context;
+        this.sourceProvider = sourceProvider;
+        this.maxSpeed = maxSpeed;
+    }
+
+    /**
+     * @return replay gain and sample peak of composition, gain is null for silent audio
+     */
+    public CompositionLoudness readLoudness(long compositionId) throws Exception {
+        Uri uri = sourceProvider.getCompositionUri(compositionId).blockingGet();
+        MediaExtractor extractor = new MediaExtractor();
+        MediaCodec codec = null;
+        try {
+            extractor.setDataSource(context, uri, null);
+            MediaFormat format = selectAudioTrack(extractor);
+            codec = MediaCodec.createDecoderByType(format.getString(MediaFormat.KEY_MIME));
+            codec.configure(format, null, null, 0);
+            codec.start();
+
+            LoudnessMeter meter = decode(extractor, codec);
+            if (meter == null) {
+                throw new IOException("decoder returned no audio");
+            }
+            double loudness = meter.getIntegratedLoudness();
+            Float trackGain = Double.isInfinite(loudness)?
+                    null : (float) (REFERENCE_LOUDNESS_LUFS - loudness);
+            return new CompositionLoudness(trackGain, (float) meter.getSamplePeak());
+        } finally {
+            if (codec != null) {
+                codec.release();
+            }
+            extractor.release();
+        }
+    }
+
+    @Nullable
+    private LoudnessMeter decode(MediaExtractor extractor, MediaCodec codec) throws Exception {
+        MediaCodec.BufferInfo info = new MediaCodec.BufferInfo();
+        LoudnessMeter meter = null;
+        int sampleRate = 0;
+        boolean isFloatPcm = false;
+        boolean inputEnded = false;
+        long startTime = SystemClock.elapsedRealtime();
+        while (true) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            if (!inputEnded) {
+                inputEnded = queueInput(extractor, codec);
+            }
+            int index = codec.dequeueOutputBuffer(info, DEQUEUE_TIMEOUT_MICROS);
+            if (meter == null && (index == MediaCodec.INFO_OUTPUT_FORMAT_CHANGED || index >= 0)) {
+                MediaFormat outputFormat = codec.getOutputFormat();
+                sampleRate = outputFormat.getInteger(MediaFormat.KEY_SAMPLE_RATE);
+                isFloatPcm = isFloatPcm(outputFormat);
+                meter = new LoudnessMeter(sampleRate,
+                        outputFormat.getInteger(MediaFormat.KEY_CHANNEL_COUNT));
+            }
+            if (index < 0) {
+                continue;
+            }
+            ByteBuffer buffer = codec.getOutputBuffer(index);
+            if (buffer != null && info.size > 0) {
+                buffer.position(info.offset);
+                buffer.limit(info.offset + info.size);
+                buffer.order(ByteOrder.nativeOrder());
+                if (isFloatPcm) {
+                    meter.addSamples(buffer.asFloatBuffer());
+                } else {
+                    meter.addSamples(buffer.asShortBuffer());
+                }
+            }
+            codec.releaseOutputBuffer(index, false);
+            if ((info.flags & MediaCodec.BUFFER_FLAG_END_OF_STREAM) != 0) {
+                return meter;
+            }
+            throttle(meter.getFramesCount() * 1000 / sampleRate, startTime);
+        }
+    }
+
+    //returns true when all input is passed to decoder
+    private boolean queueInput(MediaExtractor extractor, MediaCodec codec) {
+        int index = codec.dequeueInputBuffer(DEQUEUE_TIMEOUT_MICROS);
+        if (index < 0) {
+            return false;
+        }
+        ByteBuffer buffer = codec.getInputBuffer(index);
+        int size = buffer == null? -1 : extractor.readSampleData(buffer, 0);
+        if (size < 0) {
+            codec.queueInputBuffer(index, 0, 0, 0, MediaCodec.BUFFER_FLAG_END_OF_STREAM);
+            return true;
+        }
+        codec.queueInputBuffer(index, 0, size, extractor.getSampleTime(), 0);
+        extractor.advance();
+        return false;
+    }
+
+    private void throttle(long decodedMillis, long startTime) throws InterruptedException {
+        long minDuration = decodedMillis / maxSpeed;
+        long duration = SystemClock.elapsedRealtime() - startTime;
+        if (duration < minDuration) {
+            Thread.sleep(minDuration - duration);
+        }
+    }
+
+    private MediaFormat selectAudioTrack(MediaExtractor extractor) throws IOException {
+        for (int i = 0; i < extractor.getTrackCount(); i++) {
+            MediaFormat format = extractor.getTrackFormat(i);
+            String mime = format.getString(MediaFormat.KEY_MIME);
+            if (mime != null && mime.startsWith("audio/")) {
+                extractor.selectTrack(i);
+                return format;
+            }
+        }
+        throw new IOException("audio track not found");
+    }
+
+    private static boolean isFloatPcm(MediaFormat format) {
+        return format.containsKey(MediaFormat.KEY_PCM_ENCODING)
+                && format.getInteger(MediaFormat.KEY_PCM_ENCODING) == AudioFormat.ENCODING_PCM_FLOAT;
+    }
+}
@@ -0,0 +1,110 @@
+package com.github.anrimian.musicplayer.data.repositories.scanner.loudness
+
+import com.github.anrimian.musicplayer.data.database.dao.compositions.CompositionsDaoWrapper
+import com.github.anrimian.musicplayer.domain.interactors.analytics.Analytics
+import io.reactivex.rxjava3.core.Completable
+import io.reactivex.rxjava3.core.Observable
+import io.reactivex.rxjava3.core.Scheduler
+import io.reactivex.rxjava3.core.Single
+import io.reactivex.rxjava3.disposables.Disposable
+import java.io.IOException
+import java.io.InterruptedIOException
+import java.nio.channels.ClosedByInterruptException
+import java.util.*
+import java.util.concurrent.TimeUnit
+
+private const val PAUSE_BETWEEN_COMPOSITIONS_MILLIS = 500L
+
+/**
+ * Measures loudness of compositions which have no replay gain tags.
+ *
+ * Compositions are claimed from database by batches and result of each one is saved right after
+ * it is measured, so cancelled analysis continues from the same place on next run. Files which
+ * can't be decoded are marked as analyzed to not be tried again.
+ *
+ * Compositions are analyzed one by one on low priority [scheduler], with limited decoding speed
+ * and with pause between files, so analysis doesn't take resources from playback.
+ */
+class LoudnessAnalyzer(
+    private val compositionsDao: CompositionsDaoWrapper,
+    private val loudnessReader: CompositionLoudnessReader,
+    private val analytics: Analytics,
+    private val scheduler: Scheduler,
+    private val batchSize: Int
+) {
+
+    private var analysisDisposable: Disposable? = null
+
+    @Synchronized
+    fun scheduleAnalysis() {
+        if (analysisDisposable?.isDisposed == false) {
+            return
+        }
+        analysisDisposable = analyzeNextBatch()
+            .subscribeOn(scheduler)
+            .subscribe({}, this::processError)
+    }
+
+    @Synchronized
+    fun cancelAnalysis() {
+        analysisDisposable?.dispose()
+        analysisDisposable = null
+    }
+
+    private fun analyzeNextBatch(): Completable {
+        return Single.fromCallable { compositionsDao.selectNextCompositionsToAnalyzeLoudness(batchSize) }
+            .flatMapCompletable { batch ->
+                if (batch.isEmpty()) {
+                    return@flatMapCompletable Completable.complete()
+                }
+                Observable.fromIterable(batch)
+                    .concatMapCompletable(this::analyzeComposition)
+                    .andThen(Completable.defer(this::analyzeNextBatch))
+            }
+    }
+
+    private fun analyzeComposition(id: Long): Completable {
+        return Completable.fromAction { readLoudness(id) }
+            .andThen(Completable.timer(PAUSE_BETWEEN_COMPOSITIONS_MILLIS, TimeUnit.MILLISECONDS, scheduler))
+    }
+
+    private fun readLoudness(id: Long) {
+        try {
+            val loudness = loudnessReader.readLoudness(id)
+            compositionsDao.setTrackLoudness(id, loudness.trackGain, loudness.trackPeak)
+        } catch (e: Exception) {
+            if (isCancellation(e)) {
+                //analysis is cancelled, composition stays in queue
+                throw e
+            }
+            compositionsDao.setLoudnessScanDate(id, Date())
+            processError(e)
+        }
+    }
+
+    private fun processError(throwable: Throwable) {
+        //unsupported and missing files are expected
+        if (throwable is IOException || isCancellation(throwable)) {
+            return
+        }
+        analytics.processNonFatalError(throwable)
+    }
+
+    //interruption comes also wrapped by rx blocking calls or as interrupted io
+    private fun isCancellation(throwable: Throwable): Boolean {
+        if (Thread.currentThread().isInterrupted) {
+            return true
+        }
+        var cause: Throwable? = throwable
+        while (cause != null) {
+            if (cause is InterruptedException
+                || cause is InterruptedIOException
+                || cause is ClosedByInterruptException) {
+                return true
+            }
+            cause = cause.cause
+        }
+        return false
+    }
+
+}
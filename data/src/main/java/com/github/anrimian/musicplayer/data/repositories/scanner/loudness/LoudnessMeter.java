@@ -0,0 +1,223 @@
+package com.github.anrimian.musicplayer.data.repositories.scanner.loudness;
+
+import java.nio.FloatBuffer;
+import java.nio.ShortBuffer;
+
+/**
+ * Measures integrated loudness (EBU R128, ITU-R BS.1770-4) and sample peak of interleaved pcm.
+ *
+ * Samples are K-weighted by two biquad filters, mean square of each channel is collected
+ * in 100 ms steps and loudness is computed over 400 ms blocks with 75% overlap. Blocks quieter
+ * than -70 LUFS and than 10 LU below the average of remaining blocks are not counted.
+ */
+public class LoudnessMeter {
+
+    private static final double ABSOLUTE_GATE_LUFS = -70d;
+    private static final double RELATIVE_GATE_LU = -10d;
+
+    private static final int STEPS_PER_BLOCK = 4;
+    private static final int STEP_MILLIS = 100;
+
+    private static final double SHORT_SCALE = 32768d;
+
+    private final int channelCount;
+    private final int stepFrames;
+
+    //pre-filter (high shelf) and rlb filter (high pass) coefficients: b0, b1, b2, a1, a2
+    private final double[] shelfCoefficients = new double[5];
+    private final double[] highPassCoefficients = new double[5];
+    //filter state, 2 values per filter per channel
+    private final double[] shelfState;
+    private final double[] highPassState;
+    private final double[] channelWeights;
+
+    //weighted sum of squares of current step
+    private double stepEnergy;
+    private int stepFramePosition;
+    private int channel;
+
+    //energy of last steps, each block is made of four steps
+    private final double[] lastSteps = new double[STEPS_PER_BLOCK];
+    private int stepsCount;
+
+    private double[] blockEnergies = new double[1024];
+    private int blocksCount;
+
+    private long framesCount;
+    private double peak;
+
+    public LoudnessMeter(int sampleRate, int channelCount) {
+        if (sampleRate <= 0 || channelCount <= 0) {
+            throw new IllegalArgumentException("wrong format, sample rate: " + sampleRate
+                    + ", channels: " + channelCount);
+        }
+        this.channelCount = channelCount;
+        stepFrames = sampleRate * STEP_MILLIS / 1000;
+        shelfState = new double[channelCount * 2];
+        highPassState = new double[channelCount * 2];
+        channelWeights = getChannelWeights(channelCount);
+        computeShelfCoefficients(sampleRate, shelfCoefficients);
+        computeHighPassCoefficients(sampleRate, highPassCoefficients);
+    }
+
+    public void addSamples(ShortBuffer samples) {
+        for (int i = samples.position(), limit = samples.limit(); i < limit; i++) {
+            addSample(samples.get(i) / SHORT_SCALE);
+        }
+        samples.position(samples.limit());
+    }
+
+    public void addSamples(FloatBuffer samples) {
+        for (int i = samples.position(), limit = samples.limit(); i < limit; i++) {
+            addSample(samples.get(i));
+        }
+        samples.position(samples.limit());
+    }
+
+    public long getFramesCount() {
+        return framesCount;
+    }
+
+    /**
+     * @return integrated loudness in LUFS or {@link Double#NEGATIVE_INFINITY}
+     * if audio is shorter than one block or silent
+     */
+    public double getIntegratedLoudness() {
+        double absoluteGate = toEnergy(ABSOLUTE_GATE_LUFS);
+        double sum = 0d;
+        int count = 0;
+        for (int i = 0; i < blocksCount; i++) {
+            double energy = blockEnergies[i];
+            if (energy > absoluteGate) {
+                sum += energy;
+                count++;
+            }
+        }
+        if (count == 0) {
+            return Double.NEGATIVE_INFINITY;
+        }
+        double relativeGate = toEnergy(toLoudness(sum / count) + RELATIVE_GATE_LU);
+        double gate = Math.max(absoluteGate, relativeGate);
+        sum = 0d;
+        count = 0;
+        for (int i = 0; i < blocksCount; i++) {
+            double energy = blockEnergies[i];
+            if (energy > gate) {
+                sum += energy;
+                count++;
+            }
+        }
+        return toLoudness(sum / count);
+    }
+
+    /**
+     * @return max absolute sample value, 1.0 is full scale
+     */
+    public double getSamplePeak() {
+        return peak;
+    }
+
+    private void addSample(double sample) {
+        double abs = Math.abs(sample);
+        if (abs > peak) {
+            peak = abs;
+        }
+
+        int channel = this.channel;
+        double value = filter(sample, shelfCoefficients, shelfState, channel * 2);
+        value = filter(value, highPassCoefficients, highPassState, channel * 2);
+        stepEnergy += value * value * channelWeights[channel];
+
+        if (++channel < channelCount) {
+            this.channel = channel;
+            return;
+        }
+        this.channel = 0;
+        framesCount++;
+        if (++stepFramePosition == stepFrames) {
+            onStepCompleted();
+        }
+    }
+
+    private void onStepCompleted() {
+        lastSteps[stepsCount % STEPS_PER_BLOCK] = stepEnergy / stepFrames;
+        stepsCount++;
+        stepEnergy = 0d;
+        stepFramePosition = 0;
+        if (stepsCount < STEPS_PER_BLOCK) {
+            return;
+        }
+        double blockEnergy = 0d;
+        for (double stepEnergy: lastSteps) {
+            blockEnergy += stepEnergy;
+        }
+        if (blocksCount == blockEnergies.length) {
+            double[] energies = new double[blocksCount * 2];
+            System.arraycopy(blockEnergies, 0, energies, 0, blocksCount);
+            blockEnergies = energies;
+        }
+        blockEnergies[blocksCount++] = blockEnergy / STEPS_PER_BLOCK;
+    }
+
+    //transposed direct form II
+    private static double filter(double value, double[] c, double[] state, int offset) {
+        double result = c[0] * value + state[offset];
+        state[offset] = c[1] * value - c[3] * result + state[offset + 1];
+        state[offset + 1] = c[2] * value - c[4] * result;
+        return result;
+    }
+
+    private static double toLoudness(double energy) {
+        return -0.691d + 10d * Math.log10(energy);
+    }
+
+    private static double toEnergy(double loudness) {
+        return Math.pow(10d, (loudness + 0.691d) / 10d);
+    }
+
+    //surround channels of 5.1 audio have bigger weight and low frequency channel is ignored
+    private static double[] getChannelWeights(int channelCount) {
+        double[] weights = new double[channelCount];
+        for (int i = 0; i < channelCount; i++) {
+            weights[i] = 1d;
+        }
+        if (channelCount == 6) {
+            weights[3] = 0d;
+            weights[4] = 1.41d;
+            weights[5] = 1.41d;
+        }
+        return weights;
+    }
+
+    //filters from BS.1770 are defined for 48 kHz, for other rates they are recomputed from analog prototype
+    private static void computeShelfCoefficients(int sampleRate, double[] result) {
+        double f0 = 1681.974450955533;
+        double gain = 3.999843853973347;
+        double q = 0.7071752369554196;
+
+        double k = Math.tan(Math.PI * f0 / sampleRate);
+        double vh = Math.pow(10d, gain / 20d);
+        double vb = Math.pow(vh, 0.4996667741545416);
+        double a0 = 1d + k / q + k * k;
+
+        result[0] = (vh + vb * k / q + k * k) / a0;
+        result[1] = 2d * (k * k - vh) / a0;
+        result[2] = (vh - vb * k / q + k * k) / a0;
+        result[3] = 2d * (k * k - 1d) / a0;
+        result[4] = (1d - k / q + k * k) / a0;
+    }
+
+    private static void computeHighPassCoefficients(int sampleRate, double[] result) {
+        double f0 = 38.13547087602444;
+        double q = 0.5003270373238773;
+
+        double k = Math.tan(Math.PI * f0 / sampleRate);
+        double a0 = 1d + k / q + k * k;
+
+        result[0] = 1d;
+        result[1] = -2d;
+        result[2] = 1d;
+        result[3] = 2d * (k * k - 1d) / a0;
+        result[4] = (1d - k / q + k * k) / a0;
+    }
+}
@@ -52,6 +52,7 @@ public class SettingsRepositoryImpl implements SettingsRepository {
     private static final String SELECTED_EQUALIZER_TYPE = "selected_equalizer_type";
     private static final String VOLUME_LEFT = "volume_left";
     private static final String VOLUME_RIGHT = "volume_right";
+    private static final String VOLUME_NORMALIZATION = "volume_normalization";
 
     private static final String EXTERNAL_PLAYER_REPEAT_MODE = "external_player_repeat_mode";
     private static final String EXTERNAL_PLAYER_KEEP_IN_BACKGROUND = "external_player_keep_in_background";
@@ -77,6 +78,7 @@ public class SettingsRepositoryImpl implements SettingsRepository {
     private final BehaviorSubject<Boolean> showAllAudioFilesSubject = BehaviorSubject.create();
     private final BehaviorSubject<Integer> selectedEqualizerSubject = BehaviorSubject.create();
     private final BehaviorSubject<Long> audioFileMinDurationSubject = BehaviorSubject.create();
+    private final BehaviorSubject<Boolean> volumeNormalizationSubject = BehaviorSubject.create();
 
     private final BehaviorSubject<Integer> externalPlayerRepeatModeSubject = BehaviorSubject.create();
 
@@ -494,6 +496,24 @@ public class SettingsRepositoryImpl implements SettingsRepository {
                 .apply();
     }
 
+    @Override
+    public Observable<Boolean> getVolumeNormalizationEnabledObservable() {
+        return withDefaultValue(volumeNormalizationSubject, this::isVolumeNormalizationEnabled);
+    }
+
+    @Override
+    public void setVolumeNormalizationEnabled(boolean enabled) {
+        if (enabled != isVolumeNormalizationEnabled()) {
+            preferences.putBoolean(VOLUME_NORMALIZATION, enabled);
+            volumeNormalizationSubject.onNext(enabled);
+        }
+    }
+
+    @Override
+    public boolean isVolumeNormalizationEnabled() {
+        return preferences.getBoolean(VOLUME_NORMALIZATION, false);
+    }
+
     private Order orderFromInt(int order) {
         boolean reversed = false;
         if (order % 2 == 0) {
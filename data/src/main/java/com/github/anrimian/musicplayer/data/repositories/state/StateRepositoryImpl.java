@@ -2,6 +2,9 @@ package com.github.anrimian.musicplayer.data.repositories.state;
 
 import static com.github.anrimian.musicplayer.data.repositories.state.StateRepositoryImpl.Constants.LAST_COMPLETE_SCAN_TIME;
 import static com.github.anrimian.musicplayer.data.repositories.state.StateRepositoryImpl.Constants.LAST_FILE_SCANNER_VERSION;
+import static com.github.anrimian.musicplayer.data.repositories.state.StateRepositoryImpl.Constants.LAST_FULL_STORAGE_SCAN_TIME;
+import static com.github.anrimian.musicplayer.data.repositories.state.StateRepositoryImpl.Constants.LAST_STORAGE_SCAN_ID;
+import static com.github.anrimian.musicplayer.data.repositories.state.StateRepositoryImpl.Constants.LAST_STORAGE_SCAN_MODIFY_TIME;
 import static com.github.anrimian.musicplayer.data.repositories.state.StateRepositoryImpl.Constants.PREFERENCES_NAME;
 import static com.github.anrimian.musicplayer.data.repositories.state.StateRepositoryImpl.Constants.ROOT_FOLDER_PATH;
 
@@ -20,6 +23,9 @@ public class StateRepositoryImpl implements StateRepository {
         String ROOT_FOLDER_PATH = "root_folder_path";
         String LAST_FILE_SCANNER_VERSION = "last_file_scanner_version";
         String LAST_COMPLETE_SCAN_TIME = "last_complete_scan_time";
+        String LAST_STORAGE_SCAN_MODIFY_TIME = "last_storage_scan_modify_time";
+        String LAST_STORAGE_SCAN_ID = "last_storage_scan_id";
+        String LAST_FULL_STORAGE_SCAN_TIME = "last_full_storage_scan_time";
     }
 
     private final SharedPreferencesHelper preferences;
@@ -48,7 +54,7 @@ public class StateRepositoryImpl implements StateRepository {
 
     @Override
     public int getCurrentFileScannerVersion() {
-        return 3;
+        return 4;
     }
 
     @Override
@@ -70,4 +76,32 @@ public class StateRepositoryImpl implements StateRepository {
     public void setLastCompleteScanTime(long scanTime) {
         preferences.putLong(LAST_COMPLETE_SCAN_TIME, scanTime);
     }
+
+    @Override
+    public long getLastStorageScanModifyTime() {
+        return preferences.getLong(LAST_STORAGE_SCAN_MODIFY_TIME);
+    }
+
+    @Override
+    public long getLastStorageScanId() {
+        return preferences.getLong(LAST_STORAGE_SCAN_ID);
+    }
+
+    @Override
+    public void setLastStorageScanMark(long modifyTime, long storageId) {
+        preferences.edit()
+                .putLong(LAST_STORAGE_SCAN_MODIFY_TIME, modifyTime)
+                .putLong(LAST_STORAGE_SCAN_ID, storageId)
+                .apply();
+    }
+
+    @Override
+    public long getLastFullStorageScanTime() {
+        return preferences.getLong(LAST_FULL_STORAGE_SCAN_TIME);
+    }
+
+    @Override
+    public void setLastFullStorageScanTime(long scanTime) {
+        preferences.putLong(LAST_FULL_STORAGE_SCAN_TIME, scanTime);
+    }
 }
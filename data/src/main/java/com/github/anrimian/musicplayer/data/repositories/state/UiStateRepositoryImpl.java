@@ -2,6 +2,7 @@ package com.github.anrimian.musicplayer.data.repositories.state;
 
 import static com.github.anrimian.musicplayer.data.repositories.state.UiStateRepositoryImpl.Constants.CURRENT_QUEUE_ITEM_ID;
 import static com.github.anrimian.musicplayer.data.repositories.state.UiStateRepositoryImpl.Constants.CURRENT_QUEUE_ITEM_LAST_POSITION;
+import static com.github.anrimian.musicplayer.data.repositories.state.UiStateRepositoryImpl.Constants.FLUSH_DELAY_MILLIS;
 import static com.github.anrimian.musicplayer.data.repositories.state.UiStateRepositoryImpl.Constants.IS_PLAYER_PANEL_OPEN;
 import static com.github.anrimian.musicplayer.data.repositories.state.UiStateRepositoryImpl.Constants.LIBRARY_ALBUMS_COMPOSITIONS_POSITIONS;
 import static com.github.anrimian.musicplayer.data.repositories.state.UiStateRepositoryImpl.Constants.LIBRARY_ALBUMS_POSITION;
@@ -28,7 +29,7 @@ import android.content.SharedPreferences;
 
 import androidx.collection.LruCache;
 
-import com.github.anrimian.musicplayer.data.utils.preferences.SharedPreferencesHelper;
+import com.github.anrimian.musicplayer.data.utils.preferences.WriteBehindPreferences;
 import com.github.anrimian.musicplayer.domain.models.Screens;
 import com.github.anrimian.musicplayer.domain.models.utils.ListPosition;
 import com.github.anrimian.musicplayer.domain.repositories.UiStateRepository;
@@ -36,6 +37,7 @@ import com.github.anrimian.musicplayer.domain.repositories.UiStateRepository;
 import javax.annotation.Nullable;
 
 import io.reactivex.rxjava3.core.Observable;
+import io.reactivex.rxjava3.core.Scheduler;
 import io.reactivex.rxjava3.subjects.BehaviorSubject;
 
 /**
@@ -71,22 +73,26 @@ public class UiStateRepositoryImpl implements UiStateRepository {
         int LIBRARY_ALBUMS_POSITIONS_MAX_CACHE_SIZE = 5;
         int LIBRARY_ARTISTS_POSITIONS_MAX_CACHE_SIZE = 5;
         int PLAYLISTS_COMPOSITIONS_POSITIONS_MAX_CACHE_SIZE = 5;
+
+        long FLUSH_DELAY_MILLIS = 2000;
     }
 
     private final BehaviorSubject<Long> currentItemSubject = BehaviorSubject.create();
     private final BehaviorSubject<Float> currentPlaySpeedSubject = BehaviorSubject.create();
 
-    private final SharedPreferencesHelper preferences;
+    private final WriteBehindPreferences preferences;
 
     private final LruCachePreference foldersPositionsPreference;
     private final LruCachePreference albumsPositionsPreference;
     private final LruCachePreference artistsPositionsPreference;
     private final LruCachePreference playlistsPositionsPreference;
 
-    public UiStateRepositoryImpl(Context context) {
+    public UiStateRepositoryImpl(Context context, Scheduler scheduler) {
         SharedPreferences sharedPreferences = context.getSharedPreferences(PREFERENCES_NAME,
                 Context.MODE_PRIVATE);
-        this.preferences = new SharedPreferencesHelper(sharedPreferences);
+        this.preferences = new WriteBehindPreferences(sharedPreferences,
+                scheduler,
+                FLUSH_DELAY_MILLIS);
 
         foldersPositionsPreference = new LruCachePreference(
                 preferences,
@@ -116,7 +122,7 @@ public class UiStateRepositoryImpl implements UiStateRepository {
 
     @Override
     public int getCurrentItemLastPosition() {
-        return preferences.getInt(CURRENT_QUEUE_ITEM_LAST_POSITION);
+        return preferences.getInt(CURRENT_QUEUE_ITEM_LAST_POSITION, 0);
     }
 
     @Override
@@ -126,7 +132,7 @@ public class UiStateRepositoryImpl implements UiStateRepository {
 
     @Override
     public long getTrackPosition() {
-        return preferences.getLong(TRACK_POSITION);
+        return preferences.getLong(TRACK_POSITION, 0L);
     }
 
     @Override
@@ -166,7 +172,7 @@ public class UiStateRepositoryImpl implements UiStateRepository {
 
     @Override
     public Long getSelectedFolderScreen() {
-        long id = preferences.getLong(SELECTED_FOLDER_SCREEN);
+        long id = preferences.getLong(SELECTED_FOLDER_SCREEN, 0L);
         return id == 0? null: id;
     }
 
@@ -177,7 +183,7 @@ public class UiStateRepositoryImpl implements UiStateRepository {
 
     @Override
     public long getSelectedPlayListScreenId() {
-        return preferences.getLong(SELECTED_PLAYLIST_SCREEN);
+        return preferences.getLong(SELECTED_PLAYLIST_SCREEN, 0L);
     }
 
     @Override
@@ -302,15 +308,20 @@ public class UiStateRepositoryImpl implements UiStateRepository {
                 .distinctUntilChanged();
     }
 
+    @Override
+    public void flush() {
+        preferences.flush();
+    }
+
     private static class LruCachePreference {
 
-        private final SharedPreferencesHelper preferences;
+        private final WriteBehindPreferences preferences;
         private final String preferenceKey;
         private final int cacheSize;
 
         private LruCache<Long, ListPosition> cachedData;
 
-        public LruCachePreference(SharedPreferencesHelper preferences, String key, int cacheSize) {
+        public LruCachePreference(WriteBehindPreferences preferences, String key, int cacheSize) {
             this.preferences = preferences;
             this.preferenceKey = key;
             this.cacheSize = cacheSize;
@@ -5,6 +5,8 @@ import androidx.core.util.Pair;
 import com.github.anrimian.musicplayer.data.storage.providers.music.FilePathComposition;
 import com.github.anrimian.musicplayer.domain.models.composition.Composition;
 import com.github.anrimian.musicplayer.domain.models.composition.FullComposition;
+import com.github.anrimian.musicplayer.domain.models.folders.FileMoveProgress;
+import com.github.anrimian.musicplayer.domain.utils.functions.Callback;
 
 import java.util.List;
 
@@ -18,13 +20,15 @@ public interface StorageFilesDataSource {
 
     List<FilePathComposition> moveCompositionsToFolder(List<Composition> compositions,
                                                        String fromPath,
-                                                       String toPath);
+                                                       String toPath,
+                                                       Callback<FileMoveProgress> progressCallback);
 
     String moveCompositionsToNewFolder(List<Composition> compositions,
                                        String fromPath,
                                        String toParentPath,
                                        String directoryName,
-                                       List<FilePathComposition> updatedCompositions);
+                                       List<FilePathComposition> updatedCompositions,
+                                       Callback<FileMoveProgress> progressCallback);
 
     List<Composition> deleteCompositionFiles(List<Composition> compositions, Object tokenForDelete);
 
@@ -3,18 +3,20 @@ package com.github.anrimian.musicplayer.data.storage.files;
 import android.os.Build;
 
 import androidx.annotation.RequiresApi;
+import androidx.collection.LongSparseArray;
 import androidx.core.util.Pair;
 
 import com.github.anrimian.musicplayer.data.storage.providers.music.FilePathComposition;
 import com.github.anrimian.musicplayer.data.storage.providers.music.StorageMusicProvider;
 import com.github.anrimian.musicplayer.domain.models.composition.Composition;
 import com.github.anrimian.musicplayer.domain.models.composition.FullComposition;
+import com.github.anrimian.musicplayer.domain.models.folders.FileMoveProgress;
 import com.github.anrimian.musicplayer.domain.utils.FileUtils;
+import com.github.anrimian.musicplayer.domain.utils.functions.Callback;
 
 import java.util.LinkedList;
 import java.util.List;
 
-import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
 import static com.github.anrimian.musicplayer.domain.utils.ListUtils.asList;
@@ -41,10 +43,11 @@ public class StorageFilesDataSourceApi30 implements StorageFilesDataSource {
                                            String newName,
                                            List<FilePathComposition> updatedCompositions) {
         String newPath = FileUtils.getChangedFilePath(oldPath, newName);
+        LongSparseArray<String> filePaths = getCompositionFilePaths(compositions);
         for (Composition composition: compositions) {
             Long storageId = composition.getStorageId();
             if (storageId != null) {
-                String oldFilePath = getCompositionFilePath(storageId);
+                String oldFilePath = filePaths.get(storageId);
                 String newFilePath = FileUtils.safeReplacePath(oldFilePath, oldPath, newPath);
 
                 updatedCompositions.add(new FilePathComposition(
@@ -76,12 +79,14 @@ public class StorageFilesDataSourceApi30 implements StorageFilesDataSource {
     @Override
     public List<FilePathComposition> moveCompositionsToFolder(List<Composition> compositions,
                                                               String fromPath,
-                                                              String toPath) {
+                                                              String toPath,
+                                                              Callback<FileMoveProgress> progressCallback) {
         List<FilePathComposition> updatedCompositions = new LinkedList<>();
+        LongSparseArray<String> filePaths = getCompositionFilePaths(compositions);
         for (Composition composition: compositions) {
             Long storageId = composition.getStorageId();
             if (storageId != null) {
-                String oldPath = getCompositionFilePath(storageId);
+                String oldPath = filePaths.get(storageId);
                 String newPath = FileUtils.safeReplacePath(oldPath, fromPath, toPath);
 
                 updatedCompositions.add(new FilePathComposition(composition.getId(),
@@ -91,6 +96,7 @@ public class StorageFilesDataSourceApi30 implements StorageFilesDataSource {
             }
         }
         storageMusicProvider.updateCompositionsRelativePath(updatedCompositions);
+        progressCallback.call(new FileMoveProgress(updatedCompositions.size(), updatedCompositions.size()));
         return updatedCompositions;
     }
 
@@ -100,13 +106,15 @@ public class StorageFilesDataSourceApi30 implements StorageFilesDataSource {
                                               String fromPath,
                                               String toParentPath,
                                               String directoryName,
-                                              List<FilePathComposition> updatedCompositions) {
+                                              List<FilePathComposition> updatedCompositions,
+                                              Callback<FileMoveProgress> progressCallback) {
         String newFolderPath = toParentPath + '/' + directoryName;
 
+        LongSparseArray<String> filePaths = getCompositionFilePaths(compositions);
         for (Composition composition: compositions) {
             Long storageId = composition.getStorageId();
             if (storageId != null) {
-                String oldPath = getCompositionFilePath(storageId);
+                String oldPath = filePaths.get(storageId);
                 String newPath = FileUtils.getChangedFilePath(oldPath, fromPath, newFolderPath);
 
                 updatedCompositions.add(new FilePathComposition(composition.getId(),
@@ -116,6 +124,7 @@ public class StorageFilesDataSourceApi30 implements StorageFilesDataSource {
             }
         }
         storageMusicProvider.updateCompositionsRelativePath(updatedCompositions);
+        progressCallback.call(new FileMoveProgress(updatedCompositions.size(), updatedCompositions.size()));
         return FileUtils.getFileName(newFolderPath);
     }
 
@@ -154,12 +163,12 @@ public class StorageFilesDataSourceApi30 implements StorageFilesDataSource {
         tokenForDelete = null;
     }
 
-    @Nonnull
-    private String getCompositionFilePath(long storageId) {
-        String filePath = storageMusicProvider.getCompositionRelativePath(storageId);
-        if (filePath == null) {
+    private LongSparseArray<String> getCompositionFilePaths(List<Composition> compositions) {
+        List<Long> storageIds = mapListNotNull(compositions, Composition::getStorageId);
+        LongSparseArray<String> filePaths = storageMusicProvider.getCompositionRelativePaths(storageIds);
+        if (filePaths.size() != storageIds.size()) {
             throw new RuntimeException("composition path not found in system media store");
         }
-        return filePath;
+        return filePaths;
     }
 }
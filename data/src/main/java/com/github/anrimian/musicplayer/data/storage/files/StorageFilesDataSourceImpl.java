@@ -1,14 +1,19 @@
 package com.github.anrimian.musicplayer.data.storage.files;
 
+import androidx.collection.LongSparseArray;
 import androidx.core.util.Pair;
 
 import com.github.anrimian.musicplayer.data.repositories.library.edit.exceptions.FileExistsException;
+import com.github.anrimian.musicplayer.data.repositories.library.edit.exceptions.MoveFilesException;
 import com.github.anrimian.musicplayer.data.storage.providers.music.FilePathComposition;
 import com.github.anrimian.musicplayer.data.storage.providers.music.StorageMusicProvider;
 import com.github.anrimian.musicplayer.domain.models.composition.Composition;
 import com.github.anrimian.musicplayer.domain.models.composition.FullComposition;
 import com.github.anrimian.musicplayer.domain.models.exceptions.FileWriteNotAllowedException;
+import com.github.anrimian.musicplayer.domain.models.folders.FileMoveProgress;
 import com.github.anrimian.musicplayer.domain.utils.FileUtils;
+import com.github.anrimian.musicplayer.domain.utils.functions.Callback;
+import com.github.anrimian.musicplayer.domain.utils.functions.Mapper;
 
 import java.io.File;
 import java.util.LinkedList;
@@ -35,10 +40,11 @@ public class StorageFilesDataSourceImpl implements StorageFilesDataSource {
                                            String newName,
                                            List<FilePathComposition> updatedCompositions) {
         String newPath = FileUtils.getChangedFilePath(oldPath, newName);
+        LongSparseArray<String> filePaths = getCompositionFilePaths(compositions);
         for (Composition composition: compositions) {
             Long storageId = composition.getStorageId();
             if (storageId != null) {
-                String oldFilePath = getCompositionFilePath(storageId);
+                String oldFilePath = filePaths.get(storageId);
                 String newFilePath = FileUtils.safeReplacePath(oldFilePath, oldPath, newPath);
 
                 updatedCompositions.add(new FilePathComposition(
@@ -76,23 +82,13 @@ public class StorageFilesDataSourceImpl implements StorageFilesDataSource {
     @Override
     public List<FilePathComposition> moveCompositionsToFolder(List<Composition> compositions,
                                                               String fromPath,
-                                                              String toPath) {
+                                                              String toPath,
+                                                              Callback<FileMoveProgress> progressCallback) {
         List<FilePathComposition> updatedCompositions = new LinkedList<>();
-        for (Composition composition: compositions) {
-            Long storageId = composition.getStorageId();
-            if (storageId != null) {
-                String oldPath = getCompositionFilePath(storageId);
-                String newPath = FileUtils.safeReplacePath(oldPath, fromPath, toPath);
-
-                moveFile(oldPath, newPath);
-
-                updatedCompositions.add(new FilePathComposition(composition.getId(),
-                        composition.getStorageId(),
-                        newPath)
-                );
-            }
-        }
-        storageMusicProvider.updateCompositionsFilePath(updatedCompositions);
+        moveFiles(compositions,
+                oldPath -> FileUtils.safeReplacePath(oldPath, fromPath, toPath),
+                updatedCompositions,
+                progressCallback);
         return updatedCompositions;
     }
 
@@ -101,26 +97,16 @@ public class StorageFilesDataSourceImpl implements StorageFilesDataSource {
                                               String fromPath,
                                               String toParentPath,
                                               String directoryName,
-                                              List<FilePathComposition> updatedCompositions) {
+                                              List<FilePathComposition> updatedCompositions,
+                                              Callback<FileMoveProgress> progressCallback) {
         String newFolderPath = toParentPath + '/' + directoryName;
 
         createDirectory(newFolderPath);
 
-        for (Composition composition: compositions) {
-            Long storageId = composition.getStorageId();
-            if (storageId != null) {
-                String oldPath = getCompositionFilePath(storageId);
-                String newPath = FileUtils.getChangedFilePath(oldPath, fromPath, newFolderPath);
-
-                moveFile(oldPath, newPath);
-
-                updatedCompositions.add(new FilePathComposition(composition.getId(),
-                        composition.getStorageId(),
-                        newPath)
-                );
-            }
-        }
-        storageMusicProvider.updateCompositionsFilePath(updatedCompositions);
+        moveFiles(compositions,
+                oldPath -> FileUtils.getChangedFilePath(oldPath, fromPath, newFolderPath),
+                updatedCompositions,
+                progressCallback);
         return FileUtils.getFileName(newFolderPath);
     }
 
@@ -164,6 +150,54 @@ public class StorageFilesDataSourceImpl implements StorageFilesDataSource {
         }
     }
 
+    /**
+     * Files can be renamed only one by one, so all of them are moved first and then moved files
+     * are written to media store with one batch, even if some file was not moved.
+     * Progress is reported after each moved file.
+     */
+    private void moveFiles(List<Composition> compositions,
+                           Mapper<String, String> newPathMapper,
+                           List<FilePathComposition> updatedCompositions,
+                           Callback<FileMoveProgress> progressCallback) {
+        LongSparseArray<String> filePaths = getCompositionFilePaths(compositions);
+        int totalCount = filePaths.size();
+        int movedCount = 0;
+        try {
+            for (Composition composition: compositions) {
+                Long storageId = composition.getStorageId();
+                if (storageId != null) {
+                    String oldPath = filePaths.get(storageId);
+                    String newPath = newPathMapper.map(oldPath);
+
+                    moveFile(oldPath, newPath);
+                    movedCount++;
+
+                    updatedCompositions.add(new FilePathComposition(composition.getId(),
+                            composition.getStorageId(),
+                            newPath)
+                    );
+                    progressCallback.call(new FileMoveProgress(movedCount, totalCount));
+                }
+            }
+        } catch (RuntimeException e) {
+            if (movedCount == 0) {
+                throw e;
+            }
+            storageMusicProvider.updateCompositionsFilePath(updatedCompositions);
+            throw new MoveFilesException(updatedCompositions, totalCount, e);
+        }
+        storageMusicProvider.updateCompositionsFilePath(updatedCompositions);
+    }
+
+    private LongSparseArray<String> getCompositionFilePaths(List<Composition> compositions) {
+        List<Long> storageIds = mapListNotNull(compositions, Composition::getStorageId);
+        LongSparseArray<String> filePaths = storageMusicProvider.getCompositionFilePaths(storageIds);
+        if (filePaths.size() != storageIds.size()) {
+            throw new RuntimeException("composition path not found in system media store");
+        }
+        return filePaths;
+    }
+
     @Nonnull
     private String getCompositionFilePath(long storageId) {
         String filePath = storageMusicProvider.getCompositionFilePath(storageId);
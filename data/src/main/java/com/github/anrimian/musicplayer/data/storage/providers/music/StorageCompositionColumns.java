@@ -0,0 +1,386 @@
+package com.github.anrimian.musicplayer.data.storage.providers.music;
+
+import androidx.collection.LongSparseArray;
+
+import com.github.anrimian.musicplayer.data.storage.providers.albums.StorageAlbum;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Date;
+import java.util.HashMap;
+
+import javax.annotation.Nullable;
+
+/**
+ * Media store compositions stored by columns and sorted by id.
+ *
+ * Scan of large library keeps primitive arrays instead of object with two dates per row,
+ * repeated artist names and folder paths are stored once. Row is converted to
+ * {@link StorageFullComposition} only when it is really needed, e.g. for added
+ * and changed compositions.
+ */
+public class StorageCompositionColumns {
+
+    private final int rowCount;
+
+    private final long[] ids;
+    private final long[] durations;
+    private final long[] sizes;
+    private final long[] datesAdded;
+    private final long[] datesModified;
+    private final String[] artists;
+    private final String[] titles;
+    private final String[] fileNames;
+    private final String[] relativePaths;
+    private final StorageAlbum[] albums;
+
+    private final BitSet removedRows = new BitSet();
+    private int removedCount;
+
+    public static StorageCompositionColumns of(LongSparseArray<StorageFullComposition> compositions) {
+        Builder builder = new Builder(compositions.size());
+        for (int i = 0, size = compositions.size(); i < size; i++) {
+            StorageFullComposition composition = compositions.valueAt(i);
+            builder.add(composition.getArtist(),
+                    composition.getTitle(),
+                    composition.getFileName(),
+                    composition.getRelativePath(),
+                    composition.getDuration(),
+                    composition.getSize(),
+                    composition.getId(),
+                    composition.getDateAdded().getTime(),
+                    composition.getDateModified().getTime(),
+                    composition.getStorageAlbum());
+        }
+        return builder.build();
+    }
+
+    private StorageCompositionColumns(int rowCount,
+                                      long[] ids,
+                                      long[] durations,
+                                      long[] sizes,
+                                      long[] datesAdded,
+                                      long[] datesModified,
+                                      String[] artists,
+                                      String[] titles,
+                                      String[] fileNames,
+                                      String[] relativePaths,
+                                      StorageAlbum[] albums) {
+        this.rowCount = rowCount;
+        this.ids = ids;
+        this.durations = durations;
+        this.sizes = sizes;
+        this.datesAdded = datesAdded;
+        this.datesModified = datesModified;
+        this.artists = artists;
+        this.titles = titles;
+        this.fileNames = fileNames;
+        this.relativePaths = relativePaths;
+        this.albums = albums;
+    }
+
+    /**
+     * @return count of rows, including removed ones. Use it as bound for row iteration
+     * and skip rows with {@link #isRemoved(int)}
+     */
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * @return count of not removed rows
+     */
+    public int size() {
+        return rowCount - removedCount;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public boolean isRemoved(int row) {
+        return removedRows.get(row);
+    }
+
+    /**
+     * @return row of composition or -1 if there is no such composition
+     */
+    public int indexOf(long id) {
+        int row = Arrays.binarySearch(ids, 0, rowCount, id);
+        if (row < 0 || isRemoved(row)) {
+            return -1;
+        }
+        return row;
+    }
+
+    public void remove(long id) {
+        int row = indexOf(id);
+        if (row != -1) {
+            removedRows.set(row);
+            removedCount++;
+        }
+    }
+
+    public long getMaxId() {
+        for (int row = rowCount - 1; row >= 0; row--) {
+            if (!isRemoved(row)) {
+                return ids[row];
+            }
+        }
+        return 0;
+    }
+
+    public long getId(int row) {
+        return ids[row];
+    }
+
+    public long getDuration(int row) {
+        return durations[row];
+    }
+
+    public long getSize(int row) {
+        return sizes[row];
+    }
+
+    public long getDateAdded(int row) {
+        return datesAdded[row];
+    }
+
+    public long getDateModified(int row) {
+        return datesModified[row];
+    }
+
+    @Nullable
+    public String getArtist(int row) {
+        return artists[row];
+    }
+
+    @Nullable
+    public String getTitle(int row) {
+        return titles[row];
+    }
+
+    public String getFileName(int row) {
+        return fileNames[row];
+    }
+
+    public String getRelativePath(int row) {
+        return relativePaths[row];
+    }
+
+    @Nullable
+    public StorageAlbum getStorageAlbum(int row) {
+        return albums[row];
+    }
+
+    public StorageFullComposition get(int row) {
+        return new StorageFullComposition(artists[row],
+                titles[row],
+                fileNames[row],
+                relativePaths[row],
+                durations[row],
+                sizes[row],
+                ids[row],
+                new Date(datesAdded[row]),
+                new Date(datesModified[row]),
+                albums[row]);
+    }
+
+    public LongSparseArray<StorageFullComposition> toSparseArray() {
+        LongSparseArray<StorageFullComposition> result = new LongSparseArray<>(size());
+        for (int row = 0; row < rowCount; row++) {
+            if (!isRemoved(row)) {
+                //rows are sorted, so it is cheap append
+                result.append(ids[row], get(row));
+            }
+        }
+        return result;
+    }
+
+    public static class Builder {
+
+        private static final int MIN_CAPACITY = 16;
+
+        //repeated values share one instance, cursor returns new string for each row
+        private final HashMap<String, String> stringPool = new HashMap<>();
+
+        private int rowCount;
+        private boolean sorted = true;
+
+        private long[] ids;
+        private long[] durations;
+        private long[] sizes;
+        private long[] datesAdded;
+        private long[] datesModified;
+        private String[] artists;
+        private String[] titles;
+        private String[] fileNames;
+        private String[] relativePaths;
+        private StorageAlbum[] albums;
+
+        public Builder(int capacity) {
+            allocate(Math.max(capacity, MIN_CAPACITY));
+        }
+
+        public int getRowCount() {
+            return rowCount;
+        }
+
+        public void ensureCapacity(int capacity) {
+            if (capacity > ids.length) {
+                resize(capacity);
+            }
+        }
+
+        public Builder add(@Nullable String artist,
+                           @Nullable String title,
+                           String fileName,
+                           String relativePath,
+                           long duration,
+                           long size,
+                           long id,
+                           long dateAdded,
+                           long dateModified,
+                           @Nullable StorageAlbum album) {
+            if (rowCount == ids.length) {
+                resize(rowCount * 2);
+            }
+            if (rowCount > 0 && ids[rowCount - 1] >= id) {
+                sorted = false;
+            }
+            int row = rowCount++;
+            ids[row] = id;
+            durations[row] = duration;
+            sizes[row] = size;
+            datesAdded[row] = dateAdded;
+            datesModified[row] = dateModified;
+            artists[row] = intern(artist);
+            titles[row] = title;
+            fileNames[row] = fileName;
+            relativePaths[row] = intern(relativePath);
+            albums[row] = album;
+            return this;
+        }
+
+        public StorageCompositionColumns build() {
+            if (!sorted) {
+                sortById();
+            }
+            stringPool.clear();
+            if (rowCount != ids.length) {
+                resize(rowCount);
+            }
+            return new StorageCompositionColumns(rowCount,
+                    ids,
+                    durations,
+                    sizes,
+                    datesAdded,
+                    datesModified,
+                    artists,
+                    titles,
+                    fileNames,
+                    relativePaths,
+                    albums);
+        }
+
+        private String intern(@Nullable String value) {
+            if (value == null) {
+                return null;
+            }
+            String pooledValue = stringPool.get(value);
+            if (pooledValue == null) {
+                stringPool.put(value, value);
+                return value;
+            }
+            return pooledValue;
+        }
+
+        //stable sort, when id is repeated (e.g. in different volumes) the last row wins
+        private void sortById() {
+            int[] order = new int[rowCount];
+            for (int i = 0; i < rowCount; i++) {
+                order[i] = i;
+            }
+            int[] buffer = new int[rowCount];
+            for (int width = 1; width < rowCount; width *= 2) {
+                for (int left = 0; left < rowCount - width; left += width * 2) {
+                    merge(order, buffer, left, left + width, Math.min(left + width * 2, rowCount));
+                }
+            }
+
+            int uniqueCount = 0;
+            for (int i = 0; i < rowCount; i++) {
+                if (i + 1 < rowCount && ids[order[i]] == ids[order[i + 1]]) {
+                    continue;
+                }
+                order[uniqueCount++] = order[i];
+            }
+
+            long[] oldIds = ids;
+            long[] oldDurations = durations;
+            long[] oldSizes = sizes;
+            long[] oldDatesAdded = datesAdded;
+            long[] oldDatesModified = datesModified;
+            String[] oldArtists = artists;
+            String[] oldTitles = titles;
+            String[] oldFileNames = fileNames;
+            String[] oldRelativePaths = relativePaths;
+            StorageAlbum[] oldAlbums = albums;
+            allocate(uniqueCount);
+            for (int row = 0; row < uniqueCount; row++) {
+                int oldRow = order[row];
+                ids[row] = oldIds[oldRow];
+                durations[row] = oldDurations[oldRow];
+                sizes[row] = oldSizes[oldRow];
+                datesAdded[row] = oldDatesAdded[oldRow];
+                datesModified[row] = oldDatesModified[oldRow];
+                artists[row] = oldArtists[oldRow];
+                titles[row] = oldTitles[oldRow];
+                fileNames[row] = oldFileNames[oldRow];
+                relativePaths[row] = oldRelativePaths[oldRow];
+                albums[row] = oldAlbums[oldRow];
+            }
+            rowCount = uniqueCount;
+            sorted = true;
+        }
+
+        private void merge(int[] order, int[] buffer, int start, int middle, int end) {
+            int left = start;
+            int right = middle;
+            for (int i = start; i < end; i++) {
+                if (right >= end || (left < middle && ids[order[left]] <= ids[order[right]])) {
+                    buffer[i] = order[left++];
+                } else {
+                    buffer[i] = order[right++];
+                }
+            }
+            System.arraycopy(buffer, start, order, start, end - start);
+        }
+
+        private void allocate(int capacity) {
+            ids = new long[capacity];
+            durations = new long[capacity];
+            sizes = new long[capacity];
+            datesAdded = new long[capacity];
+            datesModified = new long[capacity];
+            artists = new String[capacity];
+            titles = new String[capacity];
+            fileNames = new String[capacity];
+            relativePaths = new String[capacity];
+            albums = new StorageAlbum[capacity];
+        }
+
+        private void resize(int capacity) {
+            ids = Arrays.copyOf(ids, capacity);
+            durations = Arrays.copyOf(durations, capacity);
+            sizes = Arrays.copyOf(sizes, capacity);
+            datesAdded = Arrays.copyOf(datesAdded, capacity);
+            datesModified = Arrays.copyOf(datesModified, capacity);
+            artists = Arrays.copyOf(artists, capacity);
+            titles = Arrays.copyOf(titles, capacity);
+            fileNames = Arrays.copyOf(fileNames, capacity);
+            relativePaths = Arrays.copyOf(relativePaths, capacity);
+            albums = Arrays.copyOf(albums, capacity);
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.github.anrimian.musicplayer.data.storage.providers.music;
 
 import static android.provider.MediaStore.Audio.Media;
 import static android.text.TextUtils.isEmpty;
+import static com.github.anrimian.musicplayer.data.database.utils.DatabaseUtils.MAX_VARIABLES_COUNT;
 import static com.github.anrimian.musicplayer.data.utils.db.CursorWrapper.getColumnIndex;
 import static com.github.anrimian.musicplayer.domain.utils.ListUtils.asList;
 
@@ -15,6 +16,7 @@ import android.content.Context;
 import android.content.Intent;
 import android.content.OperationApplicationException;
 import android.database.Cursor;
+import android.media.MediaScannerConnection;
 import android.net.Uri;
 import android.os.Build;
 import android.os.ParcelFileDescriptor;
@@ -40,9 +42,11 @@ import java.io.File;
 import java.io.FileDescriptor;
 import java.io.FileNotFoundException;
 import java.io.InputStream;
-import java.io.OutputStream;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
-import java.util.Date;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
@@ -51,10 +55,11 @@ import javax.annotation.Nullable;
 
 import io.reactivex.rxjava3.core.Completable;
 import io.reactivex.rxjava3.core.Observable;
-import io.reactivex.rxjava3.core.Single;
 
 public class StorageMusicProvider {
 
+    private static final long NO_EMIT_WINDOW = 0;
+
     private final ContentResolver contentResolver;
     private final Context context;
     private final StorageAlbumsProvider albumsProvider;
@@ -66,10 +71,23 @@ public class StorageMusicProvider {
     }
 
     public void scanMedia(long id) {
-        String filePath = getCompositionFilePath(id);
-        if (filePath != null) {
-            scanMedia(filePath);
+        scanMedia(asList(id));
+    }
+
+    /**
+     * Resolves paths of compositions with one query and passes them to media scanner at once
+     * instead of broadcast per file.
+     */
+    public void scanMedia(Collection<Long> ids) {
+        LongSparseArray<String> paths = getCompositionFilePaths(ids);
+        if (paths.isEmpty()) {
+            return;
+        }
+        String[] pathsArray = new String[paths.size()];
+        for (int i = 0; i < paths.size(); i++) {
+            pathsArray[i] = paths.valueAt(i);
         }
+        MediaScannerConnection.scanFile(context, pathsArray, null, null);
     }
 
     public void scanMedia(String path) {
@@ -79,11 +97,15 @@ public class StorageMusicProvider {
         context.sendBroadcast(scanFileIntent);
     }
 
-    public Observable<LongSparseArray<StorageFullComposition>> getCompositionsObservable(
-            long minAudioDurationMillis,
-            boolean showAllAudioFiles
-    ) {
-        Observable<Object> storageChangeObservable = RxContentObserver.getObservable(contentResolver, unsafeGetStorageUri());
+    /**
+     * Emits every raw change event, bursts are expected to be coalesced by consumer.
+     */
+    public Observable<Object> getStorageChangeObservable() {
+        Observable<Object> storageChangeObservable = RxContentObserver.getObservable(
+                contentResolver,
+                unsafeGetStorageUri(),
+                NO_EMIT_WINDOW
+        );
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
             //on new composition content observer not called on android 10
             //but for some reason content observer is called for playlist items when new file added
@@ -91,13 +113,12 @@ public class StorageMusicProvider {
 
             Observable<Object> playListChangeObservable = RxContentObserver.getObservable(
                     contentResolver,
-                    MediaStore.Audio.Playlists.Members.getContentUri("external", 0)
+                    MediaStore.Audio.Playlists.Members.getContentUri("external", 0),
+                    NO_EMIT_WINDOW
             );
-            //maybe filter often events?
             storageChangeObservable = Observable.merge(storageChangeObservable, playListChangeObservable);
         }
-        return storageChangeObservable
-                .flatMapSingle(o -> getCompositionsSingle(minAudioDurationMillis, showAllAudioFiles));
+        return storageChangeObservable;
     }
 
     @Nullable
@@ -105,118 +126,68 @@ public class StorageMusicProvider {
             long minAudioDurationMillis,
             boolean showAllAudioFiles
     ) {
-        String[] query;
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
-            query = new String[] {
-                    Media.ARTIST,
-                    Media.TITLE,
-                    Media.DISPLAY_NAME,
-                    Media.RELATIVE_PATH,
-                    Media.DURATION,
-                    Media.SIZE,
-                    Media._ID,
-                    Media.ALBUM_ID,
-                    Media.DATE_ADDED,
-                    Media.DATE_MODIFIED
-            };
-        } else {
-            query = new String[] {
-                    Media.ARTIST,
-                    Media.TITLE,
-                    Media.DISPLAY_NAME,
-                    Media.DATA,
-                    Media.DURATION,
-                    Media.SIZE,
-                    Media._ID,
-                    Media.ALBUM_ID,
-                    Media.DATE_ADDED,
-                    Media.DATE_MODIFIED
-            };
-        }
+        StorageCompositionColumns compositions = getCompositionColumns(minAudioDurationMillis,
+                showAllAudioFiles);
+        return compositions == null? null : compositions.toSparseArray();
+    }
 
-        //check how it works
+    /**
+     * Same as {@link #getCompositions(long, boolean)}, but without creation of object per row.
+     * Used by media scanner on full library.
+     */
+    @Nullable
+    public StorageCompositionColumns getCompositionColumns(
+            long minAudioDurationMillis,
+            boolean showAllAudioFiles
+    ) {
+        return queryCompositions(minAudioDurationMillis, showAllAudioFiles, null, null);
+    }
+
+    /**
+     * Selects only rows which were modified at or after given time (in seconds, media store format)
+     * or were inserted after given id. Copied files can keep their original modify date,
+     * so id part of mark catches them.
+     */
+    @Nullable
+    public StorageCompositionColumns getChangedCompositions(
+            long minAudioDurationMillis,
+            boolean showAllAudioFiles,
+            long lastModifyTimeSeconds,
+            long lastStorageId
+    ) {
+        return queryCompositions(minAudioDurationMillis,
+                showAllAudioFiles,
+                "(" + Media.DATE_MODIFIED + " >= ? OR " + Media._ID + " > ?)",
+                new String[] { String.valueOf(lastModifyTimeSeconds), String.valueOf(lastStorageId) });
+    }
+
+    /**
+     * @return ids of all rows that pass current filter, used to detect deleted compositions
+     * without full rows read
+     */
+    @Nullable
+    public Set<Long> getCompositionIds(long minAudioDurationMillis, boolean showAllAudioFiles) {
         List<Uri> uris = getStorageUris();
         if (uris.isEmpty()) {
             return null;
         }
 
-//        Uri uri;
-//        try {
-//            uri = getStorageUri();//try to select all uri's from all available volumes
-//        } catch (UnavailableMediaStoreException e) {
-//            return null;
-//        }
-
-        StringBuilder selectionBuilder = new StringBuilder();
-        //also display unsupported or corrupted compositions
-        selectionBuilder.append("(" + Media.DURATION + " >= ? OR " + Media.DURATION + " IS NULL)");
-        if (!showAllAudioFiles) {
-            selectionBuilder.append(" AND ");
-            selectionBuilder.append(Media.IS_MUSIC);
-            selectionBuilder.append(" = ?");
-        }
-
-        String selection = selectionBuilder.toString();
-        String[] projection;
-        if (showAllAudioFiles) {
-            projection = new String[] { String.valueOf(minAudioDurationMillis) };
-        } else {
-            projection = new String[] { String.valueOf(minAudioDurationMillis), String.valueOf(1) };
-        }
+        String selection = getSelection(showAllAudioFiles, null);
+        String[] args = getSelectionArgs(minAudioDurationMillis, showAllAudioFiles, null);
 
-        LongSparseArray<StorageFullComposition> compositions = new LongSparseArray<>();
+        Set<Long> ids = new HashSet<>();
         for (Uri uri: uris) {
-            try (Cursor cursor = query(uri, query, selection, projection, null)) {
+            try (Cursor cursor = query(uri, new String[] { Media._ID }, selection, args, null)) {
                 if (cursor == null) {
-                    return new LongSparseArray<>();
-                }
-
-                LongSparseArray<StorageAlbum> albums = albumsProvider.getAlbums();
-
-                CursorWrapper cursorWrapper = new CursorWrapper(cursor);
-                LongSparseArray<StorageFullComposition> volumeCompositions = new LongSparseArray<>(cursor.getCount());
-
-                int artistIndex = getColumnIndex(cursor, Media.ARTIST);
-                int titleIndex = getColumnIndex(cursor, Media.TITLE);
-                int relativePathIndex = -1;
-                int filePathIndex = -1;
-                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
-                    relativePathIndex = getColumnIndex(cursor, Media.RELATIVE_PATH);
-                } else {
-                    filePathIndex = getColumnIndex(cursor, Media.DATA);
+                    return null;
                 }
-                int displayNameIndex = getColumnIndex(cursor, Media.DISPLAY_NAME);
-                int durationIndex = getColumnIndex(cursor, Media.DURATION);
-                int sizeIndex = getColumnIndex(cursor, Media.SIZE);
                 int idIndex = getColumnIndex(cursor, Media._ID);
-                int albumIdIndex = getColumnIndex(cursor, Media.ALBUM_ID);
-                int dateAddedIndex = getColumnIndex(cursor, Media.DATE_ADDED);
-                int dateModifiedIndex = getColumnIndex(cursor, Media.DATE_MODIFIED);
-
                 while (MediaStoreUtils.moveToNext(cursor)) {
-                    StorageFullComposition composition = buildStorageComposition(
-                            artistIndex,
-                            titleIndex,
-                            relativePathIndex,
-                            filePathIndex,
-                            displayNameIndex,
-                            durationIndex,
-                            sizeIndex,
-                            idIndex,
-                            albumIdIndex,
-                            dateAddedIndex,
-                            dateModifiedIndex,
-                            cursorWrapper,
-                            albums
-                    );
-                    if (composition != null) {
-                        volumeCompositions.put(composition.getId(), composition);
-                    }
+                    ids.add(cursor.getLong(idIndex));
                 }
-                compositions.putAll(volumeCompositions);
             }
         }
-        return compositions;
+        return ids;
     }
 
     @Nullable
@@ -244,6 +215,22 @@ public class StorageMusicProvider {
         }
     }
 
+    /**
+     * Resolves paths of several compositions with one query per chunk of ids.
+     * Compositions which are not found in media store are absent in result.
+     */
+    public LongSparseArray<String> getCompositionFilePaths(Collection<Long> storageIds) {
+        return getCompositionsColumn(storageIds, Media.DATA);
+    }
+
+    /**
+     * Same as {@link #getCompositionFilePaths(Collection)}, but for relative paths.
+     */
+    @RequiresApi(api = Build.VERSION_CODES.R)
+    public LongSparseArray<String> getCompositionRelativePaths(Collection<Long> storageIds) {
+        return getCompositionsColumn(storageIds, Media.RELATIVE_PATH);
+    }
+
     @Nullable
     public String getCompositionFileName(long storageId) {
         String[] query;
@@ -411,11 +398,19 @@ public class StorageMusicProvider {
         return fd.getFileDescriptor();
     }
 
-    public OutputStream openCompositionOutputStream(Long id) throws FileNotFoundException {
+    /**
+     * @param truncate true to rewrite whole file, false to write only some regions of file
+     */
+    public FileChannel openCompositionWriteChannel(Long id, boolean truncate) throws FileNotFoundException {
         if (id == null) {
             throw new FileNotFoundException("can not open stream for file without media store id");
         }
-        return contentResolver.openOutputStream(getCompositionUri(id));
+        ParcelFileDescriptor fd = contentResolver.openFileDescriptor(getCompositionUri(id), truncate? "wt" : "rw");
+        if (fd == null) {
+            throw new FileNotFoundException("file descriptor not found");
+        }
+        //channel closes stream and descriptor
+        return new ParcelFileDescriptor.AutoCloseOutputStream(fd).getChannel();
     }
 
     public Completable processStorageError(Throwable throwable, List<CompositionId> compositions) {
@@ -435,19 +430,169 @@ public class StorageMusicProvider {
         });
     }
 
-    private Single<LongSparseArray<StorageFullComposition>> getCompositionsSingle(
+    @Nullable
+    private StorageCompositionColumns queryCompositions(
             long minAudioDurationMillis,
-            boolean showAllAudioFiles
+            boolean showAllAudioFiles,
+            @Nullable String extraSelection,
+            @Nullable String[] extraArgs
     ) {
-        return Single.create(emitter -> {
-            LongSparseArray<StorageFullComposition> compositions = getCompositions(
-                    minAudioDurationMillis,
-                    showAllAudioFiles
-            );
-            if (compositions != null) {
-                emitter.onSuccess(compositions);
+        String[] query;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+            query = new String[] {
+                    Media.ARTIST,
+                    Media.TITLE,
+                    Media.DISPLAY_NAME,
+                    Media.RELATIVE_PATH,
+                    Media.DURATION,
+                    Media.SIZE,
+                    Media._ID,
+                    Media.ALBUM_ID,
+                    Media.DATE_ADDED,
+                    Media.DATE_MODIFIED
+            };
+        } else {
+            query = new String[] {
+                    Media.ARTIST,
+                    Media.TITLE,
+                    Media.DISPLAY_NAME,
+                    Media.DATA,
+                    Media.DURATION,
+                    Media.SIZE,
+                    Media._ID,
+                    Media.ALBUM_ID,
+                    Media.DATE_ADDED,
+                    Media.DATE_MODIFIED
+            };
+        }
+
+        //check how it works
+        List<Uri> uris = getStorageUris();
+        if (uris.isEmpty()) {
+            return null;
+        }
+
+//        Uri uri;
+//        try {
+//            uri = getStorageUri();//try to select all uri's from all available volumes
+//        } catch (UnavailableMediaStoreException e) {
+//            return null;
+//        }
+
+        String selection = getSelection(showAllAudioFiles, extraSelection);
+        String[] projection = getSelectionArgs(minAudioDurationMillis, showAllAudioFiles, extraArgs);
+
+        StorageCompositionColumns.Builder compositions = new StorageCompositionColumns.Builder(0);
+        for (Uri uri: uris) {
+            //sorted rows are appended without extra sort in builder
+            try (Cursor cursor = query(uri, query, selection, projection, Media._ID)) {
+                if (cursor == null) {
+                    return new StorageCompositionColumns.Builder(0).build();
+                }
+
+                LongSparseArray<StorageAlbum> albums = albumsProvider.getAlbums();
+
+                CursorWrapper cursorWrapper = new CursorWrapper(cursor);
+                compositions.ensureCapacity(compositions.getRowCount() + cursor.getCount());
+
+                int artistIndex = getColumnIndex(cursor, Media.ARTIST);
+                int titleIndex = getColumnIndex(cursor, Media.TITLE);
+                int relativePathIndex = -1;
+                int filePathIndex = -1;
+                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+                    relativePathIndex = getColumnIndex(cursor, Media.RELATIVE_PATH);
+                } else {
+                    filePathIndex = getColumnIndex(cursor, Media.DATA);
+                }
+                int displayNameIndex = getColumnIndex(cursor, Media.DISPLAY_NAME);
+                int durationIndex = getColumnIndex(cursor, Media.DURATION);
+                int sizeIndex = getColumnIndex(cursor, Media.SIZE);
+                int idIndex = getColumnIndex(cursor, Media._ID);
+                int albumIdIndex = getColumnIndex(cursor, Media.ALBUM_ID);
+                int dateAddedIndex = getColumnIndex(cursor, Media.DATE_ADDED);
+                int dateModifiedIndex = getColumnIndex(cursor, Media.DATE_MODIFIED);
+
+                while (MediaStoreUtils.moveToNext(cursor)) {
+                    addStorageComposition(
+                            artistIndex,
+                            titleIndex,
+                            relativePathIndex,
+                            filePathIndex,
+                            displayNameIndex,
+                            durationIndex,
+                            sizeIndex,
+                            idIndex,
+                            albumIdIndex,
+                            dateAddedIndex,
+                            dateModifiedIndex,
+                            cursorWrapper,
+                            albums,
+                            compositions
+                    );
+                }
             }
-        });
+        }
+        return compositions.build();
+    }
+
+    private LongSparseArray<String> getCompositionsColumn(Collection<Long> storageIds,
+                                                          String column) {
+        LongSparseArray<String> result = new LongSparseArray<>(storageIds.size());
+        for (List<Long> chunk: ListUtils.chunked(storageIds, MAX_VARIABLES_COUNT)) {
+            StringBuilder selection = new StringBuilder(Media._ID + " IN (");
+            String[] args = new String[chunk.size()];
+            for (int i = 0; i < chunk.size(); i++) {
+                selection.append(i == 0? "?" : ",?");
+                args[i] = String.valueOf(chunk.get(i));
+            }
+            selection.append(")");
+
+            try (Cursor cursor = query(getStorageUri(),
+                    new String[] { Media._ID, column },
+                    selection.toString(),
+                    args,
+                    null)) {
+                if (cursor == null) {
+                    continue;
+                }
+                int idIndex = getColumnIndex(cursor, Media._ID);
+                int valueIndex = getColumnIndex(cursor, column);
+                while (MediaStoreUtils.moveToNext(cursor)) {
+                    result.put(cursor.getLong(idIndex), cursor.getString(valueIndex));
+                }
+            }
+        }
+        return result;
+    }
+
+    private String getSelection(boolean showAllAudioFiles, @Nullable String extraSelection) {
+        StringBuilder selectionBuilder = new StringBuilder();
+        //also display unsupported or corrupted compositions
+        selectionBuilder.append("(" + Media.DURATION + " >= ? OR " + Media.DURATION + " IS NULL)");
+        if (!showAllAudioFiles) {
+            selectionBuilder.append(" AND ");
+            selectionBuilder.append(Media.IS_MUSIC);
+            selectionBuilder.append(" = ?");
+        }
+        if (extraSelection != null) {
+            selectionBuilder.append(" AND ");
+            selectionBuilder.append(extraSelection);
+        }
+        return selectionBuilder.toString();
+    }
+
+    private String[] getSelectionArgs(long minAudioDurationMillis,
+                                      boolean showAllAudioFiles,
+                                      @Nullable String[] extraArgs) {
+        List<String> args = new ArrayList<>();
+        args.add(String.valueOf(minAudioDurationMillis));
+        if (!showAllAudioFiles) {
+            args.add(String.valueOf(1));
+        }
+        if (extraArgs != null) {
+            args.addAll(Arrays.asList(extraArgs));
+        }
+        return args.toArray(new String[0]);
     }
 
     private void updateComposition(long id, String key, String value) {
@@ -456,7 +601,7 @@ public class StorageMusicProvider {
         contentResolver.update(getCompositionUri(id), cv, null, null);
     }
 
-    private StorageFullComposition buildStorageComposition(
+    private void addStorageComposition(
             int artistIndex,
             int titleIndex,
             int relativePathIndex,
@@ -469,7 +614,8 @@ public class StorageMusicProvider {
             int dateAddedIndex,
             int dateModifiedIndex,
             CursorWrapper cursorWrapper,
-            LongSparseArray<StorageAlbum> albums
+            LongSparseArray<StorageAlbum> albums,
+            StorageCompositionColumns.Builder compositions
     ) {
 
         String artist = cursorWrapper.getString(artistIndex);
@@ -482,7 +628,7 @@ public class StorageMusicProvider {
         } else {
             filePath = cursorWrapper.getString(filePathIndex);
             if (isEmpty(filePath)) {
-                return null;
+                return;
             }
             filePath = FileUtils.getParentDirPath(filePath);
         }
@@ -516,17 +662,17 @@ public class StorageMusicProvider {
 //        @Nullable Integer year = cursorWrapper.getInt(YEAR);
 
 
-        Date dateAdded;
+        long dateAdded;
         if (dateAddedMillis == 0) {
-            dateAdded = new Date(System.currentTimeMillis());
+            dateAdded = System.currentTimeMillis();
         } else {
-            dateAdded = new Date(dateAddedMillis * 1000L);
+            dateAdded = dateAddedMillis * 1000L;
         }
-        Date dateModified;
+        long dateModified;
         if (dateModifiedMillis == 0) {
-            dateModified = new Date(System.currentTimeMillis());
+            dateModified = System.currentTimeMillis();
         } else {
-            dateModified  = new Date(dateModifiedMillis * 1000L);
+            dateModified  = dateModifiedMillis * 1000L;
         }
 
         if (artist != null && artist.equals("<unknown>")) {
@@ -535,7 +681,7 @@ public class StorageMusicProvider {
 
         StorageAlbum storageAlbum = albums.get(albumId);
 
-        return new StorageFullComposition(
+        compositions.add(
                 artist,
                 title,
                 displayName,
@@ -25,6 +25,7 @@ import com.github.anrimian.musicplayer.domain.models.composition.Composition;
 import com.github.anrimian.musicplayer.domain.utils.rx.FastDebounceFilter;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 
@@ -154,6 +155,18 @@ public class StoragePlayListsProvider {
         }
     }
 
+    /**
+     * MediaStore exposes members only by uri of each playlist, so items are read playlist
+     * by playlist, but all of them are collected in one pass before any database change
+     */
+    public LongSparseArray<List<StoragePlayListItem>> getPlayListsItems(Collection<Long> playListIds) {
+        LongSparseArray<List<StoragePlayListItem>> result = new LongSparseArray<>(playListIds.size());
+        for (long playListId: playListIds) {
+            result.put(playListId, getPlayListItems(playListId));
+        }
+        return result;
+    }
+
     public void addCompositionToPlayList(long compositionId, long playListId, int position) {
         ContentValues values = new ContentValues();
         values.put(Playlists.Members.PLAY_ORDER, position);
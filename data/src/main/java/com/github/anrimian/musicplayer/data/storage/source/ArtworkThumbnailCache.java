@@ -0,0 +1,219 @@
+package com.github.anrimian.musicplayer.data.storage.source;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+/**
+ * Disk store of pre-scaled composition artworks.
+ *
+ * Entry is keyed by composition id, modify date and one of {@link #SIZES}, so changed file
+ * never hits an old thumbnail. Empty entry means that composition has no artwork.
+ * Least recently used entries are removed when total size exceeds byte budget, outdated entries
+ * of changed compositions are never read again and go away the same way.
+ */
+public class ArtworkThumbnailCache {
+
+    public static final int SMALL_SIZE = 400;
+    public static final int FULL_SIZE = 1000;
+
+    static final int[] SIZES = { SMALL_SIZE, FULL_SIZE };
+
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
+
+    private final File directory;
+    private final long maxBytes;
+    private final ThumbnailEncoder encoder;
+
+    //file name to length, in access order
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+    private boolean initialized;
+
+    public ArtworkThumbnailCache(File directory, long maxBytes, ThumbnailEncoder encoder) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        this.encoder = encoder;
+    }
+
+    /**
+     * @return the smallest stored size which is not less than requested one
+     */
+    public static int selectSize(int requestedSize) {
+        for (int size: SIZES) {
+            if (requestedSize <= size) {
+                return size;
+            }
+        }
+        return SIZES[SIZES.length - 1];
+    }
+
+    /**
+     * @return thumbnail bytes, empty array if composition has no artwork
+     * or null if there is no entry for this composition state
+     */
+    @Nullable
+    public synchronized byte[] get(long compositionId, @Nullable Date dateModified, int size) {
+        initialize();
+        String name = getFileName(compositionId, dateModified, size);
+        if (entries.get(name) == null) {
+            return null;
+        }
+        File file = new File(directory, name);
+        try {
+            byte[] bytes = readFile(file);
+            //keep access order between launches
+            file.setLastModified(System.currentTimeMillis());
+            return bytes;
+        } catch (IOException e) {
+            removeEntry(name);
+            return null;
+        }
+    }
+
+    public synchronized boolean contains(long compositionId, @Nullable Date dateModified, int size) {
+        initialize();
+        return entries.containsKey(getFileName(compositionId, dateModified, size));
+    }
+
+    /**
+     * Scales artwork to given sizes and stores the results.
+     *
+     * @param artwork original artwork bytes, null if composition has no artwork
+     */
+    public void put(long compositionId,
+                    @Nullable Date dateModified,
+                    @Nullable byte[] artwork,
+                    int... sizes) throws IOException {
+        for (int size: sizes) {
+            byte[] thumbnail = null;
+            if (artwork != null) {
+                thumbnail = encoder.encode(artwork, size);
+            }
+            if (thumbnail == null) {
+                thumbnail = new byte[0];
+            }
+            write(getFileName(compositionId, dateModified, size), thumbnail);
+        }
+    }
+
+    public synchronized void clear() {
+        initialize();
+        for (String name: entries.keySet()) {
+            new File(directory, name).delete();
+        }
+        entries.clear();
+        totalBytes = 0;
+    }
+
+    synchronized long getTotalBytes() {
+        initialize();
+        return totalBytes;
+    }
+
+    private synchronized void write(String name, byte[] bytes) throws IOException {
+        initialize();
+        File tempFile = new File(directory, name + TEMP_FILE_SUFFIX);
+        try (FileOutputStream stream = new FileOutputStream(tempFile)) {
+            stream.write(bytes);
+        }
+        File file = new File(directory, name);
+        if (!tempFile.renameTo(file)) {
+            tempFile.delete();
+            throw new IOException("unable to write thumbnail: " + name);
+        }
+        removeEntry(name);
+        entries.put(name, (long) bytes.length);
+        totalBytes += bytes.length;
+        trimToSize();
+    }
+
+    private void trimToSize() {
+        Iterator<Map.Entry<String, Long>> iterator = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<String, Long> entry = iterator.next();
+            new File(directory, entry.getKey()).delete();
+            totalBytes -= entry.getValue();
+            iterator.remove();
+        }
+    }
+
+    private void removeEntry(String name) {
+        Long length = entries.remove(name);
+        if (length != null) {
+            totalBytes -= length;
+        }
+    }
+
+    private void initialize() {
+        if (initialized) {
+            return;
+        }
+        initialized = true;
+        if (!directory.exists()) {
+            directory.mkdirs();
+            return;
+        }
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        long[] modifyTimes = new long[files.length];
+        for (int i = 0; i < files.length; i++) {
+            modifyTimes[i] = files[i].lastModified();
+        }
+        Integer[] order = new Integer[files.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (first, second) -> Long.compare(modifyTimes[first], modifyTimes[second]));
+        for (int index: order) {
+            File file = files[index];
+            if (file.getName().endsWith(TEMP_FILE_SUFFIX)) {
+                file.delete();
+                continue;
+            }
+            long length = file.length();
+            entries.put(file.getName(), length);
+            totalBytes += length;
+        }
+        trimToSize();
+    }
+
+    private static byte[] readFile(File file) throws IOException {
+        byte[] bytes = new byte[(int) file.length()];
+        try (FileInputStream stream = new FileInputStream(file)) {
+            int offset = 0;
+            while (offset < bytes.length) {
+                int read = stream.read(bytes, offset, bytes.length - offset);
+                if (read == -1) {
+                    throw new IOException("unexpected end of thumbnail file: " + file.getName());
+                }
+                offset += read;
+            }
+        }
+        return bytes;
+    }
+
+    private static String getFileName(long compositionId, @Nullable Date dateModified, int size) {
+        long time = dateModified == null? 0 : dateModified.getTime();
+        return compositionId + "_" + time + "_" + size;
+    }
+
+    public interface ThumbnailEncoder {
+
+        /**
+         * @return scaled image bytes or null if artwork can not be decoded
+         */
+        @Nullable
+        byte[] encode(byte[] artwork, int maxSize) throws IOException;
+    }
+}
@@ -0,0 +1,29 @@
+package com.github.anrimian.musicplayer.data.storage.source;
+
+import com.github.anrimian.musicplayer.domain.models.composition.source.CompositionSourceTags;
+
+import javax.annotation.Nullable;
+
+/**
+ * Data read from composition file by one tag parse.
+ */
+public class CompositionFileSource {
+
+    private final CompositionSourceTags tags;
+    @Nullable
+    private final byte[] artwork;
+
+    public CompositionFileSource(CompositionSourceTags tags, @Nullable byte[] artwork) {
+        this.tags = tags;
+        this.artwork = artwork;
+    }
+
+    public CompositionSourceTags getTags() {
+        return tags;
+    }
+
+    @Nullable
+    public byte[] getArtwork() {
+        return artwork;
+    }
+}
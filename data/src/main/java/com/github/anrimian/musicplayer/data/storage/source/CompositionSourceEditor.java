@@ -4,6 +4,8 @@ import static com.github.anrimian.musicplayer.domain.utils.FileUtils.getFileName
 
 import android.os.Build;
 
+import androidx.collection.LongSparseArray;
+
 import com.github.anrimian.musicplayer.data.models.composition.CompositionId;
 import com.github.anrimian.musicplayer.data.storage.exceptions.TagReaderException;
 import com.github.anrimian.musicplayer.data.storage.providers.music.StorageMusicProvider;
@@ -29,14 +31,18 @@ import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import javax.annotation.Nullable;
 
 import io.reactivex.rxjava3.core.Completable;
 import io.reactivex.rxjava3.core.Maybe;
 import io.reactivex.rxjava3.core.Observable;
+import io.reactivex.rxjava3.core.Scheduler;
 import io.reactivex.rxjava3.core.Single;
 
 public class CompositionSourceEditor {
@@ -46,11 +52,21 @@ public class CompositionSourceEditor {
 
     private final StorageMusicProvider storageMusicProvider;
     private final FileSourceProvider fileSourceProvider;
+    private final Scheduler editorScheduler;
+    private final int editorParallelism;
 
+    /**
+     * @param editorScheduler scheduler for files edit in batch operations
+     * @param editorParallelism max count of files edited at once in batch operations
+     */
     public CompositionSourceEditor(StorageMusicProvider storageMusicProvider,
-                                   FileSourceProvider fileSourceProvider) {
+                                   FileSourceProvider fileSourceProvider,
+                                   Scheduler editorScheduler,
+                                   int editorParallelism) {
         this.storageMusicProvider = storageMusicProvider;
         this.fileSourceProvider = fileSourceProvider;
+        this.editorScheduler = editorScheduler;
+        this.editorParallelism = editorParallelism;
     }
 
     public Completable setCompositionTitle(FullComposition composition, String title) {
@@ -68,6 +84,11 @@ public class CompositionSourceEditor {
                 .flatMapCompletable(path -> setCompositionAuthor(path, composition.getStorageId(), author));
     }
 
+    public Single<List<CompositionId>> setCompositionsAuthor(List<CompositionId> compositions, String author) {
+        return setCompositionsTags(compositions, Collections.singletonMap(FieldKey.ARTIST, author))
+                .toList();
+    }
+
     public Completable setCompositionAlbum(FullComposition composition, String author) {
         return getPath(composition)
                 .flatMapCompletable(path -> setCompositionAlbum(path, composition.getStorageId(), author));
@@ -79,10 +100,8 @@ public class CompositionSourceEditor {
     }
 
     public Single<List<CompositionId>> setCompositionsAlbum(List<CompositionId> compositions, String album) {
-        return Observable.fromIterable(compositions)
-                .flatMapCompletable(composition -> setCompositionAlbum(composition, album))
-                .onErrorResumeNext(throwable -> storageMusicProvider.processStorageError(throwable, compositions))
-                .toSingleDefault(compositions);
+        return setCompositionsTags(compositions, Collections.singletonMap(FieldKey.ALBUM, album))
+                .toList();
     }
 
     public Completable setCompositionAlbumArtist(FullComposition composition, String artist) {
@@ -91,10 +110,30 @@ public class CompositionSourceEditor {
     }
 
     public Single<List<CompositionId>> setCompositionsAlbumArtist(List<CompositionId> compositions, String artist) {
-        return Observable.fromIterable(compositions)
-                .flatMapCompletable(composition -> setCompositionAlbumArtist(composition, artist))
-                .onErrorResumeNext(throwable -> storageMusicProvider.processStorageError(throwable, compositions))
-                .toSingleDefault(compositions);
+        return setCompositionsTags(compositions, Collections.singletonMap(FieldKey.ALBUM_ARTIST, artist))
+                .toList();
+    }
+
+    /**
+     * Applies all field changes to each file with one read and write. Paths are resolved with
+     * one media store query and files are edited in parallel on editor scheduler.
+     * Compositions not found in media store are skipped, so one missing file doesn't fail
+     * the whole batch.
+     *
+     * @param fields new values of fields, null value clears field
+     * @return progress stream, emits each composition when its file is edited
+     */
+    public Observable<CompositionId> setCompositionsTags(List<CompositionId> compositions,
+                                                         Map<FieldKey, String> fields) {
+        return Single.fromCallable(() -> getPaths(compositions))
+                .flatMapObservable(paths -> Observable.fromIterable(compositions)
+                        .filter(composition -> isPathFound(composition, paths))
+                        .flatMapSingle(composition -> editCompositionTags(composition, paths, fields),
+                                false,
+                                editorParallelism)
+                )
+                .onErrorResumeNext(throwable -> storageMusicProvider.processStorageError(throwable, compositions)
+                        .toObservable());
     }
 
     public Completable setCompositionAlbumArtist(CompositionId composition, String artist) {
@@ -153,6 +192,14 @@ public class CompositionSourceEditor {
                 .flatMap(this::getFullTags);
     }
 
+    /**
+     * Reads tags and artwork of composition file with one tag parse.
+     */
+    public Single<CompositionFileSource> getFullSource(FullComposition composition) {
+        return getPath(composition)
+                .flatMap(this::getFullSource);
+    }
+
     public Maybe<byte[]> getCompositionArtworkBinaryData(long storageId) {
         return getPath(storageId)
                 .flatMapMaybe(this::getArtworkBinaryData);
@@ -195,6 +242,15 @@ public class CompositionSourceEditor {
         return Completable.fromAction(() -> editFile(filePath, storageId, FieldKey.LYRICS, text));
     }
 
+    /**
+     * Applies several field changes with one read and write of file.
+     */
+    Completable setCompositionTags(String filePath,
+                                   Long storageId,
+                                   Map<FieldKey, String> fields) {
+        return Completable.fromAction(() -> editFile(filePath, storageId, fields));
+    }
+
     Completable addCompositionGenre(String filePath,
                                     Long storageId,
                                     String newGenre) {
@@ -287,18 +343,38 @@ public class CompositionSourceEditor {
     private Single<CompositionSourceTags> getFullTags(String filePath) {
         return Single.fromCallable(() -> {
             try {
-                Tag tag = getFileTag(filePath);
-                return new CompositionSourceTags(tag.getFirst(FieldKey.TITLE),
-                        tag.getFirst(FieldKey.ARTIST),
-                        tag.getFirst(FieldKey.ALBUM),
-                        tag.getFirst(FieldKey.ALBUM_ARTIST),
-                        tag.getFirst(FieldKey.LYRICS));
+                return toSourceTags(getFileTag(filePath));
             } catch (Exception e) {
                 throw new TagReaderException("Unable to read: " + filePath, e);
             }
         });
     }
 
+    private Single<CompositionFileSource> getFullSource(String filePath) {
+        return Single.fromCallable(() -> {
+            Tag tag;
+            try {
+                tag = getFileTag(filePath);
+            } catch (Exception e) {
+                throw new TagReaderException("Unable to read: " + filePath, e);
+            }
+            CompositionSourceTags tags = toSourceTags(tag);
+            Artwork artwork = tag.getFirstArtwork();
+            return new CompositionFileSource(tags, artwork == null? null : artwork.getBinaryData());
+        });
+    }
+
+    private CompositionSourceTags toSourceTags(Tag tag) {
+        ReplayGainTagReader replayGain = ReplayGainTagReader.read(tag);
+        return new CompositionSourceTags(tag.getFirst(FieldKey.TITLE),
+                tag.getFirst(FieldKey.ARTIST),
+                tag.getFirst(FieldKey.ALBUM),
+                tag.getFirst(FieldKey.ALBUM_ARTIST),
+                tag.getFirst(FieldKey.LYRICS),
+                replayGain.getTrackGain(),
+                replayGain.getTrackPeak());
+    }
+
     private Maybe<byte[]> getArtworkBinaryData(String filePath) {
         return Maybe.fromCallable(() -> {
             Tag tag = getFileTag(filePath);
@@ -313,6 +389,36 @@ public class CompositionSourceEditor {
         });
     }
 
+    private Single<CompositionId> editCompositionTags(CompositionId composition,
+                                                     LongSparseArray<String> paths,
+                                                     Map<FieldKey, String> fields) {
+        return Single.fromCallable(() -> {
+            Long storageId = composition.getStorageId();
+            String path = storageId == null? null : paths.get(storageId);
+            if (path == null) {
+                throw new RuntimeException("composition path not found in system media store");
+            }
+            editFile(path, storageId, fields);
+            return composition;
+        }).subscribeOn(editorScheduler);
+    }
+
+    private boolean isPathFound(CompositionId composition, LongSparseArray<String> paths) {
+        Long storageId = composition.getStorageId();
+        return storageId != null && paths.get(storageId) != null;
+    }
+
+    private LongSparseArray<String> getPaths(List<CompositionId> compositions) {
+        List<Long> storageIds = new ArrayList<>(compositions.size());
+        for (CompositionId composition: compositions) {
+            Long storageId = composition.getStorageId();
+            if (storageId != null) {
+                storageIds.add(storageId);
+            }
+        }
+        return storageMusicProvider.getCompositionFilePaths(storageIds);
+    }
+
     private Single<String> getPath(CompositionId composition) {
         return getPath(composition.getStorageId());
     }
@@ -363,12 +469,23 @@ public class CompositionSourceEditor {
     }
 
     private void editFile(String filePath,
-                          long id,
+                          Long id,
                           FieldKey genericKey,
                           String value) throws Exception {
+        editFile(filePath, id, Collections.singletonMap(genericKey, value));
+    }
+
+    private void editFile(String filePath,
+                          Long id,
+                          Map<FieldKey, String> fields) throws Exception {
         editAudioFileTag(filePath,
                 id,
-                tag -> tag.setField(genericKey, value == null? "" : value)
+                tag -> {
+                    for (Map.Entry<FieldKey, String> entry: fields.entrySet()) {
+                        String value = entry.getValue();
+                        tag.setField(entry.getKey(), value == null? "" : value);
+                    }
+                }
         );
     }
 
@@ -377,9 +494,9 @@ public class CompositionSourceEditor {
         File fileToEdit = new File(filePath);
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R || !fileToEdit.canWrite()) {//will see how it works
             return fileSourceProvider.useTempFile(getFileName(filePath), tempFile -> {
-                copyFileUsingStream(fileToEdit, tempFile);
+                copyFile(fileToEdit, tempFile);
                 runFileAction(tempFile, callback);
-                copyFileToMediaStore(tempFile, id);
+                writeFileToMediaStore(fileToEdit, tempFile, id);
             });
         } else {
             runFileAction(fileToEdit, callback);
@@ -402,27 +519,28 @@ public class CompositionSourceEditor {
         }
     }
 
-    private void copyFileToMediaStore(File source, Long id) throws IOException {
-        try (InputStream is = new FileInputStream(source);
-             OutputStream os = storageMusicProvider.openCompositionOutputStream(id)
-        ) {
-            byte[] buffer = new byte[1024];
-            int length;
-            while ((length = is.read(buffer)) > 0) {
-                os.write(buffer, 0, length);
+    //if new tag fits into existing padding, file size is not changed and only tag region differs
+    private void writeFileToMediaStore(File original, File edited, Long id) throws IOException {
+        try (FileChannel editedChannel = new FileInputStream(edited).getChannel()) {
+            if (edited.length() == original.length()) {
+                try (FileChannel originalChannel = new FileInputStream(original).getChannel();
+                     FileChannel destination = storageMusicProvider.openCompositionWriteChannel(id, false)
+                ) {
+                    FileUtils.writeChangedBlocks(originalChannel, editedChannel, destination);
+                }
+                return;
+            }
+            try (FileChannel destination = storageMusicProvider.openCompositionWriteChannel(id, true)) {
+                FileUtils.copy(editedChannel, destination);
             }
         }
     }
 
-    private static void copyFileUsingStream(File source, File dest) throws IOException {
-        try (InputStream is = new FileInputStream(source);
-             OutputStream os = new FileOutputStream(dest)
+    private static void copyFile(File source, File dest) throws IOException {
+        try (FileChannel sourceChannel = new FileInputStream(source).getChannel();
+             FileChannel destChannel = new FileOutputStream(dest).getChannel()
         ) {
-            byte[] buffer = new byte[1024];
-            int length;
-            while ((length = is.read(buffer)) > 0) {
-                os.write(buffer, 0, length);
-            }
+            FileUtils.copy(sourceChannel, destChannel);
         }
     }
 }
@@ -3,17 +3,22 @@ package com.github.anrimian.musicplayer.data.storage.source;
 import android.net.Uri;
 
 import com.github.anrimian.musicplayer.data.database.dao.compositions.CompositionsDaoWrapper;
+import com.github.anrimian.musicplayer.data.models.composition.CompositionLoudness;
 import com.github.anrimian.musicplayer.data.storage.providers.music.StorageMusicProvider;
 import com.github.anrimian.musicplayer.domain.models.composition.Composition;
 
 import java.io.FileDescriptor;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 
+import javax.annotation.Nullable;
+
 import io.reactivex.rxjava3.core.Maybe;
 import io.reactivex.rxjava3.core.Observable;
 import io.reactivex.rxjava3.core.Scheduler;
@@ -26,15 +31,18 @@ public class CompositionSourceProvider {
     private final CompositionsDaoWrapper compositionsDao;
     private final StorageMusicProvider storageMusicProvider;
     private final CompositionSourceEditor compositionSourceEditor;
+    private final ArtworkThumbnailCache artworkThumbnailCache;
     private final Scheduler scheduler;
 
     public CompositionSourceProvider(CompositionsDaoWrapper compositionsDao,
                                      StorageMusicProvider storageMusicProvider,
                                      CompositionSourceEditor compositionSourceEditor,
+                                     ArtworkThumbnailCache artworkThumbnailCache,
                                      Scheduler scheduler) {
         this.compositionsDao = compositionsDao;
         this.storageMusicProvider = storageMusicProvider;
         this.compositionSourceEditor = compositionSourceEditor;
+        this.artworkThumbnailCache = artworkThumbnailCache;
         this.scheduler = scheduler;
     }
 
@@ -45,6 +53,17 @@ public class CompositionSourceProvider {
                 .subscribeOn(scheduler);
     }
 
+    /**
+     * @return volume multiplier which brings composition to replay gain reference level or 1
+     * if loudness of composition is unknown. Volume is only reduced: amplified audio can be
+     * clipped and processors in audio chain have no headroom for it
+     */
+    public Single<Float> getTrackGainVolume(long compositionId) {
+        return Single.fromCallable(() -> compositionsDao.selectTrackLoudness(compositionId))
+                .map(this::toGainVolume)
+                .subscribeOn(scheduler);
+    }
+
     public Single<ArrayList<Uri>> getCompositionUris(Collection<Composition> compositions) {
         return Observable.fromIterable(compositions)
                 .flatMapSingle(composition -> getCompositionUri(composition.getId()))
@@ -63,6 +82,24 @@ public class CompositionSourceProvider {
                 .flatMap(compositionSourceEditor::getCompositionArtworkBinaryData);
     }
 
+    /**
+     * @return pre-scaled artwork, empty array if composition has no artwork
+     * or null if thumbnail is not created yet
+     */
+    @Nullable
+    public byte[] getCompositionArtworkThumbnail(long compositionId,
+                                                 @Nullable Date dateModified,
+                                                 int size) {
+        return artworkThumbnailCache.get(compositionId, dateModified, size);
+    }
+
+    public void putCompositionArtworkThumbnail(long compositionId,
+                                               @Nullable Date dateModified,
+                                               @Nullable byte[] artwork,
+                                               int size) throws IOException {
+        artworkThumbnailCache.put(compositionId, dateModified, artwork, size);
+    }
+
     public InputStream getCompositionStream(long compositionId) throws FileNotFoundException {
         long storageId = compositionsDao.getStorageId(compositionId);
         return storageMusicProvider.getCompositionStream(storageId);
@@ -73,4 +110,17 @@ public class CompositionSourceProvider {
         return storageMusicProvider.getFileDescriptor(storageId);
     }
 
+    private float toGainVolume(CompositionLoudness loudness) {
+        Float trackGain = loudness.getTrackGain();
+        if (trackGain == null) {
+            return 1f;
+        }
+        float volume = (float) Math.pow(10d, trackGain / 20d);
+        Float trackPeak = loudness.getTrackPeak();
+        if (trackPeak != null && trackPeak > 0f) {
+            volume = Math.min(volume, 1f / trackPeak);
+        }
+        return Math.min(volume, 1f);
+    }
+
 }
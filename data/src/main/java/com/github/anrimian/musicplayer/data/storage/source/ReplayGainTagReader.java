@@ -0,0 +1,160 @@
+package com.github.anrimian.musicplayer.data.storage.source;
+
+import org.jaudiotagger.tag.Tag;
+import org.jaudiotagger.tag.TagField;
+import org.jaudiotagger.tag.TagTextField;
+import org.jaudiotagger.tag.id3.AbstractID3v2Frame;
+import org.jaudiotagger.tag.id3.AbstractTagFrameBody;
+import org.jaudiotagger.tag.id3.framebody.FrameBodyTXXX;
+
+import java.util.Iterator;
+import java.util.Locale;
+
+import javax.annotation.Nullable;
+
+/**
+ * Reads track gain and peak from ReplayGain fields (ID3 TXXX frames, vorbis comments, MP4
+ * freeform atoms) or from R128_TRACK_GAIN field of opus files. R128 gain is converted to
+ * ReplayGain reference level, so both values can be applied the same way.
+ */
+class ReplayGainTagReader {
+
+    private static final String TRACK_GAIN = "REPLAYGAIN_TRACK_GAIN";
+    private static final String TRACK_PEAK = "REPLAYGAIN_TRACK_PEAK";
+    private static final String R128_TRACK_GAIN = "R128_TRACK_GAIN";
+
+    //R128 gain is relative to -23 LUFS, ReplayGain 2.0 - to -18 LUFS
+    private static final float R128_REFERENCE_OFFSET_DB = 5f;
+
+    @Nullable
+    private final Float trackGain;
+    @Nullable
+    private final Float trackPeak;
+
+    static ReplayGainTagReader read(Tag tag) {
+        Float trackGain = null;
+        Float trackPeak = null;
+        Float r128TrackGain = null;
+
+        Iterator<TagField> fields = tag.getFields();
+        while (fields.hasNext()) {
+            TagField field = fields.next();
+            String name = getFieldName(field);
+            if (name == null) {
+                continue;
+            }
+            switch (name.toUpperCase(Locale.ROOT)) {
+                case TRACK_GAIN: {
+                    trackGain = parseGain(getFieldValue(field));
+                    break;
+                }
+                case TRACK_PEAK: {
+                    trackPeak = parsePeak(getFieldValue(field));
+                    break;
+                }
+                case R128_TRACK_GAIN: {
+                    r128TrackGain = parseR128Gain(getFieldValue(field));
+                    break;
+                }
+            }
+        }
+        if (trackGain == null) {
+            trackGain = r128TrackGain;
+        }
+        return new ReplayGainTagReader(trackGain, trackPeak);
+    }
+
+    private ReplayGainTagReader(@Nullable Float trackGain, @Nullable Float trackPeak) {
+        this.trackGain = trackGain;
+        this.trackPeak = trackPeak;
+    }
+
+    @Nullable
+    Float getTrackGain() {
+        return trackGain;
+    }
+
+    @Nullable
+    Float getTrackPeak() {
+        return trackPeak;
+    }
+
+    //format: "-6.54 dB"
+    @Nullable
+    static Float parseGain(@Nullable String value) {
+        if (value == null) {
+            return null;
+        }
+        String number = value.trim();
+        if (number.regionMatches(true, Math.max(0, number.length() - 2), "dB", 0, 2)) {
+            number = number.substring(0, number.length() - 2).trim();
+        }
+        return parseFloat(number.replace(',', '.'));
+    }
+
+    @Nullable
+    static Float parsePeak(@Nullable String value) {
+        if (value == null) {
+            return null;
+        }
+        Float peak = parseFloat(value.trim().replace(',', '.'));
+        if (peak == null || peak <= 0f) {
+            return null;
+        }
+        return peak;
+    }
+
+    //integer in Q7.8 format, dB * 256
+    @Nullable
+    static Float parseR128Gain(@Nullable String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Integer.parseInt(value.trim()) / 256f + R128_REFERENCE_OFFSET_DB;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    @Nullable
+    private static Float parseFloat(String value) {
+        try {
+            float result = Float.parseFloat(value);
+            if (Float.isNaN(result) || Float.isInfinite(result)) {
+                return null;
+            }
+            return result;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    @Nullable
+    private static String getFieldName(TagField field) {
+        if (field instanceof AbstractID3v2Frame) {
+            AbstractTagFrameBody body = ((AbstractID3v2Frame) field).getBody();
+            if (body instanceof FrameBodyTXXX) {
+                return ((FrameBodyTXXX) body).getDescription();
+            }
+            return null;
+        }
+        String id = field.getId();
+        if (id == null) {
+            return null;
+        }
+        //mp4 freeform atoms have id like "----:com.apple.iTunes:replaygain_track_gain"
+        return id.substring(id.lastIndexOf(':') + 1);
+    }
+
+    @Nullable
+    private static String getFieldValue(TagField field) {
+        if (field instanceof AbstractID3v2Frame) {
+            return ((FrameBodyTXXX) ((AbstractID3v2Frame) field).getBody()).getText();
+        }
+        if (field instanceof TagTextField) {
+            return ((TagTextField) field).getContent();
+        }
+        return null;
+    }
+}
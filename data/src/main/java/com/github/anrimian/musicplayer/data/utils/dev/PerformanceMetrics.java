@@ -0,0 +1,203 @@
+package com.github.anrimian.musicplayer.data.utils.dev;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters and duration histograms of hot paths: storage and file scanner, play queue,
+ * player preparation and image loading.
+ *
+ * Collection is disabled by default. In disabled state each call costs one volatile read and
+ * allocates nothing, so measurements stay in production code. Collected values are kept in memory
+ * and exported as text with {@link #dump()}.
+ *
+ * Typical usage is:
+ *
+ * <pre>
+ *     long startTime = PerformanceMetrics.startTimer();
+ *     // ... do some work ...
+ *     PerformanceMetrics.stopTimer(PerformanceMetrics.PLAYER_PREPARE, startTime);
+ * </pre>
+ */
+public class PerformanceMetrics {
+
+    public static final String STARTUP_APP_CREATE = "startup.app_create";
+    public static final String STARTUP_QUEUE_ITEM_RESTORE = "startup.queue_item_restore";
+    public static final String STARTUP_FIRST_PLAY = "startup.first_play";
+    public static final String STARTUP_STORAGE_SCAN = "startup.storage_scan";
+
+    public static final String SCANNER_STORAGE_FULL_SCAN = "scanner.storage.full_scan";
+    public static final String SCANNER_STORAGE_DELTA_SCAN = "scanner.storage.delta_scan";
+    public static final String SCANNER_FILE_READ = "scanner.files.read_file";
+    public static final String SCANNER_FILES_SAVE = "scanner.files.save_batch";
+    public static final String SCANNER_FILES_SCANNED = "scanner.files.scanned";
+
+    public static final String QUEUE_SET = "queue.set_queue";
+    public static final String QUEUE_ADD = "queue.add_compositions";
+    public static final String QUEUE_SKIP_TO_NEXT = "queue.skip_to_next";
+    public static final String QUEUE_RESHUFFLE = "queue.reshuffle";
+
+    public static final String PLAYER_PREPARE = "player.exo.prepare";
+    public static final String PLAYER_PREPARED_IN_ADVANCE = "player.exo.prepared_in_advance";
+
+    public static final String IMAGE_COMPOSITION_LOAD = "image.composition.load";
+    public static final String IMAGE_COMPOSITION_DECODE = "image.composition.decode";
+    public static final String IMAGE_COMPOSITION_THUMBNAIL_MISS = "image.composition.thumbnail_miss";
+
+    private static final long NOT_STARTED = -1L;
+
+    private static final ConcurrentHashMap<String, AtomicLong> counters = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, Histogram> timers = new ConcurrentHashMap<>();
+
+    private static volatile boolean enabled;
+
+    public static void setEnabled(boolean enabled) {
+        PerformanceMetrics.enabled = enabled;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void increment(String name) {
+        add(name, 1L);
+    }
+
+    public static void add(String name, long delta) {
+        if (!enabled) {
+            return;
+        }
+        AtomicLong counter = counters.get(name);
+        if (counter == null) {
+            AtomicLong newCounter = new AtomicLong();
+            counter = counters.putIfAbsent(name, newCounter);
+            if (counter == null) {
+                counter = newCounter;
+            }
+        }
+        counter.addAndGet(delta);
+    }
+
+    /**
+     * @return start time to pass in {@link #stopTimer(String, long)}
+     */
+    public static long startTimer() {
+        return enabled? System.nanoTime() : NOT_STARTED;
+    }
+
+    public static void stopTimer(String name, long startTime) {
+        if (startTime == NOT_STARTED) {
+            return;
+        }
+        recordDuration(name, System.nanoTime() - startTime);
+    }
+
+    public static void recordDuration(String name, long durationNanos) {
+        if (!enabled) {
+            return;
+        }
+        Histogram histogram = timers.get(name);
+        if (histogram == null) {
+            Histogram newHistogram = new Histogram();
+            histogram = timers.putIfAbsent(name, newHistogram);
+            if (histogram == null) {
+                histogram = newHistogram;
+            }
+        }
+        histogram.record(durationNanos / 1000L);
+    }
+
+    public static long getCount(String name) {
+        AtomicLong counter = counters.get(name);
+        return counter == null? 0L : counter.get();
+    }
+
+    public static void reset() {
+        counters.clear();
+        timers.clear();
+    }
+
+    /**
+     * @return text report of all counters and timers, durations are in milliseconds
+     */
+    public static String dump() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Counters:\n");
+        for (Map.Entry<String, AtomicLong> entry: new TreeMap<>(counters).entrySet()) {
+            sb.append(entry.getKey())
+                    .append(": ")
+                    .append(entry.getValue().get())
+                    .append("\n");
+        }
+        sb.append("Timers (count, avg, p50, p90, p99, max ms):\n");
+        for (Map.Entry<String, Histogram> entry: new TreeMap<>(timers).entrySet()) {
+            sb.append(entry.getKey()).append(": ");
+            entry.getValue().appendTo(sb);
+            sb.append("\n");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Durations in microseconds grouped by power of two, so percentiles are approximate
+     * (upper bound of the bucket) but memory is fixed and recording is O(1).
+     */
+    static class Histogram {
+
+        private final long[] buckets = new long[Long.SIZE];
+
+        private long count;
+        private long sum;
+        private long max;
+
+        synchronized void record(long micros) {
+            if (micros < 0L) {
+                micros = 0L;
+            }
+            buckets[Long.SIZE - Long.numberOfLeadingZeros(micros)]++;
+            count++;
+            sum += micros;
+            if (micros > max) {
+                max = micros;
+            }
+        }
+
+        synchronized long getCount() {
+            return count;
+        }
+
+        synchronized long getPercentile(double percentile) {
+            long rank = (long) Math.ceil(count * percentile);
+            long passed = 0L;
+            for (int i = 0; i < buckets.length; i++) {
+                passed += buckets[i];
+                if (passed >= rank && passed > 0L) {
+                    long upperBound = i == 0? 0L : (1L << i) - 1L;
+                    return Math.min(upperBound, max);
+                }
+            }
+            return max;
+        }
+
+        synchronized long getMax() {
+            return max;
+        }
+
+        synchronized void appendTo(StringBuilder sb) {
+            long average = count == 0L? 0L : sum / count;
+            sb.append(count)
+                    .append(", ").append(toMillis(average))
+                    .append(", ").append(toMillis(getPercentile(0.5d)))
+                    .append(", ").append(toMillis(getPercentile(0.9d)))
+                    .append(", ").append(toMillis(getPercentile(0.99d)))
+                    .append(", ").append(toMillis(max));
+        }
+
+        private static String toMillis(long micros) {
+            return String.format(Locale.US, "%.1f", micros / 1000d);
+        }
+    }
+}
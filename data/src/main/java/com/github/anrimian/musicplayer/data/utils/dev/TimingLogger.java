@@ -20,6 +20,7 @@ import android.os.SystemClock;
 import android.util.Log;
 
 import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
 
 /**
  * A utility class to help log timings splits throughout a method call.
@@ -149,4 +150,21 @@ public class TimingLogger {
         }
         Log.d(mTag, mLabel + ": end, " + (now - first) + " ms");
     }
+
+    /**
+     * Records each split as timer "label.splitLabel" and the whole duration as timer "label"
+     * in {@link PerformanceMetrics}. Does nothing if metrics collection is disabled.
+     */
+    public void dumpToMetrics() {
+        if (mDisabled || !PerformanceMetrics.isEnabled()) return;
+        final long first = mSplits.get(0);
+        long now = first;
+        for (int i = 1; i < mSplits.size(); i++) {
+            now = mSplits.get(i);
+            final long prev = mSplits.get(i - 1);
+            PerformanceMetrics.recordDuration(mLabel + "." + mSplitLabels.get(i),
+                    TimeUnit.MILLISECONDS.toNanos(now - prev));
+        }
+        PerformanceMetrics.recordDuration(mLabel, TimeUnit.MILLISECONDS.toNanos(now - first));
+    }
 }
@@ -1,18 +1,24 @@
 package com.github.anrimian.musicplayer.data.utils.exo_player;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 import com.github.anrimian.musicplayer.domain.utils.functions.Callback;
+import com.google.android.exoplayer2.MediaItem;
 import com.google.android.exoplayer2.PlaybackException;
 import com.google.android.exoplayer2.Player;
 
 public class PlayerEventListener implements Player.Listener {
 
     private final Runnable onEnded;
+    private final Runnable onAutoTransition;
     private final Callback<PlaybackException> errorCallback;
 
-    public PlayerEventListener(Runnable onEnded, Callback<PlaybackException> errorCallback) {
+    public PlayerEventListener(Runnable onEnded,
+                               Runnable onAutoTransition,
+                               Callback<PlaybackException> errorCallback) {
         this.onEnded = onEnded;
+        this.onAutoTransition = onAutoTransition;
         this.errorCallback = errorCallback;
     }
 
@@ -32,6 +38,14 @@ public class PlayerEventListener implements Player.Listener {
         }
     }
 
+    @Override
+    public void onMediaItemTransition(@Nullable MediaItem mediaItem, int reason) {
+        //playback moved to the next item of playlist without our command
+        if (reason == Player.MEDIA_ITEM_TRANSITION_REASON_AUTO) {
+            onAutoTransition.run();
+        }
+    }
+
     @Override
     public void onPlayerError(@NonNull PlaybackException error) {
         errorCallback.call(error);
@@ -6,6 +6,8 @@ import android.graphics.BitmapFactory;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.security.SecureRandom;
 
 public class FileUtils {
@@ -13,6 +15,9 @@ public class FileUtils {
     private static final String CHARS = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz";
     private static final SecureRandom RND = new SecureRandom();
 
+    private static final int BLOCK_SIZE = 64 * 1024;
+    private static final int THUMBNAIL_QUALITY = 90;
+
     public static String randomString(int len){
         StringBuilder sb = new StringBuilder(len);
         for(int i = 0; i < len; i++) {
@@ -32,6 +37,40 @@ public class FileUtils {
         }
     }
 
+    public static void copy(FileChannel source, FileChannel destination) throws IOException {
+        long size = source.size();
+        long position = 0;
+        while (position < size) {
+            position += source.transferTo(position, size - position, destination);
+        }
+    }
+
+    /**
+     * Writes into destination only blocks of edited file which differ from original file.
+     * Original and edited files must have the same size.
+     *
+     * @return count of written bytes
+     */
+    public static long writeChangedBlocks(FileChannel original,
+                                          FileChannel edited,
+                                          FileChannel destination) throws IOException {
+        ByteBuffer originalBuffer = ByteBuffer.allocateDirect(BLOCK_SIZE);
+        ByteBuffer editedBuffer = ByteBuffer.allocateDirect(BLOCK_SIZE);
+        long size = edited.size();
+        long writtenBytes = 0;
+        for (long position = 0; position < size; position += BLOCK_SIZE) {
+            readBlock(original, originalBuffer, position);
+            readBlock(edited, editedBuffer, position);
+            if (originalBuffer.equals(editedBuffer)) {
+                continue;
+            }
+            while (editedBuffer.hasRemaining()) {
+                writtenBytes += destination.write(editedBuffer, position + editedBuffer.position());
+            }
+        }
+        return writtenBytes;
+    }
+
     public static byte[] getScaledBitmapByteArray(InputStream stream, int maxSize) throws IOException {
         byte[] rawBytes = toByteArray(stream);
         Bitmap bitmap = createScaledBitmap(rawBytes, maxSize);
@@ -63,4 +102,43 @@ public class FileUtils {
         return BitmapFactory.decodeByteArray(byteArray, 0, byteArray.length, decodeBitmapOptions);
     }
 
+    /**
+     * @return image scaled to fit into maxSize and compressed as jpeg,
+     * null if image can not be decoded
+     */
+    public static byte[] createThumbnail(byte[] imageBytes, int maxSize) {
+        Bitmap bitmap = createScaledBitmap(imageBytes, maxSize);
+        if (bitmap == null) {
+            return null;
+        }
+        int width = bitmap.getWidth();
+        int height = bitmap.getHeight();
+        if (width > maxSize || height > maxSize) {
+            float scale = Math.min((float) maxSize / width, (float) maxSize / height);
+            Bitmap scaledBitmap = Bitmap.createScaledBitmap(bitmap,
+                    Math.max(1, Math.round(width * scale)),
+                    Math.max(1, Math.round(height * scale)),
+                    true);
+            if (scaledBitmap != bitmap) {
+                bitmap.recycle();
+                bitmap = scaledBitmap;
+            }
+        }
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        bitmap.compress(Bitmap.CompressFormat.JPEG, THUMBNAIL_QUALITY, buffer);
+        bitmap.recycle();
+        return buffer.toByteArray();
+    }
+
+    private static void readBlock(FileChannel channel, ByteBuffer buffer, long position)
+            throws IOException {
+        buffer.clear();
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) == -1) {
+                break;
+            }
+        }
+        buffer.flip();
+    }
+
 }
@@ -134,13 +134,16 @@ public class SharedPreferencesHelper {
     }
 
     public LruCache<Long, ListPosition> getLruCache(String key, int maxCacheSize) {
+        String rawData = getString(key);
+        if (rawData == null) {
+            return new LruCache<>(maxCacheSize);
+        }
+        return parseLruCache(rawData, maxCacheSize);
+    }
+
+    public static LruCache<Long, ListPosition> parseLruCache(String rawData, int maxCacheSize) {
         try {
             LruCache<Long, ListPosition> cache = new LruCache<>(maxCacheSize);
-
-            String rawData = getString(key);
-            if (rawData == null) {
-                return cache;
-            }
             JSONArray jsonArray = new JSONArray(rawData);
             for (int i = 0; i < jsonArray.length(); i++) {
                 JSONObject obj = jsonArray.getJSONObject(i);
@@ -0,0 +1,208 @@
+package com.github.anrimian.musicplayer.data.utils.preferences;
+
+import android.content.SharedPreferences;
+import android.util.Base64;
+
+import androidx.collection.LruCache;
+
+import com.github.anrimian.musicplayer.domain.models.utils.ListPosition;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nullable;
+
+import io.reactivex.rxjava3.core.Scheduler;
+import io.reactivex.rxjava3.disposables.Disposable;
+
+/**
+ * Preferences which keep written values in memory and save them with one editor commit
+ * after flush delay, or earlier with {@link #flush()}.
+ *
+ * Frequently changed state (track position on seek, list positions on scroll) produces one
+ * file write per delay instead of write per change. Reads return not saved values too.
+ *
+ * Position caches are kept as {@link LruCache} objects and encoded only on flush,
+ * in binary form: key, position and offset per entry, from least to most recently used.
+ */
+public class WriteBehindPreferences {
+
+    //long key, int position, int offset
+    private static final int LIST_POSITION_ENTRY_BYTES = 16;
+
+    private final SharedPreferences preferences;
+    private final Scheduler scheduler;
+    private final long flushDelayMillis;
+
+    private final Map<String, Object> pendingValues = new HashMap<>();
+
+    @Nullable
+    private Disposable flushDisposable;
+
+    public WriteBehindPreferences(SharedPreferences preferences,
+                                  Scheduler scheduler,
+                                  long flushDelayMillis) {
+        this.preferences = preferences;
+        this.scheduler = scheduler;
+        this.flushDelayMillis = flushDelayMillis;
+    }
+
+    public void putInt(String key, int value) {
+        put(key, value);
+    }
+
+    public void putLong(String key, long value) {
+        put(key, value);
+    }
+
+    public void putFloat(String key, float value) {
+        put(key, value);
+    }
+
+    public void putBoolean(String key, boolean value) {
+        put(key, value);
+    }
+
+    public void putListPosition(String key, ListPosition listPosition) {
+        long positions = (((long) listPosition.getPosition()) << 32) | (listPosition.getOffset() & 0xffffffffL);
+        putLong(key, positions);
+    }
+
+    /**
+     * Cache is encoded on flush, so it should not be replaced by another instance
+     * until that. Changed cache should be put again to schedule the write.
+     */
+    public void putLruCache(String key, LruCache<Long, ListPosition> cache) {
+        put(key, cache);
+    }
+
+    public synchronized int getInt(String key, int defaultValue) {
+        Object value = pendingValues.get(key);
+        if (value != null) {
+            return (Integer) value;
+        }
+        return preferences.getInt(key, defaultValue);
+    }
+
+    public synchronized long getLong(String key, long defaultValue) {
+        Object value = pendingValues.get(key);
+        if (value != null) {
+            return (Long) value;
+        }
+        return preferences.getLong(key, defaultValue);
+    }
+
+    public synchronized float getFloat(String key, float defaultValue) {
+        Object value = pendingValues.get(key);
+        if (value != null) {
+            return (Float) value;
+        }
+        return preferences.getFloat(key, defaultValue);
+    }
+
+    public synchronized boolean getBoolean(String key, boolean defaultValue) {
+        Object value = pendingValues.get(key);
+        if (value != null) {
+            return (Boolean) value;
+        }
+        return preferences.getBoolean(key, defaultValue);
+    }
+
+    public ListPosition getListPosition(String key) {
+        long positions = getLong(key, 0L);
+        return new ListPosition((int) (positions >> 32), (int) positions);
+    }
+
+    @SuppressWarnings("unchecked")
+    public synchronized LruCache<Long, ListPosition> getLruCache(String key, int maxCacheSize) {
+        Object value = pendingValues.get(key);
+        if (value != null) {
+            return (LruCache<Long, ListPosition>) value;
+        }
+        LruCache<Long, ListPosition> cache = new LruCache<>(maxCacheSize);
+        String rawData = preferences.getString(key, null);
+        if (rawData == null) {
+            return cache;
+        }
+        //json array of old versions, base64 alphabet doesn't contain brackets
+        if (rawData.startsWith("[")) {
+            return SharedPreferencesHelper.parseLruCache(rawData, maxCacheSize);
+        }
+        decodeListPositions(Base64.decode(rawData, Base64.NO_WRAP), cache);
+        return cache;
+    }
+
+    /**
+     * Saves all not saved values with one editor commit
+     */
+    public synchronized void flush() {
+        if (flushDisposable != null) {
+            flushDisposable.dispose();
+            flushDisposable = null;
+        }
+        writePendingValues();
+    }
+
+    private synchronized void onFlushDelayPassed() {
+        flushDisposable = null;
+        writePendingValues();
+    }
+
+    private void writePendingValues() {
+        if (pendingValues.isEmpty()) {
+            return;
+        }
+        SharedPreferences.Editor editor = preferences.edit();
+        for (Map.Entry<String, Object> entry: pendingValues.entrySet()) {
+            String key = entry.getKey();
+            Object value = entry.getValue();
+            if (value instanceof Integer) {
+                editor.putInt(key, (Integer) value);
+            } else if (value instanceof Long) {
+                editor.putLong(key, (Long) value);
+            } else if (value instanceof Float) {
+                editor.putFloat(key, (Float) value);
+            } else if (value instanceof Boolean) {
+                editor.putBoolean(key, (Boolean) value);
+            } else if (value instanceof LruCache) {
+                //noinspection unchecked
+                byte[] bytes = encodeListPositions(((LruCache<Long, ListPosition>) value).snapshot());
+                editor.putString(key, Base64.encodeToString(bytes, Base64.NO_WRAP));
+            }
+        }
+        editor.apply();
+        pendingValues.clear();
+    }
+
+    static byte[] encodeListPositions(Map<Long, ListPosition> positions) {
+        ByteBuffer buffer = ByteBuffer.allocate(positions.size() * LIST_POSITION_ENTRY_BYTES);
+        for (Map.Entry<Long, ListPosition> entry: positions.entrySet()) {
+            ListPosition value = entry.getValue();
+            buffer.putLong(entry.getKey());
+            buffer.putInt(value.getPosition());
+            buffer.putInt(value.getOffset());
+        }
+        return buffer.array();
+    }
+
+    static void decodeListPositions(byte[] bytes, LruCache<Long, ListPosition> cache) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.remaining() >= LIST_POSITION_ENTRY_BYTES) {
+            long key = buffer.getLong();
+            int position = buffer.getInt();
+            int offset = buffer.getInt();
+            cache.put(key, new ListPosition(position, offset));
+        }
+    }
+
+    private synchronized void put(String key, Object value) {
+        pendingValues.put(key, value);
+        if (flushDisposable == null) {
+            flushDisposable = scheduler.scheduleDirect(this::onFlushDelayPassed,
+                    flushDelayMillis,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.github.anrimian.musicplayer.data.utils.rx.content_observer;
+
+import com.github.anrimian.musicplayer.domain.utils.functions.Function;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.reactivex.rxjava3.core.Completable;
+import io.reactivex.rxjava3.core.Observable;
+import io.reactivex.rxjava3.core.Scheduler;
+
+/**
+ * Runs analysis of storage state on bursts of change events.
+ *
+ * Events are debounced with delay which adapts to the pace of events: it is twice the last interval
+ * between events, but not less than min delay and not more than max delay. So slow series of
+ * events (copying of big files) is coalesced as well as fast one. Burst is flushed not later
+ * than max delay after its first event, so long copying still updates library from time to time.
+ *
+ * Each flushed burst is a new generation. Analysis of a generation is marked as stale when
+ * the next generation arrives and is expected to drop its result (switch semantics). Generation
+ * which was already analyzed is never analyzed again.
+ */
+public class ChangeCoalescer {
+
+    private final Scheduler timerScheduler;
+    private final Scheduler workScheduler;
+    private final long minDelayMillis;
+    private final long maxDelayMillis;
+
+    /**
+     * @param timerScheduler scheduler for debounce timers only, shared by all observers
+     * @param workScheduler scheduler to run analysis on
+     */
+    public ChangeCoalescer(Scheduler timerScheduler,
+                           Scheduler workScheduler,
+                           long minDelayMillis,
+                           long maxDelayMillis) {
+        this.timerScheduler = timerScheduler;
+        this.workScheduler = workScheduler;
+        this.minDelayMillis = minDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+    }
+
+    public <T> Completable process(Observable<T> events, Analysis<T> analysis) {
+        return Completable.defer(() -> {
+            AtomicLong eventsCount = new AtomicLong();
+            AtomicLong analyzedGeneration = new AtomicLong();
+            AdaptiveDelay adaptiveDelay = new AdaptiveDelay(minDelayMillis, maxDelayMillis);
+            return events.doOnNext(event -> eventsCount.incrementAndGet())
+                    .debounce(event -> {
+                        long delay = adaptiveDelay.next(timerScheduler.now(TimeUnit.MILLISECONDS));
+                        return Observable.timer(delay, TimeUnit.MILLISECONDS, timerScheduler);
+                    })
+                    .doOnNext(event -> adaptiveDelay.reset())
+                    .map(event -> new Generation<>(eventsCount.get(), event))
+                    .switchMapCompletable(generation -> Completable.create(emitter -> {
+                        long number = generation.number;
+                        if (number <= analyzedGeneration.get()) {
+                            emitter.onComplete();
+                            return;
+                        }
+                        analysis.run(generation.event, emitter::isDisposed);
+                        if (!emitter.isDisposed()) {
+                            analyzedGeneration.set(number);
+                        }
+                        emitter.onComplete();
+                    }).subscribeOn(workScheduler));
+        });
+    }
+
+    public interface Analysis<T> {
+
+        /**
+         * @param isStale returns true when newer generation of changes arrived, result of
+         *                this run is not needed anymore and must not be applied
+         */
+        void run(T event, Function<Boolean> isStale);
+    }
+
+    private static class Generation<T> {
+        final long number;
+        final T event;
+
+        Generation(long number, T event) {
+            this.number = number;
+            this.event = event;
+        }
+    }
+
+    private static class AdaptiveDelay {
+
+        private static final long NO_TIME = -1;
+
+        private final long minDelayMillis;
+        private final long maxDelayMillis;
+
+        private long burstStartTime = NO_TIME;
+        private long lastEventTime = NO_TIME;
+
+        AdaptiveDelay(long minDelayMillis, long maxDelayMillis) {
+            this.minDelayMillis = minDelayMillis;
+            this.maxDelayMillis = maxDelayMillis;
+        }
+
+        synchronized long next(long currentTime) {
+            if (burstStartTime == NO_TIME) {
+                burstStartTime = currentTime;
+            }
+            long delay = minDelayMillis;
+            //events which are far from each other are not a series
+            if (lastEventTime != NO_TIME && currentTime - lastEventTime < maxDelayMillis / 4) {
+                long interval = currentTime - lastEventTime;
+                delay = Math.max(minDelayMillis, Math.min(interval * 2, maxDelayMillis));
+            }
+            lastEventTime = currentTime;
+            long timeToFlush = burstStartTime + maxDelayMillis - currentTime;
+            return Math.max(0, Math.min(delay, timeToFlush));
+        }
+
+        synchronized void reset() {
+            burstStartTime = NO_TIME;
+        }
+    }
+}
@@ -6,11 +6,11 @@ import android.net.Uri;
 
 import androidx.annotation.NonNull;
 
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.TimeUnit;
 
 import io.reactivex.rxjava3.core.Emitter;
 import io.reactivex.rxjava3.core.Observable;
+import io.reactivex.rxjava3.schedulers.Schedulers;
 
 import static com.github.anrimian.musicplayer.domain.Constants.STORAGE_EVENTS_MIN_EMIT_WINDOW_MILLIS;
 import static com.github.anrimian.musicplayer.domain.Constants.TRIGGER;
@@ -32,25 +32,27 @@ public class RxContentObserver {
                                                    @NonNull Uri uri,
                                                    boolean notifyForDescendants,
                                                    long minEmitWindowMillis) {
-        return Observable.create(emitter -> {
-            ContentObserver contentObserver = new EmitterContentObserver(minEmitWindowMillis, emitter);
+        Observable<Object> observable = Observable.create(emitter -> {
+            ContentObserver contentObserver = new EmitterContentObserver(emitter.serialize());
             contentResolver.registerContentObserver(uri, notifyForDescendants, contentObserver);
             emitter.setDisposable(new ContentObserverDisposable(contentObserver, contentResolver));
         });
+        if (minEmitWindowMillis <= 0) {
+            return observable;
+        }
+        //optimization to not fire change events so often. Timers of all observers share
+        //computation scheduler instead of thread per observer
+        return observable.throttleLatest(minEmitWindowMillis,
+                TimeUnit.MILLISECONDS,
+                Schedulers.computation());
     }
 
     private static class EmitterContentObserver extends ContentObserver {
 
-        private final long minEmitWindowMillis;
         private final Emitter<Object> changeEmitter;
 
-        private final Timer timer = new Timer();
-        private long lastEmitTime;
-        private boolean waitForDelayedEmit = false;
-
-        EmitterContentObserver(long minEmitWindowMillis, Emitter<Object> changeEmitter) {
+        EmitterContentObserver(Emitter<Object> changeEmitter) {
             super(null);
-            this.minEmitWindowMillis = minEmitWindowMillis;
             this.changeEmitter = changeEmitter;
         }
 
@@ -62,23 +64,6 @@ public class RxContentObserver {
         @Override
         public void onChange(boolean selfChange) {
             super.onChange(selfChange);
-            //optimization to not fire change events so often
-            long currentTime = System.currentTimeMillis();
-            if (currentTime - lastEmitTime < minEmitWindowMillis) {
-                if (!waitForDelayedEmit) {
-                    waitForDelayedEmit = true;
-                    timer.schedule(new TimerTask() {
-                        @Override
-                        public void run() {
-                            waitForDelayedEmit = false;
-                            changeEmitter.onNext(TRIGGER);
-                        }
-                    }, minEmitWindowMillis);
-                }
-                return;
-            }
-            lastEmitTime = currentTime;
-
             changeEmitter.onNext(TRIGGER);
         }
 
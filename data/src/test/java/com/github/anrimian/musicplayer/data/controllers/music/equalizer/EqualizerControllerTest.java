@@ -0,0 +1,93 @@
+package com.github.anrimian.musicplayer.data.controllers.music.equalizer;
+
+import static com.github.anrimian.musicplayer.domain.utils.ListUtils.asList;
+import static org.mockito.AdditionalMatchers.aryEq;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static java.util.Collections.emptyList;
+
+import com.github.anrimian.musicplayer.data.controllers.music.equalizer.external.ExternalEqualizer;
+import com.github.anrimian.musicplayer.data.controllers.music.equalizer.internal.InternalEqualizer;
+import com.github.anrimian.musicplayer.data.controllers.music.players.exoplayer.ParametricEqualizerProcessor;
+import com.github.anrimian.musicplayer.domain.models.equalizer.Band;
+import com.github.anrimian.musicplayer.domain.models.equalizer.EqualizerConfig;
+import com.github.anrimian.musicplayer.domain.models.equalizer.EqualizerState;
+import com.github.anrimian.musicplayer.domain.repositories.SettingsRepository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import io.reactivex.rxjava3.core.Observable;
+import io.reactivex.rxjava3.core.Single;
+import io.reactivex.rxjava3.disposables.Disposable;
+import io.reactivex.rxjava3.subjects.BehaviorSubject;
+
+public class EqualizerControllerTest {
+
+    private final SettingsRepository settingsRepository = mock(SettingsRepository.class);
+    private final ExternalEqualizer externalEqualizer = mock(ExternalEqualizer.class);
+    private final InternalEqualizer internalEqualizer = mock(InternalEqualizer.class);
+    private final ParametricEqualizerProcessor processor = mock(ParametricEqualizerProcessor.class);
+
+    private final BehaviorSubject<Integer> equalizerTypeSubject = BehaviorSubject.createDefault(EqualizerType.APP);
+
+    private EqualizerController controller;
+
+    @BeforeEach
+    public void setUp() {
+        when(settingsRepository.getSelectedEqualizerTypeObservable()).thenReturn(equalizerTypeSubject);
+        when(settingsRepository.getSelectedEqualizerType()).thenReturn(EqualizerType.APP);
+
+        Map<Short, Short> levels = new HashMap<>();
+        levels.put((short) 0, (short) 300);
+        levels.put((short) 1, (short) -600);
+        when(internalEqualizer.getEqualizerConfig()).thenReturn(Single.just(new EqualizerConfig(
+                (short) -1500,
+                (short) 1500,
+                asList(new Band((short) 0, 60000), new Band((short) 1, 14000000)),
+                emptyList()
+        )));
+        when(internalEqualizer.getEqualizerStateObservable())
+                .thenReturn(Observable.just(new EqualizerState((short) -1, levels)));
+
+        controller = new EqualizerController(settingsRepository, externalEqualizer, internalEqualizer);
+    }
+
+    @Test
+    public void applyAppEqualizerToProcessorTest() {
+        Disposable disposable = controller.attachAudioProcessor(processor).subscribe();
+
+        verify(processor).setBands(aryEq(new float[] { 60f, 14000f }),
+                aryEq(new float[] { 3f, -6f }),
+                eq(ParametricEqualizerProcessor.DEFAULT_Q));
+        verify(processor).setPreamp(-3f);
+        verify(processor).setLimiterEnabled(true);
+
+        controller.attachEqualizer(1);
+        verify(internalEqualizer, never()).attachEqualizer(anyInt());
+
+        disposable.dispose();
+        controller.attachEqualizer(1);
+        verify(internalEqualizer).attachEqualizer(1);
+    }
+
+    @Test
+    public void keepProcessorFlatWithoutAppEqualizerTest() {
+        equalizerTypeSubject.onNext(EqualizerType.NONE);
+
+        controller.attachAudioProcessor(processor).subscribe();
+
+        verify(processor).setBands(aryEq(new float[0]),
+                aryEq(new float[0]),
+                eq(ParametricEqualizerProcessor.DEFAULT_Q));
+        verify(processor).setPreamp(0f);
+        verify(processor).setLimiterEnabled(false);
+    }
+}
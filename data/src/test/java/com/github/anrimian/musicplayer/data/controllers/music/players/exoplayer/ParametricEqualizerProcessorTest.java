@@ -0,0 +1,109 @@
+package com.github.anrimian.musicplayer.data.controllers.music.players.exoplayer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.audio.AudioProcessor;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+public class ParametricEqualizerProcessorTest {
+
+    private static final int SAMPLE_RATE = 44100;
+
+    private final ParametricEqualizerProcessor processor = new ParametricEqualizerProcessor();
+
+    @Test
+    public void copyInputWithFlatSettings() {
+        configure(C.ENCODING_PCM_16BIT);
+
+        ByteBuffer input = allocate(4);
+        input.putShort((short) 1234).putShort((short) -4321);
+        input.flip();
+
+        ByteBuffer output = process(input);
+        assertEquals(1234, output.getShort());
+        assertEquals(-4321, output.getShort());
+    }
+
+    @Test
+    public void applyPreamp() {
+        processor.setPreamp(-6.0206f);
+        configure(C.ENCODING_PCM_FLOAT);
+
+        ByteBuffer input = allocate(8);
+        input.putFloat(0.8f).putFloat(-0.4f);
+        input.flip();
+
+        ByteBuffer output = process(input);
+        assertEquals(0.4f, output.getFloat(), 0.001f);
+        assertEquals(-0.2f, output.getFloat(), 0.001f);
+    }
+
+    @Test
+    public void boostBandFrequency() {
+        processor.setBands(new float[] { 1000f, 8000f },
+                new float[] { 6.0206f, -12f },
+                ParametricEqualizerProcessor.DEFAULT_Q);
+        configure(C.ENCODING_PCM_FLOAT);
+
+        assertEquals(0.5, getPeakLevel(1000, 0.25), 0.01);
+        assertEquals(0.25, getPeakLevel(100, 0.25), 0.01);
+    }
+
+    @Test
+    public void limitPeaksAfterBoost() {
+        processor.setPreamp(12f);
+        processor.setLimiterEnabled(true);
+        configure(C.ENCODING_PCM_FLOAT);
+
+        double peak = getPeakLevel(440, 0.5);
+        assertTrue(peak <= 0.98 + 1e-6, "peak: " + peak);
+    }
+
+    @Test
+    public void passByUnsupportedEncoding() {
+        AudioProcessor.AudioFormat format = processor.configure(
+                new AudioProcessor.AudioFormat(SAMPLE_RATE, 2, C.ENCODING_PCM_32BIT));
+
+        assertEquals(AudioProcessor.AudioFormat.NOT_SET, format);
+        assertFalse(processor.isActive());
+    }
+
+    //peak of second half of one second mono sine, when filters are settled
+    private double getPeakLevel(double frequency, double amplitude) {
+        processor.flush();
+        int frames = SAMPLE_RATE;
+        ByteBuffer input = allocate(frames * 4);
+        for (int i = 0; i < frames; i++) {
+            input.putFloat((float) (amplitude * Math.sin(2 * Math.PI * frequency * i / SAMPLE_RATE)));
+        }
+        input.flip();
+
+        ByteBuffer output = process(input);
+        double peak = 0;
+        for (int i = frames / 2; i < frames; i++) {
+            peak = Math.max(peak, Math.abs(output.getFloat(i * 4)));
+        }
+        return peak;
+    }
+
+    private void configure(int encoding) {
+        processor.configure(new AudioProcessor.AudioFormat(SAMPLE_RATE, 1, encoding));
+        processor.flush();
+    }
+
+    private ByteBuffer process(ByteBuffer input) {
+        processor.queueInput(input);
+        return processor.getOutput();
+    }
+
+    private static ByteBuffer allocate(int size) {
+        return ByteBuffer.allocateDirect(size).order(ByteOrder.nativeOrder());
+    }
+}
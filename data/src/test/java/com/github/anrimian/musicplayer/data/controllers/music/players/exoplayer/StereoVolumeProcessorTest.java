@@ -0,0 +1,161 @@
+package com.github.anrimian.musicplayer.data.controllers.music.players.exoplayer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.audio.AudioProcessor;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+public class StereoVolumeProcessorTest {
+
+    private static final int SAMPLE_RATE = 44100;
+
+    private final StereoVolumeProcessor processor = new StereoVolumeProcessor();
+
+    @BeforeEach
+    public void setUp() {
+        processor.setChannelMap(new int[] { 0, 1 });
+        processor.setVolume(0.5f, 0.25f);
+    }
+
+    @Test
+    public void apply16BitStereoVolume() throws Exception {
+        configure(2, C.ENCODING_PCM_16BIT);
+
+        ByteBuffer input = allocate(8);
+        input.putShort((short) 1000).putShort((short) 1000).putShort((short) -400).putShort((short) 400);
+        input.flip();
+
+        ByteBuffer output = process(input);
+        assertEquals(500, output.getShort());
+        assertEquals(250, output.getShort());
+        assertEquals(-200, output.getShort());
+        assertEquals(100, output.getShort());
+        assertEquals(0, output.remaining());
+    }
+
+    @Test
+    public void apply24BitStereoVolume() throws Exception {
+        configure(2, C.ENCODING_PCM_24BIT);
+
+        ByteBuffer input = allocate(6);
+        put24Bit(input, 0x400000);
+        put24Bit(input, -0x400000);
+        input.flip();
+
+        ByteBuffer output = process(input);
+        assertEquals(0x200000, get24Bit(output));
+        assertEquals(-0x100000, get24Bit(output));
+    }
+
+    @Test
+    public void apply32BitStereoVolume() throws Exception {
+        configure(2, C.ENCODING_PCM_32BIT);
+
+        ByteBuffer input = allocate(8);
+        input.putInt(Integer.MAX_VALUE).putInt(Integer.MIN_VALUE);
+        input.flip();
+
+        ByteBuffer output = process(input);
+        assertEquals((int) (Integer.MAX_VALUE * 0.5d), output.getInt());
+        assertEquals((int) (Integer.MIN_VALUE * 0.25d), output.getInt());
+    }
+
+    @Test
+    public void applyFloatMonoVolume() throws Exception {
+        configure(1, C.ENCODING_PCM_FLOAT);
+
+        ByteBuffer input = allocate(8);
+        input.putFloat(1f).putFloat(-0.5f);
+        input.flip();
+
+        ByteBuffer output = process(input);
+        assertEquals(0.375f, output.getFloat());
+        assertEquals(-0.1875f, output.getFloat());
+    }
+
+    @Test
+    public void applyVolumeToMultiChannelAudio() throws Exception {
+        configure(3, C.ENCODING_PCM_16BIT);
+
+        ByteBuffer input = allocate(12);
+        for (int i = 0; i < 6; i++) {
+            input.putShort((short) 800);
+        }
+        input.flip();
+
+        ByteBuffer output = process(input);
+        for (int i = 0; i < 2; i++) {
+            assertEquals(400, output.getShort());
+            assertEquals(200, output.getShort());
+            assertEquals(300, output.getShort());
+        }
+    }
+
+    @Test
+    public void copyInputWithFullVolume() throws Exception {
+        processor.setVolume(1f, 1f);
+        configure(2, C.ENCODING_PCM_16BIT);
+
+        ByteBuffer input = allocate(4);
+        input.putShort((short) 123).putShort((short) -321);
+        input.flip();
+
+        ByteBuffer output = process(input);
+        assertEquals(123, output.getShort());
+        assertEquals(-321, output.getShort());
+        assertEquals(0, input.remaining());
+    }
+
+    @Test
+    public void applyTrackGainWithVolume() throws Exception {
+        processor.setGain(0.5f);
+        configure(2, C.ENCODING_PCM_16BIT);
+
+        ByteBuffer input = allocate(4);
+        input.putShort((short) 1000).putShort((short) 1000);
+        input.flip();
+
+        ByteBuffer output = process(input);
+        assertEquals(250, output.getShort());
+        assertEquals(125, output.getShort());
+    }
+
+    @Test
+    public void rejectUnsupportedEncoding() {
+        assertThrows(AudioProcessor.UnhandledAudioFormatException.class,
+                () -> configure(2, C.ENCODING_PCM_8BIT));
+    }
+
+    private void configure(int channelCount, int encoding) throws Exception {
+        processor.configure(new AudioProcessor.AudioFormat(SAMPLE_RATE, channelCount, encoding));
+        processor.flush();
+    }
+
+    private ByteBuffer process(ByteBuffer input) {
+        processor.queueInput(input);
+        return processor.getOutput();
+    }
+
+    private static ByteBuffer allocate(int size) {
+        return ByteBuffer.allocateDirect(size).order(ByteOrder.nativeOrder());
+    }
+
+    private static void put24Bit(ByteBuffer buffer, int value) {
+        buffer.put((byte) value);
+        buffer.put((byte) (value >> 8));
+        buffer.put((byte) (value >> 16));
+    }
+
+    private static int get24Bit(ByteBuffer buffer) {
+        return (buffer.get() & 0xff)
+                | ((buffer.get() & 0xff) << 8)
+                | (buffer.get() << 16);
+    }
+}
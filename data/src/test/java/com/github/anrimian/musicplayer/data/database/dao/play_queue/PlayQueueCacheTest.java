@@ -0,0 +1,108 @@
+package com.github.anrimian.musicplayer.data.database.dao.play_queue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static java.util.Arrays.asList;
+import static utils.TestDataProvider.fakeComposition;
+import static utils.TestDataProvider.queueEntity;
+
+import com.github.anrimian.musicplayer.domain.models.composition.Composition;
+import com.github.anrimian.musicplayer.domain.models.play_queue.PlayQueueItem;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class PlayQueueCacheTest {
+
+    private final List<List<Long>> loadRequests = new ArrayList<>();
+
+    private final PlayQueueCache cache = new PlayQueueCache(ids -> {
+        loadRequests.add(ids);
+        List<Composition> result = new ArrayList<>();
+        for (Long id: ids) {
+            result.add(fakeComposition(id));
+        }
+        return result;
+    });
+
+    @Test
+    public void emitEmptyQueueOnStart() {
+        List<PlayQueueItem> snapshot = cache.applyQueue(Collections.emptyList());
+
+        assertNotNull(snapshot);
+        assertEquals(0, snapshot.size());
+        assertNull(cache.applyQueue(Collections.emptyList()));
+    }
+
+    @Test
+    public void loadOnlyNewCompositions() {
+        cache.applyQueue(asList(queueEntity(1, 10, 0, 0), queueEntity(2, 20, 1, 1)));
+        List<PlayQueueItem> first = cache.applyQueue(asList(queueEntity(1, 10, 0, 0), queueEntity(2, 20, 1, 1)));
+        assertNull(first);
+
+        List<PlayQueueItem> snapshot = cache.applyQueue(asList(
+                queueEntity(1, 10, 0, 0),
+                queueEntity(3, 30, 1, 1),
+                queueEntity(4, 10, 2, 2),
+                queueEntity(2, 20, 3, 3)
+        ));
+
+        assertNotNull(snapshot);
+        assertEquals(asList(asList(10L, 20L), Collections.singletonList(30L)), loadRequests);
+        assertEquals(4, snapshot.size());
+        assertEquals(3, snapshot.get(1).getId());
+        assertSame(snapshot.get(0).getComposition(), snapshot.get(2).getComposition());
+    }
+
+    @Test
+    public void reuseItemsOnMove() {
+        List<PlayQueueItem> old = cache.applyQueue(asList(queueEntity(1, 10, 0, 0), queueEntity(2, 20, 1, 1)));
+        List<PlayQueueItem> snapshot = cache.applyQueue(asList(queueEntity(2, 20, 0, 0), queueEntity(1, 10, 1, 1)));
+
+        assertNotNull(old);
+        assertNotNull(snapshot);
+        assertSame(old.get(0), snapshot.get(1));
+        assertSame(old.get(1), snapshot.get(0));
+        assertEquals(1, loadRequests.size());
+    }
+
+    @Test
+    public void removeItem() {
+        cache.applyQueue(asList(queueEntity(1, 10, 0, 0), queueEntity(2, 20, 1, 1)));
+        List<PlayQueueItem> snapshot = cache.applyQueue(Collections.singletonList(queueEntity(2, 20, 1, 1)));
+
+        assertNotNull(snapshot);
+        assertEquals(1, snapshot.size());
+        assertEquals(2, snapshot.get(0).getId());
+    }
+
+    @Test
+    public void reloadOnlyChangedCompositions() {
+        List<PlayQueueItem> old = cache.applyQueue(asList(queueEntity(1, 10, 0, 0), queueEntity(2, 20, 1, 1)));
+        loadRequests.clear();
+
+        List<PlayQueueItem> snapshot = cache.applyCompositionChanges(asList(20L, 50L));
+
+        assertNotNull(old);
+        assertNotNull(snapshot);
+        assertEquals(Collections.singletonList(Collections.singletonList(20L)), loadRequests);
+        assertSame(old.get(0), snapshot.get(0));
+        assertNotSame(old.get(1), snapshot.get(1));
+        assertEquals(2, snapshot.get(1).getId());
+    }
+
+    @Test
+    public void ignoreChangesOfNotQueuedCompositions() {
+        cache.applyQueue(Collections.singletonList(queueEntity(1, 10, 0, 0)));
+        loadRequests.clear();
+
+        assertNull(cache.applyCompositionChanges(Collections.singletonList(50L)));
+        assertEquals(0, loadRequests.size());
+    }
+}
@@ -0,0 +1,45 @@
+package com.github.anrimian.musicplayer.data.database.utils;
+
+import static com.github.anrimian.musicplayer.data.database.utils.DatabaseUtils.getFtsMatchQuery;
+import static com.github.anrimian.musicplayer.data.database.utils.DatabaseUtils.getFtsMatchTerms;
+import static com.github.anrimian.musicplayer.data.database.utils.DatabaseUtils.getLikePrefixArg;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+public class DatabaseUtilsTest {
+
+    @Test
+    public void ftsMatchQueryTest() {
+        assertNull(getFtsMatchQuery(null));
+        assertNull(getFtsMatchQuery(""));
+        assertEquals("\"numb*\"", getFtsMatchQuery("numb"));
+        assertEquals("\"pink*\" \"floyd*\"", getFtsMatchQuery(" pink  floyd"));
+        assertEquals("\"AC*\" \"DC*\"", getFtsMatchQuery("AC/DC"));
+        assertEquals("\"Славянка*\"", getFtsMatchQuery("Славянка"));
+        assertEquals("\"a*\" \"NOT*\" \"b*\"", getFtsMatchQuery("a NOT \"b"));
+    }
+
+    @Test
+    public void ftsMatchQueryWithoutWordsTest() {
+        assertEquals("", getFtsMatchQuery("!?"));
+        assertTrue(getFtsMatchTerms("!?").isEmpty());
+    }
+
+    @Test
+    public void ftsMatchTermsTest() {
+        assertNull(getFtsMatchTerms(null));
+        assertEquals(Arrays.asList("\"pink*\"", "\"floyd*\""), getFtsMatchTerms(" pink  floyd"));
+    }
+
+    @Test
+    public void likePrefixArgTest() {
+        assertNull(getLikePrefixArg(""));
+        assertEquals("100\\% pure\\_mix%", getLikePrefixArg(" 100% pure_mix "));
+        assertEquals("a\\\\b%", getLikePrefixArg("a\\b"));
+    }
+}
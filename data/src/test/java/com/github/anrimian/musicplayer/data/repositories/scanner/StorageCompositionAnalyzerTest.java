@@ -1,6 +1,7 @@
 package com.github.anrimian.musicplayer.data.repositories.scanner;
 
 import static com.github.anrimian.musicplayer.domain.utils.ListUtils.asList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
@@ -18,6 +19,7 @@ import com.github.anrimian.musicplayer.data.database.dao.compositions.StorageCom
 import com.github.anrimian.musicplayer.data.database.dao.folders.FoldersDaoWrapper;
 import com.github.anrimian.musicplayer.data.database.entities.folder.StorageFolder;
 import com.github.anrimian.musicplayer.data.models.changes.Change;
+import com.github.anrimian.musicplayer.data.repositories.scanner.StorageCompositionAnalyzer.DeltaResult;
 import com.github.anrimian.musicplayer.data.repositories.scanner.folders.FolderNode;
 import com.github.anrimian.musicplayer.data.repositories.scanner.nodes.AddedNode;
 import com.github.anrimian.musicplayer.data.storage.providers.albums.StorageAlbum;
@@ -30,6 +32,7 @@ import org.junit.jupiter.api.Test;
 
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -451,4 +454,46 @@ public class StorageCompositionAnalyzerTest {
 //                eq(emptyList()));
     }
 
+    @Test
+    public void applyDeltaTest() {
+        when(compositionsDao.selectAllStorageIds()).thenReturn(asList(1L, 2L));
+        LongSparseArray<StorageComposition> currentCompositions = new LongSparseArray<>();
+        currentCompositions.put(2, fakeStorageComposition(2, "music-2"));
+        when(compositionsDao.selectAsStorageCompositions(any())).thenReturn(currentCompositions);
+
+        StorageFullComposition c3 = fakeStorageFullComposition(3, "music-3");
+        LongSparseArray<StorageFullComposition> changedCompositions = new LongSparseArray<>();
+        changedCompositions.put(3, c3);
+
+        DeltaResult result = analyzer.applyCompositionsDelta(changedCompositions, new HashSet<>(asList(1L, 3L)));
+
+        assertEquals(DeltaResult.COMPOSITIONS_ADDED, result);
+        verify(compositionsDao).selectAsStorageCompositions(eq(asList(2L, 3L)));
+        verify(compositionsInserter).applyChanges(
+                eq(emptyList()),
+                eq(asList(c3)),//new
+                eq(asList(fakeStorageComposition(2, "music-2"))),//removed
+                eq(emptyList()),
+                any(),
+                eq(emptyList()));
+    }
+
+    @Test
+    public void applyDeltaOutOfRootFolderTest() {
+        when(compositionsDao.selectAllStorageIds()).thenReturn(asList(1L));
+        when(stateRepository.getRootFolderPath()).thenReturn("0/etc/sdcard");
+
+        LongSparseArray<StorageFullComposition> changedCompositions = new LongSparseArray<>();
+        changedCompositions.put(2, new StorageCompositionBuilder(2, "music-2").relativePath("0/etc/other").build());
+
+        DeltaResult result = analyzer.applyCompositionsDelta(changedCompositions, new HashSet<>(asList(1L, 2L)));
+
+        assertEquals(DeltaResult.FULL_SCAN_REQUIRED, result);
+        verify(compositionsInserter, never()).applyChanges(any(),
+                any(),
+                any(),
+                any(),
+                any(),
+                any());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,203 @@
+package com.github.anrimian.musicplayer.data.repositories.scanner;
+
+import static com.github.anrimian.musicplayer.domain.utils.ListUtils.asList;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyList;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singleton;
+
+import androidx.collection.LongSparseArray;
+import androidx.core.util.Pair;
+
+import com.github.anrimian.musicplayer.data.database.dao.play_list.PlayListsDaoWrapper;
+import com.github.anrimian.musicplayer.data.models.changes.Change;
+import com.github.anrimian.musicplayer.data.storage.providers.playlists.AppPlayList;
+import com.github.anrimian.musicplayer.data.storage.providers.playlists.StoragePlayList;
+import com.github.anrimian.musicplayer.data.storage.providers.playlists.StoragePlayListItem;
+import com.github.anrimian.musicplayer.data.storage.providers.playlists.StoragePlayListsProvider;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+
+public class StoragePlaylistAnalyzerTest {
+
+    private final PlayListsDaoWrapper playListsDao = mock(PlayListsDaoWrapper.class);
+    private final StoragePlayListsProvider playListsProvider = mock(StoragePlayListsProvider.class);
+
+    private StoragePlaylistAnalyzer analyzer;
+
+    @BeforeEach
+    public void setUp() {
+        when(playListsDao.getAllAsStoragePlayLists()).thenReturn(emptyList());
+        when(playListsDao.getNotEmptyPlayListIds()).thenReturn(new HashSet<>());
+        when(playListsDao.getPlayListsItemsAsStorageItems(anyList())).thenReturn(new LongSparseArray<>());
+        when(playListsProvider.getPlayListsItems(any())).thenReturn(new LongSparseArray<>());
+        when(playListsDao.selectExistingCompositionStorageIds(any()))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        analyzer = new StoragePlaylistAnalyzer(playListsDao, playListsProvider);
+    }
+
+    @Test
+    public void skipNotModifiedPlayListsTest() {
+        when(playListsDao.getAllAsStoragePlayLists()).thenReturn(asList(
+                new AppPlayList(1L, 10L, "test", new Date(1000), new Date(1000))
+        ));
+        when(playListsDao.getNotEmptyPlayListIds()).thenReturn(new HashSet<>(singleton(1L)));
+
+        LongSparseArray<StoragePlayList> newPlayLists = new LongSparseArray<>();
+        newPlayLists.put(10L, new StoragePlayList(10L, "test", new Date(1000), new Date(1000)));
+
+        analyzer.applyPlayListData(newPlayLists);
+
+        verify(playListsProvider, never()).getPlayListsItems(any());
+        verify(playListsDao, never()).applyChanges(any(), any(), any());
+    }
+
+    @Test
+    public void addNewPlayListTest() {
+        StoragePlayList playList = new StoragePlayList(10L, "test", new Date(1000), new Date(1000));
+        LongSparseArray<StoragePlayList> newPlayLists = new LongSparseArray<>();
+        newPlayLists.put(10L, playList);
+
+        List<StoragePlayListItem> items = asList(new StoragePlayListItem(1L, 100L));
+        LongSparseArray<List<StoragePlayListItem>> storageItems = new LongSparseArray<>();
+        storageItems.put(10L, items);
+        when(playListsProvider.getPlayListsItems(any())).thenReturn(storageItems);
+
+        analyzer.applyPlayListData(newPlayLists);
+
+        verify(playListsDao).applyChanges(
+                eq(asList(new Pair<>(playList, items))),
+                eq(emptyList()),
+                eq(emptyList()));
+    }
+
+    @Test
+    public void mergeItemsOfModifiedPlayListTest() {
+        AppPlayList playList = new AppPlayList(1L, 10L, "test", new Date(1000), new Date(1000));
+        when(playListsDao.getAllAsStoragePlayLists()).thenReturn(asList(playList));
+        when(playListsDao.getNotEmptyPlayListIds()).thenReturn(new HashSet<>(singleton(1L)));
+
+        LongSparseArray<List<StoragePlayListItem>> currentItems = new LongSparseArray<>();
+        currentItems.put(1L, asList(new StoragePlayListItem(1L, 100L)));
+        when(playListsDao.getPlayListsItemsAsStorageItems(eq(asList(1L)))).thenReturn(currentItems);
+
+        List<StoragePlayListItem> newItems = asList(
+                new StoragePlayListItem(1L, 100L),
+                new StoragePlayListItem(2L, 200L)
+        );
+        LongSparseArray<List<StoragePlayListItem>> storageItems = new LongSparseArray<>();
+        storageItems.put(10L, newItems);
+        when(playListsProvider.getPlayListsItems(any())).thenReturn(storageItems);
+
+        StoragePlayList storagePlayList = new StoragePlayList(10L, "test", new Date(1000), new Date(2000));
+        LongSparseArray<StoragePlayList> newPlayLists = new LongSparseArray<>();
+        newPlayLists.put(10L, storagePlayList);
+
+        analyzer.applyPlayListData(newPlayLists);
+
+        verify(playListsDao).applyChanges(
+                eq(emptyList()),
+                any(),
+                eq(asList(new Pair<>(new Change<>(playList, storagePlayList), newItems))));
+    }
+
+    @Test
+    public void skipModifiedPlayListWithSameItemsTest() {
+        AppPlayList playList = new AppPlayList(1L, 10L, "test", new Date(1000), new Date(1000));
+        when(playListsDao.getAllAsStoragePlayLists()).thenReturn(asList(playList));
+        when(playListsDao.getNotEmptyPlayListIds()).thenReturn(new HashSet<>(singleton(1L)));
+
+        LongSparseArray<List<StoragePlayListItem>> currentItems = new LongSparseArray<>();
+        currentItems.put(1L, asList(new StoragePlayListItem(1L, 100L)));
+        when(playListsDao.getPlayListsItemsAsStorageItems(eq(asList(1L)))).thenReturn(currentItems);
+
+        LongSparseArray<List<StoragePlayListItem>> storageItems = new LongSparseArray<>();
+        storageItems.put(10L, asList(new StoragePlayListItem(1L, 100L)));
+        when(playListsProvider.getPlayListsItems(any())).thenReturn(storageItems);
+
+        LongSparseArray<StoragePlayList> newPlayLists = new LongSparseArray<>();
+        newPlayLists.put(10L, new StoragePlayList(10L, "test", new Date(1000), new Date(2000)));
+
+        analyzer.applyPlayListData(newPlayLists);
+
+        verify(playListsDao).applyChanges(
+                eq(emptyList()),
+                any(),
+                eq(emptyList()));
+    }
+
+    @Test
+    public void fillEmptyPlayListTest() {
+        AppPlayList playList = new AppPlayList(1L, 10L, "test", new Date(1000), new Date(1000));
+        when(playListsDao.getAllAsStoragePlayLists()).thenReturn(asList(playList));
+
+        List<StoragePlayListItem> items = asList(new StoragePlayListItem(1L, 100L));
+        LongSparseArray<List<StoragePlayListItem>> storageItems = new LongSparseArray<>();
+        storageItems.put(10L, items);
+        when(playListsProvider.getPlayListsItems(eq(singleton(10L)))).thenReturn(storageItems);
+
+        StoragePlayList storagePlayList = new StoragePlayList(10L, "test", new Date(1000), new Date(1000));
+        LongSparseArray<StoragePlayList> newPlayLists = new LongSparseArray<>();
+        newPlayLists.put(10L, storagePlayList);
+
+        analyzer.applyPlayListData(newPlayLists, true);
+
+        verify(playListsDao).applyChanges(
+                eq(emptyList()),
+                eq(emptyList()),
+                eq(asList(new Pair<>(new Change<>(playList, storagePlayList), items))));
+    }
+
+    @Test
+    public void skipNotModifiedEmptyPlayListTest() {
+        when(playListsDao.getAllAsStoragePlayLists()).thenReturn(asList(
+                new AppPlayList(1L, 10L, "test", new Date(1000), new Date(1000))
+        ));
+
+        LongSparseArray<StoragePlayList> newPlayLists = new LongSparseArray<>();
+        newPlayLists.put(10L, new StoragePlayList(10L, "test", new Date(1000), new Date(1000)));
+
+        analyzer.applyPlayListData(newPlayLists);
+
+        verify(playListsProvider, never()).getPlayListsItems(any());
+        verify(playListsDao, never()).applyChanges(any(), any(), any());
+    }
+
+    @Test
+    public void skipItemsWithoutCompositionsTest() {
+        AppPlayList playList = new AppPlayList(1L, 10L, "test", new Date(1000), new Date(1000));
+        when(playListsDao.getAllAsStoragePlayLists()).thenReturn(asList(playList));
+        when(playListsDao.getNotEmptyPlayListIds()).thenReturn(new HashSet<>(singleton(1L)));
+
+        LongSparseArray<List<StoragePlayListItem>> currentItems = new LongSparseArray<>();
+        currentItems.put(1L, asList(new StoragePlayListItem(1L, 100L)));
+        when(playListsDao.getPlayListsItemsAsStorageItems(eq(asList(1L)))).thenReturn(currentItems);
+
+        LongSparseArray<List<StoragePlayListItem>> storageItems = new LongSparseArray<>();
+        storageItems.put(10L, asList(
+                new StoragePlayListItem(1L, 100L),
+                new StoragePlayListItem(2L, 200L)
+        ));
+        when(playListsProvider.getPlayListsItems(any())).thenReturn(storageItems);
+        when(playListsDao.selectExistingCompositionStorageIds(any()))
+                .thenReturn(new HashSet<>(singleton(100L)));
+
+        LongSparseArray<StoragePlayList> newPlayLists = new LongSparseArray<>();
+        newPlayLists.put(10L, new StoragePlayList(10L, "test", new Date(1000), new Date(1000)));
+
+        analyzer.applyPlayListData(newPlayLists, true);
+
+        verify(playListsDao, never()).applyChanges(any(), any(), any());
+    }
+}
@@ -0,0 +1,100 @@
+package com.github.anrimian.musicplayer.data.repositories.scanner.files
+
+import com.github.anrimian.musicplayer.data.database.dao.compositions.CompositionsDaoWrapper
+import com.github.anrimian.musicplayer.data.storage.source.ArtworkThumbnailCache
+import com.github.anrimian.musicplayer.data.storage.source.CompositionFileSource
+import com.github.anrimian.musicplayer.data.storage.source.CompositionSourceEditor
+import com.github.anrimian.musicplayer.domain.interactors.analytics.Analytics
+import com.github.anrimian.musicplayer.domain.models.composition.FullComposition
+import com.github.anrimian.musicplayer.domain.models.composition.source.CompositionSourceTags
+import com.github.anrimian.musicplayer.domain.repositories.StateRepository
+import io.reactivex.rxjava3.core.Single
+import io.reactivex.rxjava3.schedulers.Schedulers
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty
+import org.mockito.kotlin.*
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.zip.CRC32
+
+private const val FILES_COUNT = 2000
+private const val BATCH_SIZE = 50
+//approximate cost of jaudiotagger header parse
+private const val FAKE_FILE_SIZE = 256 * 1024
+
+/**
+ * Measures files per second of file scanner depending on worker threads count.
+ * Tag reading is replaced with cpu-bound stub, so results show scaling of the pipeline itself.
+ *
+ * Run with: ./gradlew :data:testDebugUnitTest -Pbenchmark --tests "*FileScannerBenchmarkTest"
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class FileScannerBenchmarkTest {
+
+    private val fakeFile = ByteArray(FAKE_FILE_SIZE) { i -> i.toByte() }
+
+    @Test
+    fun `files per second by parallelism`() {
+        val cores = Runtime.getRuntime().availableProcessors()
+        //warm up
+        runScan(cores)
+
+        var parallelism = 1
+        while (parallelism <= cores * 2) {
+            val filesPerSecond = runScan(parallelism)
+            println("FileScanner: parallelism=$parallelism, cores=$cores, files/sec=$filesPerSecond")
+            parallelism *= 2
+        }
+    }
+
+    private fun runScan(parallelism: Int): Long {
+        val compositionsDao: CompositionsDaoWrapper = mock()
+        val compositionSourceEditor: CompositionSourceEditor = mock()
+        val artworkThumbnailCache: ArtworkThumbnailCache = mock()
+        val stateRepository: StateRepository = mock()
+        val analytics: Analytics = mock()
+        val executor = Executors.newFixedThreadPool(parallelism)
+
+        val compositions = List(FILES_COUNT) { mock<FullComposition>() }
+        val tags = CompositionSourceTags("title", "artist", "album", "album artist", null, null, null)
+        val source = CompositionFileSource(tags, null)
+        var claimed = 0
+        whenever(compositionsDao.selectNextCompositionsToScan(any(), any())).thenAnswer {
+            val batch = compositions.subList(claimed, minOf(claimed + BATCH_SIZE, FILES_COUNT))
+            claimed += batch.size
+            Single.just(batch)
+        }
+        whenever(compositionSourceEditor.getFullSource(any())).thenAnswer {
+            Single.fromCallable { parseFakeFile(); source }
+        }
+        val completeLatch = CountDownLatch(1)
+        doAnswer { completeLatch.countDown() }.whenever(stateRepository).lastCompleteScanTime = any()
+
+        val fileScanner = FileScanner(
+            compositionsDao,
+            compositionSourceEditor,
+            artworkThumbnailCache,
+            stateRepository,
+            analytics,
+            Schedulers.single(),
+            Schedulers.from(executor),
+            parallelism,
+            BATCH_SIZE
+        )
+
+        val startTime = System.nanoTime()
+        fileScanner.scheduleFileScanner()
+        completeLatch.await(5, TimeUnit.MINUTES)
+        val elapsedNanos = System.nanoTime() - startTime
+        executor.shutdown()
+
+        return FILES_COUNT * TimeUnit.SECONDS.toNanos(1) / elapsedNanos
+    }
+
+    private fun parseFakeFile(): Long {
+        val crc = CRC32()
+        crc.update(fakeFile)
+        return crc.value
+    }
+}
@@ -1,6 +1,8 @@
 package com.github.anrimian.musicplayer.data.repositories.scanner.files
 
 import com.github.anrimian.musicplayer.data.database.dao.compositions.CompositionsDaoWrapper
+import com.github.anrimian.musicplayer.data.storage.source.ArtworkThumbnailCache
+import com.github.anrimian.musicplayer.data.storage.source.CompositionFileSource
 import com.github.anrimian.musicplayer.data.storage.source.CompositionSourceEditor
 import com.github.anrimian.musicplayer.domain.interactors.analytics.Analytics
 import com.github.anrimian.musicplayer.domain.models.composition.FullComposition
@@ -8,7 +10,6 @@ import com.github.anrimian.musicplayer.domain.models.composition.source.Composit
 import com.github.anrimian.musicplayer.domain.models.scanner.Idle
 import com.github.anrimian.musicplayer.domain.models.scanner.Running
 import com.github.anrimian.musicplayer.domain.repositories.StateRepository
-import io.reactivex.rxjava3.core.Maybe
 import io.reactivex.rxjava3.core.Single
 import io.reactivex.rxjava3.schedulers.Schedulers
 import io.reactivex.rxjava3.schedulers.TestScheduler
@@ -16,22 +17,33 @@ import org.junit.jupiter.api.BeforeEach
 import org.junit.jupiter.api.Test
 import org.mockito.Mockito
 import org.mockito.kotlin.*
+import java.io.IOException
+import java.util.*
 import java.util.concurrent.TimeUnit
 
 class FileScannerTest {
 
     private val compositionsDao: CompositionsDaoWrapper = mock()
     private val compositionSourceEditor: CompositionSourceEditor = mock()
+    private val artworkThumbnailCache: ArtworkThumbnailCache = mock()
     private val stateRepository: StateRepository = mock()
     private val analytics: Analytics = mock()
     private val scheduler = Schedulers.trampoline()
 
+    private val source: CompositionSourceTags = mock()
+    private val artwork = ByteArray(1)
+    private val fileSource = CompositionFileSource(source, artwork)
+
     private val fileScanner = FileScanner(
             compositionsDao,
             compositionSourceEditor,
+            artworkThumbnailCache,
             stateRepository,
             analytics,
-            scheduler
+            scheduler,
+            scheduler,
+            2,
+            10
     )
 
     private val testStateObserver = fileScanner.getStateObservable().test()
@@ -41,42 +53,114 @@ class FileScannerTest {
         whenever(stateRepository.currentFileScannerVersion).thenReturn(1)
         whenever(stateRepository.lastFileScannerVersion).thenReturn(1)
 
-        val source: CompositionSourceTags = mock()
-        whenever(compositionSourceEditor.getFullTags(any()))
-            .thenReturn(Single.just(source))
+        whenever(compositionSourceEditor.getFullSource(any()))
+            .thenReturn(Single.just(fileSource))
     }
 
     @Test
     fun `run successful scan`() {
         val composition: FullComposition = mock()
 
-        whenever(compositionsDao.selectNextCompositionToScan(eq(0)))
-                .thenReturn(Maybe.just(composition))
-                .thenReturn(Maybe.empty())
+        whenever(compositionsDao.selectNextCompositionsToScan(eq(0), any()))
+                .thenReturn(Single.just(listOf(composition)))
+                .thenReturn(Single.just(emptyList()))
+        whenever(compositionsDao.getCompositionsToScanCount(eq(0))).thenReturn(1)
 
         fileScanner.scheduleFileScanner()
 
-        verify(compositionsDao).setCompositionLastFileScanTime(any(), any())
+        verify(compositionsDao).applyFileScanResults(eq(listOf(FileScanResult(composition, source))), any())
         verify(stateRepository).lastFileScannerVersion = eq(1)
         verify(stateRepository).lastCompleteScanTime = any()
 
         testStateObserver.assertValues(
                 Idle,
-                Running(composition),
+                Running(composition, 0, 1),
+                Running(composition, 1, 1),
                 Idle
         )
     }
 
+    @Test
+    fun `save artwork thumbnail of scanned composition`() {
+        val composition: FullComposition = mock()
+        val dateModified = Date(1000)
+        whenever(composition.id).thenReturn(1L)
+        whenever(composition.dateModified).thenReturn(dateModified)
+
+        whenever(compositionsDao.selectNextCompositionsToScan(eq(0), any()))
+            .thenReturn(Single.just(listOf(composition)))
+            .thenReturn(Single.just(emptyList()))
+
+        fileScanner.scheduleFileScanner()
+
+        verify(artworkThumbnailCache).put(
+            eq(1L),
+            eq(dateModified),
+            eq(artwork),
+            eq(ArtworkThumbnailCache.SMALL_SIZE)
+        )
+    }
+
+    @Test
+    fun `error with thumbnail save - keep scan result`() {
+        val composition: FullComposition = mock()
+
+        whenever(compositionsDao.selectNextCompositionsToScan(eq(0), any()))
+            .thenReturn(Single.just(listOf(composition)))
+            .thenReturn(Single.just(emptyList()))
+        val exception = IOException()
+        Mockito.doThrow(exception)
+            .whenever(artworkThumbnailCache).put(any(), anyOrNull(), anyOrNull(), any())
+
+        fileScanner.scheduleFileScanner()
+
+        verify(compositionsDao).applyFileScanResults(eq(listOf(FileScanResult(composition, source))), any())
+        verify(analytics).processNonFatalError(exception)
+    }
+
+    @Test
+    fun `scan batches until nothing to scan`() {
+        val composition1: FullComposition = mock()
+        val composition2: FullComposition = mock()
+        val composition3: FullComposition = mock()
+
+        whenever(compositionsDao.selectNextCompositionsToScan(eq(0), any()))
+            .thenReturn(Single.just(listOf(composition1, composition2)))
+            .thenReturn(Single.just(listOf(composition3)))
+            .thenReturn(Single.just(emptyList()))
+        whenever(compositionsDao.getCompositionsToScanCount(eq(0))).thenReturn(3)
+
+        fileScanner.scheduleFileScanner()
+
+        verify(compositionsDao).applyFileScanResults(eq(listOf(
+            FileScanResult(composition1, source),
+            FileScanResult(composition2, source)
+        )), any())
+        verify(compositionsDao).applyFileScanResults(eq(listOf(FileScanResult(composition3, source))), any())
+        verify(compositionsDao, times(1)).getCompositionsToScanCount(any())
+        verify(stateRepository).lastCompleteScanTime = any()
+
+        testStateObserver.assertValues(
+            Idle,
+            Running(composition1, 0, 3),
+            Running(composition1, 1, 3),
+            Running(composition2, 2, 3),
+            Running(composition3, 2, 3),
+            Running(composition3, 3, 3),
+            Idle
+        )
+    }
+
     @Test
     fun `error with getting composition from db - do not run next loop`() {
         val exception: Exception = mock()
-        whenever(compositionsDao.selectNextCompositionToScan(eq(0)))
-                .thenReturn(Maybe.error(exception))
-                .thenReturn(Maybe.just(mock<FullComposition>()))
+        whenever(compositionsDao.selectNextCompositionsToScan(eq(0), any()))
+                .thenReturn(Single.error(exception))
+                .thenReturn(Single.just(listOf(mock())))
 
         fileScanner.scheduleFileScanner()
 
-        verify(compositionsDao, never()).setCompositionLastFileScanTime(any(), any())
+        verify(compositionsDao, never()).applyFileScanResults(any(), any())
         verify(stateRepository, never()).lastFileScannerVersion = any()
         verify(stateRepository, never()).lastCompleteScanTime = any()
         verify(analytics).processNonFatalError(exception)
@@ -87,35 +171,50 @@ class FileScannerTest {
     }
 
     @Test
-    fun `error with scan - set scan time and run next loop`() {
+    fun `error with tags read - save scan time and run next loop`() {
+        val composition1: FullComposition = mock()
+        val composition2: FullComposition = mock()
+
+        whenever(compositionsDao.selectNextCompositionsToScan(eq(0), any()))
+            .thenReturn(Single.just(listOf(composition1)))
+            .thenReturn(Single.just(listOf(composition2)))
+            .thenReturn(Single.just(emptyList()))
+
+        val exception = RuntimeException()
+        whenever(compositionSourceEditor.getFullSource(eq(composition1)))
+            .thenReturn(Single.error(exception))
+
+        fileScanner.scheduleFileScanner()
+
+        verify(compositionsDao).applyFileScanResults(eq(listOf(FileScanResult(composition1, null))), any())
+        verify(compositionsDao).applyFileScanResults(eq(listOf(FileScanResult(composition2, source))), any())
+        verify(analytics).processNonFatalError(exception)
+        verify(stateRepository).lastFileScannerVersion = eq(1)
+        verify(stateRepository).lastCompleteScanTime = any()
+    }
+
+    @Test
+    fun `error with batch save - save items one by one`() {
         val composition1: FullComposition = mock()
         val composition2: FullComposition = mock()
 
-        whenever(compositionsDao.selectNextCompositionToScan(eq(0)))
-                .thenReturn(Maybe.just(composition1))
-                .thenReturn(Maybe.just(composition2))
-                .thenReturn(Maybe.empty())
+        whenever(compositionsDao.selectNextCompositionsToScan(eq(0), any()))
+                .thenReturn(Single.just(listOf(composition1, composition2)))
+                .thenReturn(Single.just(emptyList()))
 
         val exception = RuntimeException()
         Mockito.doThrow(exception)
-            .doThrow(exception)
-            .doThrow(exception)
             .doNothing()
-            .whenever(compositionsDao).updateCompositionBySourceTags(any(), any())
+            .doThrow(exception)
+            .whenever(compositionsDao).applyFileScanResults(any(), any())
 
         fileScanner.scheduleFileScanner()
 
-        verify(compositionsDao, times(2)).setCompositionLastFileScanTime(any(), any())
+        verify(compositionsDao, times(3)).applyFileScanResults(any(), any())
+        verify(compositionsDao).setCompositionLastFileScanTime(eq(composition2), any())
         verify(analytics).processNonFatalError(exception)
         verify(stateRepository).lastFileScannerVersion = eq(1)
         verify(stateRepository).lastCompleteScanTime = any()
-
-        testStateObserver.assertValues(
-                Idle,
-                Running(composition1),
-                Running(composition2),
-                Idle
-        )
     }
 
     @Test
@@ -126,20 +225,22 @@ class FileScannerTest {
 
         val composition: FullComposition = mock()
 
-        whenever(compositionsDao.selectNextCompositionToScan(any()))
-            .thenReturn(Maybe.just(composition))
-            .thenReturn(Maybe.empty())
+        whenever(compositionsDao.selectNextCompositionsToScan(any(), any()))
+            .thenReturn(Single.just(listOf(composition)))
+            .thenReturn(Single.just(emptyList()))
+        whenever(compositionsDao.getCompositionsToScanCount(any())).thenReturn(1)
 
         fileScanner.scheduleFileScanner()
 
-        verify(compositionsDao, times(2)).selectNextCompositionToScan(eq(lastScanTime))
-        verify(compositionsDao).setCompositionLastFileScanTime(eq(composition), any())
+        verify(compositionsDao, times(2)).selectNextCompositionsToScan(eq(lastScanTime), any())
+        verify(compositionsDao).applyFileScanResults(eq(listOf(FileScanResult(composition, source))), any())
         verify(stateRepository).lastFileScannerVersion = eq(2)
         verify(stateRepository).lastCompleteScanTime = any()
 
         testStateObserver.assertValues(
             Idle,
-            Running(composition),
+            Running(composition, 0, 1),
+            Running(composition, 1, 1),
             Idle
         )
     }
@@ -150,36 +251,40 @@ class FileScannerTest {
         val fileScanner = FileScanner(
             compositionsDao,
             compositionSourceEditor,
+            artworkThumbnailCache,
             stateRepository,
             analytics,
-            testScheduler
+            testScheduler,
+            testScheduler,
+            2,
+            10
         )
         val testStateObserver = fileScanner.getStateObservable().test()
 
         val composition: FullComposition = mock()
-        val source: CompositionSourceTags = mock()
 
-        whenever(compositionsDao.selectNextCompositionToScan(eq(0)))
-            .thenReturn(Maybe.just(composition))
-            .thenReturn(Maybe.empty())
-        whenever(compositionSourceEditor.getFullTags(any()))
-            .thenReturn(Single.just(source).delay(3, TimeUnit.SECONDS, testScheduler))
-            .thenReturn(Single.just(source).delay(3, TimeUnit.SECONDS, testScheduler))
-            .thenReturn(Single.just(source))
+        whenever(compositionsDao.selectNextCompositionsToScan(eq(0), any()))
+            .thenReturn(Single.just(listOf(composition)))
+            .thenReturn(Single.just(emptyList()))
+        whenever(compositionsDao.getCompositionsToScanCount(eq(0))).thenReturn(1)
+        whenever(compositionSourceEditor.getFullSource(any()))
+            .thenReturn(Single.just(fileSource).delay(3, TimeUnit.SECONDS, testScheduler))
+            .thenReturn(Single.just(fileSource).delay(3, TimeUnit.SECONDS, testScheduler))
+            .thenReturn(Single.just(fileSource))
 
         fileScanner.scheduleFileScanner()
         testScheduler.advanceTimeBy(4, TimeUnit.SECONDS)
 
-        verify(compositionsDao).setCompositionLastFileScanTime(eq(composition), any())
-        verify(compositionsDao).updateCompositionBySourceTags(eq(composition), eq(source))
+        verify(compositionsDao).applyFileScanResults(eq(listOf(FileScanResult(composition, source))), any())
         verify(stateRepository).lastFileScannerVersion = eq(1)
         verify(stateRepository).lastCompleteScanTime = any()
 
         testStateObserver.assertValues(
             Idle,
-            Running(composition),
+            Running(composition, 0, 1),
+            Running(composition, 1, 1),
             Idle
         )
 
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,130 @@
+package com.github.anrimian.musicplayer.data.repositories.scanner.folders;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.github.anrimian.musicplayer.domain.utils.ListUtils;
+import com.github.anrimian.musicplayer.domain.utils.TextUtils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.reactivex.rxjava3.core.Observable;
+
+/**
+ * Compares tree build time of group by path with Rx (as it was before)
+ * and of {@link FolderTreeBuilder} on synthetic library.
+ * Paths are created per file, as cursor does.
+ *
+ * Run with: ./gradlew :data:testDebugUnitTest -Pbenchmark --tests "*FolderTreeBuilderBenchmarkTest"
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class FolderTreeBuilderBenchmarkTest {
+
+    private static final int[] FILES_COUNTS = { 10_000, 100_000, 500_000 };
+    private static final int FILES_PER_FOLDER = 12;
+    private static final int ALBUMS_PER_ARTIST = 5;
+    private static final int RUNS_COUNT = 5;
+
+    @Test
+    public void compareTreeBuildTime() {
+        for (int filesCount: FILES_COUNTS) {
+            String[] paths = createPaths(filesCount);
+
+            //warm up
+            createTreeWithRx(paths);
+            createTree(paths);
+
+            long rxTime = Long.MAX_VALUE;
+            long iterativeTime = Long.MAX_VALUE;
+            for (int i = 0; i < RUNS_COUNT; i++) {
+                long startTime = System.nanoTime();
+                FolderNode<Integer> rxRoot = createTreeWithRx(paths);
+                rxTime = Math.min(rxTime, System.nanoTime() - startTime);
+
+                startTime = System.nanoTime();
+                FolderNode<Integer> root = createTree(paths);
+                iterativeTime = Math.min(iterativeTime, System.nanoTime() - startTime);
+
+                assertEquals(countFiles(rxRoot), countFiles(root));
+            }
+
+            System.out.println("FolderTreeBuilder: files=" + filesCount
+                    + ", rx group by=" + toMs(rxTime) + "ms"
+                    + ", iterative=" + toMs(iterativeTime) + "ms");
+        }
+    }
+
+    private FolderNode<Integer> createTree(String[] paths) {
+        FolderTreeBuilder<Integer, Integer> builder = new FolderTreeBuilder<>(
+                index -> paths[index],
+                index -> index
+        );
+        List<Integer> indexes = new ArrayList<>(paths.length);
+        for (int i = 0; i < paths.length; i++) {
+            indexes.add(i);
+        }
+        return builder.createFileTree(indexes);
+    }
+
+    //tree build as it was before
+    private FolderNode<Integer> createTreeWithRx(String[] paths) {
+        FolderNode<Integer> rootFolder = new FolderNode<>(null);
+        Observable.range(0, paths.length)
+                .groupBy(index -> paths[index])
+                .doOnNext(group -> group.collect(ArrayList<Integer>::new, List::add)
+                        .map(list -> ListUtils.mapList(list, index -> index))
+                        .doOnSuccess(list -> getNode(rootFolder, group.getKey()).addFiles(list))
+                        .subscribe())
+                .subscribe();
+        return rootFolder;
+    }
+
+    private FolderNode<Integer> getNode(FolderNode<Integer> root, String path) {
+        if (TextUtils.isEmpty(path)) {
+            return root;
+        }
+        FolderNode<Integer> target = root;
+        for (String partialPath : path.split("/")) {
+            FolderNode<Integer> child = target.getFolder(partialPath);
+            if (child == null) {
+                child = new FolderNode<>(partialPath);
+                target.addFolder(child);
+            }
+            target = child;
+        }
+        return target;
+    }
+
+    //music/artist/album/disc, files of one folder go in a row, as media store sorted by id does
+    private String[] createPaths(int filesCount) {
+        String[] paths = new String[filesCount];
+        for (int i = 0; i < filesCount; i++) {
+            int folder = i / FILES_PER_FOLDER;
+            int album = folder / 2;
+            int artist = album / ALBUMS_PER_ARTIST;
+            paths[i] = new StringBuilder("Music/artist ")
+                    .append(artist)
+                    .append("/album ")
+                    .append(album)
+                    .append("/CD")
+                    .append(folder % 2 + 1)
+                    .toString();
+        }
+        return paths;
+    }
+
+    private static int countFiles(FolderNode<Integer> node) {
+        int count = node.getFiles().size();
+        for (FolderNode<Integer> child: node.getFolders()) {
+            count += countFiles(child);
+        }
+        return count;
+    }
+
+    private static long toMs(long nanos) {
+        return nanos / 1_000_000;
+    }
+}
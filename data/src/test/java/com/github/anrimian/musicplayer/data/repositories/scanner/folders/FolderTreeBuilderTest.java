@@ -1,10 +1,14 @@
 package com.github.anrimian.musicplayer.data.repositories.scanner.folders;
 
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.Arrays;
+
 import io.reactivex.rxjava3.core.Observable;
 
 
@@ -32,4 +36,27 @@ public class FolderTreeBuilderTest {
         assertNotNull(newFolder);
         assert newFolder.getFiles().contains("music/new");
     }
+
+    @Test
+    public void createFileTreeWithRepeatedPathsTest() {
+        FolderNode<String> root = folderTreeBuilder.createFileTree(Arrays.asList(
+                "music/rock",
+                "music/rock/",
+                "books/rock",
+                "music/rock"
+        ));
+        assertEquals(2, root.getFolders().size());
+
+        FolderNode<String> musicFolder = root.getFolder("music");
+        assertNotNull(musicFolder);
+        assertEquals(1, musicFolder.getFolders().size());
+
+        FolderNode<String> rockFolder = musicFolder.getFolder("rock");
+        assertNotNull(rockFolder);
+        assertEquals(Arrays.asList("music/rock", "music/rock/", "music/rock"), rockFolder.getFiles());
+
+        FolderNode<String> booksRockFolder = root.getFolder("books").getFolder("rock");
+        assertNotNull(booksRockFolder);
+        assertSame(rockFolder.getKeyPath(), booksRockFolder.getKeyPath());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,103 @@
+package com.github.anrimian.musicplayer.data.repositories.scanner.loudness
+
+import com.github.anrimian.musicplayer.data.database.dao.compositions.CompositionsDaoWrapper
+import com.github.anrimian.musicplayer.data.models.composition.CompositionLoudness
+import com.github.anrimian.musicplayer.domain.interactors.analytics.Analytics
+import io.reactivex.rxjava3.schedulers.TestScheduler
+import org.junit.jupiter.api.Test
+import org.mockito.kotlin.*
+import java.io.IOException
+import java.io.InterruptedIOException
+import java.util.concurrent.TimeUnit
+
+class LoudnessAnalyzerTest {
+
+    private val compositionsDao: CompositionsDaoWrapper = mock()
+    private val loudnessReader: CompositionLoudnessReader = mock()
+    private val analytics: Analytics = mock()
+    private val scheduler = TestScheduler()
+
+    private val loudnessAnalyzer = LoudnessAnalyzer(
+        compositionsDao,
+        loudnessReader,
+        analytics,
+        scheduler,
+        2
+    )
+
+    @Test
+    fun `analyze compositions by batches and save loudness`() {
+        whenever(compositionsDao.selectNextCompositionsToAnalyzeLoudness(2))
+            .thenReturn(listOf(1L, 2L), listOf(3L), emptyList())
+        whenever(loudnessReader.readLoudness(any())).thenReturn(CompositionLoudness(-3f, 0.9f))
+
+        loudnessAnalyzer.scheduleAnalysis()
+        scheduler.advanceTimeBy(10, TimeUnit.SECONDS)
+
+        verify(compositionsDao).setTrackLoudness(1L, -3f, 0.9f)
+        verify(compositionsDao).setTrackLoudness(2L, -3f, 0.9f)
+        verify(compositionsDao).setTrackLoudness(3L, -3f, 0.9f)
+        verify(compositionsDao, times(3)).selectNextCompositionsToAnalyzeLoudness(2)
+    }
+
+    @Test
+    fun `mark composition as analyzed when file can not be decoded`() {
+        whenever(compositionsDao.selectNextCompositionsToAnalyzeLoudness(2))
+            .thenReturn(listOf(1L, 2L), emptyList())
+        whenever(loudnessReader.readLoudness(1L)).thenThrow(IOException())
+        whenever(loudnessReader.readLoudness(2L)).thenReturn(CompositionLoudness(null, 0f))
+
+        loudnessAnalyzer.scheduleAnalysis()
+        scheduler.advanceTimeBy(10, TimeUnit.SECONDS)
+
+        verify(compositionsDao).setLoudnessScanDate(eq(1L), any())
+        verify(compositionsDao, never()).setTrackLoudness(eq(1L), anyOrNull(), anyOrNull())
+        verify(compositionsDao).setTrackLoudness(2L, null, 0f)
+        verify(analytics, never()).processNonFatalError(any())
+    }
+
+    @Test
+    fun `stop analysis on cancel`() {
+        whenever(compositionsDao.selectNextCompositionsToAnalyzeLoudness(2))
+            .thenReturn(listOf(1L, 2L))
+        whenever(loudnessReader.readLoudness(any())).thenReturn(CompositionLoudness(-3f, 0.9f))
+
+        loudnessAnalyzer.scheduleAnalysis()
+        scheduler.triggerActions()
+        loudnessAnalyzer.cancelAnalysis()
+        scheduler.advanceTimeBy(10, TimeUnit.SECONDS)
+
+        verify(loudnessReader).readLoudness(1L)
+        verify(loudnessReader, never()).readLoudness(2L)
+    }
+
+    @Test
+    fun `do not mark composition as analyzed when reading is interrupted`() {
+        whenever(compositionsDao.selectNextCompositionsToAnalyzeLoudness(2))
+            .thenReturn(listOf(1L, 2L), emptyList())
+        whenever(loudnessReader.readLoudness(1L))
+            .thenThrow(RuntimeException(InterruptedException()))
+        whenever(loudnessReader.readLoudness(2L))
+            .thenThrow(InterruptedIOException())
+
+        loudnessAnalyzer.scheduleAnalysis()
+        scheduler.advanceTimeBy(10, TimeUnit.SECONDS)
+
+        verify(compositionsDao, never()).setLoudnessScanDate(any(), any())
+        verify(loudnessReader, never()).readLoudness(2L)
+        verify(analytics, never()).processNonFatalError(any())
+    }
+
+    @Test
+    fun `do not run second analysis while first is active`() {
+        whenever(compositionsDao.selectNextCompositionsToAnalyzeLoudness(2))
+            .thenReturn(listOf(1L), emptyList())
+        whenever(loudnessReader.readLoudness(any())).thenReturn(CompositionLoudness(-3f, 0.9f))
+
+        loudnessAnalyzer.scheduleAnalysis()
+        loudnessAnalyzer.scheduleAnalysis()
+        scheduler.advanceTimeBy(10, TimeUnit.SECONDS)
+
+        verify(loudnessReader, times(1)).readLoudness(1L)
+    }
+}
@@ -0,0 +1,80 @@
+package com.github.anrimian.musicplayer.data.repositories.scanner.loudness;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.FloatBuffer;
+import java.nio.ShortBuffer;
+
+public class LoudnessMeterTest {
+
+    private static final int SAMPLE_RATE = 48000;
+
+    //1 kHz sine in both channels with this amplitude is -23 LUFS by BS.1770 definition
+    private static final double MINUS_23_LUFS_AMPLITUDE = Math.pow(10d, -23d / 20d);
+
+    @Test
+    public void measureSineLoudness() {
+        LoudnessMeter meter = new LoudnessMeter(SAMPLE_RATE, 2);
+        meter.addSamples(sine(SAMPLE_RATE, 2, 10, MINUS_23_LUFS_AMPLITUDE));
+
+        assertEquals(-23d, meter.getIntegratedLoudness(), 0.1d);
+        assertEquals(MINUS_23_LUFS_AMPLITUDE, meter.getSamplePeak(), 0.001d);
+        assertEquals(SAMPLE_RATE * 10, meter.getFramesCount());
+    }
+
+    @Test
+    public void measureLoudnessWithOtherSampleRate() {
+        LoudnessMeter meter = new LoudnessMeter(44100, 2);
+        meter.addSamples(sine(44100, 2, 10, MINUS_23_LUFS_AMPLITUDE));
+
+        assertEquals(-23d, meter.getIntegratedLoudness(), 0.1d);
+    }
+
+    @Test
+    public void measure16BitSamples() {
+        FloatBuffer floatSamples = sine(SAMPLE_RATE, 2, 10, MINUS_23_LUFS_AMPLITUDE);
+        ShortBuffer samples = ShortBuffer.allocate(floatSamples.remaining());
+        while (floatSamples.hasRemaining()) {
+            samples.put((short) (floatSamples.get() * 32767));
+        }
+        samples.flip();
+
+        LoudnessMeter meter = new LoudnessMeter(SAMPLE_RATE, 2);
+        meter.addSamples(samples);
+
+        assertEquals(-23d, meter.getIntegratedLoudness(), 0.1d);
+    }
+
+    @Test
+    public void ignoreQuietPartsByRelativeGate() {
+        LoudnessMeter meter = new LoudnessMeter(SAMPLE_RATE, 2);
+        meter.addSamples(sine(SAMPLE_RATE, 2, 10, MINUS_23_LUFS_AMPLITUDE));
+        meter.addSamples(sine(SAMPLE_RATE, 2, 10, Math.pow(10d, -36d / 20d)));
+
+        assertEquals(-23d, meter.getIntegratedLoudness(), 0.1d);
+    }
+
+    @Test
+    public void returnInfinityForSilence() {
+        LoudnessMeter meter = new LoudnessMeter(SAMPLE_RATE, 2);
+        meter.addSamples(FloatBuffer.allocate(SAMPLE_RATE * 2 * 5));
+
+        assertEquals(Double.NEGATIVE_INFINITY, meter.getIntegratedLoudness());
+        assertEquals(0d, meter.getSamplePeak());
+    }
+
+    private static FloatBuffer sine(int sampleRate, int channels, int seconds, double amplitude) {
+        int frames = sampleRate * seconds;
+        FloatBuffer buffer = FloatBuffer.allocate(frames * channels);
+        for (int i = 0; i < frames; i++) {
+            float value = (float) (amplitude * Math.sin(2d * Math.PI * 1000d * i / sampleRate));
+            for (int channel = 0; channel < channels; channel++) {
+                buffer.put(value);
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+}
@@ -0,0 +1,137 @@
+package com.github.anrimian.musicplayer.data.storage.files;
+
+import static com.github.anrimian.musicplayer.domain.utils.ListUtils.asList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import androidx.collection.LongSparseArray;
+
+import com.github.anrimian.musicplayer.data.repositories.library.edit.exceptions.MoveFilesException;
+import com.github.anrimian.musicplayer.data.storage.providers.music.FilePathComposition;
+import com.github.anrimian.musicplayer.data.storage.providers.music.StorageMusicProvider;
+import com.github.anrimian.musicplayer.domain.models.composition.Composition;
+import com.github.anrimian.musicplayer.domain.models.folders.FileMoveProgress;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+public class StorageFilesDataSourceImplTest {
+
+    private final StorageMusicProvider musicProvider = mock(StorageMusicProvider.class);
+
+    private final StorageFilesDataSourceImpl filesDataSource = new StorageFilesDataSourceImpl(musicProvider);
+
+    private final LongSparseArray<String> storagePaths = new LongSparseArray<>();
+    private final List<String> mediaStorePaths = new ArrayList<>();
+    private final List<FileMoveProgress> progressList = new ArrayList<>();
+
+    private String fromPath;
+    private String toPath;
+
+    @BeforeEach
+    void setUp(@TempDir File dir) {
+        fromPath = dir.getPath() + "/from";
+        toPath = dir.getPath() + "/to";
+        assertTrue(new File(fromPath).mkdir());
+
+        when(musicProvider.getCompositionFilePaths(any())).thenReturn(storagePaths);
+        doAnswer(invocation -> {
+            List<FilePathComposition> compositions = invocation.getArgument(0);
+            for (FilePathComposition composition: compositions) {
+                mediaStorePaths.add(composition.getFilePath());
+            }
+            return null;
+        }).when(musicProvider).updateCompositionsFilePath(any());
+    }
+
+    @Test
+    public void moveFilesTest() throws IOException {
+        Composition first = createComposition(1, "first.mp3", true);
+        Composition second = createComposition(2, "second.mp3", true);
+
+        List<FilePathComposition> result = filesDataSource.moveCompositionsToFolder(
+                asList(first, second),
+                fromPath,
+                toPath,
+                progressList::add);
+
+        assertEquals(2, result.size());
+        assertTrue(new File(toPath + "/first.mp3").exists());
+        assertTrue(new File(toPath + "/second.mp3").exists());
+        assertEquals(asList(toPath + "/first.mp3", toPath + "/second.mp3"), mediaStorePaths);
+        verify(musicProvider, times(1)).getCompositionFilePaths(any());
+        verify(musicProvider, times(1)).updateCompositionsFilePath(any());
+        assertEquals(asList(new FileMoveProgress(1, 2), new FileMoveProgress(2, 2)), progressList);
+    }
+
+    @Test
+    public void reportPartiallyMovedFilesTest() throws IOException {
+        Composition first = createComposition(1, "first.mp3", true);
+        Composition second = createComposition(2, "second.mp3", false);
+
+        MoveFilesException exception = assertThrows(MoveFilesException.class,
+                () -> filesDataSource.moveCompositionsToFolder(asList(first, second),
+                        fromPath,
+                        toPath,
+                        progressList::add));
+
+        assertEquals(1, exception.getMovedCount());
+        assertEquals(2, exception.getTotalCount());
+        assertEquals(1, exception.getMovedCompositions().get(0).getId());
+        assertEquals(toPath + "/first.mp3", exception.getMovedCompositions().get(0).getFilePath());
+        assertEquals(asList(new FileMoveProgress(1, 2)), progressList);
+        assertTrue(new File(toPath + "/first.mp3").exists());
+        assertEquals(asList(toPath + "/first.mp3"), mediaStorePaths);
+    }
+
+    @Test
+    public void doNotUpdateMediaStoreIfNothingMovedTest() throws IOException {
+        Composition first = createComposition(1, "first.mp3", false);
+        Composition second = createComposition(2, "second.mp3", true);
+
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> filesDataSource.moveCompositionsToFolder(asList(first, second),
+                        fromPath,
+                        toPath,
+                        progressList::add));
+
+        assertFalse(exception instanceof MoveFilesException);
+        assertTrue(new File(fromPath + "/second.mp3").exists());
+        verify(musicProvider, never()).updateCompositionsFilePath(any());
+    }
+
+    private Composition createComposition(long id, String fileName, boolean createFile)
+            throws IOException {
+        String path = fromPath + "/" + fileName;
+        if (createFile) {
+            assertTrue(new File(path).createNewFile());
+        }
+        storagePaths.put(id, path);
+        return new Composition(null,
+                fileName,
+                null,
+                0,
+                0,
+                id,
+                id,
+                new Date(),
+                new Date(),
+                null);
+    }
+}
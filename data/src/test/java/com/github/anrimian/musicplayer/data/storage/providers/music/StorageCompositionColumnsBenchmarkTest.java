@@ -0,0 +1,113 @@
+package com.github.anrimian.musicplayer.data.storage.providers.music;
+
+import androidx.collection.LongSparseArray;
+
+import com.github.anrimian.musicplayer.data.storage.providers.albums.StorageAlbum;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.Date;
+
+/**
+ * Compares retained heap of media store scan result stored as object per row
+ * (as it was before) and as {@link StorageCompositionColumns}.
+ * Strings are created per row, as cursor does.
+ *
+ * Run with: ./gradlew :data:testDebugUnitTest -Pbenchmark --tests "*StorageCompositionColumnsBenchmarkTest"
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class StorageCompositionColumnsBenchmarkTest {
+
+    private static final int COMPOSITIONS_COUNT = 100_000;
+    private static final int ARTISTS_COUNT = 2000;
+    private static final int ALBUMS_COUNT = 8000;
+    private static final int FOLDERS_COUNT = 5000;
+
+    private final StorageAlbum[] albums = new StorageAlbum[ALBUMS_COUNT];
+
+    @Test
+    public void compareRetainedHeap() {
+        for (int i = 0; i < ALBUMS_COUNT; i++) {
+            albums[i] = new StorageAlbum(i, "album " + i, "artist " + (i % ARTISTS_COUNT), 0, 0);
+        }
+        //warm up
+        createSparseArray();
+        createColumns();
+
+        long usedBefore = getUsedHeap();
+        LongSparseArray<StorageFullComposition> sparseArray = createSparseArray();
+        long sparseArrayHeap = getUsedHeap() - usedBefore;
+
+        usedBefore = getUsedHeap();
+        StorageCompositionColumns columns = createColumns();
+        long columnsHeap = getUsedHeap() - usedBefore;
+
+        System.out.println("StorageCompositionColumns: compositions=" + COMPOSITIONS_COUNT
+                + ", object per row=" + toKb(sparseArrayHeap) + "kb"
+                + ", columns=" + toKb(columnsHeap) + "kb"
+                + ", rows kept=" + (sparseArray.size() + columns.size()));
+    }
+
+    private LongSparseArray<StorageFullComposition> createSparseArray() {
+        LongSparseArray<StorageFullComposition> compositions = new LongSparseArray<>();
+        for (int i = 0; i < COMPOSITIONS_COUNT; i++) {
+            compositions.put(i, new StorageFullComposition(artist(i),
+                    title(i),
+                    fileName(i),
+                    relativePath(i),
+                    1000,
+                    1000,
+                    i,
+                    new Date(i * 1000L),
+                    new Date(i * 1000L),
+                    albums[i % ALBUMS_COUNT]));
+        }
+        return compositions;
+    }
+
+    private StorageCompositionColumns createColumns() {
+        StorageCompositionColumns.Builder builder = new StorageCompositionColumns.Builder(COMPOSITIONS_COUNT);
+        for (int i = 0; i < COMPOSITIONS_COUNT; i++) {
+            builder.add(artist(i),
+                    title(i),
+                    fileName(i),
+                    relativePath(i),
+                    1000,
+                    1000,
+                    i,
+                    i * 1000L,
+                    i * 1000L,
+                    albums[i % ALBUMS_COUNT]);
+        }
+        return builder.build();
+    }
+
+    private static String artist(int index) {
+        return "artist " + (index % ARTISTS_COUNT);
+    }
+
+    private static String title(int index) {
+        return "title " + index;
+    }
+
+    private static String fileName(int index) {
+        return "file " + index + ".mp3";
+    }
+
+    private static String relativePath(int index) {
+        return "Music/folder " + (index % FOLDERS_COUNT) + "/";
+    }
+
+    private static long getUsedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static long toKb(long bytes) {
+        return bytes / 1024;
+    }
+}
@@ -0,0 +1,72 @@
+package com.github.anrimian.musicplayer.data.storage.providers.music;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import androidx.collection.LongSparseArray;
+
+import org.junit.jupiter.api.Test;
+
+public class StorageCompositionColumnsTest {
+
+    @Test
+    public void sortRowsByIdTest() {
+        StorageCompositionColumns columns = new StorageCompositionColumns.Builder(0)
+                .add(null, "title 3", "file 3", "music", 0, 0, 3, 0, 0, null)
+                .add(null, "title 1", "file 1", "music", 0, 0, 1, 0, 0, null)
+                .add(null, "title 2", "file 2", "music", 0, 0, 2, 0, 0, null)
+                .build();
+
+        assertEquals(3, columns.size());
+        assertEquals(1, columns.getId(0));
+        assertEquals("title 1", columns.getTitle(0));
+        assertEquals(2, columns.getId(1));
+        assertEquals("title 2", columns.getTitle(1));
+        assertEquals(3, columns.getId(2));
+        assertEquals("title 3", columns.getTitle(2));
+        assertEquals(3, columns.getMaxId());
+    }
+
+    @Test
+    public void keepLastOfRepeatedIdsTest() {
+        StorageCompositionColumns columns = new StorageCompositionColumns.Builder(0)
+                .add(null, "title 2", "file 2", "music", 0, 0, 2, 0, 0, null)
+                .add(null, "title 1", "file 1", "music", 0, 0, 1, 0, 0, null)
+                .add(null, "new title 2", "file 2", "music", 0, 0, 2, 0, 0, null)
+                .build();
+
+        assertEquals(2, columns.size());
+        assertEquals("new title 2", columns.getTitle(columns.indexOf(2)));
+    }
+
+    @Test
+    public void shareRepeatedStringsTest() {
+        StorageCompositionColumns columns = new StorageCompositionColumns.Builder(0)
+                .add(new String("artist"), "title 1", "file 1", new String("music"), 0, 0, 1, 0, 0, null)
+                .add(new String("artist"), "title 2", "file 2", new String("music"), 0, 0, 2, 0, 0, null)
+                .build();
+
+        assertSame(columns.getArtist(0), columns.getArtist(1));
+        assertSame(columns.getRelativePath(0), columns.getRelativePath(1));
+    }
+
+    @Test
+    public void removeRowTest() {
+        StorageCompositionColumns columns = new StorageCompositionColumns.Builder(0)
+                .add(null, "title 1", "file 1", "music", 0, 0, 1, 0, 0, null)
+                .add(null, "title 2", "file 2", "music", 0, 0, 2, 0, 0, null)
+                .build();
+
+        columns.remove(2);
+
+        assertEquals(1, columns.size());
+        assertEquals(-1, columns.indexOf(2));
+        assertTrue(columns.isRemoved(1));
+        assertEquals(1, columns.getMaxId());
+
+        LongSparseArray<StorageFullComposition> map = columns.toSparseArray();
+        assertEquals(1, map.size());
+        assertEquals("title 1", map.get(1).getTitle());
+    }
+}
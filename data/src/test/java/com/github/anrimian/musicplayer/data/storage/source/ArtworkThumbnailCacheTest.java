@@ -0,0 +1,98 @@
+package com.github.anrimian.musicplayer.data.storage.source;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Date;
+
+public class ArtworkThumbnailCacheTest {
+
+    private static final int SIZE = ArtworkThumbnailCache.SMALL_SIZE;
+
+    @TempDir
+    File dir;
+
+    //thumbnail of max size is first bytes of artwork, to check which size was stored
+    private final ArtworkThumbnailCache.ThumbnailEncoder encoder =
+            (artwork, maxSize) -> Arrays.copyOf(artwork, Math.min(artwork.length, maxSize / 10));
+
+    @Test
+    public void storeAndReadThumbnail() throws IOException {
+        ArtworkThumbnailCache cache = new ArtworkThumbnailCache(dir, 1000, encoder);
+        Date date = new Date(100);
+
+        cache.put(1L, date, bytes(100), SIZE);
+
+        assertArrayEquals(bytes(SIZE / 10), cache.get(1L, date, SIZE));
+        assertNull(cache.get(1L, date, ArtworkThumbnailCache.FULL_SIZE));
+        assertNull(cache.get(1L, new Date(101), SIZE));
+        assertNull(cache.get(2L, date, SIZE));
+    }
+
+    @Test
+    public void storeMissingArtwork() throws IOException {
+        ArtworkThumbnailCache cache = new ArtworkThumbnailCache(dir, 1000, encoder);
+
+        cache.put(1L, null, null, SIZE);
+
+        assertTrue(cache.contains(1L, null, SIZE));
+        assertEquals(0, cache.get(1L, null, SIZE).length);
+    }
+
+    @Test
+    public void evictLeastRecentlyUsedEntries() throws IOException {
+        ArtworkThumbnailCache cache = new ArtworkThumbnailCache(dir, 100, encoder);
+        Date date = new Date(100);
+
+        cache.put(1L, date, bytes(40), SIZE);
+        cache.put(2L, date, bytes(40), SIZE);
+        cache.get(1L, date, SIZE);
+        cache.put(3L, date, bytes(40), SIZE);
+
+        assertTrue(cache.contains(1L, date, SIZE));
+        assertFalse(cache.contains(2L, date, SIZE));
+        assertTrue(cache.contains(3L, date, SIZE));
+        assertEquals(80, cache.getTotalBytes());
+        assertEquals(2, dir.listFiles().length);
+    }
+
+    @Test
+    public void restoreEntriesFromDisk() throws IOException {
+        Date date = new Date(100);
+        ArtworkThumbnailCache cache = new ArtworkThumbnailCache(dir, 1000, encoder);
+        cache.put(1L, date, bytes(40), SIZE);
+        cache.put(2L, date, bytes(40), SIZE);
+        for (File file: dir.listFiles()) {
+            file.setLastModified(file.getName().startsWith("1_")? 1000 : 2000);
+        }
+
+        ArtworkThumbnailCache restoredCache = new ArtworkThumbnailCache(dir, 60, encoder);
+
+        assertEquals(40, restoredCache.getTotalBytes());
+        assertArrayEquals(bytes(40), restoredCache.get(2L, date, SIZE));
+    }
+
+    @Test
+    public void selectSize() {
+        assertEquals(ArtworkThumbnailCache.SMALL_SIZE, ArtworkThumbnailCache.selectSize(100));
+        assertEquals(ArtworkThumbnailCache.FULL_SIZE, ArtworkThumbnailCache.selectSize(SIZE + 1));
+        assertEquals(ArtworkThumbnailCache.FULL_SIZE, ArtworkThumbnailCache.selectSize(5000));
+    }
+
+    private static byte[] bytes(int count) {
+        byte[] bytes = new byte[count];
+        for (int i = 0; i < count; i++) {
+            bytes[i] = (byte) i;
+        }
+        return bytes;
+    }
+}
@@ -2,18 +2,31 @@ package com.github.anrimian.musicplayer.data.storage.source;
 
 import static com.github.anrimian.musicplayer.data.utils.files.TestFileUtils.createTempCopy;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Matchers.anyLong;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import androidx.collection.LongSparseArray;
+
+import com.github.anrimian.musicplayer.data.models.composition.CompositionId;
 import com.github.anrimian.musicplayer.data.storage.providers.music.StorageMusicProvider;
 import com.github.anrimian.musicplayer.domain.models.composition.FullComposition;
 
+import org.jaudiotagger.tag.FieldKey;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
 import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+import io.reactivex.rxjava3.schedulers.Schedulers;
 
 public class CompositionSourceEditorTest {
 
@@ -22,7 +35,10 @@ public class CompositionSourceEditorTest {
     private final StorageMusicProvider musicProvider = mock(StorageMusicProvider.class);
     private final FileSourceProvider fileSourceProvider = mock(FileSourceProvider.class);
 
-    private final CompositionSourceEditor sourceEditor = new CompositionSourceEditor(musicProvider, fileSourceProvider);
+    private final CompositionSourceEditor sourceEditor = new CompositionSourceEditor(musicProvider,
+            fileSourceProvider,
+            Schedulers.trampoline(),
+            2);
 
     @BeforeEach
     void setUp(@TempDir File dir) {
@@ -136,6 +152,56 @@ public class CompositionSourceEditorTest {
         assertEquals(testName, newArtist);
     }
 
+    @Test
+    public void changeSeveralTagsTest() {
+        Map<FieldKey, String> fields = new EnumMap<>(FieldKey.class);
+        fields.put(FieldKey.ALBUM, "Test album");
+        fields.put(FieldKey.ALBUM_ARTIST, "Test album artist");
+        fields.put(FieldKey.TITLE, null);
+        sourceEditor.setCompositionTags(filePath, 1L, fields).blockingAwait();
+
+        assertEquals("Test album", sourceEditor.getCompositionAlbum(filePath).blockingGet());
+        assertEquals("Test album artist", sourceEditor.getCompositionAlbumArtist(filePath).blockingGet());
+        assertEquals("", sourceEditor.getCompositionTitle(filePath).blockingGet());
+    }
+
+    @Test
+    public void changeSeveralTagsInBatchTest() {
+        LongSparseArray<String> paths = new LongSparseArray<>();
+        paths.put(1L, filePath);
+        when(musicProvider.getCompositionFilePaths(any())).thenReturn(paths);
+
+        Map<FieldKey, String> fields = new EnumMap<>(FieldKey.class);
+        fields.put(FieldKey.ALBUM, "Test album");
+        fields.put(FieldKey.GENRE, "Test genre");
+        CompositionId composition = new CompositionId(1L, 1L);
+        sourceEditor.setCompositionsTags(Collections.singletonList(composition), fields)
+                .test()
+                .assertValues(composition)
+                .assertComplete();
+
+        assertEquals("Test album", sourceEditor.getCompositionAlbum(filePath).blockingGet());
+        assertEquals("Test genre", sourceEditor.getCompositionGenre(filePath).blockingGet());
+        verify(musicProvider, never()).getCompositionFilePath(anyLong());
+    }
+
+    @Test
+    public void skipNotFoundCompositionsInBatchTest() {
+        LongSparseArray<String> paths = new LongSparseArray<>();
+        paths.put(1L, filePath);
+        when(musicProvider.getCompositionFilePaths(any())).thenReturn(paths);
+
+        CompositionId composition = new CompositionId(1L, 1L);
+        CompositionId notFoundComposition = new CompositionId(2L, 2L);
+        CompositionId compositionWithoutStorage = new CompositionId(3L, null);
+        sourceEditor.setCompositionsAlbum(Arrays.asList(composition, notFoundComposition, compositionWithoutStorage),
+                "Test album")
+                .test()
+                .assertValue(Collections.singletonList(composition));
+
+        assertEquals("Test album", sourceEditor.getCompositionAlbum(filePath).blockingGet());
+    }
+
     @Test
     public void testFileWithWrongEncoding() {
         String filePath = new File("src/test/resources/Back In Black.mp3").getPath();
@@ -0,0 +1,43 @@
+package com.github.anrimian.musicplayer.data.storage.source;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+
+public class ReplayGainTagReaderTest {
+
+    @Test
+    public void parseGain() {
+        assertEquals(-6.54f, ReplayGainTagReader.parseGain("-6.54 dB"));
+        assertEquals(2.1f, ReplayGainTagReader.parseGain(" +2.10db "));
+        assertEquals(-1.5f, ReplayGainTagReader.parseGain("-1,5 dB"));
+        assertEquals(3f, ReplayGainTagReader.parseGain("3"));
+    }
+
+    @Test
+    public void ignoreWrongGain() {
+        assertNull(ReplayGainTagReader.parseGain(null));
+        assertNull(ReplayGainTagReader.parseGain(""));
+        assertNull(ReplayGainTagReader.parseGain("dB"));
+        assertNull(ReplayGainTagReader.parseGain("loud"));
+        assertNull(ReplayGainTagReader.parseGain("NaN dB"));
+    }
+
+    @Test
+    public void parsePeak() {
+        assertEquals(0.988f, ReplayGainTagReader.parsePeak("0.988"));
+        assertEquals(1.2f, ReplayGainTagReader.parsePeak("1,2"));
+        assertNull(ReplayGainTagReader.parsePeak("0"));
+        assertNull(ReplayGainTagReader.parsePeak("-0.5"));
+        assertNull(ReplayGainTagReader.parsePeak("peak"));
+    }
+
+    @Test
+    public void convertR128GainToReplayGainReference() {
+        assertEquals(3f, ReplayGainTagReader.parseR128Gain("-512"));
+        assertEquals(5f, ReplayGainTagReader.parseR128Gain("0"));
+        assertNull(ReplayGainTagReader.parseR128Gain("-2.0"));
+        assertNull(ReplayGainTagReader.parseR128Gain(null));
+    }
+}
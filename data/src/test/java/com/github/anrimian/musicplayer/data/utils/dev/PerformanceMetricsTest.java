@@ -0,0 +1,66 @@
+package com.github.anrimian.musicplayer.data.utils.dev;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class PerformanceMetricsTest {
+
+    @AfterEach
+    public void tearDown() {
+        PerformanceMetrics.setEnabled(false);
+        PerformanceMetrics.reset();
+    }
+
+    @Test
+    public void doNotCollectWhenDisabled() {
+        PerformanceMetrics.increment("counter");
+        long startTime = PerformanceMetrics.startTimer();
+        PerformanceMetrics.setEnabled(true);
+        PerformanceMetrics.stopTimer("timer", startTime);
+
+        assertEquals(0, PerformanceMetrics.getCount("counter"));
+        assertEquals("Counters:\nTimers (count, avg, p50, p90, p99, max ms):\n",
+                PerformanceMetrics.dump());
+    }
+
+    @Test
+    public void collectCounters() {
+        PerformanceMetrics.setEnabled(true);
+        PerformanceMetrics.increment("counter");
+        PerformanceMetrics.add("counter", 5);
+
+        assertEquals(6, PerformanceMetrics.getCount("counter"));
+        assertTrue(PerformanceMetrics.dump().contains("counter: 6\n"));
+    }
+
+    @Test
+    public void collectTimers() {
+        PerformanceMetrics.setEnabled(true);
+        for (int i = 0; i < 9; i++) {
+            PerformanceMetrics.recordDuration("timer", TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        PerformanceMetrics.recordDuration("timer", TimeUnit.MILLISECONDS.toNanos(100));
+
+        assertTrue(PerformanceMetrics.dump().contains("timer: 10, 10.9, 1.0, 1.0, 100.0, 100.0\n"));
+    }
+
+    @Test
+    public void histogramPercentileIsUpperBoundOfBucket() {
+        PerformanceMetrics.Histogram histogram = new PerformanceMetrics.Histogram();
+        histogram.record(0);
+        histogram.record(5);
+        histogram.record(6);
+        histogram.record(1000);
+
+        assertEquals(4, histogram.getCount());
+        assertEquals(0, histogram.getPercentile(0.25d));
+        assertEquals(7, histogram.getPercentile(0.5d));
+        assertEquals(1000, histogram.getPercentile(1d));
+        assertEquals(1000, histogram.getMax());
+    }
+}
@@ -0,0 +1,67 @@
+package com.github.anrimian.musicplayer.data.utils.file;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+public class FileUtilsTest {
+
+    @TempDir
+    File dir;
+
+    @Test
+    public void writeOnlyChangedBlocks() throws IOException {
+        byte[] data = new byte[300_000];
+        new Random(1).nextBytes(data);
+        byte[] editedData = data.clone();
+        editedData[10]++;
+        editedData[data.length - 1]++;
+
+        File original = createFile("original", data);
+        File edited = createFile("edited", editedData);
+        File destination = createFile("destination", data);
+
+        long writtenBytes;
+        try (FileChannel originalChannel = FileChannel.open(original.toPath());
+             FileChannel editedChannel = FileChannel.open(edited.toPath());
+             FileChannel destinationChannel = FileChannel.open(destination.toPath(), StandardOpenOption.WRITE)
+        ) {
+            writtenBytes = FileUtils.writeChangedBlocks(originalChannel, editedChannel, destinationChannel);
+        }
+
+        //first and last blocks
+        assertEquals(64 * 1024 + data.length % (64 * 1024), writtenBytes);
+        assertArrayEquals(editedData, Files.readAllBytes(destination.toPath()));
+    }
+
+    @Test
+    public void copyFile() throws IOException {
+        byte[] data = new byte[200_000];
+        new Random(2).nextBytes(data);
+        File source = createFile("source", data);
+        File destination = createFile("destination", new byte[0]);
+
+        try (FileChannel sourceChannel = FileChannel.open(source.toPath());
+             FileChannel destinationChannel = FileChannel.open(destination.toPath(), StandardOpenOption.WRITE)
+        ) {
+            FileUtils.copy(sourceChannel, destinationChannel);
+        }
+
+        assertArrayEquals(data, Files.readAllBytes(destination.toPath()));
+    }
+
+    private File createFile(String name, byte[] data) throws IOException {
+        File file = new File(dir, name);
+        Files.write(file.toPath(), data);
+        return file;
+    }
+}
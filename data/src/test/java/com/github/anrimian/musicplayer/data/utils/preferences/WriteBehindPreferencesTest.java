@@ -0,0 +1,128 @@
+package com.github.anrimian.musicplayer.data.utils.preferences;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.content.SharedPreferences;
+
+import androidx.collection.LruCache;
+
+import com.github.anrimian.musicplayer.domain.models.utils.ListPosition;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.rxjava3.schedulers.TestScheduler;
+
+public class WriteBehindPreferencesTest {
+
+    private static final long FLUSH_DELAY_MILLIS = 1000;
+
+    private final SharedPreferences sharedPreferences = mock(SharedPreferences.class);
+    private final SharedPreferences.Editor editor = mock(SharedPreferences.Editor.class, RETURNS_SELF);
+    private final TestScheduler scheduler = new TestScheduler();
+
+    private final WriteBehindPreferences preferences = new WriteBehindPreferences(
+            sharedPreferences,
+            scheduler,
+            FLUSH_DELAY_MILLIS);
+
+    @BeforeEach
+    public void setUp() {
+        when(sharedPreferences.edit()).thenReturn(editor);
+    }
+
+    @Test
+    public void coalesceWritesUntilFlushDelay() {
+        preferences.putLong("key", 1L);
+        preferences.putLong("key", 2L);
+        preferences.putLong("key", 3L);
+
+        verify(sharedPreferences, never()).edit();
+        assertEquals(3L, preferences.getLong("key", 0L));
+
+        scheduler.advanceTimeBy(FLUSH_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+
+        verify(sharedPreferences, times(1)).edit();
+        verify(editor).putLong("key", 3L);
+        verify(editor, times(1)).putLong(eq("key"), anyLong());
+        verify(editor, times(1)).apply();
+    }
+
+    @Test
+    public void writeAllValuesWithOneCommit() {
+        preferences.putLong("long", 1L);
+        preferences.putInt("int", 2);
+        preferences.putBoolean("boolean", true);
+
+        scheduler.advanceTimeBy(FLUSH_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+
+        verify(editor).putLong("long", 1L);
+        verify(editor).putInt("int", 2);
+        verify(editor).putBoolean("boolean", true);
+        verify(editor, times(1)).apply();
+    }
+
+    @Test
+    public void flushBeforeDelay() {
+        preferences.putLong("key", 1L);
+
+        preferences.flush();
+        verify(editor).putLong("key", 1L);
+
+        scheduler.advanceTimeBy(FLUSH_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+        verify(editor, times(1)).apply();
+
+        when(sharedPreferences.getLong("key", 0L)).thenReturn(1L);
+        assertEquals(1L, preferences.getLong("key", 0L));
+    }
+
+    @Test
+    public void scheduleNextWriteAfterFlush() {
+        preferences.putLong("key", 1L);
+        scheduler.advanceTimeBy(FLUSH_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+
+        preferences.putLong("key", 2L);
+        scheduler.advanceTimeBy(FLUSH_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+
+        verify(editor).putLong("key", 1L);
+        verify(editor).putLong("key", 2L);
+        verify(editor, times(2)).apply();
+    }
+
+    @Test
+    public void encodeAndDecodeListPositionsInAccessOrder() {
+        LruCache<Long, ListPosition> cache = new LruCache<>(3);
+        cache.put(1L, new ListPosition(10, -5));
+        cache.put(2L, new ListPosition(20, 0));
+        cache.put(-1L, new ListPosition(Integer.MAX_VALUE, Integer.MIN_VALUE));
+        cache.get(1L);
+
+        byte[] bytes = WriteBehindPreferences.encodeListPositions(cache.snapshot());
+        assertEquals(3 * 16, bytes.length);
+
+        LruCache<Long, ListPosition> decoded = new LruCache<>(3);
+        WriteBehindPreferences.decodeListPositions(bytes, decoded);
+
+        List<Long> keys = new ArrayList<>(decoded.snapshot().keySet());
+        assertEquals(2L, (long) keys.get(0));
+        assertEquals(-1L, (long) keys.get(1));
+        assertEquals(1L, (long) keys.get(2));
+
+        ListPosition position = decoded.get(-1L);
+        assertEquals(Integer.MAX_VALUE, position.getPosition());
+        assertEquals(Integer.MIN_VALUE, position.getOffset());
+        assertEquals(-5, decoded.get(1L).getOffset());
+    }
+}
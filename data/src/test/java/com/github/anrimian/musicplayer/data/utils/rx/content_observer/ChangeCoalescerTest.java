@@ -0,0 +1,129 @@
+package com.github.anrimian.musicplayer.data.utils.rx.content_observer;
+
+import static com.github.anrimian.musicplayer.domain.utils.ListUtils.asList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.rxjava3.core.Scheduler;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+import io.reactivex.rxjava3.schedulers.TestScheduler;
+import io.reactivex.rxjava3.subjects.PublishSubject;
+
+public class ChangeCoalescerTest {
+
+    private static final long MIN_DELAY = 500;
+    private static final long MAX_DELAY = 10000;
+
+    private final TestScheduler timerScheduler = new TestScheduler();
+    private final PublishSubject<Integer> events = PublishSubject.create();
+
+    private final List<Long> analysisTimes = new ArrayList<>();
+    private final List<Integer> analyzedEvents = new ArrayList<>();
+
+    @Test
+    public void coalesceFastBurstTest() {
+        subscribe(Schedulers.trampoline());
+
+        replay(50, 20);//copy of small files
+        advanceTimeTo(1449);
+        assertEquals(0, analysisTimes.size());
+
+        advanceTimeTo(1450);
+        assertEquals(asList(1450L), analysisTimes);
+        assertEquals(asList(19), analyzedEvents);
+    }
+
+    @Test
+    public void coalesceSlowSeriesTest() {
+        subscribe(Schedulers.trampoline());
+
+        replay(1500, 4);//copy of big files
+
+        advanceTimeTo(20000);
+        assertEquals(asList(500L, 7500L), analysisTimes);
+        assertEquals(asList(0, 3), analyzedEvents);
+    }
+
+    @Test
+    public void doNotDelayIsolatedEventsTest() {
+        subscribe(Schedulers.trampoline());
+
+        replay(5000, 2);
+
+        advanceTimeTo(20000);
+        assertEquals(asList(500L, 5500L), analysisTimes);
+    }
+
+    @Test
+    public void flushLongBurstTest() {
+        subscribe(Schedulers.trampoline());
+
+        replay(300, 67);
+
+        advanceTimeTo(30000);
+        assertEquals(asList(10000L, 20200L), analysisTimes);
+    }
+
+    @Test
+    public void doNotRunStaleAnalysisTest() {
+        TestScheduler workScheduler = new TestScheduler();
+        subscribe(workScheduler);
+
+        replay(1000, 2);
+        advanceTimeTo(5000);
+        workScheduler.triggerActions();
+
+        assertEquals(asList(1), analyzedEvents);
+    }
+
+    @Test
+    public void markInFlightAnalysisAsStaleTest() {
+        TestScheduler workScheduler = new TestScheduler();
+        List<Boolean> staleStates = new ArrayList<>();
+        new ChangeCoalescer(timerScheduler, workScheduler, MIN_DELAY, MAX_DELAY)
+                .process(events, (event, isStale) -> {
+                    if (event == 0) {
+                        //new changes during scan
+                        events.onNext(1);
+                        timerScheduler.advanceTimeBy(MAX_DELAY, TimeUnit.MILLISECONDS);
+                    }
+                    staleStates.add(isStale.call());
+                })
+                .test();
+
+        events.onNext(0);
+        advanceTimeTo(MIN_DELAY);
+        workScheduler.triggerActions();
+
+        assertEquals(asList(true, false), staleStates);
+    }
+
+    private void subscribe(Scheduler workScheduler) {
+        new ChangeCoalescer(timerScheduler, workScheduler, MIN_DELAY, MAX_DELAY)
+                .process(events, (event, isStale) -> {
+                    analysisTimes.add(timerScheduler.now(TimeUnit.MILLISECONDS));
+                    analyzedEvents.add(event);
+                })
+                .test();
+    }
+
+    /**
+     * Replays recorded burst: events with given interval, starting from current time
+     */
+    private void replay(long intervalMillis, int count) {
+        long startTime = timerScheduler.now(TimeUnit.MILLISECONDS);
+        for (int i = 0; i < count; i++) {
+            advanceTimeTo(startTime + i * intervalMillis);
+            events.onNext(i);
+        }
+    }
+
+    private void advanceTimeTo(long timeMillis) {
+        timerScheduler.advanceTimeTo(timeMillis, TimeUnit.MILLISECONDS);
+    }
+}
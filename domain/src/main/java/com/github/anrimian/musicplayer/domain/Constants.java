@@ -5,6 +5,8 @@ public interface Constants {
     Object TRIGGER = new Object();
     int NO_POSITION = -1;
     long STORAGE_EVENTS_MIN_EMIT_WINDOW_MILLIS = 2000;
+    long STORAGE_EVENTS_MIN_COALESCE_WINDOW_MILLIS = 500;
+    long STORAGE_EVENTS_MAX_COALESCE_WINDOW_MILLIS = 10000;
 
     interface TIMEOUTS {
         int STORAGE_LOADING_TIMEOUT_SECONDS = 30;
@@ -4,6 +4,8 @@ import com.github.anrimian.musicplayer.domain.models.composition.source.Composit
 import com.github.anrimian.musicplayer.domain.models.player.SoundBalance;
 import com.github.anrimian.musicplayer.domain.models.player.events.PlayerEvent;
 
+import javax.annotation.Nullable;
+
 import io.reactivex.rxjava3.core.Observable;
 import io.reactivex.rxjava3.core.Single;
 
@@ -17,6 +19,12 @@ public interface MusicPlayerController {
 
     void prepareToPlay(CompositionSource composition);
 
+    /**
+     * Source which will be played after current one, player can load it in advance
+     * and start it without gap. Null if there is no such source
+     */
+    void setNextSource(@Nullable CompositionSource composition);
+
     void stop();
 
     void resume();
@@ -31,6 +39,8 @@ public interface MusicPlayerController {
 
     void setSoundBalance(SoundBalance soundBalance);
 
+    void setVolumeNormalizationEnabled(boolean enabled);
+
     Observable<Long> getTrackPositionObservable();
 
     void seekBy(long millis);
@@ -8,6 +8,7 @@ import com.github.anrimian.musicplayer.domain.repositories.EditorRepository;
 import com.github.anrimian.musicplayer.domain.repositories.LibraryRepository;
 import com.github.anrimian.musicplayer.domain.repositories.SettingsRepository;
 import com.github.anrimian.musicplayer.domain.repositories.UiStateRepository;
+import com.github.anrimian.musicplayer.domain.utils.paging.PageSource;
 
 import java.util.List;
 
@@ -37,10 +38,22 @@ public class LibraryAlbumsInteractor {
         return musicProviderRepository.getAlbumsObservable(searchText);
     }
 
+    public Observable<List<Album>> getAlbumsPageObservable(int offset, int limit) {
+        return musicProviderRepository.getAlbumsPageObservable(offset, limit);
+    }
+
+    public Observable<Object> getAlbumsChangeObservable() {
+        return musicProviderRepository.getAlbumsChangeObservable();
+    }
+
     public Observable<List<Composition>> getAlbumItemsObservable(long albumId) {
         return musicProviderRepository.getAlbumItemsObservable(albumId);
     }
 
+    public PageSource<Composition> getAlbumItemsPageSource(long albumId) {
+        return musicProviderRepository.getAlbumItemsPageSource(albumId);
+    }
+
     public Observable<Album> getAlbumObservable(long albumId) {
         return musicProviderRepository.getAlbumObservable(albumId);
     }
@@ -9,6 +9,7 @@ import com.github.anrimian.musicplayer.domain.repositories.EditorRepository;
 import com.github.anrimian.musicplayer.domain.repositories.LibraryRepository;
 import com.github.anrimian.musicplayer.domain.repositories.SettingsRepository;
 import com.github.anrimian.musicplayer.domain.repositories.UiStateRepository;
+import com.github.anrimian.musicplayer.domain.utils.paging.PageSource;
 
 import java.util.List;
 
@@ -38,10 +39,22 @@ public class LibraryArtistsInteractor {
         return musicProviderRepository.getArtistsObservable(searchText);
     }
 
+    public Observable<List<Artist>> getArtistsPageObservable(int offset, int limit) {
+        return musicProviderRepository.getArtistsPageObservable(offset, limit);
+    }
+
+    public Observable<Object> getArtistsChangeObservable() {
+        return musicProviderRepository.getArtistsChangeObservable();
+    }
+
     public Observable<List<Composition>> getCompositionsByArtist(long artistId) {
         return musicProviderRepository.getCompositionsByArtist(artistId);
     }
 
+    public PageSource<Composition> getCompositionsByArtistPageSource(long artistId) {
+        return musicProviderRepository.getCompositionsByArtistPageSource(artistId);
+    }
+
     public Observable<Artist> getArtistObservable(long artistId) {
         return musicProviderRepository.getArtistObservable(artistId);
     }
@@ -6,10 +6,12 @@ import com.github.anrimian.musicplayer.domain.models.utils.ListPosition;
 import com.github.anrimian.musicplayer.domain.repositories.LibraryRepository;
 import com.github.anrimian.musicplayer.domain.repositories.SettingsRepository;
 import com.github.anrimian.musicplayer.domain.repositories.UiStateRepository;
+import com.github.anrimian.musicplayer.domain.utils.paging.PageSource;
 
 import java.util.List;
 
 import io.reactivex.rxjava3.core.Observable;
+import io.reactivex.rxjava3.core.Single;
 
 public class LibraryCompositionsInteractor {
 
@@ -29,6 +31,22 @@ public class LibraryCompositionsInteractor {
         return musicProviderRepository.getAllCompositionsObservable(searchText);
     }
 
+    public Observable<List<Composition>> getCompositionsPageObservable(int offset, int limit) {
+        return musicProviderRepository.getCompositionsPageObservable(offset, limit);
+    }
+
+    public Observable<Object> getCompositionsChangeObservable() {
+        return musicProviderRepository.getCompositionsChangeObservable();
+    }
+
+    public PageSource<Composition> getCompositionsPageSource(String searchText) {
+        return musicProviderRepository.getCompositionsPageSource(searchText);
+    }
+
+    public Single<List<Composition>> searchCompositions(String searchText) {
+        return musicProviderRepository.searchCompositions(searchText);
+    }
+
     public void setOrder(Order order) {
         settingsRepository.setCompositionsOrder(order);
     }
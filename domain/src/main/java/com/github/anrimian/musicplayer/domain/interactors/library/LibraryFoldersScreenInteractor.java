@@ -1,6 +1,7 @@
 package com.github.anrimian.musicplayer.domain.interactors.library;
 
 import com.github.anrimian.musicplayer.domain.models.composition.Composition;
+import com.github.anrimian.musicplayer.domain.models.folders.FileMoveProgress;
 import com.github.anrimian.musicplayer.domain.models.folders.FileSource;
 import com.github.anrimian.musicplayer.domain.models.folders.FolderFileSource;
 import com.github.anrimian.musicplayer.domain.models.folders.IgnoredFolder;
@@ -149,31 +150,31 @@ public class LibraryFoldersScreenInteractor {
         moveModeSubject.onNext(false);
     }
 
-    public Completable moveFilesTo(@Nullable Long folderId) {
-        Completable completable;
+    public Observable<FileMoveProgress> moveFilesTo(@Nullable Long folderId) {
+        Observable<FileMoveProgress> observable;
         if (!filesToMove.isEmpty()) {
-            completable = editorRepository.moveFiles(filesToMove, moveFromFolderId, folderId);
+            observable = editorRepository.moveFiles(filesToMove, moveFromFolderId, folderId);
         } else if (!filesToCopy.isEmpty()) {
-            completable = Completable.error(new Exception("not implemented"));
+            observable = Observable.error(new Exception("not implemented"));
         } else {
-            completable = Completable.complete();
+            observable = Observable.empty();
         }
-        return completable.doOnComplete(this::stopMoveMode);
+        return observable.doOnComplete(this::stopMoveMode);
     }
 
-    public Completable moveFilesToNewFolder(@Nullable Long folderId, String folderName) {
-        Completable completable;
+    public Observable<FileMoveProgress> moveFilesToNewFolder(@Nullable Long folderId, String folderName) {
+        Observable<FileMoveProgress> observable;
         if (!filesToMove.isEmpty()) {
-            completable = editorRepository.moveFilesToNewDirectory(filesToMove,
+            observable = editorRepository.moveFilesToNewDirectory(filesToMove,
                     moveFromFolderId,
                     folderId,
                     folderName);
         } else if (!filesToCopy.isEmpty()) {
-            completable = Completable.error(new Exception("not implemented"));
+            observable = Observable.error(new Exception("not implemented"));
         } else {
-            completable = Completable.complete();
+            observable = Observable.empty();
         }
-        return completable.doOnComplete(this::stopMoveMode);
+        return observable.doOnComplete(this::stopMoveMode);
     }
 
     public BehaviorSubject<Boolean> getMoveModeObservable() {
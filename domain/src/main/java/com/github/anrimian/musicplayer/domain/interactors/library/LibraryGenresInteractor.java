@@ -6,6 +6,7 @@ import com.github.anrimian.musicplayer.domain.models.order.Order;
 import com.github.anrimian.musicplayer.domain.repositories.EditorRepository;
 import com.github.anrimian.musicplayer.domain.repositories.LibraryRepository;
 import com.github.anrimian.musicplayer.domain.repositories.SettingsRepository;
+import com.github.anrimian.musicplayer.domain.utils.paging.PageSource;
 
 import java.util.List;
 
@@ -36,6 +37,10 @@ public class LibraryGenresInteractor {
         return musicProviderRepository.getGenreItemsObservable(genreId);
     }
 
+    public PageSource<Composition> getGenreItemsPageSource(long genreId) {
+        return musicProviderRepository.getGenreItemsPageSource(genreId);
+    }
+
     public Observable<Genre> getGenreObservable(long genreId) {
         return musicProviderRepository.getGenreObservable(genreId);
     }
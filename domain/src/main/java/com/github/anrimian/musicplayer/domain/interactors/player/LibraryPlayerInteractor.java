@@ -23,6 +23,7 @@ import com.github.anrimian.musicplayer.domain.repositories.LibraryRepository;
 import com.github.anrimian.musicplayer.domain.repositories.PlayQueueRepository;
 import com.github.anrimian.musicplayer.domain.repositories.SettingsRepository;
 import com.github.anrimian.musicplayer.domain.repositories.UiStateRepository;
+import com.github.anrimian.musicplayer.domain.utils.functions.Optional;
 
 import java.util.List;
 
@@ -81,6 +82,9 @@ public class LibraryPlayerInteractor {
 
         playerDisposable.add(playerCoordinatorInteractor.getPlayerEventsObservable(LIBRARY)
                 .subscribe(this::onMusicPlayerEventReceived));
+
+        playerDisposable.add(getNextSourceObservable()
+                .subscribe(this::onNextSourceChanged));
     }
 
     public void startPlaying(List<Composition> compositions) {
@@ -332,6 +336,32 @@ public class LibraryPlayerInteractor {
         );
     }
 
+    //next item is prepared by player in advance to start it without gap
+    private Observable<Optional<CompositionSource>> getNextSourceObservable() {
+        return settingsRepository.getRepeatModeObservable()
+                .switchMap(repeatMode -> {
+                    if (repeatMode == RepeatMode.REPEAT_COMPOSITION) {
+                        return Observable.just(new Optional<CompositionSource>(null));
+                    }
+                    boolean loop = repeatMode == RepeatMode.REPEAT_PLAY_LIST;
+                    return playQueueRepository.getNextQueueItemObservable(loop)
+                            .map(this::toNextSource);
+                })
+                .distinctUntilChanged();
+    }
+
+    private Optional<CompositionSource> toNextSource(Optional<PlayQueueItem> itemOpt) {
+        PlayQueueItem item = itemOpt.getValue();
+        if (item == null) {
+            return new Optional<>(null);
+        }
+        return new Optional<>(new LibraryCompositionSource(item.getComposition(), 0));
+    }
+
+    private void onNextSourceChanged(Optional<CompositionSource> sourceOpt) {
+        playerCoordinatorInteractor.setNextSource(sourceOpt.getValue(), LIBRARY);
+    }
+
     private Single<Long> getActualTrackPosition() {
         return playerCoordinatorInteractor.getActualTrackPosition(LIBRARY)
                 .map(position -> {
@@ -21,6 +21,7 @@ import javax.annotation.Nullable;
 
 import io.reactivex.rxjava3.core.Completable;
 import io.reactivex.rxjava3.core.Observable;
+import io.reactivex.rxjava3.core.Single;
 
 import static com.github.anrimian.musicplayer.domain.interactors.player.PlayerType.EXTERNAL;
 import static com.github.anrimian.musicplayer.domain.interactors.player.PlayerType.LIBRARY;
@@ -134,8 +135,7 @@ public class MusicServiceInteractor {
     }
 
     public Completable playFromSearch(@Nullable String searchQuery, int position) {
-        return libraryCompositionsInteractor.getCompositionsObservable(searchQuery)
-                .firstOrError()
+        return libraryCompositionsInteractor.searchCompositions(searchQuery)
                 .doOnSuccess(compositions -> libraryPlayerInteractor.startPlaying(compositions, position))
                 .ignoreElement();
     }
@@ -178,8 +178,8 @@ public class MusicServiceInteractor {
                 MusicNotificationSetting::new);
     }
 
-    public Observable<List<Composition>> getCompositionsObservable(String searchText) {
-        return libraryCompositionsInteractor.getCompositionsObservable(searchText);
+    public Single<List<Composition>> searchCompositions(String searchText) {
+        return libraryCompositionsInteractor.searchCompositions(searchText);
     }
 
     public Completable startPlayingFromCompositions(int position) {
@@ -189,6 +189,14 @@ public class MusicServiceInteractor {
                 .ignoreElement();
     }
 
+    public Observable<List<Composition>> getCompositionsPageObservable(int offset, int limit) {
+        return libraryCompositionsInteractor.getCompositionsPageObservable(offset, limit);
+    }
+
+    public Observable<Object> getCompositionsChangeObservable() {
+        return libraryCompositionsInteractor.getCompositionsChangeObservable();
+    }
+
     public Observable<List<FileSource>> getFoldersObservable(@Nullable Long folderId) {
         return libraryFoldersInteractor.getFoldersInFolder(folderId, null);
     }
@@ -201,6 +209,14 @@ public class MusicServiceInteractor {
         return libraryArtistsInteractor.getArtistsObservable(null);
     }
 
+    public Observable<List<Artist>> getArtistsPageObservable(int offset, int limit) {
+        return libraryArtistsInteractor.getArtistsPageObservable(offset, limit);
+    }
+
+    public Observable<Object> getArtistsChangeObservable() {
+        return libraryArtistsInteractor.getArtistsChangeObservable();
+    }
+
     public Observable<List<Composition>> getCompositionsByArtist(long artistId) {
         return libraryArtistsInteractor.getCompositionsByArtist(artistId);
     }
@@ -216,6 +232,14 @@ public class MusicServiceInteractor {
         return libraryAlbumsInteractor.getAlbumsObservable(null);
     }
 
+    public Observable<List<Album>> getAlbumsPageObservable(int offset, int limit) {
+        return libraryAlbumsInteractor.getAlbumsPageObservable(offset, limit);
+    }
+
+    public Observable<Object> getAlbumsChangeObservable() {
+        return libraryAlbumsInteractor.getAlbumsChangeObservable();
+    }
+
     public Observable<List<Composition>> getAlbumItemsObservable(long albumId) {
         return libraryAlbumsInteractor.getAlbumItemsObservable(albumId);
     }
@@ -8,6 +8,8 @@ import com.github.anrimian.musicplayer.domain.repositories.UiStateRepository;
 
 import java.util.HashMap;
 
+import javax.annotation.Nullable;
+
 import io.reactivex.rxjava3.core.Observable;
 import io.reactivex.rxjava3.core.Single;
 import io.reactivex.rxjava3.subjects.BehaviorSubject;
@@ -18,6 +20,7 @@ public class PlayerCoordinatorInteractor {
     private final UiStateRepository uiStateRepository;
 
     private final HashMap<PlayerType, CompositionSource> preparedSourcesMap = new HashMap<>();
+    private final HashMap<PlayerType, CompositionSource> nextSourcesMap = new HashMap<>();
     private PlayerType activePlayerType = PlayerType.LIBRARY;
 
     private final BehaviorSubject<PlayerType> activePlayerTypeSubject = BehaviorSubject.createDefault(activePlayerType);
@@ -75,7 +78,9 @@ public class PlayerCoordinatorInteractor {
 
     public void reset(PlayerType playerType) {
         preparedSourcesMap.remove(playerType);
+        nextSourcesMap.remove(playerType);
         if (playerType == activePlayerType) {
+            playerInteractor.setNextSource(null);
             playerInteractor.reset();
         }
     }
@@ -99,6 +104,13 @@ public class PlayerCoordinatorInteractor {
         }
     }
 
+    public void setNextSource(@Nullable CompositionSource compositionSource, PlayerType playerType) {
+        nextSourcesMap.put(playerType, compositionSource);
+        if (playerType == activePlayerType) {
+            playerInteractor.setNextSource(compositionSource);
+        }
+    }
+
     public void onSeekStarted(PlayerType playerType) {
         if (activePlayerType == playerType) {
             playerInteractor.onSeekStarted();
@@ -166,6 +178,7 @@ public class PlayerCoordinatorInteractor {
             if (source != null) {
                 playerInteractor.prepareToPlay(source);
             }
+            playerInteractor.setNextSource(nextSourcesMap.get(playerType));
             CompositionSource oldSource = preparedSourcesMap.get(activePlayerType);
             if (oldSource != null) {
                 //noinspection ResultOfMethodCallIgnored
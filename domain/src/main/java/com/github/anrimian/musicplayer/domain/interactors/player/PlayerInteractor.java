@@ -73,6 +73,10 @@ public class PlayerInteractor {
         musicPlayerController.prepareToPlay(compositionSource);
     }
 
+    void setNextSource(@Nullable CompositionSource compositionSource) {
+        musicPlayerController.setNextSource(compositionSource);
+    }
+
     public void updateSource(CompositionSource source) {
         this.currentSource = source;
         currentSourceSubject.onNext(new Optional<>(currentSource));
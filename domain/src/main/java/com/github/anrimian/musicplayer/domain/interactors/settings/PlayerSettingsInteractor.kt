@@ -39,6 +39,13 @@ class PlayerSettingsInteractor(
         settingsRepository.soundBalance = soundBalance
     }
 
+    fun isVolumeNormalizationEnabled() = settingsRepository.isVolumeNormalizationEnabled
+
+    fun setVolumeNormalizationEnabled(enabled: Boolean) {
+        mediaPlayerController.setVolumeNormalizationEnabled(enabled)
+        settingsRepository.isVolumeNormalizationEnabled = enabled
+    }
+
     fun getSelectedEqualizerTypeObservable(): Observable<Int> = settingsRepository.selectedEqualizerTypeObservable
 
     fun getEnabledMediaPlayers(): IntArray = settingsRepository.enabledMediaPlayers
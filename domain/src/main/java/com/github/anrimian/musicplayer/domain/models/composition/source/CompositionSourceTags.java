@@ -6,17 +6,23 @@ public class CompositionSourceTags {
     private final String album;
     private final String albumArtist;
     private final String lyrics;
+    private final Float trackGain;
+    private final Float trackPeak;
 
     public CompositionSourceTags(String title,
                                  String artist,
                                  String album,
                                  String albumArtist,
-                                 String lyrics) {
+                                 String lyrics,
+                                 Float trackGain,
+                                 Float trackPeak) {
         this.title = title;
         this.artist = artist;
         this.album = album;
         this.albumArtist = albumArtist;
         this.lyrics = lyrics;
+        this.trackGain = trackGain;
+        this.trackPeak = trackPeak;
     }
 
     public String getTitle() {
@@ -38,4 +44,18 @@ public class CompositionSourceTags {
     public String getLyrics() {
         return lyrics;
     }
+
+    /**
+     * @return replay gain of track in dB or null if file has no gain tag
+     */
+    public Float getTrackGain() {
+        return trackGain;
+    }
+
+    /**
+     * @return peak sample amplitude of track, 1.0 is full scale, or null if file has no peak tag
+     */
+    public Float getTrackPeak() {
+        return trackPeak;
+    }
 }
@@ -0,0 +1,38 @@
+package com.github.anrimian.musicplayer.domain.models.folders;
+
+public class FileMoveProgress {
+
+    private final int movedCount;
+    private final int totalCount;
+
+    public FileMoveProgress(int movedCount, int totalCount) {
+        this.movedCount = movedCount;
+        this.totalCount = totalCount;
+    }
+
+    public int getMovedCount() {
+        return movedCount;
+    }
+
+    public int getTotalCount() {
+        return totalCount;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        FileMoveProgress that = (FileMoveProgress) o;
+
+        if (movedCount != that.movedCount) return false;
+        return totalCount == that.totalCount;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = movedCount;
+        result = 31 * result + totalCount;
+        return result;
+    }
+}
@@ -4,4 +4,8 @@ import com.github.anrimian.musicplayer.domain.models.composition.FullComposition
 
 sealed interface FileScannerState
 object Idle: FileScannerState
-data class Running(val composition: FullComposition): FileScannerState
\ No newline at end of file
+data class Running(
+    val composition: FullComposition,
+    val scannedCount: Int,
+    val totalCount: Int
+): FileScannerState
@@ -1,6 +1,7 @@
 package com.github.anrimian.musicplayer.domain.repositories;
 
 import com.github.anrimian.musicplayer.domain.models.composition.FullComposition;
+import com.github.anrimian.musicplayer.domain.models.folders.FileMoveProgress;
 import com.github.anrimian.musicplayer.domain.models.folders.FileSource;
 import com.github.anrimian.musicplayer.domain.models.genres.ShortGenre;
 import com.github.anrimian.musicplayer.domain.models.image.ImageSource;
@@ -10,6 +11,7 @@ import java.util.Collection;
 import javax.annotation.Nullable;
 
 import io.reactivex.rxjava3.core.Completable;
+import io.reactivex.rxjava3.core.Observable;
 import io.reactivex.rxjava3.core.Single;
 
 public interface EditorRepository {
@@ -37,14 +39,14 @@ public interface EditorRepository {
 
     Completable changeFolderName(long folderId, String folderName);
 
-    Completable moveFiles(Collection<FileSource> files,
-                          @Nullable Long fromFolderId,
-                          @Nullable Long toFolderId);
+    Observable<FileMoveProgress> moveFiles(Collection<FileSource> files,
+                                           @Nullable Long fromFolderId,
+                                           @Nullable Long toFolderId);
 
-    Completable moveFilesToNewDirectory(Collection<FileSource> files,
-                                        @Nullable Long fromFolderId,
-                                        @Nullable Long targetParentFolderId,
-                                        String directoryName);
+    Observable<FileMoveProgress> moveFilesToNewDirectory(Collection<FileSource> files,
+                                                         @Nullable Long fromFolderId,
+                                                         @Nullable Long targetParentFolderId,
+                                                         String directoryName);
 
     Completable updateAlbumName(String name, long id);
 
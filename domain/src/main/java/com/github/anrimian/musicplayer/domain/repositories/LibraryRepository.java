@@ -10,6 +10,7 @@ import com.github.anrimian.musicplayer.domain.models.folders.FolderFileSource;
 import com.github.anrimian.musicplayer.domain.models.folders.IgnoredFolder;
 import com.github.anrimian.musicplayer.domain.models.genres.Genre;
 import com.github.anrimian.musicplayer.domain.models.genres.ShortGenre;
+import com.github.anrimian.musicplayer.domain.utils.paging.PageSource;
 
 import java.util.List;
 
@@ -27,24 +28,52 @@ public interface LibraryRepository {
 
     Observable<List<Composition>> getAllCompositionsObservable(@Nullable String searchText);
 
+    /**
+     * @param limit max items count, negative value means all items after offset
+     */
+    Observable<List<Composition>> getCompositionsPageObservable(int offset, int limit);
+
+    /**
+     * Emits when compositions or their display settings are changed, without query of compositions
+     */
+    Observable<Object> getCompositionsChangeObservable();
+
+    PageSource<Composition> getCompositionsPageSource(@Nullable String searchText);
+
+    Single<List<Composition>> searchCompositions(@Nullable String searchText);
+
     Observable<FullComposition> getCompositionObservable(long id);
 
     Observable<List<Artist>> getArtistsObservable(@Nullable String searchText);
 
+    Observable<List<Artist>> getArtistsPageObservable(int offset, int limit);
+
+    Observable<Object> getArtistsChangeObservable();
+
     Observable<List<Album>> getAlbumsObservable(@Nullable String searchText);
 
+    Observable<List<Album>> getAlbumsPageObservable(int offset, int limit);
+
+    Observable<Object> getAlbumsChangeObservable();
+
     Observable<List<Genre>> getGenresObservable(@Nullable String searchText);
 
     Observable<List<ShortGenre>> getShortGenresInComposition(long compositionId);
 
     Observable<List<Composition>> getGenreItemsObservable(long genreId);
 
+    PageSource<Composition> getGenreItemsPageSource(long genreId);
+
     Observable<List<Composition>> getAlbumItemsObservable(long albumId);
 
+    PageSource<Composition> getAlbumItemsPageSource(long albumId);
+
     Observable<Album> getAlbumObservable(long albumId);
 
     Observable<List<Composition>> getCompositionsByArtist(long artistId);
 
+    PageSource<Composition> getCompositionsByArtistPageSource(long artistId);
+
     Observable<Artist> getArtistObservable(long artistId);
 
     Observable<List<Album>> getAllAlbumsForArtist(long artistId);
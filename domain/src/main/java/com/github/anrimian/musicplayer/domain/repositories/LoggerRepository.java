@@ -19,5 +19,9 @@ public interface LoggerRepository {
 
     boolean isReportDialogOnStartEnabled();
 
+    void setPerformanceMetricsEnabled(boolean enabled);
+
+    boolean isPerformanceMetricsEnabled();
+
     void clearErrorFlags();
 }
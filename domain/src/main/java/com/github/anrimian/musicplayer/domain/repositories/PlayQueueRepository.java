@@ -3,6 +3,7 @@ package com.github.anrimian.musicplayer.domain.repositories;
 import com.github.anrimian.musicplayer.domain.models.composition.Composition;
 import com.github.anrimian.musicplayer.domain.models.play_queue.PlayQueueEvent;
 import com.github.anrimian.musicplayer.domain.models.play_queue.PlayQueueItem;
+import com.github.anrimian.musicplayer.domain.utils.functions.Optional;
 
 import java.util.List;
 
@@ -30,6 +31,12 @@ public interface PlayQueueRepository {
 
     Single<Integer> skipToNext();
 
+    /**
+     * @param loop emit first item of queue when current item is the last one
+     * @return item which will be selected by {@link #skipToNext()}
+     */
+    Observable<Optional<PlayQueueItem>> getNextQueueItemObservable(boolean loop);
+
     void skipToPrevious();
 
     void skipToItem(long itemId);
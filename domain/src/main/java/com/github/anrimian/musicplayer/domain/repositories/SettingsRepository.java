@@ -152,4 +152,10 @@ public interface SettingsRepository {
     SoundBalance getSoundBalance();
 
     void setSoundBalance(SoundBalance soundBalance);
+
+    Observable<Boolean> getVolumeNormalizationEnabledObservable();
+
+    void setVolumeNormalizationEnabled(boolean enabled);
+
+    boolean isVolumeNormalizationEnabled();
 }
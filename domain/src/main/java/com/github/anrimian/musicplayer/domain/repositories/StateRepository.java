@@ -17,4 +17,16 @@ public interface StateRepository {
     long getLastCompleteScanTime();
 
     void setLastCompleteScanTime(long scanTime);
+
+    //high-water mark of the last media store scan, used to query only changed rows
+
+    long getLastStorageScanModifyTime();
+
+    long getLastStorageScanId();
+
+    void setLastStorageScanMark(long modifyTime, long storageId);
+
+    long getLastFullStorageScanTime();
+
+    void setLastFullStorageScanTime(long scanTime);
 }
@@ -85,4 +85,9 @@ public interface UiStateRepository {
 
     Observable<Float> getPlaybackSpeedObservable();
 
+    /**
+     * Saves changed state immediately instead of waiting for delayed write
+     */
+    void flush();
+
 }
@@ -2,6 +2,7 @@ package com.github.anrimian.musicplayer.domain.utils;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
@@ -103,6 +104,22 @@ public class ListUtils {
         return -1;
     }
 
+    public static <T> List<List<T>> chunked(Collection<T> from, int chunkSize) {
+        List<List<T>> result = new ArrayList<>();
+        List<T> chunk = new ArrayList<>(Math.min(chunkSize, from.size()));
+        for (T t: from) {
+            chunk.add(t);
+            if (chunk.size() == chunkSize) {
+                result.add(chunk);
+                chunk = new ArrayList<>(chunkSize);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            result.add(chunk);
+        }
+        return result;
+    }
+
     public interface MapperFunction<T, E> {
 
         E map(T t);
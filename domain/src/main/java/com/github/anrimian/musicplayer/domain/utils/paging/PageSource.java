@@ -0,0 +1,33 @@
+package com.github.anrimian.musicplayer.domain.utils.paging;
+
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+import io.reactivex.rxjava3.core.Observable;
+
+/**
+ * Ordered list of items which is loaded by pages.
+ *
+ * Page after already loaded item is selected by key of this item (keyset paging), so it costs
+ * the same at any position of the list. Page by offset is used for the first page of loaded range
+ * and when key item doesn't exist anymore.
+ *
+ * Load methods are blocking and are called on background thread.
+ */
+public interface PageSource<T> {
+
+    /**
+     * @return items count, emits on subscription and after each change of source data,
+     * even if count is not changed
+     */
+    Observable<Integer> getCountObservable();
+
+    List<T> loadPage(int offset, int limit);
+
+    /**
+     * @return items which follow given item in current order or null if item is not found
+     */
+    @Nullable
+    List<T> loadPageAfter(T item, int limit);
+}
@@ -0,0 +1,73 @@
+package com.github.anrimian.musicplayer.domain.utils.paging;
+
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+/**
+ * Immutable snapshot of paged list, items of not loaded pages are null.
+ *
+ * Snapshots share page instances, page which is not reloaded keeps the same instance
+ * in next snapshot. Not loaded items are requested by {@link #loadAround(int)}.
+ */
+public class PagedList<T> {
+
+    private final int size;
+    private final int pageSize;
+    private final Map<Integer, List<T>> pages;
+    private final PagedListLoader<T> loader;
+
+    PagedList(int size, int pageSize, Map<Integer, List<T>> pages, PagedListLoader<T> loader) {
+        this.size = size;
+        this.pageSize = pageSize;
+        this.pages = pages;
+        this.loader = loader;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public int getPagesCount() {
+        return (size + pageSize - 1) / pageSize;
+    }
+
+    @Nullable
+    public List<T> getPage(int pageIndex) {
+        return pages.get(pageIndex);
+    }
+
+    @Nullable
+    public T get(int position) {
+        List<T> page = pages.get(position / pageSize);
+        if (page == null) {
+            return null;
+        }
+        int index = position % pageSize;
+        return index < page.size()? page.get(index) : null;
+    }
+
+    /**
+     * Requests to load items around given position, new snapshot will be emitted by loader
+     */
+    public void loadAround(int position) {
+        loader.loadAround(position);
+    }
+
+    @Override
+    public String toString() {
+        return "PagedList{" +
+                "size=" + size +
+                ", loadedPages=" + pages.keySet() +
+                '}';
+    }
+}
@@ -0,0 +1,138 @@
+package com.github.anrimian.musicplayer.domain.utils.paging;
+
+import static com.github.anrimian.musicplayer.domain.Constants.TRIGGER;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.Nullable;
+
+import io.reactivex.rxjava3.core.Maybe;
+import io.reactivex.rxjava3.core.Observable;
+import io.reactivex.rxjava3.core.Scheduler;
+import io.reactivex.rxjava3.subjects.PublishSubject;
+
+/**
+ * Keeps window of pages around last requested position loaded and up to date.
+ *
+ * Pages of window are loaded from its start to its end, each next page is loaded by the last item
+ * of previous one. Pages which left the window are removed.
+ *
+ * On change of source data all loaded pages are marked as invalid and only pages of current window
+ * are reloaded, others are loaded again when the list is scrolled to them. Invalid page is shown
+ * until it is reloaded, so the list doesn't blink with placeholders.
+ *
+ * Loader supports one subscriber at a time.
+ */
+public class PagedListLoader<T> {
+
+    private static final int NO_COUNT = -1;
+
+    private final PageSource<T> source;
+    private final Scheduler scheduler;
+    private final int pageSize;
+    private final int prefetchPages;
+
+    private final PublishSubject<Object> loadRequestSubject = PublishSubject.create();
+
+    private volatile int requestedPage;
+
+    //accessed only by subscriber on scheduler thread
+    private final Map<Integer, List<T>> pages = new HashMap<>();
+    private final Set<Integer> invalidPages = new HashSet<>();
+    private int count = NO_COUNT;
+
+    /**
+     * @param prefetchPages count of pages to load before and after the page of requested position
+     */
+    public PagedListLoader(PageSource<T> source,
+                           Scheduler scheduler,
+                           int pageSize,
+                           int prefetchPages) {
+        this.source = source;
+        this.scheduler = scheduler;
+        this.pageSize = pageSize;
+        this.prefetchPages = prefetchPages;
+    }
+
+    public Observable<PagedList<T>> getPagedListObservable() {
+        return Observable.merge(source.getCountObservable().cast(Object.class), loadRequestSubject)
+                .observeOn(scheduler)
+                .flatMapMaybe(event -> Maybe.fromCallable(() -> processEvent(event)));
+    }
+
+    /**
+     * Requests to load items around given position, can be called on every item bind,
+     * repeated requests of the same page are ignored.
+     */
+    public void loadAround(int position) {
+        int page = Math.max(0, position) / pageSize;
+        if (requestedPage != page) {
+            requestedPage = page;
+            loadRequestSubject.onNext(TRIGGER);
+        }
+    }
+
+    @Nullable
+    private PagedList<T> processEvent(Object event) {
+        boolean changed = false;
+        if (event instanceof Integer) {
+            onSourceChanged((Integer) event);
+            changed = true;
+        }
+        if (count == NO_COUNT) {
+            return null;
+        }
+        changed |= loadWindow();
+        return changed? new PagedList<>(count, pageSize, new HashMap<>(pages), this) : null;
+    }
+
+    private void onSourceChanged(int count) {
+        this.count = count;
+        invalidPages.addAll(pages.keySet());
+    }
+
+    private boolean loadWindow() {
+        int pagesCount = (count + pageSize - 1) / pageSize;
+        int centerPage = Math.min(requestedPage, pagesCount - 1);
+        int start = Math.max(0, centerPage - prefetchPages);
+        int end = Math.min(pagesCount - 1, centerPage + prefetchPages);
+
+        boolean changed = false;
+        for (Iterator<Integer> it = pages.keySet().iterator(); it.hasNext(); ) {
+            int index = it.next();
+            if (index < start || index > end) {
+                it.remove();
+                invalidPages.remove(index);
+                changed = true;
+            }
+        }
+        for (int i = start; i <= end; i++) {
+            if (pages.containsKey(i) && !invalidPages.contains(i)) {
+                continue;
+            }
+            pages.put(i, loadPage(i));
+            invalidPages.remove(i);
+            changed = true;
+        }
+        return changed;
+    }
+
+    private List<T> loadPage(int index) {
+        List<T> previousPage = pages.get(index - 1);
+        if (previousPage != null
+                && !invalidPages.contains(index - 1)
+                && previousPage.size() == pageSize) {
+            List<T> page = source.loadPageAfter(previousPage.get(pageSize - 1), pageSize);
+            if (page != null) {
+                return page;
+            }
+        }
+        return source.loadPage(index * pageSize, pageSize);
+    }
+
+}
@@ -5,9 +5,12 @@ import static com.github.anrimian.musicplayer.domain.interactors.TestBusinessDat
 import static com.github.anrimian.musicplayer.domain.interactors.TestBusinessDataProvider.getFakeCompositions;
 import static com.github.anrimian.musicplayer.domain.models.player.error.ErrorType.NOT_FOUND;
 import static com.github.anrimian.musicplayer.domain.models.player.error.ErrorType.UNKNOWN;
+import static com.github.anrimian.musicplayer.domain.interactors.player.PlayerType.LIBRARY;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
 import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.isNull;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
@@ -17,6 +20,7 @@ import com.github.anrimian.musicplayer.domain.interactors.analytics.Analytics;
 import com.github.anrimian.musicplayer.domain.models.composition.CorruptionType;
 import com.github.anrimian.musicplayer.domain.models.composition.source.CompositionSource;
 import com.github.anrimian.musicplayer.domain.models.play_queue.PlayQueueEvent;
+import com.github.anrimian.musicplayer.domain.models.play_queue.PlayQueueItem;
 import com.github.anrimian.musicplayer.domain.models.player.events.ErrorEvent;
 import com.github.anrimian.musicplayer.domain.models.player.events.FinishedEvent;
 import com.github.anrimian.musicplayer.domain.models.player.events.PlayerEvent;
@@ -26,6 +30,7 @@ import com.github.anrimian.musicplayer.domain.repositories.LibraryRepository;
 import com.github.anrimian.musicplayer.domain.repositories.PlayQueueRepository;
 import com.github.anrimian.musicplayer.domain.repositories.SettingsRepository;
 import com.github.anrimian.musicplayer.domain.repositories.UiStateRepository;
+import com.github.anrimian.musicplayer.domain.utils.functions.Optional;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -50,6 +55,8 @@ public class LibraryPlayerInteractorTest {
 
     private final PublishSubject<PlayerEvent> playerEventSubject = PublishSubject.create();
     private final BehaviorSubject<PlayQueueEvent> currentCompositionSubject = BehaviorSubject.createDefault(currentItem(0));
+    private final BehaviorSubject<Integer> repeatModeSubject = BehaviorSubject.createDefault(RepeatMode.NONE);
+    private final PublishSubject<Optional<PlayQueueItem>> nextItemSubject = PublishSubject.create();
 
     private final InOrder inOrder = Mockito.inOrder(playQueueRepository,
             playerCoordinatorInteractor,
@@ -62,6 +69,7 @@ public class LibraryPlayerInteractorTest {
         when(playQueueRepository.getCurrentQueueItemObservable())
                 .thenReturn(currentCompositionSubject);
         when(playQueueRepository.skipToNext()).thenReturn(Single.just(1));
+        when(playQueueRepository.getNextQueueItemObservable(anyBoolean())).thenReturn(nextItemSubject);
 
         when(playerCoordinatorInteractor.getPlayerEventsObservable(any())).thenReturn(playerEventSubject);
         when(playerCoordinatorInteractor.getActualTrackPosition(any())).thenReturn(Single.just(0L));
@@ -72,6 +80,7 @@ public class LibraryPlayerInteractorTest {
 
         when(settingsRepository.isDecreaseVolumeOnAudioFocusLossEnabled()).thenReturn(true);
         when(settingsRepository.isPauseOnAudioFocusLossEnabled()).thenReturn(true);
+        when(settingsRepository.getRepeatModeObservable()).thenReturn(repeatModeSubject);
 
         libraryPlayerInteractor = new LibraryPlayerInteractor(
                 playerCoordinatorInteractor,
@@ -237,6 +246,24 @@ public class LibraryPlayerInteractorTest {
         verify(playerCoordinatorInteractor).reset(eq(PlayerType.LIBRARY));
     }
 
+    @Test
+    public void setNextSourceTest() {
+        verify(playQueueRepository).getNextQueueItemObservable(false);
+
+        nextItemSubject.onNext(new Optional<>(currentItem(1).getPlayQueueItem()));
+        verify(playerCoordinatorInteractor).setNextSource(eq(fakeCompositionSource(1)), eq(LIBRARY));
+
+        nextItemSubject.onNext(new Optional<>(null));
+        verify(playerCoordinatorInteractor).setNextSource(isNull(), eq(LIBRARY));
+
+        repeatModeSubject.onNext(RepeatMode.REPEAT_PLAY_LIST);
+        verify(playQueueRepository).getNextQueueItemObservable(true);
+
+        repeatModeSubject.onNext(RepeatMode.REPEAT_COMPOSITION);
+        nextItemSubject.onNext(new Optional<>(currentItem(2).getPlayQueueItem()));
+        verify(playerCoordinatorInteractor, never()).setNextSource(eq(fakeCompositionSource(2)), any());
+    }
+
     @Test
     public void skipToPreviousTest() {
         libraryPlayerInteractor.play();
@@ -0,0 +1,203 @@
+package com.github.anrimian.musicplayer.domain.utils.paging;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+import io.reactivex.rxjava3.core.Observable;
+import io.reactivex.rxjava3.observers.TestObserver;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+import io.reactivex.rxjava3.subjects.BehaviorSubject;
+
+public class PagedListLoaderTest {
+
+    private final TestPageSource source = new TestPageSource();
+
+    private final PagedListLoader<Integer> loader = new PagedListLoader<>(source,
+            Schedulers.trampoline(),
+            10,
+            1);
+
+    @Test
+    public void loadFirstWindowTest() {
+        TestObserver<PagedList<Integer>> observer = loader.getPagedListObservable().test();
+
+        source.setItems(createItems(100));
+
+        PagedList<Integer> list = getLastList(observer);
+        assertEquals(100, list.size());
+        assertEquals(0, list.get(0));
+        assertEquals(19, list.get(19));
+        assertNull(list.get(20));
+        assertEquals(1, source.offsetLoads);
+        assertEquals(1, source.keysetLoads);
+    }
+
+    @Test
+    public void loadEmptyListTest() {
+        TestObserver<PagedList<Integer>> observer = loader.getPagedListObservable().test();
+
+        source.setItems(new ArrayList<>());
+
+        PagedList<Integer> list = getLastList(observer);
+        assertEquals(0, list.size());
+        assertEquals(0, source.offsetLoads);
+    }
+
+    @Test
+    public void loadAroundPositionTest() {
+        TestObserver<PagedList<Integer>> observer = loader.getPagedListObservable().test();
+        source.setItems(createItems(100));
+
+        loader.loadAround(55);
+
+        PagedList<Integer> list = getLastList(observer);
+        assertNull(list.get(0));
+        assertNull(list.get(39));
+        assertEquals(40, list.get(40));
+        assertEquals(69, list.get(69));
+        assertNull(list.get(70));
+        assertEquals(2, source.offsetLoads);
+        assertEquals(3, source.keysetLoads);
+    }
+
+    @Test
+    public void keepLoadedPagesOnScrollTest() {
+        TestObserver<PagedList<Integer>> observer = loader.getPagedListObservable().test();
+        source.setItems(createItems(100));
+        PagedList<Integer> firstList = getLastList(observer);
+
+        loader.loadAround(15);
+
+        PagedList<Integer> list = getLastList(observer);
+        assertSame(firstList.getPage(0), list.getPage(0));
+        assertSame(firstList.getPage(1), list.getPage(1));
+        assertEquals(29, list.get(29));
+        assertEquals(1, source.offsetLoads);
+        assertEquals(2, source.keysetLoads);
+    }
+
+    @Test
+    public void ignoreRepeatedRequestsTest() {
+        TestObserver<PagedList<Integer>> observer = loader.getPagedListObservable().test();
+        source.setItems(createItems(100));
+
+        loader.loadAround(1);
+        loader.loadAround(9);
+
+        observer.assertValueCount(1);
+    }
+
+    @Test
+    public void reloadOnlyWindowOnChangeTest() {
+        TestObserver<PagedList<Integer>> observer = loader.getPagedListObservable().test();
+        source.setItems(createItems(100));
+        loader.loadAround(55);
+        PagedList<Integer> oldList = getLastList(observer);
+        int offsetLoads = source.offsetLoads;
+        int keysetLoads = source.keysetLoads;
+
+        List<Integer> items = createItems(100);
+        items.set(45, 1000);
+        source.setItems(items);
+
+        PagedList<Integer> list = getLastList(observer);
+        assertNotSame(oldList.getPage(4), list.getPage(4));
+        assertEquals(1000, list.get(45));
+        assertNull(list.get(0));
+        assertEquals(offsetLoads + 1, source.offsetLoads);
+        assertEquals(keysetLoads + 2, source.keysetLoads);
+    }
+
+    @Test
+    public void removePagesAfterEndOfListTest() {
+        TestObserver<PagedList<Integer>> observer = loader.getPagedListObservable().test();
+        source.setItems(createItems(100));
+        loader.loadAround(95);
+
+        source.setItems(createItems(15));
+
+        PagedList<Integer> list = getLastList(observer);
+        assertEquals(15, list.size());
+        assertEquals(0, list.get(0));
+        assertEquals(14, list.get(14));
+        assertNull(list.getPage(9));
+    }
+
+    @Test
+    public void loadPageByOffsetIfKeyItemIsNotFoundTest() {
+        TestObserver<PagedList<Integer>> observer = loader.getPagedListObservable().test();
+        source.setItems(createItems(100));
+        source.keyItemsExist = false;
+
+        loader.loadAround(15);
+
+        PagedList<Integer> list = getLastList(observer);
+        assertEquals(20, list.get(20));
+        assertEquals(2, source.offsetLoads);
+    }
+
+    private static PagedList<Integer> getLastList(TestObserver<PagedList<Integer>> observer) {
+        List<PagedList<Integer>> values = observer.values();
+        return values.get(values.size() - 1);
+    }
+
+    private static List<Integer> createItems(int count) {
+        List<Integer> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            items.add(i);
+        }
+        return items;
+    }
+
+    private static class TestPageSource implements PageSource<Integer> {
+
+        private final BehaviorSubject<Integer> countSubject = BehaviorSubject.create();
+
+        private List<Integer> items = new ArrayList<>();
+
+        int offsetLoads;
+        int keysetLoads;
+        boolean keyItemsExist = true;
+
+        void setItems(List<Integer> items) {
+            this.items = items;
+            countSubject.onNext(items.size());
+        }
+
+        @Override
+        public Observable<Integer> getCountObservable() {
+            return countSubject;
+        }
+
+        @Override
+        public List<Integer> loadPage(int offset, int limit) {
+            offsetLoads++;
+            return subList(offset, limit);
+        }
+
+        @Nullable
+        @Override
+        public List<Integer> loadPageAfter(Integer item, int limit) {
+            keysetLoads++;
+            int index = items.indexOf(item);
+            if (!keyItemsExist || index == -1) {
+                return null;
+            }
+            return subList(index + 1, limit);
+        }
+
+        private List<Integer> subList(int offset, int limit) {
+            int end = Math.min(offset + limit, items.size());
+            return new ArrayList<>(items.subList(offset, end));
+        }
+    }
+}